@@ -0,0 +1,57 @@
+package frc.robot.subsystem.navigation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frc.robot.utils.control.statespace.models.ltif.CLTIFModel;
+import frc.robot.utils.control.statespace.models.ltif.LTIFModel;
+
+
+
+/**
+ * Linearizing and discretizing the drivetrain, which a controller following a trajectory needs every loop.
+ * getModel() goes through the discretization cache, getExactModel() always runs C2D
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobotSystemBenchmark {
+    private RobotSystem sys = new RobotSystem();
+
+    private double v0 = 0;
+    private double theta0 = 0;
+
+
+
+    @Benchmark
+    public LTIFModel getModel() {
+        step();
+
+        return sys.getModel(v0, theta0);
+    }
+
+    @Benchmark
+    public CLTIFModel getExactModel() {
+        step();
+
+        return sys.getExactModel(v0, theta0);
+    }
+
+    // walk through different operating points like a robot driving around would
+    private void step() {
+        v0 = (v0 + 0.01) % 4;
+        theta0 = (theta0 + 0.003) % (2 * Math.PI);
+    }
+}
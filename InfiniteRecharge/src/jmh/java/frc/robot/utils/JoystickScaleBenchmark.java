@@ -0,0 +1,41 @@
+package frc.robot.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoystickScaleBenchmark {
+    @Param({"LINEAR", "SQUARE", "CUBE", "SINE"})
+    public JoystickScale scale;
+
+    private double x = -1;
+
+
+
+    @Benchmark
+    public double rescale() {
+        x += 0.01;
+        if (x > 1) {
+            x = -1;
+        }
+
+        return scale.rescale(x, 0.1);
+    }
+}
@@ -0,0 +1,108 @@
+package frc.robot.utils.control.statespace.estimators.kalman;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frc.robot.utils.control.statespace.models.motor.MotorPosition;
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+
+
+
+/**
+ * One predict/update cycle on the same motor model KalmanFilterTest uses,
+ * with both the SimpleMatrix filter and the in place one
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KalmanFilterBenchmark {
+    private MotorPosition model;
+    private KalmanFilter filter;
+    private InPlaceKalmanFilter inPlaceFilter;
+
+    private SimpleMatrix u;
+    private SimpleMatrix y;
+
+
+
+    @Setup
+    public void setup() {
+        model = new MotorPosition(0.02, MotorType.Falcon500, 0.001);
+        model.setState(new SimpleMatrix(2, 1, true, new double[] {Math.PI, Math.PI / 100}));
+
+        SimpleMatrix P0 = new SimpleMatrix(2, 2, true, new double[] {0.01, 0, 0, 0.02});
+        SimpleMatrix R = new SimpleMatrix(2, 2, true, new double[] {0.03, 0, 0, 0.04});
+        SimpleMatrix Q = new SimpleMatrix(2, 2, true, new double[] {0.05, 0, 0, 0.06});
+        SimpleMatrix G = new SimpleMatrix(2, 2, true, new double[] {1, 2, 3, 4});
+        SimpleMatrix C = new SimpleMatrix(2, 2, true, new double[] {2, 3, -0.1, 5});
+        SimpleMatrix D = new SimpleMatrix(2, 2);
+
+        filter = new KalmanFilter(P0, model) {
+            @Override
+            protected SimpleMatrix getR(SimpleMatrix state, SimpleMatrix input, double t) { return R; }
+            @Override
+            protected SimpleMatrix getQ(SimpleMatrix state, SimpleMatrix input, double t) { return Q; }
+            @Override
+            protected SimpleMatrix getG(SimpleMatrix state, SimpleMatrix input, double t) { return G; }
+            @Override
+            protected SimpleMatrix getD(SimpleMatrix state, SimpleMatrix input, double t) { return D; }
+            @Override
+            protected SimpleMatrix getC(SimpleMatrix state, SimpleMatrix input, double t) { return C; }
+        };
+
+        inPlaceFilter = new InPlaceKalmanFilter(P0, model) {
+            @Override
+            protected SimpleMatrix getR(SimpleMatrix state, SimpleMatrix input, double t) { return R; }
+            @Override
+            protected SimpleMatrix getQ(SimpleMatrix state, SimpleMatrix input, double t) { return Q; }
+            @Override
+            protected SimpleMatrix getG(SimpleMatrix state, SimpleMatrix input, double t) { return G; }
+            @Override
+            protected SimpleMatrix getD(SimpleMatrix state, SimpleMatrix input, double t) { return D; }
+            @Override
+            protected SimpleMatrix getC(SimpleMatrix state, SimpleMatrix input, double t) { return C; }
+        };
+
+        u = new SimpleMatrix(1, 1, true, new double[] {8});
+        y = new SimpleMatrix(2, 1, true, new double[] {181, 295});
+    }
+
+
+
+    @Benchmark
+    public SimpleMatrix predict() {
+        model.apply(u);
+        return filter.predict();
+    }
+
+    @Benchmark
+    public SimpleMatrix update() {
+        return filter.update(y);
+    }
+
+    @Benchmark
+    public SimpleMatrix inPlacePredict() {
+        model.apply(u);
+        return inPlaceFilter.predict();
+    }
+
+    @Benchmark
+    public DMatrixRMaj inPlaceUpdate() {
+        return inPlaceFilter.update(y);
+    }
+}
@@ -0,0 +1,84 @@
+package frc.robot.utils.control.statespace.models;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import frc.robot.utils.math.MathUtils;
+
+
+
+/**
+ * Discretizing a drivetrain sized (5 states, 2 inputs) system, which the
+ * navigation subsystem does every loop
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class C2DBenchmark {
+    private SimpleMatrix A;
+    private SimpleMatrix B;
+    private SimpleMatrix F;
+    private SimpleMatrix s;
+
+    private double dt = 0.02;
+
+
+
+    @Setup
+    public void setup() {
+        A = new SimpleMatrix(new double[][] {
+            new double[] {0, 0, -0.5, 0.5, 0.5},
+            new double[] {0, 0, 1.2, 0.1, 0.1},
+            new double[] {0, 0, 0, -1.6, 1.6},
+            new double[] {0, 0, 0, -9.3, 2.1},
+            new double[] {0, 0, 0, 2.1, -9.3}
+        });
+
+        B = new SimpleMatrix(new double[][] {
+            new double[] {0, 0},
+            new double[] {0, 0},
+            new double[] {0, 0},
+            new double[] {3.2, -0.7},
+            new double[] {-0.7, 3.2}
+        });
+
+        F = new SimpleMatrix(new double[][] {
+            new double[] {0.1},
+            new double[] {-0.1},
+            new double[] {0},
+            new double[] {-1.3},
+            new double[] {-1.3}
+        });
+
+        s = new SimpleMatrix(10, 10);
+        s.insertIntoThis(0, 0, A);
+        s.insertIntoThis(0, 5, SimpleMatrix.identity(5));
+        s = s.scale(dt);
+    }
+
+
+
+    @Benchmark
+    public ABFTriple c2d() {
+        return C2D.c2d(A, B, F, dt);
+    }
+
+    @Benchmark
+    public SimpleMatrix expm() {
+        return MathUtils.expm(s);
+    }
+}
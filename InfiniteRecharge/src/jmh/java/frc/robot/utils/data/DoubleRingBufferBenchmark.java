@@ -0,0 +1,65 @@
+package frc.robot.utils.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoubleRingBufferBenchmark {
+    @Param({"10", "100"})
+    public int length;
+
+    private DoubleRingBuffer window;
+    private double x = 0;
+
+
+
+    @Setup
+    public void setup() {
+        window = new DoubleRingBuffer(length);
+
+        for (int i = 0; i < length; i++) {
+            window.add(Math.sin(i));
+        }
+    }
+
+
+
+    @Benchmark
+    public void add() {
+        x += 0.1;
+        window.add(x);
+    }
+
+    @Benchmark
+    public double getVariance() {
+        return window.getVariance();
+    }
+
+    @Benchmark
+    public double getMax() {
+        return window.getMax();
+    }
+
+    @Benchmark
+    public double getMedian() {
+        return window.getMedian();
+    }
+}
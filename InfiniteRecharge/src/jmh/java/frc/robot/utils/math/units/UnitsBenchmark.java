@@ -0,0 +1,59 @@
+package frc.robot.utils.math.units;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * What a motor controller does every loop to get between native and preferred units
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnitsBenchmark {
+    private Unit ticksPer100ms;
+    private UnitConversion conversion;
+
+    private double value = 1234.5;
+
+
+
+    @Setup
+    public void setup() {
+        BaseUnit tick = new BaseUnit(Units.REV, 2048, "tick");
+        ticksPer100ms = (new UnitBuilder()).num(tick).denom(Units.MS100).make();
+
+        conversion = UnitConversion.between(ticksPer100ms, Units.RAD_PER_S);
+    }
+
+
+
+    @Benchmark
+    public double quantityTo() {
+        return new Quantity(value, ticksPer100ms).to(Units.RAD_PER_S).getValue();
+    }
+
+    @Benchmark
+    public double unitPer() {
+        return ticksPer100ms.per(Units.RAD_PER_S);
+    }
+
+    @Benchmark
+    public double unitConversion() {
+        return conversion.convert(value);
+    }
+}
@@ -10,6 +10,7 @@ package frc.robot;
 import java.util.ArrayList;
 import java.util.List;
 
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
@@ -24,6 +25,17 @@ import frc.robot.subsystem.drive.DriveUtils;
 import frc.robot.subsystem.navigation.NavigationSubsystem;
 import frc.robot.subsystem.scoring.intake.IntakeSubsystem;
 import frc.robot.subsystem.scoring.shooter.ShooterSubsystem;
+import frc.robot.subsystem.telemetry.TelemetrySubsystem;
+import frc.robot.utils.control.statespace.controllers.GainSchedule;
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+import frc.robot.utils.profiling.LoopProfiler;
+import frc.robot.utils.profiling.LoopProfiler.Phase;
+import frc.robot.utils.roborio.RoboRIOFS;
+import frc.robot.utils.telemetry.DashboardPublisher;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.TelemetryRecorder;
+import frc.robot.utils.telemetry.TelemetryChannel.DoubleChannel;
 
 /**
  * The VM is configured to automatically run this class, and to call the
@@ -39,6 +51,7 @@ public class Robot extends TimedRobot {
     private NavigationSubsystem navigationSubsystem;
     private DriveSubsystem driveSubsystem;
     private VisionSubsystem visionSubsystem;
+    private TelemetrySubsystem telemetrySubsystem;
     private Config config;
 
     public float deltaTime;
@@ -49,6 +62,16 @@ public class Robot extends TimedRobot {
 
     private List<BitBucketSubsystem> subsystems = new ArrayList<>();
 
+    private LoopProfiler profiler;
+    private int[] subsystemProfilerIDs;
+    private int schedulerProfilerID;
+
+    private TelemetryRecorder recorder;
+    private DoubleChannel deltaTimeChannel;
+
+    private final DashboardPublisher dashboard = new DashboardPublisher();
+    private NumberEntry deltaTimeEntry;
+
     /**
      * This function is run when the robot is first started up and should be used
      * for any initialization code.
@@ -57,6 +80,11 @@ public class Robot extends TimedRobot {
     public void robotInit() {
         config = ConfigChooser.getConfig();
 
+        // before anything builds a model out of them
+        MotorType.loadIdentified(Filesystem.getDeployDirectory().toPath().resolve(config.motorTypeFile));
+        // made offline from those same constants by GainTool
+        GainSchedule.loadPrecomputed(Filesystem.getDeployDirectory().toPath().resolve(config.gainScheduleFile));
+
         visionSubsystem = new VisionSubsystem(config);
         subsystems.add(visionSubsystem);
 
@@ -70,6 +98,10 @@ public class Robot extends TimedRobot {
 
         if (config.enableShooterSubsystem) {
             shooterSubsystem = new ShooterSubsystem(config, visionSubsystem);
+            if (config.enableDriveSubsystem) {
+                shooterSubsystem.setNavigation(navigationSubsystem);
+                navigationSubsystem.setShooter(shooterSubsystem);
+            }
             subsystems.add(shooterSubsystem);
         }
 
@@ -83,10 +115,31 @@ public class Robot extends TimedRobot {
             subsystems.add(spinnyBoiSubsystem);
         }
 
+        // has to go last so it commits after everyone else has set their channels
+        if (config.enableTelemetrySubsystem) {
+            telemetrySubsystem = new TelemetrySubsystem(config);
+            subsystems.add(telemetrySubsystem);
+        }
+
+        // everyone records into the same recorder
+        recorder = new TelemetryRecorder(config.telemetry, RoboRIOFS.TELEMETRY_PATH);
+        deltaTimeChannel = recorder.addDouble("Robot/deltaTime");
+        deltaTimeEntry = dashboard.addNumber("deltaTime", Rate.Fast, 0.001);
+        for (BitBucketSubsystem subsystem : subsystems) {
+            subsystem.setRecorder(recorder);
+        }
+
         for (BitBucketSubsystem subsystem : subsystems) {
             subsystem.initialize();
         }
 
+        profiler = new LoopProfiler(config.profiler);
+        subsystemProfilerIDs = new int[subsystems.size()];
+        for (int i = 0; i < subsystems.size(); i++) {
+            subsystemProfilerIDs[i] = profiler.register(subsystems.get(i).getName(), Phase.Periodic, Phase.Dashboard);
+        }
+        schedulerProfilerID = profiler.register("CommandScheduler", Phase.Scheduler);
+
         lastTime = System.currentTimeMillis();
     }
 
@@ -103,14 +156,32 @@ public class Robot extends TimedRobot {
     public void robotPeriodic() {
         currentTime = System.currentTimeMillis();
         deltaTime = (currentTime - lastTime) / 1000f;
-        SmartDashboard.putNumber("deltaTime", deltaTime);
+        deltaTimeEntry.set(deltaTime);
+        deltaTimeChannel.set(deltaTime);
 
-        for (BitBucketSubsystem subsystem : subsystems) {
+        profiler.startLoop();
+
+        for (int i = 0; i < subsystems.size(); i++) {
+            BitBucketSubsystem subsystem = subsystems.get(i);
+
+            long start = System.nanoTime();
             subsystem.periodic(deltaTime);
+            long periodicEnd = System.nanoTime();
             subsystem.dashboardPeriodic(deltaTime);
+            subsystem.flushDashboard();
+            long dashboardEnd = System.nanoTime();
+
+            profiler.record(subsystemProfilerIDs[i], Phase.Periodic, periodicEnd - start);
+            profiler.record(subsystemProfilerIDs[i], Phase.Dashboard, dashboardEnd - periodicEnd);
         }
 
+        long schedulerStart = System.nanoTime();
         CommandScheduler.getInstance().run();
+        profiler.record(schedulerProfilerID, Phase.Scheduler, System.nanoTime() - schedulerStart);
+
+        dashboard.flush();
+
+        profiler.endLoop();
 
         lastTime = currentTime;
     }
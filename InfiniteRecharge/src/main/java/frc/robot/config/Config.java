@@ -15,6 +15,7 @@ public class Config {
     public boolean enableClimbSubsystem = true;
     public boolean enableIntakeSubsystem = true;
     public boolean enableSpinnyboiSubsystem = true;
+    public boolean enableTelemetrySubsystem = true;
 
     //////////////////////////////////////////////////////////////////////////////
     // Motor IDs
@@ -48,6 +49,11 @@ public class Config {
 
         public float shooterGearRatio = .48f / 1f;
 
+        /** use the state space Flywheel instead of the Talon's velocity PID, once flywheelInertia_kgm2 is measured */
+        public boolean useStateSpaceFlywheel = false;
+        /** moment of inertia of everything that spins with the flywheel, at the flywheel */
+        public double flywheelInertia_kgm2 = 0.003;
+
         public float defaultAzimuthTurnVelocity_deg = 10;
         public float defaultElevationTurnVelocity_deg = 10;
 
@@ -159,11 +165,74 @@ public class Config {
         }
     }
 
+    public static class ProfilerConfig {
+        public boolean enabled = true;
+
+        /** How long one robot loop is allowed to take */
+        public double loopBudget_ms = 20;
+        /** Fraction of the loop budget any one subsystem may use before it's flagged */
+        public double sectionBudgetShare = 0.25;
+
+        public double publishPeriod_s = 1;
+        public double histogramResolution_us = 25;
+    }
+
+    public static class TelemetryConfig {
+        /** Records that can be waiting to be written before new ones get dropped */
+        public int bufferRecords = 512;
+        /** Records per segment file, 5 minutes at 50 Hz */
+        public int recordsPerSegment = 15000;
+        /** Oldest segments get deleted to keep all of them under this */
+        public double maxTotal_MB = 256;
+        /** Biggest a record can be, channels past this don't get recorded */
+        public int maxRecordSize = 4096;
+
+        public double flushPeriod_s = 0.1;
+    }
+
+    public static class BallisticsConfig {
+        // range the table covers
+        public double minDistance_in = 36;
+        public double maxDistance_in = 480;
+        public double distanceStep_in = 12;
+        /** launch angle above horizontal */
+        public double minAngle_deg = 15;
+        public double maxAngle_deg = 75;
+        public double angleStep_deg = 2.5;
+
+        /** height of the middle of the target off the floor */
+        public double targetHeight_in = 98.25;
+        /** height the ball leaves the shooter at */
+        public double launchHeight_in = 22;
+        /** launch angle when the elevation is at 0 deg */
+        public double launchAngleOffset_deg = 30;
+
+        public double ballMass_kg = 0.142;
+        public double ballDiameter_in = 7;
+        /** 0 turns drag off */
+        public double dragCoefficient = 0.5;
+
+        public double flywheelRadius_in = 2;
+        /** how fast the ball leaves compared to the flywheel's surface speed */
+        public double flywheelEfficiency = 1;
+
+        /** file in the deploy directory with measured shots to correct the table with */
+        public String calibrationFile = "ballistics.csv";
+    }
+
     public ShooterConfig shooter = new ShooterConfig();
     public BallManagementConfig ballManagement = new BallManagementConfig();
     public DriveConfig drive = new DriveConfig();
     public IntakeConfig intake = new IntakeConfig();
     public SpinnyBoiConfig spinnyboi = new SpinnyBoiConfig();
+    public ProfilerConfig profiler = new ProfilerConfig();
+    public TelemetryConfig telemetry = new TelemetryConfig();
+    public BallisticsConfig ballistics = new BallisticsConfig();
+
+    /** file in the deploy directory with precomputed controller gains (see frc.robot.tools.GainTool) */
+    public String gainScheduleFile = "gains.bin";
+    /** file in the deploy directory with measured motor constants (see frc.robot.tools.MotorIdTool) */
+    public String motorTypeFile = "motors.txt";
 
     public Config() {
 
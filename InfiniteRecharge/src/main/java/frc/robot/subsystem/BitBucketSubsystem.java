@@ -12,6 +12,11 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.config.Config;
 import frc.robot.subsystem.SubsystemUtilities.DiagnosticsState;
+import frc.robot.utils.telemetry.DashboardPublisher;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.DashboardPublisher.StringEntry;
+import frc.robot.utils.telemetry.TelemetryRecorder;
 
 /**
  *
@@ -39,11 +44,29 @@ public abstract class BitBucketSubsystem extends SubsystemBase {
 
 	protected int periodicCounter = 0;
 
+	// Binary telemetry recorder to register channels with in initialize().
+	// Until setRecorder() is called this is TelemetryRecorder.NONE, so channels
+	// can always be registered and set but nothing gets written.
+	protected TelemetryRecorder recorder = TelemetryRecorder.NONE;
+
+	// SmartDashboard values that get set every loop should be registered with
+	// this in initialize() and set() instead of SmartDashboard.put*(). Robot
+	// flushes it after dashboardPeriodic().
+	protected final DashboardPublisher dashboard = new DashboardPublisher();
+
+	private NumberEntry periodicCounterEntry;
+	private StringEntry currentCommandEntry;
+
 	public BitBucketSubsystem(Config config) {
 		setName(getClass().getSimpleName());
 		this.config = config;
 	}
 
+	/** Set the recorder to record to. Has to be called before initialize() */
+	public void setRecorder(TelemetryRecorder recorder) {
+		this.recorder = recorder;
+	}
+
 	protected void dashboardInit() {
 		SmartDashboard.putBoolean(getName() + "/TelemetryEnabled", telemetryEnabled);
 		SmartDashboard.putBoolean(getName() + "/DiagnosticsEnabled", diagnosticsEnabled);
@@ -54,12 +77,23 @@ public abstract class BitBucketSubsystem extends SubsystemBase {
 
 	/** updateBaseDashboard - call from derived class periodic function */
 	protected void updateBaseDashboard() {
-		SmartDashboard.putNumber(getName() + "/PeriodicCounter", periodicCounter++);
+		// registered here instead of the constructor since the name can change after that
+		if (periodicCounterEntry == null) {
+			periodicCounterEntry = dashboard.addNumber(getName() + "/PeriodicCounter", Rate.Slow);
+			currentCommandEntry = dashboard.addString(getName() + "/CurrentCommand", Rate.Slow);
+		}
+
+		periodicCounterEntry.set(periodicCounter++);
 		if (getCurrentCommand() != null) {
-			SmartDashboard.putString(getName() + "/CurrentCommand", getCurrentCommand().getName());
+			currentCommandEntry.set(getCurrentCommand().getName());
 		}
 	}
 
+	/** Write this subsystem's dashboard values that are due. Called by Robot every loop. */
+	public void flushDashboard() {
+		dashboard.flush();
+	}
+
 	/**
 	 * getTelementryEnabled - returns the current dashboard state
 	 * 
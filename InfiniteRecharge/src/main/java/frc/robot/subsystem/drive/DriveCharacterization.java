@@ -0,0 +1,346 @@
+package frc.robot.subsystem.drive;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import frc.robot.utils.control.statespace.modeling.identification.QRRecursiveLeastSquares;
+import frc.robot.utils.control.statespace.modeling.identification.Regression;
+
+
+
+/**
+ * Finds the drivetrain's kS, kV and kA in test mode, the same way the
+ * characterization tool does but on the robot.
+ *
+ * It drives straight with a slow voltage ramp (quasistatic, so the
+ * acceleration's about 0 and it's all kS and kV) and then a voltage step
+ * (dynamic, for kA), forwards and backwards, resting in between. Every sample
+ * goes into a QR recursive least squares fit of V = kS sgn(v) + kV v + kA a
+ * for each side and for both together, so the estimates are there as soon as
+ * it's done and there's no log to copy off.
+ *
+ * Everything's in the robot's frame (forward is positive on both sides) and in
+ * meters, which is what the trajectory constraints use.
+ */
+public class DriveCharacterization {
+    public enum Phase {
+        QUASISTATIC_FORWARD(1, false),
+        QUASISTATIC_BACKWARD(-1, false),
+        DYNAMIC_FORWARD(1, true),
+        DYNAMIC_BACKWARD(-1, true),
+        DONE(0, false);
+
+        private final double SIGN;
+        private final boolean STEP;
+
+        private Phase(double sign, boolean step) {
+            SIGN = sign;
+            STEP = step;
+        }
+    }
+
+    public enum Side {
+        LEFT,
+        RIGHT,
+        BOTH
+    }
+
+
+
+    /** kS, kV and kA with their 95% confidences */
+    public static class Fit {
+        public final double ks, kv, ka;
+        public final double ksConfidence, kvConfidence, kaConfidence;
+        public final long samples;
+
+        public Fit(double ks, double kv, double ka) {
+            this(ks, kv, ka, Double.NaN, Double.NaN, Double.NaN, 0);
+        }
+
+        private Fit(double ks, double kv, double ka, double ksConfidence, double kvConfidence, double kaConfidence, long samples) {
+            this.ks = ks;
+            this.kv = kv;
+            this.ka = ka;
+            this.ksConfidence = ksConfidence;
+            this.kvConfidence = kvConfidence;
+            this.kaConfidence = kaConfidence;
+            this.samples = samples;
+        }
+
+        /** @return whether it could be a real drivetrain, which a fit on bad data often can't */
+        public boolean isValid() {
+            return ks >= 0 && kv > 0 && ka > 0
+                && Double.isFinite(ks) && Double.isFinite(kv) && Double.isFinite(ka);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "kS %.4f +- %.4f V, kV %.4f +- %.4f V/(m/s), kA %.4f +- %.4f V/(m/s^2) from %d samples",
+                ks, ksConfidence, kv, kvConfidence, ka, kaConfidence, samples
+            );
+        }
+    }
+
+
+
+    /** one side's fit and the last sample it got */
+    private static class Regressor {
+        private final Regression regression = new QRRecursiveLeastSquares(3, 1);
+        private final double[] x = new double[3];
+
+        private double lastTime = Double.NaN;
+        private double lastVelocity;
+
+        /** @param voltage what's been applied since the last sample */
+        private void add(double time, double voltage, double velocity_mps, Regression both) {
+            double dt = time - lastTime;
+
+            // each sample is the midpoint between this one and the last,
+            // which is where the difference is a good acceleration
+            if (dt > 0) {
+                double v = (velocity_mps + lastVelocity) / 2;
+
+                if (Math.abs(v) >= DriveConstants.CHARACTERIZATION_MIN_VELOCITY_MPS) {
+                    x[0] = Math.signum(v);
+                    x[1] = v;
+                    x[2] = (velocity_mps - lastVelocity) / dt;
+
+                    regression.add(x, voltage);
+                    both.add(x, voltage);
+                }
+            }
+
+            lastTime = time;
+            lastVelocity = velocity_mps;
+        }
+
+        private void restart() {
+            lastTime = Double.NaN;
+        }
+    }
+
+
+
+    private final double RAMP_RATE_VPS;
+    private final double STEP_VOLTAGE;
+    private final double MAX_VOLTAGE;
+    private final double MAX_DISTANCE_M;
+
+    private final Regressor left = new Regressor();
+    private final Regressor right = new Regressor();
+    private final Regression both = new QRRecursiveLeastSquares(3, 1);
+
+    private Phase phase = Phase.DONE;
+    private boolean resting = false;
+    private double phaseStart;
+    private double startDistance_m;
+    private double voltage = 0;
+
+
+
+    public DriveCharacterization() {
+        this(
+            DriveConstants.CHARACTERIZATION_RAMP_RATE_VPS,
+            DriveConstants.CHARACTERIZATION_STEP_VOLTS,
+            DriveConstants.AUTO_MAX_VOLTAGE,
+            DriveConstants.CHARACTERIZATION_MAX_DISTANCE_M
+        );
+    }
+
+    /**
+     * @param rampRate_vps how fast the quasistatic ramp goes up
+     * @param stepVoltage what the dynamic step is
+     * @param maxVoltage most it'll ever command
+     * @param maxDistance_m how far it can drive in each phase before it stops
+     */
+    public DriveCharacterization(double rampRate_vps, double stepVoltage, double maxVoltage, double maxDistance_m) {
+        RAMP_RATE_VPS = rampRate_vps;
+        STEP_VOLTAGE = stepVoltage;
+        MAX_VOLTAGE = maxVoltage;
+        MAX_DISTANCE_M = maxDistance_m;
+    }
+
+
+
+    /** Throw away what it's found and start from the first phase */
+    public void start(double time) {
+        left.regression.reset();
+        right.regression.reset();
+        both.reset();
+
+        phase = Phase.QUASISTATIC_FORWARD;
+        resting = true;
+        phaseStart = time;
+        voltage = 0;
+    }
+
+    /**
+     * Take a sample and figure out what to do next. Call every loop.
+     *
+     * @param leftVoltage what the left side's actually been getting since the last step,
+     * so read it before setting the new command
+     * @param rightVoltage same for the right side
+     * @param distance_m average distance both sides have gone
+     * @return voltage to command on both sides
+     */
+    public double step(
+        double time,
+        double leftVoltage, double leftVelocity_mps,
+        double rightVoltage, double rightVelocity_mps,
+        double distance_m
+    ) {
+        if (phase == Phase.DONE) {
+            return voltage = 0;
+        }
+
+        double elapsed = time - phaseStart;
+
+        if (resting) {
+            // wait until it's actually stopped so the next phase starts from rest
+            if (
+                elapsed >= DriveConstants.CHARACTERIZATION_REST_S
+                && Math.abs(leftVelocity_mps) < DriveConstants.CHARACTERIZATION_MIN_VELOCITY_MPS
+                && Math.abs(rightVelocity_mps) < DriveConstants.CHARACTERIZATION_MIN_VELOCITY_MPS
+            ) {
+                resting = false;
+                phaseStart = time;
+                startDistance_m = distance_m;
+                left.restart();
+                right.restart();
+
+                elapsed = 0;
+            } else {
+                return voltage = 0;
+            }
+        }
+
+        left.add(time, leftVoltage, leftVelocity_mps, both);
+        right.add(time, rightVoltage, rightVelocity_mps, both);
+
+        double limit = phase.STEP ? DriveConstants.CHARACTERIZATION_DYNAMIC_S : MAX_VOLTAGE / RAMP_RATE_VPS;
+        if (elapsed >= limit || Math.abs(distance_m - startDistance_m) >= MAX_DISTANCE_M) {
+            phase = Phase.values()[phase.ordinal() + 1];
+            resting = true;
+            phaseStart = time;
+
+            return voltage = 0;
+        }
+
+        double magnitude = phase.STEP ? STEP_VOLTAGE : RAMP_RATE_VPS * elapsed;
+        return voltage = phase.SIGN * Math.min(magnitude, MAX_VOLTAGE);
+    }
+
+    /** Stop where it is, keeping whatever it's fit so far */
+    public void stop() {
+        phase = Phase.DONE;
+        voltage = 0;
+    }
+
+
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public boolean isResting() {
+        return resting;
+    }
+
+    public boolean isDone() {
+        return phase == Phase.DONE;
+    }
+
+    /** @return last voltage step() gave */
+    public double getVoltage() {
+        return voltage;
+    }
+
+    /** @return the side's fit so far, null if there isn't enough data for one yet */
+    public Fit getFit(Side side) {
+        Regression regression;
+        switch (side) {
+            case LEFT:
+                regression = left.regression;
+                break;
+            case RIGHT:
+                regression = right.regression;
+                break;
+            default:
+                regression = both;
+        }
+
+        double[] theta = regression.getParameters();
+        if (theta == null || regression.getCovariance() == null) {
+            return null;
+        }
+
+        return new Fit(
+            theta[0], theta[1], theta[2],
+            regression.getConfidence(0), regression.getConfidence(1), regression.getConfidence(2),
+            regression.getCount()
+        );
+    }
+
+
+
+    /**
+     * Read saved fits: one per line as "side kS kV kA", with # comments
+     *
+     * @return fits by side, empty if the file doesn't exist or can't be read
+     */
+    public static Map<Side, Fit> load(Path path) {
+        Map<Side, Fit> fits = new LinkedHashMap<Side, Fit>();
+
+        if (!Files.exists(path)) {
+            return fits;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("\\s+");
+                try {
+                    fits.put(Side.valueOf(fields[0].toUpperCase()), new Fit(
+                        Double.parseDouble(fields[1]),
+                        Double.parseDouble(fields[2]),
+                        Double.parseDouble(fields[3])
+                    ));
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    System.out.println("Skipping bad line in " + path + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't read characterization file " + path + ": " + e.getMessage());
+            fits.clear();
+        }
+
+        return fits;
+    }
+
+    /** Write fits that load() can read */
+    public static void save(Path path, Map<Side, Fit> fits) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# side kS (V) kV (V/(m/s)) kA (V/(m/s^2))");
+            writer.newLine();
+
+            for (Map.Entry<Side, Fit> entry : fits.entrySet()) {
+                Fit fit = entry.getValue();
+
+                writer.write(entry.getKey().name().toLowerCase() + " " + fit.ks + " " + fit.kv + " " + fit.ka);
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -87,4 +87,15 @@ public class DriveConstants {
 
 
     static final double AUTO_MAX_VOLTAGE = 11;
+
+
+
+    // test mode characterization (see DriveCharacterization)
+    static final double CHARACTERIZATION_RAMP_RATE_VPS = 0.25;
+    static final double CHARACTERIZATION_STEP_VOLTS = 6;
+    static final double CHARACTERIZATION_DYNAMIC_S = 2;
+    static final double CHARACTERIZATION_MAX_DISTANCE_M = 4;
+    static final double CHARACTERIZATION_REST_S = 1;
+    /** slower than this counts as stopped, and isn't fit since kS is all over the place there */
+    static final double CHARACTERIZATION_MIN_VELOCITY_MPS = 0.05;
 }
\ No newline at end of file
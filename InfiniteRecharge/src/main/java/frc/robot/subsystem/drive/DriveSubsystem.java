@@ -1,6 +1,9 @@
 package frc.robot.subsystem.drive;
 
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
@@ -8,6 +11,8 @@ import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.controller.SimpleMotorFeedforward;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.kinematics.DifferentialDriveKinematics;
@@ -21,11 +26,20 @@ import edu.wpi.first.wpilibj.trajectory.constraint.DifferentialDriveVoltageConst
 import frc.robot.config.Config;
 import frc.robot.operatorinterface.OI;
 import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.subsystem.drive.DriveCharacterization.Fit;
+import frc.robot.subsystem.drive.DriveCharacterization.Side;
 import frc.robot.subsystem.navigation.NavigationSubsystem;
 import frc.robot.utils.JoystickScale;
 import frc.robot.utils.data.filters.RisingEdgeFilter;
 import frc.robot.utils.math.MathUtils;
+import frc.robot.utils.roborio.RoboRIOFS;
+import frc.robot.utils.talonutils.MotorSettings;
 import frc.robot.utils.talonutils.MotorUtils;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.DashboardPublisher.StringEntry;
+import frc.robot.utils.telemetry.TelemetryChannel.DoubleChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.EnumChannel;
 
 
 
@@ -39,6 +53,45 @@ public class DriveSubsystem extends BitBucketSubsystem {
     private DriveMethod driveMethod = DriveMethod.IDLE; // default
     private RisingEdgeFilter driveMethodSwitchFilter = new RisingEdgeFilter();
 
+    // recorded every loop
+    private EnumChannel<DriveMethod> driveMethodChannel;
+    private DoubleChannel leftDistanceChannel;
+    private DoubleChannel rightDistanceChannel;
+    private DoubleChannel velocityChannel;
+    private DoubleChannel omegaChannel;
+
+    // dashboard
+    private NumberEntry leftSpeedTicksEntry;
+    private NumberEntry rightSpeedTicksEntry;
+    private NumberEntry commandedSpeedEntry;
+    private NumberEntry yawEntry;
+    private NumberEntry yawCommandEntry;
+    private NumberEntry yawErrorEntry;
+
+    // extended telemetry
+    private NumberEntry leftSpeedEntry;
+    private NumberEntry rightSpeedEntry;
+    private NumberEntry leftCommandEntry;
+    private NumberEntry leftVelocityEntry;
+    private NumberEntry leftErrorEntry;
+    private NumberEntry leftSetpointEntry;
+    private NumberEntry rightCommandEntry;
+    private NumberEntry rightVelocityEntry;
+    private NumberEntry rightErrorEntry;
+    private NumberEntry rightSetpointEntry;
+    private NumberEntry velocityEntry;
+    private NumberEntry omegaEntry;
+    private NumberEntry leftTicksEntry;
+    private NumberEntry rightTicksEntry;
+    private StringEntry driveMethodEntry;
+
+    // characterization
+    private StringEntry characterizationPhaseEntry;
+    private NumberEntry characterizationVoltageEntry;
+    private StringEntry leftFitEntry;
+    private StringEntry rightFitEntry;
+    private StringEntry bothFitEntry;
+
 
 
     private DriverStation driverStation;
@@ -68,12 +121,13 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 
 
-    private final DriveUtils DRIVE_UTILS;
-
+    // both get rebuilt when the characterization changes
+    private DriveUtils driveUtils;
+    private Trajectory autoTrajectory;
 
 
 
-    private final Trajectory autoTrajectory;
+    private final DriveCharacterization characterization = new DriveCharacterization();
     
 
 
@@ -84,28 +138,38 @@ public class DriveSubsystem extends BitBucketSubsystem {
         NAVIGATION_SUBSYSTEM = navigationSubsystem;
         OI = oi;
 
-        DRIVE_UTILS = new DriveUtils(config);
+        // use what was measured last time if there is something
+        Fit saved = DriveCharacterization.load(RoboRIOFS.CHARACTERIZATION_PATH).get(Side.BOTH);
+        if (saved != null && saved.isValid()) {
+            System.out.println("Using measured drive characterization " + saved);
+            config.drive.characterization = new SimpleMotorFeedforward(saved.ks, saved.kv, saved.ka);
+        }
+
+        driveUtils = new DriveUtils(config);
+        autoTrajectory = generateAutoTrajectory();
+    }
 
+    private Trajectory generateAutoTrajectory() {
         DifferentialDriveVoltageConstraint voltageConstraint = new DifferentialDriveVoltageConstraint(
             config.drive.characterization,
-            DRIVE_UTILS.KINEMATICS,
+            driveUtils.KINEMATICS,
             DriveConstants.AUTO_MAX_VOLTAGE
         );
 
         DifferentialDriveKinematicsConstraint kinematicsConstraint = new DifferentialDriveKinematicsConstraint(
-            DRIVE_UTILS.KINEMATICS,
+            driveUtils.KINEMATICS,
             config.drive.maxAllowedSpeed_ips
         );
 
         TrajectoryConfig trajectoryConfig = new TrajectoryConfig(
             config.drive.maxAllowedSpeed_ips * DriveConstants.METERS_PER_INCH,
-            DRIVE_UTILS.MAX_ACCELERATION_MPSPS
+            driveUtils.MAX_ACCELERATION_MPSPS
         );
-        trajectoryConfig.setKinematics(DRIVE_UTILS.KINEMATICS);
+        trajectoryConfig.setKinematics(driveUtils.KINEMATICS);
         trajectoryConfig.addConstraint(voltageConstraint);
         trajectoryConfig.addConstraint(kinematicsConstraint);
 
-        autoTrajectory = TrajectoryGenerator.generateTrajectory(
+        return TrajectoryGenerator.generateTrajectory(
             new Pose2d(FieldConstants.FRONT_OF_POWER_PORT, Rotation2d.fromDegrees(90)),
             List.of(FieldConstants.OUR_POWER_CELL_1, FieldConstants.OUR_POWER_CELL_2),
             new Pose2d(FieldConstants.OUR_POWER_CELL_3, Rotation2d.fromDegrees(90)),
@@ -118,6 +182,41 @@ public class DriveSubsystem extends BitBucketSubsystem {
     public void initialize() {
         dashboardInit();
 
+        driveMethodChannel = recorder.addEnum(getName() + "/drive method", DriveMethod.class);
+        leftDistanceChannel = recorder.addDouble(getName() + "/left distance (m)");
+        rightDistanceChannel = recorder.addDouble(getName() + "/right distance (m)");
+        velocityChannel = recorder.addDouble(getName() + "/velocity (in/s)");
+        omegaChannel = recorder.addDouble(getName() + "/omega (rad/s)");
+
+        leftSpeedTicksEntry = dashboard.addNumber(getName() + "/ls_tp100", Rate.Fast);
+        rightSpeedTicksEntry = dashboard.addNumber(getName() + "/rs_tp100", Rate.Fast);
+        commandedSpeedEntry = dashboard.addNumber(getName() + "/commandedSpeed_ips", Rate.Fast, 0.01);
+        yawEntry = dashboard.addNumber(getName() + "/yaw", Rate.Fast, 0.01);
+        yawCommandEntry = dashboard.addNumber(getName() + "/yaw command", Rate.Fast, 0.01);
+        yawErrorEntry = dashboard.addNumber(getName() + "/yaw error", Rate.Fast, 0.01);
+
+        leftSpeedEntry = dashboard.addNumber(getName() + "/leftSpeed_ips", Rate.Fast, 0.01);
+        rightSpeedEntry = dashboard.addNumber(getName() + "/rightSpeed_ips", Rate.Fast, 0.01);
+        leftCommandEntry = dashboard.addNumber(getName() + "/left command %", Rate.Fast, 0.001);
+        leftVelocityEntry = dashboard.addNumber(getName() + "/left vel", Rate.Fast);
+        leftErrorEntry = dashboard.addNumber(getName() + "/left speed error", Rate.Fast);
+        leftSetpointEntry = dashboard.addNumber(getName() + "/left setpoint", Rate.Fast);
+        rightCommandEntry = dashboard.addNumber(getName() + "/right command %", Rate.Fast, 0.001);
+        rightVelocityEntry = dashboard.addNumber(getName() + "/right  vel", Rate.Fast);
+        rightErrorEntry = dashboard.addNumber(getName() + "/right speed error", Rate.Fast);
+        rightSetpointEntry = dashboard.addNumber(getName() + "/right  setpoint", Rate.Fast);
+        velocityEntry = dashboard.addNumber(getName() + "/Velocity (in/s)", Rate.Fast, 0.01);
+        omegaEntry = dashboard.addNumber(getName() + "/Omega (rad/s)", Rate.Fast, 0.001);
+        leftTicksEntry = dashboard.addNumber(getName() + "/left ticks", Rate.Fast);
+        rightTicksEntry = dashboard.addNumber(getName() + "/right ticks", Rate.Fast);
+        driveMethodEntry = dashboard.addString(getName() + "/drive method", Rate.Slow);
+
+        characterizationPhaseEntry = dashboard.addString(getName() + "/characterization/phase", Rate.Slow);
+        characterizationVoltageEntry = dashboard.addNumber(getName() + "/characterization/voltage", Rate.Fast, 0.01);
+        leftFitEntry = dashboard.addString(getName() + "/characterization/left", Rate.Slow);
+        rightFitEntry = dashboard.addString(getName() + "/characterization/right", Rate.Slow);
+        bothFitEntry = dashboard.addString(getName() + "/characterization/both", Rate.Slow);
+
 
 
         driverStation = DriverStation.getInstance();
@@ -155,25 +254,21 @@ public class DriveSubsystem extends BitBucketSubsystem {
             leftMotors[i] = MotorUtils.makeFX(config.drive.leftMotors[i]);
             rightMotors[i] = MotorUtils.makeFX(config.drive.rightMotors[i]);
 
-            leftMotors[i].setStatusFramePeriod(
-                StatusFrameEnhanced.Status_13_Base_PIDF0, 
-				DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS, 
-                DriveConstants.CONTROLLER_TIMEOUT_MS
-            );
-                                            
-            rightMotors[i].setStatusFramePeriod(
-                StatusFrameEnhanced.Status_13_Base_PIDF0, 
-				DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS, 
-                DriveConstants.CONTROLLER_TIMEOUT_MS
-            );
+            MotorSettings statusFrames = new MotorSettings()
+                .statusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, DriveConstants.HIGH_STATUS_FRAME_PERIOD_MS);
+
+            MotorUtils.configure(leftMotors[i], statusFrames);
+            MotorUtils.configure(rightMotors[i], statusFrames);
 
 
 
+            MotorSettings voltageComp = new MotorSettings().voltageCompSaturation(DriveConstants.MAX_VOLTS);
+
             leftMotors[0].enableVoltageCompensation(true);
-            leftMotors[0].configVoltageCompSaturation(DriveConstants.MAX_VOLTS);
+            MotorUtils.configure(leftMotors[0], voltageComp);
 
             rightMotors[0].enableVoltageCompensation(true);
-            rightMotors[0].configVoltageCompSaturation(DriveConstants.MAX_VOLTS);
+            MotorUtils.configure(rightMotors[0], voltageComp);
         }
 
 
@@ -207,19 +302,19 @@ public class DriveSubsystem extends BitBucketSubsystem {
         
 
 
-        int speed_tickP100 = DRIVE_UTILS.ipsToTicksP100(ips);
-		int diffSpeed_tickP100 = DRIVE_UTILS.ipsToTicksP100(diffSpeed_ips);
+        int speed_tickP100 = driveUtils.ipsToTicksP100(ips);
+		int diffSpeed_tickP100 = driveUtils.ipsToTicksP100(diffSpeed_ips);
 
 		int leftSpeed_tickP100 = speed_tickP100 + diffSpeed_tickP100;
         int rightSpeed_tickP100 = speed_tickP100 - diffSpeed_tickP100;
         
-        SmartDashboard.putNumber(getName() + "/ls_tp100", leftSpeed_tickP100);
-        SmartDashboard.putNumber(getName() + "/rs_tp100", rightSpeed_tickP100);
+        leftSpeedTicksEntry.set(leftSpeed_tickP100);
+        rightSpeedTicksEntry.set(rightSpeed_tickP100);
 
         setLeftVelocity(leftSpeed_tickP100);
         setRightVelocity(rightSpeed_tickP100);
         
-        SmartDashboard.putNumber(getName() + "/commandedSpeed_ips", ips);
+        commandedSpeedEntry.set(ips);
     }
 
     public void velocityDrive(double speed, double turn) {
@@ -238,8 +333,8 @@ public class DriveSubsystem extends BitBucketSubsystem {
             turn,
             -1.0,
             1.0,
-            -DRIVE_UTILS.MAX_ROTATION_RADPS,
-            DRIVE_UTILS.MAX_ROTATION_RADPS
+            -driveUtils.MAX_ROTATION_RADPS,
+            driveUtils.MAX_ROTATION_RADPS
         );
 
         velocityDrive_auto(ips, radps);
@@ -267,12 +362,12 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 
         double yaw = NAVIGATION_SUBSYSTEM.getYaw_deg();
-        SmartDashboard.putNumber(getName() + "/yaw", yaw);
+        yawEntry.set(yaw);
         double yawCommand = yaw0 + offset;
-        SmartDashboard.putNumber(getName() + "/yaw command", yawCommand);
+        yawCommandEntry.set(yawCommand);
 
         double yawError = yaw - yawCommand;
-        SmartDashboard.putNumber(getName() + "/yaw error", yawError);
+        yawErrorEntry.set(yawError);
 
         yawError = (yawError + 720.0) % (360.0);
         if (yawError > 180) {
@@ -315,8 +410,8 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 
     public double getSpeed_ips() {
-        double leftSpeed = DRIVE_UTILS.ticksP100ToIps(leftMotors[0].getSelectedSensorVelocity());
-        double rightSpeed = DRIVE_UTILS.ticksP100ToIps(rightMotors[0].getSelectedSensorVelocity());
+        double leftSpeed = driveUtils.ticksP100ToIps(leftMotors[0].getSelectedSensorVelocity());
+        double rightSpeed = driveUtils.ticksP100ToIps(rightMotors[0].getSelectedSensorVelocity());
 
         return (leftSpeed + rightSpeed) / 2.0;
     }
@@ -329,12 +424,81 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 
 
+    /** Characterize the drivetrain. Give it room, it drives up to a few meters forwards and backwards. */
     public void testInit() {
-
+        characterization.start(Timer.getFPGATimestamp());
     }
 
     public void testPeriodic() {
+        if (characterization.isDone()) {
+            return;
+        }
+
+        double leftSign = config.drive.invertLeftCommand ? -1 : 1;
+        double rightSign = config.drive.invertRightCommand ? -1 : 1;
+
+        double voltage = characterization.step(
+            Timer.getFPGATimestamp(),
+            leftSign * leftMotors[0].getMotorOutputVoltage(),
+            leftSign * getWheelSpeed_mps(leftMotors[0]),
+            rightSign * rightMotors[0].getMotorOutputVoltage(),
+            rightSign * getWheelSpeed_mps(rightMotors[0]),
+            (leftSign * getLeftDistance_meters() + rightSign * getRightDistance_meters()) / 2
+        );
 
+        leftMotors[0].set(ControlMode.PercentOutput, leftSign * voltage / DriveConstants.MAX_VOLTS);
+        rightMotors[0].set(ControlMode.PercentOutput, rightSign * voltage / DriveConstants.MAX_VOLTS);
+
+        characterizationPhaseEntry.set(characterization.getPhase().name() + (characterization.isResting() ? " (resting)" : ""));
+        characterizationVoltageEntry.set(voltage);
+        leftFitEntry.set(String.valueOf(characterization.getFit(Side.LEFT)));
+        rightFitEntry.set(String.valueOf(characterization.getFit(Side.RIGHT)));
+        bothFitEntry.set(String.valueOf(characterization.getFit(Side.BOTH)));
+
+        if (characterization.isDone()) {
+            finishCharacterization();
+        }
+    }
+
+    /** Save the fits and start using the combined one if it makes sense */
+    private void finishCharacterization() {
+        Map<Side, Fit> fits = new EnumMap<Side, Fit>(Side.class);
+        for (Side side : Side.values()) {
+            Fit fit = characterization.getFit(side);
+            System.out.println("Drive characterization " + side + ": " + fit);
+
+            if (fit != null && fit.isValid()) {
+                fits.put(side, fit);
+            }
+        }
+
+        Fit both = fits.get(Side.BOTH);
+        if (both == null) {
+            System.out.println("Drive characterization didn't find anything usable, keeping " + config.drive.characterization);
+            return;
+        }
+
+        try {
+            DriveCharacterization.save(RoboRIOFS.CHARACTERIZATION_PATH, fits);
+        } catch (IOException e) {
+            System.out.println("Couldn't save drive characterization: " + e.getMessage());
+        }
+
+        applyCharacterization(new SimpleMotorFeedforward(both.ks, both.kv, both.ka));
+    }
+
+    /**
+     * Start using a new feedforward for the max acceleration and the auto
+     * trajectory's constraints. Commands made after this use the new trajectory.
+     */
+    public void applyCharacterization(SimpleMotorFeedforward feedforward) {
+        config.drive.characterization = feedforward;
+        driveUtils = new DriveUtils(config);
+        autoTrajectory = generateAutoTrajectory();
+    }
+
+    public SimpleMotorFeedforward getCharacterization() {
+        return config.drive.characterization;
     }
 
     public void diagnosticsCheck() {
@@ -372,33 +536,39 @@ public class DriveSubsystem extends BitBucketSubsystem {
             driveMethod = DriveMethod.AUTO; // please don't press any buttons during auto anyways :)))
         }
 
+        driveMethodChannel.set(driveMethod);
+        leftDistanceChannel.set(getLeftDistance_meters());
+        rightDistanceChannel.set(getRightDistance_meters());
+        velocityChannel.set(getApproxV());
+        omegaChannel.set(getApproxOmega());
+
 
 
         if (getTelemetryEnabled()) {
-            double leftSpeed = DRIVE_UTILS.ticksP100ToIps(leftMotors[0].getSelectedSensorVelocity());
-            double rightSpeed = DRIVE_UTILS.ticksP100ToIps(rightMotors[0].getSelectedSensorVelocity());
-            SmartDashboard.putNumber(getName() + "/leftSpeed_ips", leftSpeed);
-            SmartDashboard.putNumber(getName() + "/rightSpeed_ips", rightSpeed);
+            double leftSpeed = driveUtils.ticksP100ToIps(leftMotors[0].getSelectedSensorVelocity());
+            double rightSpeed = driveUtils.ticksP100ToIps(rightMotors[0].getSelectedSensorVelocity());
+            leftSpeedEntry.set(leftSpeed);
+            rightSpeedEntry.set(rightSpeed);
 
-            SmartDashboard.putNumber(getName() + "/left command %", leftMotors[0].getMotorOutputPercent());
-            SmartDashboard.putNumber(getName() + "/left vel", leftMotors[0].getSelectedSensorVelocity());
-            SmartDashboard.putNumber(getName() + "/left speed error", leftMotors[0].getClosedLoopError());
-            SmartDashboard.putNumber(getName() + "/left setpoint", leftMotors[0].getClosedLoopTarget());
+            leftCommandEntry.set(leftMotors[0].getMotorOutputPercent());
+            leftVelocityEntry.set(leftMotors[0].getSelectedSensorVelocity());
+            leftErrorEntry.set(leftMotors[0].getClosedLoopError());
+            leftSetpointEntry.set(leftMotors[0].getClosedLoopTarget());
 
-            SmartDashboard.putNumber(getName() + "/right command %", rightMotors[0].getMotorOutputPercent());
-            SmartDashboard.putNumber(getName() + "/right  vel", rightMotors[0].getSelectedSensorVelocity());
-            SmartDashboard.putNumber(getName() + "/right speed error", rightMotors[0].getClosedLoopError());
-            SmartDashboard.putNumber(getName() + "/right  setpoint", rightMotors[0].getClosedLoopTarget());
+            rightCommandEntry.set(rightMotors[0].getMotorOutputPercent());
+            rightVelocityEntry.set(rightMotors[0].getSelectedSensorVelocity());
+            rightErrorEntry.set(rightMotors[0].getClosedLoopError());
+            rightSetpointEntry.set(rightMotors[0].getClosedLoopTarget());
 
 
 
-            SmartDashboard.putNumber(getName() + "/Velocity (in/s)", getApproxV());
-            SmartDashboard.putNumber(getName() + "/Omega (rad/s)", getApproxOmega());
+            velocityEntry.set(getApproxV());
+            omegaEntry.set(getApproxOmega());
 
-            SmartDashboard.putNumber(getName() + "/left ticks", leftMotors[0].getSelectedSensorPosition());
-            SmartDashboard.putNumber(getName() + "/right ticks", rightMotors[0].getSelectedSensorPosition());
+            leftTicksEntry.set(leftMotors[0].getSelectedSensorPosition());
+            rightTicksEntry.set(rightMotors[0].getSelectedSensorPosition());
 
-            SmartDashboard.putString(getName() + "/drive method", driveMethod.toString());
+            driveMethodEntry.set(driveMethod.name());
         }
     }
 
@@ -446,12 +616,17 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 
 
+    /** @return how fast the motor's wheel is going in m/s, in the motor's direction */
+    private double getWheelSpeed_mps(WPI_TalonFX motor) {
+        return driveUtils.ticksP100ToIps(motor.getSelectedSensorVelocity()) / config.drive.gearRatio * DriveConstants.METERS_PER_INCH;
+    }
+
     public double getLeftDistance_meters() {
-        return leftMotors[0].getSelectedSensorPosition() * DRIVE_UTILS.WHEEL_CIRCUMFERENCE_INCHES / (config.drive.gearRatio * config.drive.ticksPerRevolution) * DriveConstants.METERS_PER_INCH;
+        return leftMotors[0].getSelectedSensorPosition() * driveUtils.WHEEL_CIRCUMFERENCE_INCHES / (config.drive.gearRatio * config.drive.ticksPerRevolution) * DriveConstants.METERS_PER_INCH;
     }
 
     public double getRightDistance_meters() {
-        return rightMotors[0].getSelectedSensorPosition() * DRIVE_UTILS.WHEEL_CIRCUMFERENCE_INCHES / (config.drive.gearRatio * config.drive.ticksPerRevolution) * DriveConstants.METERS_PER_INCH;
+        return rightMotors[0].getSelectedSensorPosition() * driveUtils.WHEEL_CIRCUMFERENCE_INCHES / (config.drive.gearRatio * config.drive.ticksPerRevolution) * DriveConstants.METERS_PER_INCH;
     }
 
 	public Trajectory getAutoTrajectory() {
@@ -465,15 +640,15 @@ public class DriveSubsystem extends BitBucketSubsystem {
 
 
 	public void setWheelSpeeds(double leftSpeed_mps, double rightSpeed_mps) {
-        double leftTps = DRIVE_UTILS.ipsToTicksP100(leftSpeed_mps / DriveConstants.METERS_PER_INCH);
-        double rightTps = DRIVE_UTILS.ipsToTicksP100(rightSpeed_mps / DriveConstants.METERS_PER_INCH);
+        double leftTps = driveUtils.ipsToTicksP100(leftSpeed_mps / DriveConstants.METERS_PER_INCH);
+        double rightTps = driveUtils.ipsToTicksP100(rightSpeed_mps / DriveConstants.METERS_PER_INCH);
 
         leftMotors[0].set(ControlMode.Velocity, leftTps);
         rightMotors[0].set(ControlMode.Velocity, rightTps);
     }
     
     public DifferentialDriveKinematics getKinematics() {
-        return DRIVE_UTILS.KINEMATICS;
+        return driveUtils.KINEMATICS;
     }
 
 
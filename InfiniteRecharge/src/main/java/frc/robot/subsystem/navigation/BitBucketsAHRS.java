@@ -17,7 +17,7 @@ public class BitBucketsAHRS {
 
     public static AHRS instance() {
         if (inst == null){
-            inst = new AHRS(SPI.Port.kMXP);
+            inst = new AHRS(SPI.Port.kMXP, NavigationConstants.NAVX_UPDATE_RATE);
         }
         return inst;
     }
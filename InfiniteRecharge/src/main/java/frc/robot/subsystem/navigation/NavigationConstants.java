@@ -12,4 +12,82 @@ package frc.robot.subsystem.navigation;
  */
 public class NavigationConstants {
     public static final int IMU_DATA_SIZE = 50;
+
+    // RobotSystem discretization cache
+    /** grid spacing of linearization velocity (m/s) */
+    public static final double MODEL_CACHE_V_STEP = 0.1;
+    /** grid spacing of linearization heading (rad) */
+    public static final double MODEL_CACHE_THETA_STEP = Math.toRadians(2);
+    /** max number of discretized operating points kept around */
+    public static final int MODEL_CACHE_SIZE = 512;
+    public static final boolean MODEL_CACHE_INTERPOLATE = true;
+
+    // PoseEstimator
+    /** how often the estimator thread runs (s) */
+    public static final double ESTIMATOR_PERIOD = 0.005;
+    /** samples each sensor queue can hold before new ones get dropped */
+    public static final int ESTIMATOR_QUEUE_SIZE = 64;
+    /** navX update rate (Hz), max 200 */
+    public static final byte NAVX_UPDATE_RATE = (byte) 200;
+    /** number of estimator steps kept in the pose history (1 s at 5 ms per step) */
+    public static final int POSE_HISTORY_SIZE = 200;
+
+    // SensorFusion, state is x (m), y (m), heading (rad), v (m/s), omega (rad/s), a (m/s^2)
+    /** measurements kept for rewinding when a late one comes in (about half a second of every sensor) */
+    public static final int FUSION_LOG_SIZE = 256;
+    /** a sensor that's gone this many of its periods without a measurement is stale */
+    public static final double FUSION_STALE_PERIODS = 5;
+    /** process noise per second, mostly from how fast the speed, turn rate and acceleration can change */
+    public static final double[] FUSION_PROCESS_NOISE = {1e-4, 1e-4, 1e-5, 0.05, 1, 25};
+    /** variance of the estimate when it's started or reset */
+    public static final double[] FUSION_INITIAL_VARIANCE = {1, 1, 0.01, 0.01, 0.01, 0.1};
+    /** added to the covariance's diagonal when it stops being positive definite */
+    public static final double FUSION_RECOVERY_JITTER = 1e-9;
+
+    // sensor rates (Hz) and noise (standard deviation)
+    /** yaw and acceleration both come from the navX at NAVX_UPDATE_RATE */
+    public static final double FUSION_IMU_RATE_HZ = 200;
+    public static final double FUSION_YAW_STD_DEV_RAD = Math.toRadians(0.2);
+    /** forward acceleration from the navX, which comes with the yaw (m/s^2) */
+    public static final double FUSION_ACCEL_STD_DEV = 0.3;
+    public static final double FUSION_GYRO_RATE_HZ = 50;
+    public static final double FUSION_GYRO_STD_DEV_RADPS = Math.toRadians(2);
+    /** wheel speeds from the change in encoder distance (m/s) */
+    public static final double FUSION_ENCODER_RATE_HZ = 50;
+    public static final double FUSION_ENCODER_STD_DEV = 0.05;
+    public static final double FUSION_VISION_RATE_HZ = 22;
+    public static final double FUSION_VISION_BEARING_STD_DEV_RAD = Math.toRadians(1);
+    public static final double FUSION_VISION_DISTANCE_STD_DEV_M = 0.15;
+    /** vision frames closer than this are too close to get a bearing from (m) */
+    public static final double FUSION_VISION_MIN_DISTANCE_M = 0.5;
+
+    /**
+     * Where the vision target (the power port) is, in the same frame as the
+     * poses autonomous resets to (m)
+     */
+    public static final double TARGET_X_M = 0;
+    public static final double TARGET_Y_M = 2.404;
+
+    public static final double GRAVITY = 9.80665;
+
+    /** name of the drive motors' measured constants in the motor file, if they've been measured */
+    public static final String DRIVE_MOTOR = "drive";
+
+    // Trajectory following gains (RobotSystem.synthesizeGains)
+    /** name of the schedule in the gain schedule file */
+    public static final String TRAJECTORY_GAINS = "drivetrain";
+    /**
+     * Speeds (m/s) the gains are worked out at. Lateral error can't be fixed
+     * without moving so there's no solution at 0, which is why the grid
+     * straddles it (and the lateral gain interpolates to 0 there).
+     */
+    public static final double TRAJECTORY_GAINS_V_MIN = -3.75;
+    public static final double TRAJECTORY_GAINS_V_STEP = 0.5;
+    public static final int TRAJECTORY_GAINS_V_COUNT = 16;
+    // most error (m, m, rad, m/s, m/s) that's worth full voltage to fix
+    public static final double TRAJECTORY_MAX_X_ERROR = 0.1;
+    public static final double TRAJECTORY_MAX_Y_ERROR = 0.1;
+    public static final double TRAJECTORY_MAX_THETA_ERROR = 0.2;
+    public static final double TRAJECTORY_MAX_V_ERROR = 1;
+    public static final double TRAJECTORY_MAX_VOLTAGE = 12;
 }
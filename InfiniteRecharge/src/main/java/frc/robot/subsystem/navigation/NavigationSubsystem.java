@@ -9,16 +9,22 @@ package frc.robot.subsystem.navigation;
 
 import com.kauailabs.navx.frc.AHRS;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
-import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.geometry.Translation2d;
-import edu.wpi.first.wpilibj.kinematics.DifferentialDriveOdometry;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.config.Config;
 
 import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.subsystem.drive.DriveConstants;
 import frc.robot.subsystem.drive.DriveSubsystem;
-import frc.robot.utils.data.DoubleDataWindow;
+import frc.robot.subsystem.scoring.shooter.ShooterSubsystem;
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.controllers.GainSchedule;
+import frc.robot.utils.data.DoubleRingBuffer;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.TelemetryChannel.BooleanChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.DoubleChannel;
 
 import frc.robot.subsystem.vision.VisionSubsystem;
 
@@ -31,18 +37,58 @@ public class NavigationSubsystem extends BitBucketSubsystem {
 
     private AHRS ahrs;
 
-    private DoubleDataWindow imuAcc = new DoubleDataWindow(NavigationConstants.IMU_DATA_SIZE);
-    private DoubleDataWindow imuGyro = new DoubleDataWindow(NavigationConstants.IMU_DATA_SIZE);
-    private DoubleDataWindow dts = new DoubleDataWindow(50);
+    private DoubleRingBuffer imuAcc = new DoubleRingBuffer(NavigationConstants.IMU_DATA_SIZE);
+    private DoubleRingBuffer imuGyro = new DoubleRingBuffer(NavigationConstants.IMU_DATA_SIZE);
+    private DoubleRingBuffer dts = new DoubleRingBuffer(50);
 
     private DriveSubsystem driveSubsystem;
     private VisionSubsystem visionSubsystem;
+    /** the camera's on the turret, so vision needs its angle to say anything about where the robot is */
+    private ShooterSubsystem shooterSubsystem;
 
     private RobotSystem sys;
-
-
-
-    private DifferentialDriveOdometry odometry;
+    /** for following trajectories, null if there aren't any */
+    private GainSchedule trajectoryGains;
+
+
+
+    /** odometry runs on its own thread, fed from here */
+    private PoseEstimator estimator;
+    /** the last Limelight frame given to the estimator, so the same one isn't added every loop */
+    private long lastVisionFrame = 0;
+
+
+
+    // recorded every loop
+    private DoubleChannel xChannel;
+    private DoubleChannel yChannel;
+    private DoubleChannel yawChannel;
+    private DoubleChannel yawRateChannel;
+    private DoubleChannel accChannel;
+    private BooleanChannel hasTargetChannel;
+
+    // dashboard
+    private NumberEntry processingTimeEntry;
+
+    // extended telemetry
+    private NumberEntry robotYawEntry;
+    private NumberEntry rawAccXEntry;
+    private NumberEntry worldAccXEntry;
+    private NumberEntry rawGyroEntry;
+    private NumberEntry accEntry;
+    private NumberEntry processingTimeAvgEntry;
+    private NumberEntry processingTimeVarEntry;
+    private NumberEntry processingTimeMaxEntry;
+    private NumberEntry xEntry;
+    private NumberEntry yEntry;
+    private NumberEntry stepsEntry;
+    private NumberEntry droppedImuEntry;
+    private NumberEntry droppedEncodersEntry;
+    private NumberEntry fusionRecoveriesEntry;
+    private NumberEntry accVarianceEntry;
+    private NumberEntry gyroVarianceEntry;
+    private NumberEntry accAvgEntry;
+    private NumberEntry gyroAvgEntry;
 
 
     
@@ -56,15 +102,17 @@ public class NavigationSubsystem extends BitBucketSubsystem {
         driveSubsystem = drive;
     }
 
+    public void setShooter(ShooterSubsystem shooter) {
+        shooterSubsystem = shooter;
+    }
+
+    /** @return LQR gains for following a trajectory, or null if they couldn't be made */
+    public GainSchedule getTrajectoryGains() {
+        return trajectoryGains;
+    }
+
 	
 
-	// TODO: provide an accessor that fetches the most current state (6-DOF)
-	// and returns it in a structure for reference; this allows consumer
-	// to fetch the best available state, at the same time the periodic
-	// loop can be keeping a limited history to allow image sensor data
-	// to be correlated to past position and angle data; this history
-	// would be interpolated if there is sufficient time synchronization
-	// between this Robot code and the image data.
 
 	@Override
 	public void initialize() {
@@ -73,9 +121,49 @@ public class NavigationSubsystem extends BitBucketSubsystem {
         ahrs = BitBucketsAHRS.instance();
         sys = new RobotSystem();
 
-        odometry = new DifferentialDriveOdometry(
-            Rotation2d.fromDegrees(ahrs.getYaw())
-        );
+        try {
+            trajectoryGains = sys.getGains(GainSchedule.getPrecomputed(NavigationConstants.TRAJECTORY_GAINS));
+        } catch (StateSpaceException e) {
+            System.out.println("Couldn't make the trajectory gains: " + e.getMessage());
+            trajectoryGains = null;
+        }
+
+        estimator = new PoseEstimator(config.drive.trackWidth_in * DriveConstants.METERS_PER_INCH, ahrs.getYaw());
+        // the navX feeds the estimator directly from its own thread
+        ahrs.registerCallback(estimator, null);
+        estimator.start();
+
+        xChannel = recorder.addDouble(getName() + "/x (m)");
+        yChannel = recorder.addDouble(getName() + "/y (m)");
+        yawChannel = recorder.addDouble(getName() + "/yaw (deg)");
+        yawRateChannel = recorder.addDouble(getName() + "/yaw rate (deg/s)");
+        accChannel = recorder.addDouble(getName() + "/accel");
+        hasTargetChannel = recorder.addBoolean(getName() + "/has target");
+
+        processingTimeEntry = dashboard.addNumber(getName() + "/processing time (ms)", Rate.Slow);
+
+        robotYawEntry = dashboard.addNumber(getName() + "/Robot yaw", Rate.Fast, 0.01);
+        rawAccXEntry = dashboard.addNumber(getName() + "/Robot raw X accel", Rate.Fast, 0.001);
+        worldAccXEntry = dashboard.addNumber(getName() + "/Robot world X accel", Rate.Fast, 0.001);
+        rawGyroEntry = dashboard.addNumber(getName() + "/Robot raw X gyro", Rate.Fast, 0.01);
+        accEntry = dashboard.addNumber(getName() + "/Robot accel", Rate.Fast, 0.001);
+
+        processingTimeAvgEntry = dashboard.addNumber(getName() + "/processing time avg", Rate.Slow);
+        processingTimeVarEntry = dashboard.addNumber(getName() + "/processing time var", Rate.Slow);
+        processingTimeMaxEntry = dashboard.addNumber(getName() + "/processing time max", Rate.Slow);
+
+        xEntry = dashboard.addNumber(getName() + "/x (m)", Rate.Fast, 0.001);
+        yEntry = dashboard.addNumber(getName() + "/y (m)", Rate.Fast, 0.001);
+
+        stepsEntry = dashboard.addNumber(getName() + "/estimator steps", Rate.Slow);
+        droppedImuEntry = dashboard.addNumber(getName() + "/estimator dropped IMU samples", Rate.Slow);
+        droppedEncodersEntry = dashboard.addNumber(getName() + "/estimator dropped encoder samples", Rate.Slow);
+        fusionRecoveriesEntry = dashboard.addNumber(getName() + "/estimator covariance recoveries", Rate.Slow);
+
+        accVarianceEntry = dashboard.addNumber(getName() + "/Acceleration variance", Rate.Slow);
+        gyroVarianceEntry = dashboard.addNumber(getName() + "/Gyro variance", Rate.Slow);
+        accAvgEntry = dashboard.addNumber(getName() + "/Acceleration avg", Rate.Slow);
+        gyroAvgEntry = dashboard.addNumber(getName() + "/Gyro avg", Rate.Slow);
 	}
 
   	@Override
@@ -114,52 +202,75 @@ public class NavigationSubsystem extends BitBucketSubsystem {
         
 
 
-        //imuAcc.add(acc);
-        //imuGyro.add(gyro);
+        imuAcc.add(acc);
+        imuGyro.add(gyro);
 
+        // how long it takes to hand everything to the estimator and get its estimate back
         double t0 = System.nanoTime();
-        double yaw = ahrs.getYaw();
+        double now = Timer.getFPGATimestamp();
 
-        double v0 = 0.01;
+        estimator.addEncoders(
+            now,
+            driveSubsystem.getLeftDistance_meters(),
+            driveSubsystem.getRightDistance_meters()
+        );
+        estimator.addGyroRate(now, ahrs.getRate());
+
+        if (visionSubsystem.getValidTarget() && visionSubsystem.getTarget().frame != lastVisionFrame) {
+            lastVisionFrame = visionSubsystem.getTarget().frame;
+            estimator.addVision(
+                visionSubsystem.getCaptureTimestamp(),
+                visionSubsystem.getTx(),
+                visionSubsystem.getTy(),
+                visionSubsystem.approximateDistanceFromTarget(visionSubsystem.getTy()),
+                shooterSubsystem == null ? Double.NaN : shooterSubsystem.getAzimuthDeg()
+            );
+        }
 
-        sys.getModel(v0, yaw);
+        PoseEstimator.Snapshot snapshot = estimator.getSnapshot();
 
         double t1 = System.nanoTime();
         double dt = (t1 - t0) / 1000000000;
 
         dts.add(dt);
-        SmartDashboard.putNumber(getName() + "/processing time (ms)", (t1 - t0) / 1000000);
-
+        processingTimeEntry.set((t1 - t0) / 1000000);
 
-
-        odometry.update(
-            Rotation2d.fromDegrees(ahrs.getYaw()),
-            driveSubsystem.getLeftDistance_meters(),
-            driveSubsystem.getRightDistance_meters()
-        );
+        updateHeading(snapshot.pose.getRotation().getRadians());
+        xChannel.set(snapshot.pose.getTranslation().getX());
+        yChannel.set(snapshot.pose.getTranslation().getY());
+        yawChannel.set(snapshot.yaw_deg);
+        yawRateChannel.set(snapshot.yawRate_degps);
+        accChannel.set(acc);
+        hasTargetChannel.set(snapshot.hasTarget);
 
         if (getTelemetryEnabled()) {
-			SmartDashboard.putNumber(getName() + "/Robot yaw", ahrs.getYaw());
-            SmartDashboard.putNumber(getName() + "/Robot raw X accel", getAccX());
-            SmartDashboard.putNumber(getName() + "/Robot world X accel", getWorldAccX());
-            SmartDashboard.putNumber(getName() + "/Robot raw X gyro", gyro);
-            SmartDashboard.putNumber(getName() + "/Robot accel", acc);
+			robotYawEntry.set(ahrs.getYaw());
+            rawAccXEntry.set(getAccX());
+            worldAccXEntry.set(getWorldAccX());
+            rawGyroEntry.set(gyro);
+            accEntry.set(acc);
+
+            processingTimeAvgEntry.set(dts.getMean());
+            processingTimeVarEntry.set(dts.getSampleVariance());
+            processingTimeMaxEntry.set(dts.getMax());
 
-            SmartDashboard.putNumber(getName() + "/processing time avg", dts.getAverage());
-            SmartDashboard.putNumber(getName() + "/processing time var", dts.getVariance2());
+            Translation2d pos = estimator.getPose().getTranslation();
+            xEntry.set(pos.getX());
+            yEntry.set(pos.getY());
 
-            Translation2d pos = odometry.getPoseMeters().getTranslation();
-            SmartDashboard.putNumber(getName() + "/x (m)", pos.getX());
-            SmartDashboard.putNumber(getName() + "/y (m)", pos.getY());
+            stepsEntry.set(estimator.getSteps());
+            droppedImuEntry.set(estimator.getDroppedImu());
+            droppedEncodersEntry.set(estimator.getDroppedEncoders());
+            fusionRecoveriesEntry.set(estimator.getFusionRecoveries());
 
-            //double accVar = imuAcc.getVariance2();
-            //double gyroVar = imuGyro.getVariance2();
+            double accVar = imuAcc.getSampleVariance();
+            double gyroVar = imuGyro.getSampleVariance();
 
-            //SmartDashboard.putNumber(getName() + "/Acceleration variance", accVar);
-            //SmartDashboard.putNumber(getName() + "/Gyro variance",        gyroVar);
+            accVarianceEntry.set(accVar);
+            gyroVarianceEntry.set(gyroVar);
 
-            //SmartDashboard.putNumber(getName() + "/Acceleration avg", imuAcc.getAverage());
-            //SmartDashboard.putNumber(getName() + "/Gyro avg",        imuGyro.getAverage());
+            accAvgEntry.set(imuAcc.getMean());
+            gyroAvgEntry.set(imuGyro.getMean());
         }
         
 		if (getDiagnosticsEnabled()) {
@@ -213,8 +324,99 @@ public class NavigationSubsystem extends BitBucketSubsystem {
     
 
 
+    /** Get the newest pose estimate. Never blocks. */
     public Pose2d getPose() {
-        return odometry.getPoseMeters();
+        return estimator.getPose();
+    }
+
+    /** Get everything the estimator knows at once, so it's all from the same moment */
+    public PoseEstimator.Snapshot getSnapshot() {
+        return estimator.getSnapshot();
+    }
+
+    public void resetPose(Pose2d pose) {
+        estimator.resetPose(pose);
+    }
+
+    /**
+     * Get where the robot was at some point in the recent past, for matching up
+     * sensor data that arrives late (like vision)
+     *
+     * @param timestamp FPGA time (s)
+     * @param out array of at least PoseHistory.WIDTH elements for x, y, theta, v, omega
+     *
+     * @return false if the history doesn't go back that far
+     */
+    public boolean getStateAt(double timestamp, double[] out) {
+        return estimator.getHistory().get(timestamp, out);
+    }
+
+    /** reused by getVelocity_ips so it doesn't allocate */
+    private final double[] latestState = new double[PoseHistory.WIDTH];
+
+    /** @return how fast the robot's driving forward (in/s), or 0 if the estimator doesn't know yet */
+    public double getVelocity_ips() {
+        PoseHistory history = estimator.getHistory();
+        if (!history.get(history.getNewestTime(), latestState)) {
+            return 0;
+        }
+
+        return latestState[PoseHistory.V] / DriveConstants.METERS_PER_INCH;
+    }
+
+    /** reused by getYawChangeSince_deg so it doesn't allocate */
+    private final double[] pastState = new double[PoseHistory.WIDTH];
+
+    /**
+     * How much the robot has turned since some point in the recent past.
+     * Same sign convention as the navX yaw.
+     *
+     * @param timestamp FPGA time (s)
+     *
+     * @return change in yaw (deg), or 0 if the history doesn't go back that far
+     */
+    public double getYawChangeSince_deg(double timestamp) {
+        if (!getStateAt(timestamp, pastState)) {
+            return 0;
+        }
+
+        double now = estimator.getSnapshot().pose.getRotation().getRadians();
+
+        return Math.toDegrees(Math.IEEEremainder(now - pastState[PoseHistory.THETA], 2 * Math.PI));
+    }
+
+    /** heading that keeps counting past +-180 so it never jumps, and the estimator's heading (rad) it's from */
+    private double heading_deg = 0;
+    private double headingTheta = Double.NaN;
+
+    private void updateHeading(double theta) {
+        if (!Double.isNaN(headingTheta)) {
+            heading_deg += Math.toDegrees(Math.IEEEremainder(theta - headingTheta, 2 * Math.PI));
+        }
+
+        headingTheta = theta;
+    }
+
+    /**
+     * Which way the robot was facing at some point in the recent past, without
+     * wrapping around, so angles built on it (like a target's bearing) don't
+     * jump when the robot turns past 180. Same sign convention as the navX yaw.
+     *
+     * @param timestamp FPGA time (s)
+     *
+     * @return heading (deg), or the latest one if the history doesn't go back that far
+     */
+    public double getHeadingAt_deg(double timestamp) {
+        if (Double.isNaN(headingTheta) || !getStateAt(timestamp, pastState)) {
+            return heading_deg;
+        }
+
+        return heading_deg + Math.toDegrees(Math.IEEEremainder(pastState[PoseHistory.THETA] - headingTheta, 2 * Math.PI));
+    }
+
+    /** @return heading (deg) as of this loop, without wrapping around */
+    public double getHeading_deg() {
+        return heading_deg;
     }
 
     @Override
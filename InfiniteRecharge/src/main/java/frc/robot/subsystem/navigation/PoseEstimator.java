@@ -0,0 +1,453 @@
+package frc.robot.subsystem.navigation;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.kauailabs.navx.AHRSProtocol.AHRSUpdateBase;
+import com.kauailabs.navx.frc.ITimestampedDataSubscriber;
+
+import org.ejml.data.DMatrixRMaj;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+
+import frc.robot.subsystem.drive.DriveConstants;
+import frc.robot.utils.data.SPSCRingBuffer;
+
+
+
+/**
+ * Runs the robot's pose estimate on its own Notifier thread instead of in the
+ * 50 Hz robot loop, so it can keep up with the navX and isn't affected by how
+ * long the rest of the loop takes.
+ *
+ * Sensor data comes in through lock-free single producer/single consumer queues:
+ *   - IMU samples (yaw and acceleration) from the navX's own thread (through the data callback)
+ *   - gyro rate samples from the robot loop
+ *   - encoder samples from the robot loop
+ *   - vision samples from the robot loop
+ * The estimator drains them in timestamp order each step into a SensorFusion,
+ * where each is its own sensor with its own rate and noise. Vision frames are
+ * always late by the time they get here, so the fusion rewinds to when the
+ * frame was captured and replays everything since. Range and bearing to the
+ * target pin the pose to the field, so it doesn't drift like odometry does.
+ *
+ * Heading follows the navX yaw (clockwise positive, rad) like the odometry
+ * this replaced, so poses are in the same frame they always were.
+ *
+ * The newest estimate is published as an immutable Snapshot through an
+ * AtomicReference, so anyone can read it at any time without blocking. Every
+ * step is also recorded in a PoseHistory so late data can be matched with
+ * where the robot was.
+ */
+public class PoseEstimator implements ITimestampedDataSubscriber {
+    /** Everything the estimator knew at one point in time. Never modified after it's published. */
+    public static class Snapshot {
+        /** FPGA time (s) of the newest data that went into this */
+        public final double timestamp;
+        public final Pose2d pose;
+        public final double yaw_deg;
+        public final double yawRate_degps;
+
+        public final boolean hasTarget;
+        /** FPGA time (s) the target was seen */
+        public final double targetTimestamp;
+        public final double targetTx_deg;
+        public final double targetTy_deg;
+        /** in whatever units VisionSubsystem gives distance in (inches) */
+        public final double targetDistance;
+
+        public Snapshot(double timestamp, Pose2d pose, double yaw_deg, double yawRate_degps,
+                boolean hasTarget, double targetTimestamp, double targetTx_deg, double targetTy_deg, double targetDistance) {
+            this.timestamp = timestamp;
+            this.pose = pose;
+            this.yaw_deg = yaw_deg;
+            this.yawRate_degps = yawRate_degps;
+
+            this.hasTarget = hasTarget;
+            this.targetTimestamp = targetTimestamp;
+            this.targetTx_deg = targetTx_deg;
+            this.targetTy_deg = targetTy_deg;
+            this.targetDistance = targetDistance;
+        }
+    }
+
+
+
+    // fused state
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int THETA = 2;
+    public static final int V = 3;
+    public static final int OMEGA = 4;
+    public static final int A = 5;
+    public static final int STATES = 6;
+
+
+
+    // yaw, world x acceleration, world y acceleration
+    private final SPSCRingBuffer imuQueue = new SPSCRingBuffer(NavigationConstants.ESTIMATOR_QUEUE_SIZE, 3);
+    // yaw rate
+    private final SPSCRingBuffer gyroQueue = new SPSCRingBuffer(NavigationConstants.ESTIMATOR_QUEUE_SIZE, 1);
+    // left distance, right distance
+    private final SPSCRingBuffer encoderQueue = new SPSCRingBuffer(NavigationConstants.ESTIMATOR_QUEUE_SIZE, 2);
+    // tx, ty, distance, turret azimuth
+    private final SPSCRingBuffer visionQueue = new SPSCRingBuffer(NavigationConstants.ESTIMATOR_QUEUE_SIZE, 4);
+
+    /** reused to read samples out of the queues */
+    private final double[] sample = new double[5];
+
+
+
+    // only touched by the estimator thread
+    private final SensorFusion fusion;
+    private final SensorFusion.Sensor yawSensor;
+    private final SensorFusion.Sensor accelSensor;
+    private final SensorFusion.Sensor gyroSensor;
+    private final SensorFusion.Sensor encoderSensor;
+    private final SensorFusion.Sensor visionSensor;
+
+    /** reused for resets */
+    private final DMatrixRMaj resetState = new DMatrixRMaj(STATES, 1);
+    private final DMatrixRMaj resetCovariance = new DMatrixRMaj(STATES, STATES);
+
+    /** field heading minus navX yaw (rad), set by resets */
+    private double yawOffset = 0;
+    private double yaw_deg;
+
+    private double left = 0;
+    private double right = 0;
+    private boolean haveEncoders = false;
+    private double lastEncoderTime = Double.NaN;
+
+    private boolean hasTarget = false;
+    private double targetTimestamp = 0;
+    private double targetTx = 0;
+    private double targetTy = 0;
+    private double targetDistance = 0;
+
+    private final AtomicReference<Snapshot> snapshot;
+    private final PoseHistory history = new PoseHistory(NavigationConstants.POSE_HISTORY_SIZE);
+    /** pose to reset to, set by other threads and picked up by the estimator thread */
+    private final AtomicReference<Pose2d> pendingReset = new AtomicReference<Pose2d>(null);
+
+    private Notifier notifier;
+
+    private volatile long steps = 0;
+
+
+
+    /**
+     * @param trackWidth_m distance between the left and right wheels
+     * @param yaw0_deg starting yaw
+     */
+    public PoseEstimator(double trackWidth_m, double yaw0_deg) {
+        this(trackWidth_m, yaw0_deg, Timer.getFPGATimestamp());
+    }
+
+    /**
+     * @param trackWidth_m distance between the left and right wheels
+     * @param yaw0_deg starting yaw
+     * @param t0 starting time (s), for running without the robot (like replaying logs)
+     */
+    public PoseEstimator(double trackWidth_m, double yaw0_deg, double t0) {
+        yaw_deg = yaw0_deg;
+
+        setResetState(new Pose2d(0, 0, Rotation2d.fromDegrees(yaw0_deg)));
+        fusion = new SensorFusion(
+            PoseEstimator::process,
+            resetState, resetCovariance, diag(NavigationConstants.FUSION_PROCESS_NOISE),
+            t0, NavigationConstants.FUSION_LOG_SIZE, THETA
+        );
+
+        double halfTrack = trackWidth_m / 2;
+
+        yawSensor = fusion.addSensor("yaw", NavigationConstants.FUSION_IMU_RATE_HZ,
+            (x, out) -> out.set(0, 0, x.get(THETA, 0)),
+            variance(NavigationConstants.FUSION_YAW_STD_DEV_RAD), 0
+        );
+        accelSensor = fusion.addSensor("accelerometer", NavigationConstants.FUSION_IMU_RATE_HZ,
+            (x, out) -> out.set(0, 0, x.get(A, 0)),
+            variance(NavigationConstants.FUSION_ACCEL_STD_DEV)
+        );
+        gyroSensor = fusion.addSensor("gyro rate", NavigationConstants.FUSION_GYRO_RATE_HZ,
+            (x, out) -> out.set(0, 0, x.get(OMEGA, 0)),
+            variance(NavigationConstants.FUSION_GYRO_STD_DEV_RADPS)
+        );
+        // clockwise positive, so turning makes the left side faster
+        encoderSensor = fusion.addSensor("encoders", NavigationConstants.FUSION_ENCODER_RATE_HZ,
+            (x, out) -> {
+                out.set(0, 0, x.get(V, 0) + x.get(OMEGA, 0) * halfTrack);
+                out.set(1, 0, x.get(V, 0) - x.get(OMEGA, 0) * halfTrack);
+            },
+            variance(NavigationConstants.FUSION_ENCODER_STD_DEV, NavigationConstants.FUSION_ENCODER_STD_DEV)
+        );
+        visionSensor = fusion.addSensor("vision", NavigationConstants.FUSION_VISION_RATE_HZ,
+            PoseEstimator::target,
+            variance(NavigationConstants.FUSION_VISION_BEARING_STD_DEV_RAD, NavigationConstants.FUSION_VISION_DISTANCE_STD_DEV_M), 0
+        );
+
+        Pose2d pose = new Pose2d(0, 0, Rotation2d.fromDegrees(yaw0_deg));
+        snapshot = new AtomicReference<Snapshot>(
+            new Snapshot(t0, pose, yaw0_deg, 0, false, 0, 0, 0, 0)
+        );
+    }
+
+    /** Constant turn rate and acceleration */
+    private static void process(DMatrixRMaj x, DMatrixRMaj u, double dt, DMatrixRMaj out) {
+        double theta = x.get(THETA, 0);
+        double v = x.get(V, 0);
+        double omega = x.get(OMEGA, 0);
+        double a = x.get(A, 0);
+
+        // drive along the heading from half way through
+        double distance = v * dt + a * dt * dt / 2;
+        double heading = theta + omega * dt / 2;
+
+        out.set(X, 0, x.get(X, 0) + distance * Math.cos(heading));
+        out.set(Y, 0, x.get(Y, 0) + distance * Math.sin(heading));
+        out.set(THETA, 0, theta + omega * dt);
+        out.set(V, 0, v + a * dt);
+        out.set(OMEGA, 0, omega);
+        out.set(A, 0, a);
+    }
+
+    /** Bearing (rad, relative to the heading) and distance (m) to the target */
+    private static void target(DMatrixRMaj x, DMatrixRMaj out) {
+        double dx = NavigationConstants.TARGET_X_M - x.get(X, 0);
+        double dy = NavigationConstants.TARGET_Y_M - x.get(Y, 0);
+
+        out.set(0, 0, Math.atan2(dy, dx) - x.get(THETA, 0));
+        out.set(1, 0, Math.hypot(dx, dy));
+    }
+
+    private static DMatrixRMaj diag(double... values) {
+        DMatrixRMaj m = new DMatrixRMaj(values.length, values.length);
+        for (int i = 0; i < values.length; i++) {
+            m.set(i, i, values[i]);
+        }
+
+        return m;
+    }
+
+    private static DMatrixRMaj variance(double... stdDevs) {
+        double[] variances = new double[stdDevs.length];
+        for (int i = 0; i < stdDevs.length; i++) {
+            variances[i] = stdDevs[i] * stdDevs[i];
+        }
+
+        return diag(variances);
+    }
+
+    /** Set resetState and resetCovariance to start over from a pose, stopped */
+    private void setResetState(Pose2d pose) {
+        resetState.zero();
+        resetState.set(X, 0, pose.getTranslation().getX());
+        resetState.set(Y, 0, pose.getTranslation().getY());
+        resetState.set(THETA, 0, pose.getRotation().getRadians());
+
+        resetCovariance.zero();
+        for (int i = 0; i < STATES; i++) {
+            resetCovariance.set(i, i, NavigationConstants.FUSION_INITIAL_VARIANCE[i]);
+        }
+
+        yawOffset = pose.getRotation().getRadians() - Math.toRadians(yaw_deg);
+    }
+
+    /** Start running on its own thread */
+    public void start() {
+        if (notifier == null) {
+            notifier = new Notifier(this::step);
+            notifier.setName("PoseEstimator");
+        }
+
+        notifier.startPeriodic(NavigationConstants.ESTIMATOR_PERIOD);
+    }
+
+    public void stop() {
+        if (notifier != null) {
+            notifier.stop();
+        }
+    }
+
+
+
+    /*
+     * Producers. Each queue has exactly one producer thread:
+     * the navX thread for the IMU and the robot loop for everything else.
+     */
+
+    @Override
+    public void timestampedDataReceived(long system_timestamp, long sensor_timestamp, AHRSUpdateBase sensor_data, Object context) {
+        addImu(Timer.getFPGATimestamp(), sensor_data.yaw, sensor_data.linear_accel_x, sensor_data.linear_accel_y);
+    }
+
+    /**
+     * @param accX world frame x acceleration (g)
+     * @param accY world frame y acceleration (g)
+     */
+    public void addImu(double timestamp, double yaw_deg, double accX, double accY) {
+        imuQueue.offer(timestamp, yaw_deg, accX, accY);
+    }
+
+    /** @param rate_degps yaw rate, same sign as the yaw */
+    public void addGyroRate(double timestamp, double rate_degps) {
+        gyroQueue.offer(timestamp, rate_degps);
+    }
+
+    public void addEncoders(double timestamp, double left_meters, double right_meters) {
+        encoderQueue.offer(timestamp, left_meters, right_meters);
+    }
+
+    /**
+     * @param timestamp FPGA time (s) the image was captured
+     * @param distance in whatever units VisionSubsystem gives distance in (inches)
+     * @param azimuth_deg turret angle the camera was at, same sign as tx, or NaN if it's unknown
+     * (which keeps it out of the pose)
+     */
+    public void addVision(double timestamp, double tx_deg, double ty_deg, double distance, double azimuth_deg) {
+        visionQueue.offer(timestamp, tx_deg, ty_deg, distance, azimuth_deg);
+    }
+
+    /** Reset the pose. Takes effect on the estimator's next step. */
+    public void resetPose(Pose2d pose) {
+        pendingReset.set(pose);
+    }
+
+
+
+    // Consumer
+
+    /**
+     * Process everything that's been added. Runs on the estimator thread once
+     * started, but can also be called directly when the estimator isn't started.
+     */
+    public void step() {
+        Pose2d reset = pendingReset.getAndSet(null);
+        if (reset != null) {
+            setResetState(reset);
+            fusion.reset(resetState, resetCovariance, fusion.getTime());
+        }
+
+        boolean moved = false;
+
+        // merge everything in time order, so there's as little rewinding as possible
+        while (true) {
+            SPSCRingBuffer next = imuQueue;
+            if (gyroQueue.peekTimestamp() < next.peekTimestamp()) { next = gyroQueue; }
+            if (encoderQueue.peekTimestamp() < next.peekTimestamp()) { next = encoderQueue; }
+            if (visionQueue.peekTimestamp() < next.peekTimestamp()) { next = visionQueue; }
+
+            if (!next.poll(sample)) {
+                break;
+            }
+
+            if (next == imuQueue) {
+                applyImu(sample[0], sample[1], sample[2], sample[3]);
+            } else if (next == gyroQueue) {
+                fusion.add(gyroSensor, sample[0], Math.toRadians(sample[1]));
+            } else if (next == encoderQueue) {
+                applyEncoders(sample[0], sample[1], sample[2]);
+            } else {
+                applyVision(sample[0], sample[1], sample[2], sample[3], sample[4]);
+            }
+
+            moved = true;
+        }
+
+        // nothing new, keep the old snapshot
+        if (!moved && reset == null) {
+            return;
+        }
+
+        DMatrixRMaj x = fusion.getState();
+        double time = fusion.getTime();
+
+        history.add(time, x.get(X, 0), x.get(Y, 0), x.get(THETA, 0), x.get(V, 0), x.get(OMEGA, 0));
+
+        snapshot.set(new Snapshot(
+            time,
+            new Pose2d(x.get(X, 0), x.get(Y, 0), new Rotation2d(x.get(THETA, 0))),
+            yaw_deg,
+            Math.toDegrees(x.get(OMEGA, 0)),
+            hasTarget,
+            targetTimestamp,
+            targetTx,
+            targetTy,
+            targetDistance
+        ));
+
+        steps++;
+    }
+
+    private void applyImu(double t, double yaw, double accX, double accY) {
+        yaw_deg = yaw;
+
+        double yaw_rad = Math.toRadians(yaw);
+        fusion.add(yawSensor, t, Math.IEEEremainder(yaw_rad + yawOffset, 2 * Math.PI));
+
+        // world frame acceleration turned back into the robot's frame, assuming the navX's x points forward
+        double forward = (accX * Math.cos(yaw_rad) + accY * Math.sin(yaw_rad)) * NavigationConstants.GRAVITY;
+        fusion.add(accelSensor, t, forward);
+    }
+
+    private void applyEncoders(double t, double left, double right) {
+        if (haveEncoders && t > lastEncoderTime) {
+            double dt = t - lastEncoderTime;
+            fusion.add(encoderSensor, t, (left - this.left) / dt, (right - this.right) / dt);
+        }
+
+        lastEncoderTime = t;
+        this.left = left;
+        this.right = right;
+        haveEncoders = true;
+    }
+
+    private void applyVision(double t, double tx, double ty, double distance, double azimuth) {
+        hasTarget = true;
+        targetTimestamp = t;
+        targetTx = tx;
+        targetTy = ty;
+        targetDistance = distance;
+
+        double distance_m = distance * DriveConstants.METERS_PER_INCH;
+        if (Double.isNaN(azimuth) || !(distance_m >= NavigationConstants.FUSION_VISION_MIN_DISTANCE_M)) {
+            return;
+        }
+
+        // the camera's on the turret, so its bearing is relative to the robot once the azimuth's added in
+        fusion.add(visionSensor, t, Math.toRadians(tx + azimuth), distance_m);
+    }
+
+
+
+    /** Get the newest estimate. Never blocks. */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public Pose2d getPose() {
+        return snapshot.get().pose;
+    }
+
+    public PoseHistory getHistory() {
+        return history;
+    }
+
+    /** @return the sensor fusion, which should only be looked at from the estimator thread (or when it's not started) */
+    public SensorFusion getFusion() {
+        return fusion;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getDroppedImu() { return imuQueue.getDropped(); }
+    public long getDroppedGyro() { return gyroQueue.getDropped(); }
+    public long getDroppedEncoders() { return encoderQueue.getDropped(); }
+    public long getDroppedVision() { return visionQueue.getDropped(); }
+    /** @return number of times the fusion's covariance had to be fixed, safe from any thread */
+    public long getFusionRecoveries() { return fusion.getRecoveries(); }
+}
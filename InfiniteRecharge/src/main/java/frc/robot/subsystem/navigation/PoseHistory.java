@@ -0,0 +1,197 @@
+package frc.robot.subsystem.navigation;
+
+
+
+/**
+ * Bounded history of timestamped robot states so that sensor data that shows
+ * up late (like vision, which is usually a few dozen ms old by the time we
+ * get it) can be matched up with where the robot was when it was captured.
+ *
+ * Each entry is (timestamp, x, y, theta, v, omega), stored in parallel
+ * primitive arrays used as a ring buffer, so adding doesn't allocate. Looking
+ * up a time is a binary search, and times between two entries are
+ * interpolated: linearly for everything except theta, which goes the short
+ * way around the circle (the 2D version of SLERP).
+ *
+ * Written by the estimator thread and read by the robot loop, so everything is
+ * synchronized. Nothing in here takes long enough for that to matter.
+ */
+public class PoseHistory {
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int THETA = 2;
+    public static final int V = 3;
+    public static final int OMEGA = 4;
+    /** number of values get() writes */
+    public static final int WIDTH = 5;
+
+    private final int CAPACITY;
+
+    private final double[] t;
+    private final double[] x;
+    private final double[] y;
+    private final double[] theta;
+    private final double[] v;
+    private final double[] omega;
+
+    /** physical index of the oldest entry */
+    private int start = 0;
+    private int size = 0;
+
+
+
+    public PoseHistory(int capacity) {
+        CAPACITY = capacity;
+
+        t = new double[CAPACITY];
+        x = new double[CAPACITY];
+        y = new double[CAPACITY];
+        theta = new double[CAPACITY];
+        v = new double[CAPACITY];
+        omega = new double[CAPACITY];
+    }
+
+
+
+    /**
+     * Add a state to the history. Timestamps need to be increasing; a state
+     * at the same time as the newest one replaces it and older ones are ignored.
+     *
+     * @param time timestamp (s)
+     * @param x x position
+     * @param y y position
+     * @param theta heading (rad)
+     * @param v forward velocity
+     * @param omega angular velocity (rad/s)
+     */
+    public synchronized void add(double time, double x, double y, double theta, double v, double omega) {
+        int i;
+
+        if (size > 0 && time <= t[physical(size - 1)]) {
+            if (time < t[physical(size - 1)]) {
+                return;
+            }
+
+            // same time, overwrite the newest
+            i = physical(size - 1);
+        } else if (size < CAPACITY) {
+            i = physical(size);
+            size++;
+        } else {
+            // full, overwrite the oldest
+            i = start;
+            start = (start + 1) % CAPACITY;
+        }
+
+        this.t[i] = time;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.theta[i] = theta;
+        this.v[i] = v;
+        this.omega[i] = omega;
+    }
+
+    /**
+     * Get the state at a point in time
+     *
+     * @param time timestamp (s)
+     * @param out array of at least WIDTH elements to put x, y, theta, v, omega in
+     * (use the X, Y, ... constants to index it)
+     *
+     * @return false if the history is empty or doesn't go back far enough. If it doesn't
+     * go back far enough, the oldest state is still given. If time is newer than the
+     * newest state, the newest state is given.
+     */
+    public synchronized boolean get(double time, double[] out) {
+        if (size == 0) {
+            return false;
+        }
+
+        if (time <= t[start]) {
+            copy(start, out);
+            return time == t[start];
+        }
+
+        int newest = physical(size - 1);
+        if (time >= t[newest]) {
+            copy(newest, out);
+            return true;
+        }
+
+        // find the last entry at or before time, lo is always at or before and hi always after
+        int lo = 0;
+        int hi = size - 1;
+
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+
+            if (t[physical(mid)] <= time) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+
+        int a = physical(lo);
+        int b = physical(hi);
+        double frac = (time - t[a]) / (t[b] - t[a]);
+
+        out[X] = lerp(x[a], x[b], frac);
+        out[Y] = lerp(y[a], y[b], frac);
+        out[THETA] = interpolateAngle(theta[a], theta[b], frac);
+        out[V] = lerp(v[a], v[b], frac);
+        out[OMEGA] = lerp(omega[a], omega[b], frac);
+
+        return true;
+    }
+
+    private void copy(int i, double[] out) {
+        out[X] = x[i];
+        out[Y] = y[i];
+        out[THETA] = theta[i];
+        out[V] = v[i];
+        out[OMEGA] = omega[i];
+    }
+
+    private int physical(int logical) {
+        return (start + logical) % CAPACITY;
+    }
+
+    private static double lerp(double a, double b, double frac) {
+        return a + (b - a) * frac;
+    }
+
+    /**
+     * Interpolate between two angles the short way around
+     *
+     * @param a angle at frac = 0 (rad)
+     * @param b angle at frac = 1 (rad)
+     * @param frac how far from a to b
+     *
+     * @return interpolated angle, continuous with a (not wrapped)
+     */
+    public static double interpolateAngle(double a, double b, double frac) {
+        return a + Math.IEEEremainder(b - a, 2 * Math.PI) * frac;
+    }
+
+
+
+    public synchronized void clear() {
+        start = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** @return timestamp of oldest state, or NaN if empty */
+    public synchronized double getOldestTime() {
+        return size == 0 ? Double.NaN : t[start];
+    }
+
+    /** @return timestamp of newest state, or NaN if empty */
+    public synchronized double getNewestTime() {
+        return size == 0 ? Double.NaN : t[physical(size - 1)];
+    }
+}
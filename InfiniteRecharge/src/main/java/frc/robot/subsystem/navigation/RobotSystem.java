@@ -1,8 +1,18 @@
 package frc.robot.subsystem.navigation;
 
+import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.controllers.GainSchedule;
+import frc.robot.utils.control.statespace.controllers.GainSynthesis;
+import frc.robot.utils.control.statespace.controllers.Riccati;
+import frc.robot.utils.control.statespace.models.ABFTriple;
+import frc.robot.utils.control.statespace.models.C2D;
+import frc.robot.utils.control.statespace.models.DiscretizationCache;
+import frc.robot.utils.control.statespace.models.linearized.Linearizer;
 import frc.robot.utils.control.statespace.models.ltif.CLTIFModel;
+import frc.robot.utils.control.statespace.models.ltif.LTIFModel;
 import frc.robot.utils.control.statespace.models.motors.MotorType;
 
 public class RobotSystem {
@@ -12,7 +22,7 @@ public class RobotSystem {
     public final double R_W = 0.0762;
     //public final double I_W = 0.001;
 
-    public final MotorType type = MotorType.Falcon500;
+    public final MotorType type = MotorType.get(NavigationConstants.DRIVE_MOTOR, MotorType.Falcon500);
     public final double Kt = type.getKT().getValue();
     public final double Kw = type.getKW().getValue();
     public final double R = type.getR().getValue();
@@ -29,49 +39,158 @@ public class RobotSystem {
 
 
 
-    private CLTIFModel model;
+    public final double DT = 0.02;
+
+    // how velocities, voltages and friction turn into accelerations
+    private final double aM = (1/M + R_R * R_R / I_R);
+    private final double bM = (1/M - R_R * R_R / I_R);
+    private final double cM = 1.0/(2*R_R);
+    private final double Cv = -(Kw * Kt * G * G * e / (R * R_W * R_W) + b * G * G * e / (R_W * R_W));
+    private final double CV = G * e * Kt / (R * R_W);
+
+    private final Linearizer linearizer = new Linearizer(this::dynamics, 5, 2);
+    private final DMatrixRMaj operatingState = new DMatrixRMaj(5, 1);
+    private final DMatrixRMaj operatingInput = new DMatrixRMaj(2, 1);
+
+
+
+    /** what getModel() gives back, made the first time and copied into after that */
+    private LTIFModel model;
+
+    /** discretizing every loop is expensive, so keep the ones we've done around */
+    private final DiscretizationCache cache = new DiscretizationCache(
+        this::discretize,
+        NavigationConstants.MODEL_CACHE_V_STEP,
+        NavigationConstants.MODEL_CACHE_THETA_STEP,
+        NavigationConstants.MODEL_CACHE_SIZE,
+        NavigationConstants.MODEL_CACHE_INTERPOLATE
+    );
 
     public RobotSystem() {
     }
 
-    public CLTIFModel getModel(double v0, double theta0) {
-        double aM = (1/M + R_R * R_R / I_R);
-        double bM = (1/M - R_R * R_R / I_R);
-        double cM = 1.0/(2*R_R);
-
-        double Cv = -(Kw * Kt * G * G * e / (R * R_W * R_W) + b * G * G * e / (R_W * R_W));
-        double CV = G * e * Kt / (R * R_W);
-
-        // x' = (vl + vr)/2 cos theta
-        // x' = 1/2 cos theta vl + 1/2 cos theta vr / 2 - (vl + vr)/2 sin theta * theta + (vl+vr)/2 sin theta * theta0
-        SimpleMatrix Ac = new SimpleMatrix(new double[][] {
-            new double[] {0, 0, -v0 * Math.sin(theta0), Math.cos(theta0) / 2, Math.cos(theta0) / 2},
-            new double[] {0, 0, v0 * Math.cos(theta0), Math.sin(theta0) / 2, Math.sin(theta0) / 2},
-            new double[] {0, 0, 0, -cM,    cM},
-            new double[] {0, 0, 0, aM*Cv, bM*Cv},
-            new double[] {0, 0, 0, bM*Cv, aM*Cv}
-        });
-
-        SimpleMatrix Bc = new SimpleMatrix(new double[][] {
-            new double[] {0, 0},
-            new double[] {0, 0},
-            new double[] {0, 0},
-            new double[] {aM*CV, bM*CV},
-            new double[] {bM*CV, aM*CV}
-        });
-
-        SimpleMatrix Fc = new SimpleMatrix(new double[][] {
-            new double[] {v0 * theta0 * Math.sin(theta0)},
-            new double[] {-v0 * theta0 * Math.cos(theta0)},
-            new double[] {0},
-            new double[] {aM*F_F_L + bM*F_F_R},
-            new double[] {bM*F_F_L + aM*F_F_R}
-        });
-
-        //System.out.println("RobotSystem continuous matrix time: " + (t2 - t1) / 1000000 + "ms");
-
-        model = new CLTIFModel(Ac, Bc, Fc, 0.02);
+    /**
+     * Get the discrete model linearized around an operating point, using
+     * previously discretized operating points when possible. It's the same
+     * model every time with new matrices copied in, so copy it if it needs to
+     * last past the next call.
+     */
+    public LTIFModel getModel(double v0, double theta0) {
+        ABFTriple system = cache.get(v0, theta0);
+
+        if (model == null) {
+            model = new LTIFModel(new ABFTriple(system.getA().copy(), system.getB().copy(), system.getF().copy()));
+        } else {
+            model.getA().set(system.getA());
+            model.getB().set(system.getB());
+            model.getF().set(system.getF());
+        }
 
         return model;
     }
+
+    /**
+     * Same as getModel() but with the heading straight from the navX, which is
+     * in degrees and has to be wrapped so every turn lands on the same grid points
+     */
+    public LTIFModel getModelAtYaw(double v0, double yaw_deg) {
+        return getModel(v0, yawToTheta(yaw_deg));
+    }
+
+    /** @return heading in radians in [-pi, pi) */
+    public static double yawToTheta(double yaw_deg) {
+        double theta = Math.IEEEremainder(Math.toRadians(yaw_deg), 2 * Math.PI);
+        return theta >= Math.PI ? theta - 2 * Math.PI : theta;
+    }
+
+    /** Get the discrete model linearized around an operating point, always discretizing it */
+    public CLTIFModel getExactModel(double v0, double theta0) {
+        return new CLTIFModel(getContinuousSystem(v0, theta0), DT);
+    }
+
+    public DiscretizationCache getCache() {
+        return cache;
+    }
+
+    private ABFTriple discretize(double v0, double theta0) {
+        return C2D.c2d(getContinuousSystem(v0, theta0), DT);
+    }
+
+    /**
+     * LQR gains for following a trajectory, scheduled on speed. The state is the
+     * error in the robot's own frame, so it's linearized at theta0 = 0 and only
+     * the speed matters. There's no Kalman filter in here since x and y can't be
+     * observed (PoseEstimator takes care of them).
+     *
+     * Takes a while, so frc.robot.tools.GainTool does it ahead of time.
+     */
+    public GainSchedule synthesizeGains() throws StateSpaceException {
+        return getGains(null);
+    }
+
+    /**
+     * Same as synthesizeGains(), but uses a precomputed schedule if it was made
+     * from this model
+     *
+     * @param precomputed from the gain schedule file, or null
+     */
+    public GainSchedule getGains(GainSchedule precomputed) throws StateSpaceException {
+        return GainSynthesis.getOrSynthesize(
+            precomputed,
+            NavigationConstants.TRAJECTORY_GAINS,
+            (v0, theta0) -> discretize(v0, 0),
+            NavigationConstants.TRAJECTORY_GAINS_V_MIN,
+            NavigationConstants.TRAJECTORY_GAINS_V_STEP,
+            NavigationConstants.TRAJECTORY_GAINS_V_COUNT,
+            0, 1, 1,
+            Riccati.bryson(
+                NavigationConstants.TRAJECTORY_MAX_X_ERROR,
+                NavigationConstants.TRAJECTORY_MAX_Y_ERROR,
+                NavigationConstants.TRAJECTORY_MAX_THETA_ERROR,
+                NavigationConstants.TRAJECTORY_MAX_V_ERROR,
+                NavigationConstants.TRAJECTORY_MAX_V_ERROR
+            ),
+            Riccati.bryson(NavigationConstants.TRAJECTORY_MAX_VOLTAGE, NavigationConstants.TRAJECTORY_MAX_VOLTAGE),
+            null, null, null
+        );
+    }
+
+    /**
+     * Nonlinear continuous dynamics, with state [x, y, theta, vl, vr] and input
+     * [left voltage, right voltage]
+     */
+    public void dynamics(DMatrixRMaj x, DMatrixRMaj u, double t, DMatrixRMaj out) {
+        double theta = x.get(2, 0);
+        double vl = x.get(3, 0);
+        double vr = x.get(4, 0);
+
+        double v = (vl + vr) / 2;
+
+        // force on each side
+        double left = Cv * vl + CV * u.get(0, 0) + F_F_L;
+        double right = Cv * vr + CV * u.get(1, 0) + F_F_R;
+
+        out.set(0, 0, v * Math.cos(theta));
+        out.set(1, 0, v * Math.sin(theta));
+        out.set(2, 0, cM * (vr - vl));
+        out.set(3, 0, aM * left + bM * right);
+        out.set(4, 0, bM * left + aM * right);
+    }
+
+    /** Continuous system linearized around driving straight at v0 with heading theta0 */
+    public synchronized ABFTriple getContinuousSystem(double v0, double theta0) {
+        operatingState.set(2, 0, theta0);
+        operatingState.set(3, 0, v0);
+        operatingState.set(4, 0, v0);
+
+        // it's affine in u, so the input doesn't matter
+        linearizer.linearize(operatingState, operatingInput, 0);
+
+        // the linearizer's matrices get overwritten next time, and these can end up in the cache
+        return new ABFTriple(
+            SimpleMatrix.wrap(linearizer.getA().copy()),
+            SimpleMatrix.wrap(linearizer.getB().copy()),
+            SimpleMatrix.wrap(linearizer.getF().copy())
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,446 @@
+package frc.robot.subsystem.navigation;
+
+import java.util.ArrayList;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.factory.DecompositionFactory_DDRM;
+import org.ejml.interfaces.decomposition.CholeskyDecomposition_F64;
+
+import frc.robot.utils.control.statespace.estimators.kalman.UnscentedKalmanFilter;
+
+
+
+/**
+ * Fuses timestamped measurements from any number of sensors, each with its
+ * own rate and noise, into one estimate with an UnscentedKalmanFilter.
+ *
+ * Measurements don't have to come in order. Every measurement that's applied
+ * is kept in a time ordered log along with the state and covariance right
+ * after it, so when one shows up that's older than the newest (like a vision
+ * frame that took 50 ms to get to us), the filter rewinds to the entry just
+ * before it, applies it, and replays everything after it on top. The result
+ * is the same as if it had come in on time. Anything older than the log goes
+ * back is dropped.
+ *
+ * Process noise is given per second and scaled by how long each prediction is,
+ * so it doesn't matter how the measurements are spaced out.
+ *
+ * If the covariance stops being positive definite (rounding piling up, or a
+ * model that blew up) the filter can't predict or update from it, which would
+ * leave the estimate stuck where it is. So when that happens it's symmetrized
+ * with a little added to the diagonal, or started over from the starting
+ * covariance if that's not enough, and counted in getRecoveries().
+ *
+ * Everything's preallocated, so add() doesn't allocate (as long as the models
+ * don't). It's not thread safe: PoseEstimator only uses it from its own thread.
+ */
+public class SensorFusion {
+    /** most values one measurement can have */
+    public static final int MAX_WIDTH = 4;
+
+    /** A source of measurements. Made by addSensor(). */
+    public class Sensor {
+        private final String NAME;
+        private final int ID;
+        private final double RATE;
+        private final UnscentedKalmanFilter.Measurement MEASUREMENT;
+
+        /** workspace for passing values to the filter */
+        private final DMatrixRMaj y;
+
+        private double lastTime = Double.NaN;
+        private long count = 0;
+        private long late = 0;
+        private long dropped = 0;
+        private long rejected = 0;
+
+
+
+        private Sensor(String name, int id, double rate, UnscentedKalmanFilter.Measurement measurement) {
+            NAME = name;
+            ID = id;
+            RATE = rate;
+            MEASUREMENT = measurement;
+
+            y = new DMatrixRMaj(measurement.getSize(), 1);
+        }
+
+
+
+        /** @return whether it's gone more than a few of its periods without a measurement */
+        public boolean isStale(double now) {
+            return Double.isNaN(lastTime) || now - lastTime > NavigationConstants.FUSION_STALE_PERIODS / RATE;
+        }
+
+        /** @return measurement noise covariance, which can be changed */
+        public DMatrixRMaj getR() { return MEASUREMENT.getR(); }
+        /** @return measurement minus what was expected, from the last time this sensor was applied */
+        public DMatrixRMaj getInnovation() { return MEASUREMENT.getInnovation(); }
+
+        public String getName() { return NAME; }
+        /** @return how often it's expected to measure (Hz) */
+        public double getRate() { return RATE; }
+        /** @return timestamp of the newest measurement, or NaN if there hasn't been one */
+        public double getLastTime() { return lastTime; }
+        /** @return number of measurements applied */
+        public long getCount() { return count; }
+        /** @return number of measurements that needed a rewind */
+        public long getLate() { return late; }
+        /** @return number of measurements too old to be applied */
+        public long getDropped() { return dropped; }
+        /** @return number of measurements the filter couldn't use */
+        public long getRejected() { return rejected; }
+    }
+
+
+
+    private final UnscentedKalmanFilter filter;
+    private final ArrayList<Sensor> sensors = new ArrayList<Sensor>();
+
+    private final int N;
+    private final int CAPACITY;
+
+    /** process noise per second */
+    private final DMatrixRMaj Q_RATE;
+    /** the process has no inputs, but the filter wants some */
+    private final DMatrixRMaj u = new DMatrixRMaj(1, 1);
+
+    /** time of the filter's estimate */
+    private double time;
+
+    /** covariance to start over from if it can't be fixed */
+    private final DMatrixRMaj P0;
+    /** workspace for checking a fixed covariance */
+    private final DMatrixRMaj recovered;
+    private final CholeskyDecomposition_F64<DMatrixRMaj> cholesky;
+    /** read from other threads for telemetry */
+    private volatile long recoveries = 0;
+
+
+
+    /*
+     * The log, as parallel primitive arrays used as a ring buffer. Entry i is
+     * the measurement at times[i] and the state after applying it, sorted by time.
+     */
+    private final double[] times;
+    private final int[] sources;
+    private final double[] values;
+    private final double[] states;
+    private final double[] covariances;
+
+    /** physical index of the oldest entry */
+    private int start = 0;
+    private int size = 0;
+
+    /** state from just before the oldest entry, so it can still be rewound to */
+    private double baseTime;
+    private final DMatrixRMaj baseState;
+    private final DMatrixRMaj baseCovariance;
+
+    private long replayed = 0;
+
+
+
+    /**
+     * @param process process model, with no inputs
+     * @param x0 starting state
+     * @param P0 starting covariance
+     * @param Q process noise covariance per second
+     * @param t0 starting time (s)
+     * @param capacity number of measurements to keep for rewinding
+     * @param angles states that are angles (rad)
+     */
+    public SensorFusion(UnscentedKalmanFilter.Process process, DMatrixRMaj x0, DMatrixRMaj P0, DMatrixRMaj Q,
+            double t0, int capacity, int... angles) {
+        filter = new UnscentedKalmanFilter(process, x0, P0, Q);
+        filter.setAngleStates(angles);
+
+        N = x0.numRows;
+        CAPACITY = capacity;
+        Q_RATE = new DMatrixRMaj(Q);
+
+        times = new double[CAPACITY];
+        sources = new int[CAPACITY];
+        values = new double[CAPACITY * MAX_WIDTH];
+        states = new double[CAPACITY * N];
+        covariances = new double[CAPACITY * N * N];
+
+        baseState = new DMatrixRMaj(x0);
+        baseCovariance = new DMatrixRMaj(P0);
+
+        this.P0 = new DMatrixRMaj(P0);
+        recovered = new DMatrixRMaj(N, N);
+        cholesky = DecompositionFactory_DDRM.chol(N, true);
+
+        time = t0;
+        baseTime = t0;
+    }
+
+    /**
+     * Register a sensor
+     *
+     * @param name for telemetry
+     * @param rate how often it measures (Hz)
+     * @param model what it measures, at most MAX_WIDTH values
+     * @param R measurement noise covariance
+     * @param angles outputs that are angles (rad)
+     */
+    public Sensor addSensor(String name, double rate, UnscentedKalmanFilter.MeasurementModel model,
+            DMatrixRMaj R, int... angles) {
+        Sensor sensor = new Sensor(name, sensors.size(), rate, filter.addMeasurement(model, R, angles));
+        sensors.add(sensor);
+
+        return sensor;
+    }
+
+
+
+    /*
+     * Separate overloads instead of varargs so adding a measurement doesn't
+     * allocate an array. Values past the sensor's size are ignored.
+     */
+    public boolean add(Sensor sensor, double t, double a) {
+        return add(sensor, t, a, 0, 0, 0);
+    }
+
+    public boolean add(Sensor sensor, double t, double a, double b) {
+        return add(sensor, t, a, b, 0, 0);
+    }
+
+    public boolean add(Sensor sensor, double t, double a, double b, double c) {
+        return add(sensor, t, a, b, c, 0);
+    }
+
+    /**
+     * Apply a measurement, rewinding and replaying if it's older than the estimate
+     *
+     * @param t timestamp (s) the measurement was taken
+     *
+     * @return false if it was too old or the filter couldn't use it
+     */
+    public boolean add(Sensor sensor, double t, double a, double b, double c, double d) {
+        sensor.lastTime = Double.isNaN(sensor.lastTime) ? t : Math.max(sensor.lastTime, t);
+
+        // in order, the usual case
+        if (t >= time) {
+            if (!apply(sensor, t, a, b, c, d)) {
+                sensor.rejected++;
+                return false;
+            }
+
+            append(sensor.ID, t, a, b, c, d);
+            sensor.count++;
+            return true;
+        }
+
+        if (t < baseTime) {
+            sensor.dropped++;
+            return false;
+        }
+
+        // find where it goes, after everything at or before t
+        int k = size;
+        while (k > 0 && times[physical(k - 1)] > t) {
+            k--;
+        }
+
+        // the log's full and the oldest entry has to go to make room, so the one it goes after might be that one
+        if (size == CAPACITY) {
+            if (k == 0) {
+                sensor.dropped++;
+                return false;
+            }
+
+            evict();
+            k--;
+        }
+
+        // make room, then rewind to just before it and replay everything from it on
+        for (int i = size; i > k; i--) {
+            move(physical(i - 1), physical(i));
+        }
+        size++;
+        write(physical(k), sensor.ID, t, a, b, c, d);
+
+        restore(k - 1);
+        for (int i = k; i < size; i++) {
+            int p = physical(i);
+            int offset = p * MAX_WIDTH;
+
+            if (!apply(sensors.get(sources[p]), times[p], values[offset], values[offset + 1], values[offset + 2], values[offset + 3])) {
+                // keep going from the state before it
+                sensors.get(sources[p]).rejected++;
+            }
+            save(p);
+        }
+
+        replayed += size - k;
+        sensor.late++;
+        sensor.count++;
+
+        return true;
+    }
+
+    /** Predict up to t and update with the measurement */
+    private boolean apply(Sensor sensor, double t, double a, double b, double c, double d) {
+        if (t > time) {
+            double dt = t - time;
+            CommonOps_DDRM.scale(dt, Q_RATE, filter.getQ());
+
+            if (!filter.predict(u, dt)) {
+                recover();
+                if (!filter.predict(u, dt)) {
+                    return false;
+                }
+            }
+            time = t;
+        }
+
+        DMatrixRMaj y = sensor.y;
+        y.set(0, 0, a);
+        if (y.numRows > 1) { y.set(1, 0, b); }
+        if (y.numRows > 2) { y.set(2, 0, c); }
+        if (y.numRows > 3) { y.set(3, 0, d); }
+
+        if (filter.update(sensor.MEASUREMENT, y)) {
+            return true;
+        }
+
+        recover();
+        return filter.update(sensor.MEASUREMENT, y);
+    }
+
+    /**
+     * Make the covariance positive definite again: symmetrize it and add a
+     * little to the diagonal, or go back to P0 if it's still not (or not finite)
+     */
+    private void recover() {
+        DMatrixRMaj P = filter.getCovariance();
+        boolean finite = true;
+
+        for (int r = 0; r < N; r++) {
+            for (int c = r + 1; c < N; c++) {
+                double average = (P.get(r, c) + P.get(c, r)) / 2;
+                P.set(r, c, average);
+                P.set(c, r, average);
+            }
+            P.add(r, r, NavigationConstants.FUSION_RECOVERY_JITTER);
+        }
+
+        for (int i = 0; i < N * N; i++) {
+            finite &= Double.isFinite(P.data[i]);
+        }
+
+        // decomposing overwrites it
+        recovered.set(P);
+        if (!finite || !cholesky.decompose(recovered)) {
+            P.set(P0);
+        }
+
+        recoveries++;
+    }
+
+
+
+    // log
+
+    private void append(int source, double t, double a, double b, double c, double d) {
+        if (size == CAPACITY) {
+            evict();
+        }
+
+        int p = physical(size);
+        size++;
+
+        write(p, source, t, a, b, c, d);
+        save(p);
+    }
+
+    /** drop the oldest entry, which becomes what the log starts from */
+    private void evict() {
+        baseTime = times[start];
+        System.arraycopy(states, start * N, baseState.data, 0, N);
+        System.arraycopy(covariances, start * N * N, baseCovariance.data, 0, N * N);
+
+        start = (start + 1) % CAPACITY;
+        size--;
+    }
+
+    private void write(int p, int source, double t, double a, double b, double c, double d) {
+        int offset = p * MAX_WIDTH;
+
+        times[p] = t;
+        sources[p] = source;
+        values[offset] = a;
+        values[offset + 1] = b;
+        values[offset + 2] = c;
+        values[offset + 3] = d;
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        sources[to] = sources[from];
+        System.arraycopy(values, from * MAX_WIDTH, values, to * MAX_WIDTH, MAX_WIDTH);
+        System.arraycopy(states, from * N, states, to * N, N);
+        System.arraycopy(covariances, from * N * N, covariances, to * N * N, N * N);
+    }
+
+    /** store the filter's estimate in entry p */
+    private void save(int p) {
+        System.arraycopy(filter.getState().data, 0, states, p * N, N);
+        System.arraycopy(filter.getCovariance().data, 0, covariances, p * N * N, N * N);
+    }
+
+    /** set the filter back to just after logical entry i, or the base for -1 */
+    private void restore(int i) {
+        if (i < 0) {
+            filter.reset(baseState, baseCovariance);
+            time = baseTime;
+            return;
+        }
+
+        int p = physical(i);
+
+        System.arraycopy(states, p * N, filter.getState().data, 0, N);
+        System.arraycopy(covariances, p * N * N, filter.getCovariance().data, 0, N * N);
+        time = times[p];
+    }
+
+    private int physical(int logical) {
+        return (start + logical) % CAPACITY;
+    }
+
+
+
+    /**
+     * Start over from a new estimate, forgetting everything logged. Measurements
+     * from before t are dropped after this.
+     */
+    public void reset(DMatrixRMaj x, DMatrixRMaj P, double t) {
+        filter.reset(x, P);
+        time = t;
+        P0.set(P);
+
+        baseState.set(x);
+        baseCovariance.set(P);
+        baseTime = t;
+
+        start = 0;
+        size = 0;
+    }
+
+    /** @return state estimate at getTime(). Owned by the filter, copy it to keep it */
+    public DMatrixRMaj getState() { return filter.getState(); }
+    /** @return covariance of the estimate. Owned by the filter, copy it to keep it */
+    public DMatrixRMaj getCovariance() { return filter.getCovariance(); }
+    /** @return timestamp (s) of the estimate, which is the newest measurement's */
+    public double getTime() { return time; }
+
+    public int getLogSize() { return size; }
+    /** @return total number of entries applied again because of late measurements */
+    public long getReplayed() { return replayed; }
+    /** @return number of times the covariance had to be fixed so the filter could keep going. Safe from any thread. */
+    public long getRecoveries() { return recoveries; }
+    public ArrayList<Sensor> getSensors() { return sensors; }
+}
@@ -0,0 +1,179 @@
+package frc.robot.subsystem.scoring.shooter;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
+
+import edu.wpi.first.wpilibj.Notifier;
+
+import frc.robot.config.Config;
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.controllers.FlywheelController;
+import frc.robot.utils.control.statespace.controllers.GainSchedule;
+import frc.robot.utils.control.statespace.models.motor.MotorVelocity;
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+import frc.robot.utils.talonutils.MotorSettings;
+
+
+
+/**
+ * Runs the shooter flywheel's FlywheelController on its own Notifier so it
+ * gets a new measurement and voltage every FLYWHEEL_PERIOD instead of every
+ * robot loop. Faster updates mean it notices (and makes up for) the speed a
+ * ball takes out of it sooner, which is what limits how fast we can shoot.
+ *
+ * Speeds in and out are flywheel RPM like everywhere else in the shooter, the
+ * controller works in rad/s at the motor.
+ *
+ * Gains come from the deployed gain schedule file (see
+ * GainSchedule.getPrecomputed()) as long as they were made from this model
+ * and config, otherwise they're worked out here with the same weights.
+ *
+ * The Talon has to send a fresh speed every step for any of this to help, so
+ * the motor needs motorSettings() applied. With the default status frame and
+ * velocity measurement it'd be seeing a speed averaged over the last ~100ms,
+ * 20ms late, and the estimator would trust it like it was current.
+ */
+public class Flywheel {
+    private final WPI_TalonFX motor;
+    private final FlywheelController controller;
+
+    /** motor rad/s per flywheel RPM */
+    private final double RADPS_PER_RPM;
+    /** motor rad/s per sensor ticks/100ms */
+    private final double RADPS_PER_TICKS;
+
+    private Notifier notifier;
+
+
+
+    public Flywheel(WPI_TalonFX motor, Config config) throws StateSpaceException {
+        this.motor = motor;
+
+        RADPS_PER_RPM = getRadpsPerRPM(config);
+        RADPS_PER_TICKS = 10.0 / config.shooter.shooter.ticksPerRevolution * 2 * Math.PI;
+
+        GainSchedule gains = getGains(config, GainSchedule.getPrecomputed(ShooterConstants.FLYWHEEL_GAINS));
+        controller = new FlywheelController(makeModel(config), gains, ShooterConstants.MAX_VOLTS);
+    }
+
+    private static double getRadpsPerRPM(Config config) {
+        return config.shooter.shooterGearRatio * 2 * Math.PI / 60;
+    }
+
+    public static MotorVelocity makeModel(Config config) {
+        double gearRatio = config.shooter.shooterGearRatio;
+
+        // the motor spins gearRatio times as fast as the flywheel, so it sees the inertia divided by gearRatio^2
+        return new MotorVelocity(
+            ShooterConstants.FLYWHEEL_PERIOD_S,
+            MotorType.get(ShooterConstants.FLYWHEEL_MOTOR, MotorType.Falcon500),
+            config.shooter.flywheelInertia_kgm2 / (gearRatio * gearRatio)
+        );
+    }
+
+    /** @return what the flywheel motor needs to send a new speed every step */
+    public static MotorSettings motorSettings() {
+        return new MotorSettings()
+            .voltageCompSaturation(ShooterConstants.MAX_VOLTS)
+            .statusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, ShooterConstants.FLYWHEEL_STATUS_FRAME_PERIOD_MS)
+            .velocityMeasurement(
+                ShooterConstants.FLYWHEEL_VELOCITY_MEASUREMENT_PERIOD,
+                ShooterConstants.FLYWHEEL_VELOCITY_MEASUREMENT_WINDOW
+            );
+    }
+
+    /**
+     * @return standard deviation of a measured speed with motorSettings() (motor rad/s).
+     * Counting whole ticks over a short period is off by up to a tick, which is
+     * a uniform error of one tick per period (std dev 1/sqrt(12) of that),
+     * averaged down a bit by the window. On top of that's everything else, FLYWHEEL_MEASUREMENT_STD_DEV_RPM.
+     */
+    public static double getMeasurementStdDev_radps(Config config) {
+        double period_s = ShooterConstants.FLYWHEEL_VELOCITY_MEASUREMENT_PERIOD.value / 1000.0;
+        double tick_radps = 2 * Math.PI / config.shooter.shooter.ticksPerRevolution / period_s;
+
+        double quantization = tick_radps / Math.sqrt(12 * ShooterConstants.FLYWHEEL_VELOCITY_MEASUREMENT_WINDOW);
+        double other = ShooterConstants.FLYWHEEL_MEASUREMENT_STD_DEV_RPM * getRadpsPerRPM(config);
+
+        return Math.sqrt(quantization * quantization + other * other);
+    }
+
+    /** Work out the flywheel's gains, which GainTool does ahead of time */
+    public static GainSchedule synthesizeGains(Config config) throws StateSpaceException {
+        return getGains(config, null);
+    }
+
+    /**
+     * Same as synthesizeGains(), but uses a precomputed schedule if it was made
+     * from this model and config
+     *
+     * @param precomputed from the gain schedule file, or null
+     */
+    public static GainSchedule getGains(Config config, GainSchedule precomputed) throws StateSpaceException {
+        double radpsPerRPM = getRadpsPerRPM(config);
+
+        return FlywheelController.getOrSynthesize(
+            precomputed,
+            ShooterConstants.FLYWHEEL_GAINS,
+            makeModel(config),
+            ShooterConstants.FLYWHEEL_MAX_ERROR_RPM * radpsPerRPM,
+            ShooterConstants.MAX_VOLTS,
+            ShooterConstants.FLYWHEEL_MODEL_STD_DEV_RPM * radpsPerRPM,
+            getMeasurementStdDev_radps(config)
+        );
+    }
+
+    /** Start running on its own thread */
+    public void start() {
+        if (notifier == null) {
+            notifier = new Notifier(this::step);
+            notifier.setName("Flywheel");
+        }
+
+        controller.reset(motor.getSelectedSensorVelocity() * RADPS_PER_TICKS);
+        notifier.startPeriodic(ShooterConstants.FLYWHEEL_PERIOD_S);
+    }
+
+    public void stop() {
+        if (notifier != null) {
+            notifier.stop();
+        }
+    }
+
+    private void step() {
+        double voltage = controller.update(motor.getSelectedSensorVelocity() * RADPS_PER_TICKS);
+
+        // voltage compensation is on, so this is a fraction of MAX_VOLTS and not the battery
+        motor.set(ControlMode.PercentOutput, voltage / ShooterConstants.MAX_VOLTS);
+    }
+
+
+
+    /** @param rpm flywheel speed to hold */
+    public void setRPM(double rpm) {
+        controller.setReference(rpm * RADPS_PER_RPM);
+    }
+
+    /** Stop driving it and let it spin down */
+    public void coast() {
+        controller.setReference(0);
+    }
+
+    /** @return whether it's sure it's within FLYWHEEL_READY_TOLERANCE_RPM of the target */
+    public boolean isReady() {
+        return controller.isReady(
+            ShooterConstants.FLYWHEEL_READY_TOLERANCE_RPM * RADPS_PER_RPM,
+            ShooterConstants.FLYWHEEL_READY_SIGMAS
+        );
+    }
+
+
+
+    /** @return estimated flywheel speed (RPM) */
+    public double getRPM() { return controller.getEstimate() / RADPS_PER_RPM; }
+    public double getTargetRPM() { return controller.getReference() / RADPS_PER_RPM; }
+    /** @return standard deviation of the speed estimate (RPM) */
+    public double getStdDevRPM() { return Math.sqrt(controller.getVariance()) / RADPS_PER_RPM; }
+    public double getVoltage() { return controller.getVoltage(); }
+}
@@ -1,14 +1,61 @@
 package frc.robot.subsystem.scoring.shooter;
 
+import com.ctre.phoenix.motorcontrol.VelocityMeasPeriod;
+
 public class ShooterConstants {
 
     public static final boolean USE_FILTER = false;
     public static final int FILTER_LENGTH = 25;
 
+    /** correct the vision target's offset for how much the robot has turned since the image was taken */
+    public static final boolean USE_LATENCY_COMPENSATION = true;
+
+    /**
+     * aim at where the vision tracker predicts the target will be when the ball
+     * leaves, instead of the latest frame (which also takes care of latency)
+     */
+    public static final boolean USE_TRACKER = true;
+    /** turret azimuths kept to look up where it was when an image was taken, enough to cover the camera latency */
+    public static final int AZIMUTH_HISTORY_SIZE = 25;
+    /** how long from aiming until the ball is out of the shooter (s) */
+    public static final double SHOT_RELEASE_DELAY_S = 0.15;
+    /**
+     * Aim off the target by however far the robot moves while the ball's in the
+     * air, so it can shoot while driving
+     */
+    public static final boolean USE_LEAD = true;
+    public static final int LEAD_MAX_ITERATIONS = 5;
+    /** time of flight change (s) where the lead's considered settled */
+    public static final double LEAD_TOLERANCE_S = 0.001;
+
     public static final double SHOOTER_FLYWHEEL_RADIUS = 2; // inches
 
     public static final double FEEDER_OUTPUT_PERCENT = 0.8;
     public static final int MAX_VOLTS = 12;
 
+    // State space flywheel (see Flywheel)
+    /** how often the flywheel controller runs (s) */
+    public static final double FLYWHEEL_PERIOD_S = 0.005;
+    /** how often the Talon sends the speed, the default 20ms would mean 3 of every 4 steps see an old one */
+    public static final int FLYWHEEL_STATUS_FRAME_PERIOD_MS = (int) Math.round(FLYWHEEL_PERIOD_S * 1000);
+    /** speed is the change in position over this, instead of the default 100ms */
+    public static final VelocityMeasPeriod FLYWHEEL_VELOCITY_MEASUREMENT_PERIOD = VelocityMeasPeriod.Period_5Ms;
+    /** and averaged over this many of those (one per ms), instead of the default 64 */
+    public static final int FLYWHEEL_VELOCITY_MEASUREMENT_WINDOW = 4;
+    /** name of the flywheel's schedule in the gain schedule file */
+    public static final String FLYWHEEL_GAINS = "flywheel";
+    /** name of the flywheel motor's measured constants in the motor file, if they've been measured */
+    public static final String FLYWHEEL_MOTOR = "shooter";
+    /** speed error that's worth full voltage to fix, for the LQR */
+    public static final double FLYWHEEL_MAX_ERROR_RPM = 200;
+    /** how far the model drifts per step */
+    public static final double FLYWHEEL_MODEL_STD_DEV_RPM = 20;
+    /** noise in the measured speed besides the encoder ticks it's counted in (see Flywheel.getMeasurementStdDev_radps) */
+    public static final double FLYWHEEL_MEASUREMENT_STD_DEV_RPM = 10;
+    /** how close to the target it has to be to feed a ball */
+    public static final double FLYWHEEL_READY_TOLERANCE_RPM = 150;
+    /** standard deviations of the estimate that have to fit in the tolerance */
+    public static final double FLYWHEEL_READY_SIGMAS = 2;
+
     public static final float DEFAULT_SHOOTER_VELOCITY_RPM = 5000;
 }
\ No newline at end of file
@@ -5,17 +5,29 @@ import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.config.Config;
 import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.utils.control.statespace.StateSpaceException;
 import frc.robot.utils.math.MathUtils;
+import frc.robot.utils.talonutils.MotorSettings;
 import frc.robot.utils.talonutils.MotorUtils;
+import frc.robot.utils.telemetry.DashboardPublisher.BooleanEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.DashboardPublisher.StringEntry;
 
 import frc.robot.utils.data.filters.RunningAverageFilter;
 import frc.robot.subsystem.scoring.shooter.ShooterConstants;
 import frc.robot.subsystem.scoring.shooter.ball_management.BallManagementConstants;
 import frc.robot.subsystem.scoring.shooter.ball_management.BallManagementSubsystem;
+import frc.robot.subsystem.scoring.shooter.ballistics.BallisticsTable;
+import frc.robot.subsystem.scoring.shooter.ballistics.LeadSolver;
 
+import frc.robot.subsystem.navigation.NavigationSubsystem;
+import frc.robot.subsystem.vision.TargetTracker;
 import frc.robot.subsystem.vision.VisionSubsystem;
 
 import frc.robot.utils.data.filters.RunningAverageFilter;
@@ -52,8 +64,18 @@ public class ShooterSubsystem extends BitBucketSubsystem {
     private double degreesToRotateElevation = 0.0;
     // Class Declarations
     RunningAverageFilter filter = new RunningAverageFilter(ShooterConstants.FILTER_LENGTH);
+
+    /** flywheel speeds for every distance, worked out once in initialize() */
+    private BallisticsTable ballistics;
+    /** aims off the target to make up for the robot moving while the ball's in the air */
+    private LeadSolver leadSolver;
+    /** distance the shot's aimed at, which has the lead in it. NaN until there's a target */
+    private double aimDistance_in = Double.NaN;
+    /** what the vision tracker tracks, so the turret moving doesn't look like the target moving */
+    private final TargetBearing targetBearing = new TargetBearing(ShooterConstants.AZIMUTH_HISTORY_SIZE);
     public BallManagementSubsystem ballManagementSubsystem;
     private VisionSubsystem visionSubsystem;
+    private NavigationSubsystem navigationSubsystem;
 
     //////////////////////////////////////////////////////////////////////////////
     // Motors
@@ -64,6 +86,43 @@ public class ShooterSubsystem extends BitBucketSubsystem {
     private WPI_TalonFX ballPropulsionMotor;
     private WPI_TalonSRX feeder;
 
+    /** runs ballPropulsionMotor when config.shooter.useStateSpaceFlywheel, null otherwise */
+    private Flywheel flywheel;
+
+    //////////////////////////////////////////////////////////////////////////////
+    // Dashboard
+
+    private StringEntry feederStateEntry;
+    private StringEntry shooterStateEntry;
+    /** only when there's no ball management subsystem to say so itself */
+    private StringEntry ballManagementStateEntry;
+
+    private NumberEntry shooterOutputEntry;
+    private NumberEntry feederOutputEntry;
+    private NumberEntry shooterVelocityTicksEntry;
+    private NumberEntry shooterVelocityTargetEntry;
+    private NumberEntry shooterVelocityErrorEntry;
+    private NumberEntry shooterVelocityRPMEntry;
+    private NumberEntry shooterVelocityTargetRPMEntry;
+    private NumberEntry shooterVelocityErrorRPMEntry;
+
+    // only when there's a flywheel
+    private NumberEntry flywheelEstimateEntry;
+    private NumberEntry flywheelTargetEntry;
+    private NumberEntry flywheelStdDevEntry;
+    private NumberEntry flywheelVoltageEntry;
+    private BooleanEntry flywheelReadyEntry;
+
+    private NumberEntry azimuthTargetPositionEntry;
+    private NumberEntry absoluteDegreesToRotateEntry;
+    private NumberEntry azimuthPositionEntry;
+    private NumberEntry azimuthTargetPositionDegEntry;
+    private NumberEntry azimuthPositionDegEntry;
+    private NumberEntry elevationTargetPositionEntry;
+    private NumberEntry elevationPositionEntry;
+    private NumberEntry elevationTargetPositionDegEntry;
+    private NumberEntry elevationPositionDegEntry;
+
     // Neos
 
     //////////////////////////////////////////////////////////////////////////////
@@ -73,6 +132,12 @@ public class ShooterSubsystem extends BitBucketSubsystem {
         super(config);
         this.visionSubsystem = visionSubsystem;
 
+        visionSubsystem.setBearing(this::getTargetBearing_deg);
+    }
+
+    /** Navigation is optional, but without it there's no latency compensation */
+    public void setNavigation(NavigationSubsystem navigationSubsystem) {
+        this.navigationSubsystem = navigationSubsystem;
     }
 
     @Override
@@ -84,12 +149,36 @@ public class ShooterSubsystem extends BitBucketSubsystem {
         ballPropulsionMotor = MotorUtils.makeFX(config.shooter.shooter);
         feeder = MotorUtils.makeSRX(config.shooter.feeder);
         feeder.enableVoltageCompensation(true);
-        feeder.configVoltageCompSaturation(ShooterConstants.MAX_VOLTS);
+        MotorUtils.configure(feeder, new MotorSettings().voltageCompSaturation(ShooterConstants.MAX_VOLTS));
         feeder.selectProfileSlot(MotorUtils.velocitySlot, 0);
         feeder.setNeutralMode(NeutralMode.Brake);
 
         ballPropulsionMotor.selectProfileSlot(MotorUtils.velocitySlot, 0);
 
+        if (config.shooter.useStateSpaceFlywheel) {
+            try {
+                flywheel = new Flywheel(ballPropulsionMotor, config);
+
+                ballPropulsionMotor.enableVoltageCompensation(true);
+                MotorUtils.configure(ballPropulsionMotor, Flywheel.motorSettings());
+                flywheel.start();
+
+                flywheelEstimateEntry = dashboard.addNumber(getName() + "/Flywheel Estimate RPM", Rate.Fast, 1);
+                flywheelTargetEntry = dashboard.addNumber(getName() + "/Flywheel Target RPM", Rate.Fast, 1);
+                flywheelStdDevEntry = dashboard.addNumber(getName() + "/Flywheel Std Dev RPM", Rate.Fast, 1);
+                flywheelVoltageEntry = dashboard.addNumber(getName() + "/Flywheel Voltage", Rate.Fast, 0.01);
+                flywheelReadyEntry = dashboard.addBoolean(getName() + "/Flywheel Ready", Rate.Fast);
+            } catch (StateSpaceException e) {
+                System.out.println("Couldn't make the flywheel controller, using the Talon's PID: " + e.getMessage());
+                flywheel = null;
+            }
+        }
+
+        ballistics = new BallisticsTable(config.ballistics);
+        ballistics.calibrate(BallisticsTable.loadCalibration(
+                Filesystem.getDeployDirectory().toPath().resolve(config.ballistics.calibrationFile)));
+        leadSolver = new LeadSolver(ballistics, ShooterConstants.LEAD_MAX_ITERATIONS, ShooterConstants.LEAD_TOLERANCE_S);
+
         if (config.enableBallManagementSubsystem) {
             ballManagementSubsystem = new BallManagementSubsystem(config);
             ballManagementSubsystem.initialize();
@@ -106,18 +195,14 @@ public class ShooterSubsystem extends BitBucketSubsystem {
                 config.shooter.elevation.ticksPerRevolution) / config.shooter.elevationGearRatio;
 
         if (config.shooter.rightAzimuthSoftLimit_deg != -1 && config.shooter.leftAzimuthSoftLimit_deg != -1) {
-            azimuthMotor.configForwardSoftLimitEnable(true);
-            azimuthMotor.configForwardSoftLimitThreshold((int) rightAzimuthSoftLimit_ticks);
-
-            azimuthMotor.configReverseSoftLimitEnable(true);
-            azimuthMotor.configReverseSoftLimitThreshold((int) -leftAzimuthSoftLimit_ticks);
+            MotorUtils.configure(azimuthMotor, new MotorSettings()
+                    .forwardSoftLimit((int) rightAzimuthSoftLimit_ticks)
+                    .reverseSoftLimit((int) -leftAzimuthSoftLimit_ticks));
         }
         if (config.shooter.forwardElevationSoftLimit_deg != -1 && config.shooter.backwardElevationSoftLimit_deg != -1) {
-            elevationMotor.configForwardSoftLimitEnable(true);
-            elevationMotor.configForwardSoftLimitThreshold((int) forwardElevationSoftLimit_ticks);
-
-            elevationMotor.configReverseSoftLimitEnable(true);
-            elevationMotor.configReverseSoftLimitThreshold((int) -backwardElevationSoftLimit_ticks);
+            MotorUtils.configure(elevationMotor, new MotorSettings()
+                    .forwardSoftLimit((int) forwardElevationSoftLimit_ticks)
+                    .reverseSoftLimit((int) -backwardElevationSoftLimit_ticks));
         }
     }
 
@@ -140,6 +225,7 @@ public class ShooterSubsystem extends BitBucketSubsystem {
 
     @Override
     public void periodic(float deltaTime) {
+        targetBearing.addAzimuth(Timer.getFPGATimestamp(), getAzimuthDeg());
 
         calculateAbsoluteDegreesToRotate();
         calculateDegreesToRotateElevation();
@@ -175,33 +261,49 @@ public class ShooterSubsystem extends BitBucketSubsystem {
                         600, config.shooter.shooter.ticksPerRevolution)
                 * config.shooter.shooterGearRatio;
 
+        boolean ready;
+        if (flywheel != null) {
+            ready = flywheel.isReady();
+        } else {
+            ready = ballPropulsionMotor.getSelectedSensorVelocity() >= targetShooterVelocity
+                    && ballPropulsionMotor.getSelectedSensorVelocity() <= targetShooterVelocity
+                            + config.shooter.feederSpinUpDeadband_ticks;
+        }
+
         // Spin up the feeder.
-        if (ballPropulsionMotor.getSelectedSensorVelocity() >= targetShooterVelocity
-                && ballPropulsionMotor.getSelectedSensorVelocity() <= targetShooterVelocity
-                        + config.shooter.feederSpinUpDeadband_ticks) {
+        if (ready) {
             feeder.set(SmartDashboard.getNumber(getName() + "/Feeder Output Percent",
                     ShooterConstants.FEEDER_OUTPUT_PERCENT));
-            SmartDashboard.putString(getName() + "/Feeder State", "Feeding");
+            feederStateEntry.set("Feeding");
             upToSpeed = true;
         } else {
             upToSpeed = false;
             feeder.set(0);
-            SmartDashboard.putString(getName() + "/Feeder State", "Cannot fire: Shooter hasn't been spun up!");
+            feederStateEntry.set("Cannot fire: Shooter hasn't been spun up!");
         }
 
         // Spin up the shooter.
-        ballPropulsionMotor.set(ControlMode.Velocity, targetShooterVelocity);
-        SmartDashboard.putString(getName() + "/Shooter State", "Shooting");
+        if (flywheel != null) {
+            flywheel.setRPM(SmartDashboard.getNumber(getName() + "/Shooter Velocity RPM",
+                    ShooterConstants.DEFAULT_SHOOTER_VELOCITY_RPM));
+        } else {
+            ballPropulsionMotor.set(ControlMode.Velocity, targetShooterVelocity);
+        }
+        shooterStateEntry.set("Shooting");
     }
 
     public void stopSpinningUp() {
         // Spin up the feeder.
         feeder.set(0);
-        SmartDashboard.putString(getName() + "/Feeder State", "Doing Nothing");
+        feederStateEntry.set("Doing Nothing");
 
         // Spin up the shooter.
-        ballPropulsionMotor.set(0);
-        SmartDashboard.putString(getName() + "/Shooter State", "Doing Nothing");
+        if (flywheel != null) {
+            flywheel.coast();
+        } else {
+            ballPropulsionMotor.set(0);
+        }
+        shooterStateEntry.set("Doing Nothing");
 
         upToSpeed = false;
     }
@@ -212,8 +314,7 @@ public class ShooterSubsystem extends BitBucketSubsystem {
                     .fire((float) SmartDashboard.getNumber(getName() + "/BallManagementSubsystem/Output Percent",
                             BallManagementConstants.BMS_OUTPUT_PERCENT));
         } else {
-            SmartDashboard.putString("BallManagementSubsystem/State",
-                    "Cannot fire: BallManagementSubsystem is not enabled.");
+            ballManagementStateEntry.set("Cannot fire: BallManagementSubsystem is not enabled.");
         }
     }
 
@@ -291,11 +392,44 @@ public class ShooterSubsystem extends BitBucketSubsystem {
     }
 
     public void autoAimVelocity() {
-        double feetPerSecVelocity = visionSubsystem.getShooterVelocityForTarget();
-        double ticksVelocity = (feetPerSecVelocity * 12 * config.shooter.shooter.ticksPerRevolution)
-                / (ShooterConstants.SHOOTER_FLYWHEEL_RADIUS * 2 * Math.PI * 10);
+        double distance = getTargetDistance_in();
+        double rpm = ballistics.getRPM(distance, getLaunchAngleDeg());
+        if (Double.isNaN(rpm) || !ballistics.isInRange(distance)) {
+            // can't make it from here, so don't touch the flywheel
+            return;
+        }
+
+        // same conversion as spinUp()
+        double ticksVelocity = MathUtils.unitConverter(rpm, 600, config.shooter.shooter.ticksPerRevolution)
+                * config.shooter.shooterGearRatio;
+
+        if (flywheel != null) {
+            flywheel.setRPM(rpm);
+        } else {
+            ballPropulsionMotor.set(ControlMode.Velocity, ticksVelocity);
+        }
+    }
+
+    /** @return horizontal distance to the target, smoothed by the tracker if it has it */
+    public double getTargetDistance_in() {
+        TargetTracker tracker = visionSubsystem.getTracker();
+        if (tracker.hasTarget()) {
+            if (!Double.isNaN(aimDistance_in)) {
+                return aimDistance_in;
+            }
+            return tracker.predict(TargetTracker.DISTANCE, Timer.getFPGATimestamp());
+        }
+
+        return visionSubsystem.getDistance();
+    }
 
-        ballPropulsionMotor.set(ControlMode.Velocity, ticksVelocity);
+    /** @return angle above horizontal the ball leaves at */
+    public double getLaunchAngleDeg() {
+        return config.ballistics.launchAngleOffset_deg + getElevationDeg();
+    }
+
+    public BallisticsTable getBallistics() {
+        return ballistics;
     }
 
     public void autoAim() {
@@ -303,10 +437,53 @@ public class ShooterSubsystem extends BitBucketSubsystem {
         autoAimVelocity();
     }
 
+    /**
+     * Bearing on the field to a target seen in an image, which doesn't change
+     * when the turret or the robot turns
+     */
+    public double getTargetBearing_deg(double captureTimestamp, double tx) {
+        double heading = navigationSubsystem == null ? 0 : navigationSubsystem.getHeadingAt_deg(captureTimestamp);
+        return targetBearing.getBearing(captureTimestamp, tx, heading);
+    }
+
+    private double getHeading_deg() {
+        return navigationSubsystem == null ? 0 : navigationSubsystem.getHeading_deg();
+    }
+
     public void calculateAbsoluteDegreesToRotate() {
+        TargetTracker tracker = visionSubsystem.getTracker();
+
+        if (ShooterConstants.USE_TRACKER && tracker.hasTarget()) {
+            // keeps going through frames where the target drops out, and doesn't
+            // jump to the odd bad frame
+            double release = Timer.getFPGATimestamp() + ShooterConstants.SHOT_RELEASE_DELAY_S;
+            double bearing = TargetBearing.toAzimuth(tracker.predict(TargetTracker.BEARING, release), getHeading_deg());
+            double distance = tracker.predict(TargetTracker.DISTANCE, release);
+
+            // the tracked bearing's on the field, so taking the heading back out
+            // makes it relative to the robot, which is what the lead solver wants
+            if (ShooterConstants.USE_LEAD && navigationSubsystem != null
+                    && leadSolver.solve(distance, bearing, navigationSubsystem.getVelocity_ips(), 0, getLaunchAngleDeg())) {
+                bearing = leadSolver.getBearing();
+                distance = leadSolver.getDistance();
+            }
+
+            aimDistance_in = distance;
+            absoluteDegreesToRotateAzimuth = bearing;
+            return;
+        }
+        aimDistance_in = Double.NaN;
+
         boolean validTarget = visionSubsystem.getValidTarget();
         if (validTarget) {
             double tx = visionSubsystem.getTx();
+
+            // tx is from when the image was taken, so take out however much the robot
+            // has turned since then
+            if (ShooterConstants.USE_LATENCY_COMPENSATION && navigationSubsystem != null) {
+                tx -= navigationSubsystem.getYawChangeSince_deg(visionSubsystem.getCaptureTimestamp());
+            }
+
             double degrees = getTargetAzimuthDegGivenOffset(tx);
 
             // We believed the offset and thus the degrees might change, causing the robot
@@ -321,7 +498,16 @@ public class ShooterSubsystem extends BitBucketSubsystem {
         }
     }
 
+    /**
+     * Elevation comes from ty, so with a tracked (and maybe led) distance it's
+     * the ty the target would be at from there, to match the azimuth and RPM
+     */
     public void calculateDegreesToRotateElevation() {
+        if (!Double.isNaN(aimDistance_in)) {
+            degreesToRotateElevation = visionSubsystem.approximateTyFromDistance(aimDistance_in);
+            return;
+        }
+
         degreesToRotateElevation = visionSubsystem.getTy();
     }
 
@@ -337,52 +523,89 @@ public class ShooterSubsystem extends BitBucketSubsystem {
         SmartDashboard.putNumber(getName() + "/Azimuth Turn Rate", config.shooter.defaultAzimuthTurnVelocity_deg);
         SmartDashboard.putNumber(getName() + "/Elevation Turn Rate", config.shooter.defaultAzimuthTurnVelocity_deg);
 
+        feederStateEntry = dashboard.addString(getName() + "/Feeder State", Rate.Slow);
+        shooterStateEntry = dashboard.addString(getName() + "/Shooter State", Rate.Slow);
+        if (!config.enableBallManagementSubsystem) {
+            ballManagementStateEntry = dashboard.addString("BallManagementSubsystem/State", Rate.Slow);
+        }
+
+        shooterOutputEntry = dashboard.addNumber(getName() + "/Shooter Output", Rate.Fast, 0.001);
+        feederOutputEntry = dashboard.addNumber(getName() + "/Feeder Output", Rate.Fast, 0.001);
+        shooterVelocityTicksEntry = dashboard.addNumber(getName() + "/Shooter Velocity Ticks", Rate.Fast);
+        shooterVelocityTargetEntry = dashboard.addNumber(getName() + "/Shooter Velocity Target", Rate.Fast);
+        shooterVelocityErrorEntry = dashboard.addNumber(getName() + "/Shooter Velocity Error", Rate.Fast);
+        shooterVelocityRPMEntry = dashboard.addNumber(getName() + "/Shooter Velocity Current RPM", Rate.Fast, 1);
+        shooterVelocityTargetRPMEntry = dashboard.addNumber(getName() + "/Shooter Velocity Target RPM", Rate.Fast, 1);
+        shooterVelocityErrorRPMEntry = dashboard.addNumber(getName() + "/Shooter Velocity Error RPM", Rate.Fast, 1);
+
+        azimuthTargetPositionEntry = dashboard.addNumber(getName() + "/Target Position ", Rate.Fast);
+        absoluteDegreesToRotateEntry = dashboard.addNumber(getName() + "/Absolute Degrees to Rotate", Rate.Fast, 0.01);
+        azimuthPositionEntry = dashboard.addNumber(getName() + "/Azimuth Position ", Rate.Fast);
+        azimuthTargetPositionDegEntry = dashboard.addNumber(getName() + "/Azimuth Target Position Deg ", Rate.Fast, 0.01);
+        azimuthPositionDegEntry = dashboard.addNumber(getName() + "/Azimuth Position Deg ", Rate.Fast, 0.01);
+        elevationTargetPositionEntry = dashboard.addNumber(getName() + "/Elevation Target Position ", Rate.Fast);
+        elevationPositionEntry = dashboard.addNumber(getName() + "/Elevation Position ", Rate.Fast);
+        elevationTargetPositionDegEntry = dashboard.addNumber(getName() + "/Elevation Target Position Deg ", Rate.Fast, 0.01);
+        elevationPositionDegEntry = dashboard.addNumber(getName() + "/Elevation Position Deg ", Rate.Fast, 0.01);
+    }
+
+    @Override
+    public void flushDashboard() {
+        super.flushDashboard();
+
+        // ball management isn't one of Robot's subsystems, so its dashboard goes out with ours
+        if (ballManagementSubsystem != null) {
+            ballManagementSubsystem.flushDashboard();
+        }
     }
 
     @Override
     public void dashboardPeriodic(float deltaTime) {
         // Put the outputs on the smart dashboard.
-        SmartDashboard.putNumber(getName() + "/Shooter Output", ballPropulsionMotor.getMotorOutputPercent());
-        SmartDashboard.putNumber(getName() + "/Feeder Output", feeder.getMotorOutputPercent());
-        SmartDashboard.putNumber(getName() + "/Shooter Velocity Ticks",
-                ballPropulsionMotor.getSelectedSensorVelocity());
-        SmartDashboard.putNumber(getName() + "/Shooter Velocity Target", ballPropulsionMotor.getClosedLoopTarget());
-        SmartDashboard.putNumber(getName() + "/Shooter Velocity Error", ballPropulsionMotor.getClosedLoopError());
-
-        SmartDashboard.putNumber(getName() + "/Shooter Velocity Current RPM",
+        shooterOutputEntry.set(ballPropulsionMotor.getMotorOutputPercent());
+        feederOutputEntry.set(feeder.getMotorOutputPercent());
+        shooterVelocityTicksEntry.set(ballPropulsionMotor.getSelectedSensorVelocity());
+        shooterVelocityTargetEntry.set(ballPropulsionMotor.getClosedLoopTarget());
+        shooterVelocityErrorEntry.set(ballPropulsionMotor.getClosedLoopError());
+
+        shooterVelocityRPMEntry.set(
                 MathUtils.unitConverter(ballPropulsionMotor.getSelectedSensorVelocity(), 600,
                         config.shooter.shooter.ticksPerRevolution) * config.shooter.shooterGearRatio);
-        SmartDashboard.putNumber(getName() + "/Shooter Velocity Target RPM",
+        shooterVelocityTargetRPMEntry.set(
                 MathUtils.unitConverter(ballPropulsionMotor.getClosedLoopTarget(), 600,
                         config.shooter.shooter.ticksPerRevolution) * config.shooter.shooterGearRatio);
-        SmartDashboard.putNumber(getName() + "/Shooter Velocity Error RPM",
+        shooterVelocityErrorRPMEntry.set(
                 MathUtils.unitConverter(ballPropulsionMotor.getClosedLoopError(), 600,
                         config.shooter.shooter.ticksPerRevolution) * config.shooter.shooterGearRatio);
 
-        SmartDashboard.putNumber(getName() + "/Target Position ", targetPositionAzimuth_ticks);
-        SmartDashboard.putNumber(getName() + "/Absolute Degrees to Rotate", absoluteDegreesToRotateAzimuth);
-        SmartDashboard.putNumber(getName() + "/Azimuth Position ", azimuthMotor.getSelectedSensorPosition());
+        if (flywheel != null) {
+            flywheelEstimateEntry.set(flywheel.getRPM());
+            flywheelTargetEntry.set(flywheel.getTargetRPM());
+            flywheelStdDevEntry.set(flywheel.getStdDevRPM());
+            flywheelVoltageEntry.set(flywheel.getVoltage());
+            flywheelReadyEntry.set(flywheel.isReady());
+        }
+
+        azimuthTargetPositionEntry.set(targetPositionAzimuth_ticks);
+        absoluteDegreesToRotateEntry.set(absoluteDegreesToRotateAzimuth);
+        azimuthPositionEntry.set(azimuthMotor.getSelectedSensorPosition());
 
-        SmartDashboard.putNumber(getName() + "/Azimuth Target Position Deg ",
+        azimuthTargetPositionDegEntry.set(
                 MathUtils.unitConverter(targetPositionAzimuth_ticks, config.shooter.azimuth.ticksPerRevolution, 360)
                         * config.shooter.azimuthGearRatio);
 
-        SmartDashboard.putNumber(getName() + "/Azimuth Position Deg ",
+        azimuthPositionDegEntry.set(
                 MathUtils.unitConverter(azimuthMotor.getSelectedSensorPosition(),
                         config.shooter.azimuth.ticksPerRevolution, 360) * config.shooter.azimuthGearRatio);
 
-        SmartDashboard.putNumber(getName() + "/Elevation Position Deg ",
-                MathUtils.unitConverter(elevationMotor.getSelectedSensorPosition(),
-                        config.shooter.elevation.ticksPerRevolution, 360) * config.shooter.elevationGearRatio);
-
-        SmartDashboard.putNumber(getName() + "/Elevation Target Position ", targetPositionElevation_ticks);
-        SmartDashboard.putNumber(getName() + "/Elevation Position ", elevationMotor.getSelectedSensorPosition());
+        elevationTargetPositionEntry.set(targetPositionElevation_ticks);
+        elevationPositionEntry.set(elevationMotor.getSelectedSensorPosition());
 
-        SmartDashboard.putNumber(getName() + "/Elevation Target Position Deg ",
+        elevationTargetPositionDegEntry.set(
                 MathUtils.unitConverter(targetPositionElevation_ticks, config.shooter.elevation.ticksPerRevolution, 360)
                         * config.shooter.elevationGearRatio);
 
-        SmartDashboard.putNumber(getName() + "/Elevation Position Deg ",
+        elevationPositionDegEntry.set(
                 MathUtils.unitConverter(elevationMotor.getSelectedSensorPosition(),
                         config.shooter.elevation.ticksPerRevolution, 360) * config.shooter.elevationGearRatio);
     }
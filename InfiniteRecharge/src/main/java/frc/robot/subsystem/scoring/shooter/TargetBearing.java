@@ -0,0 +1,103 @@
+package frc.robot.subsystem.scoring.shooter;
+
+
+
+/**
+ * Turns the Limelight's tx into a bearing to the target that doesn't depend on
+ * where the turret or the robot happened to be pointed when the image was
+ * taken, which is what the TargetTracker should be filtering.
+ *
+ * The camera's on the turret, so tx alone is mostly the turret's own motion:
+ * while the turret slews toward the target tx shrinks even though the target
+ * hasn't moved. Adding the turret azimuth and the robot heading from when the
+ * image was captured gives the target's bearing on the field, which only
+ * changes when the target (or the robot, sideways) actually moves. The turret
+ * gets pointed at bearing - heading now.
+ *
+ * Keeps a short history of the turret azimuth to look up the capture time in,
+ * in plain arrays so adding doesn't allocate. Angles are degrees, same sign as
+ * tx and the navX yaw. Not thread safe.
+ */
+public class TargetBearing {
+    private final int CAPACITY;
+
+    private final double[] times;
+    private final double[] azimuths;
+
+    /** index of the next entry */
+    private int next = 0;
+    private int size = 0;
+
+
+
+    /** @param capacity azimuth samples to keep, enough to cover the camera's latency */
+    public TargetBearing(int capacity) {
+        CAPACITY = capacity;
+
+        times = new double[CAPACITY];
+        azimuths = new double[CAPACITY];
+    }
+
+
+
+    /** Record where the turret is. Times need to be increasing. */
+    public void addAzimuth(double time, double azimuth_deg) {
+        times[next] = time;
+        azimuths[next] = azimuth_deg;
+
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    /**
+     * @return turret azimuth at some time, interpolated between samples and held
+     * at the oldest/newest one outside of them. 0 if there aren't any yet.
+     */
+    public double getAzimuthAt(double time) {
+        if (size == 0) {
+            return 0;
+        }
+
+        // newest first, since the capture time's almost always recent
+        int newer = (next - 1 + CAPACITY) % CAPACITY;
+        if (time >= times[newer]) {
+            return azimuths[newer];
+        }
+
+        for (int n = 1; n < size; n++) {
+            int older = (newer - 1 + CAPACITY) % CAPACITY;
+
+            if (time >= times[older]) {
+                double frac = (time - times[older]) / (times[newer] - times[older]);
+                return azimuths[older] + (azimuths[newer] - azimuths[older]) * frac;
+            }
+
+            newer = older;
+        }
+
+        return azimuths[newer];
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+
+
+
+    /**
+     * @param captureTime when the image was taken
+     * @param tx target's offset in the image
+     * @param heading_deg robot's heading when the image was taken, 0 if there's no navigation
+     *
+     * @return the target's bearing on the field
+     */
+    public double getBearing(double captureTime, double tx, double heading_deg) {
+        return getAzimuthAt(captureTime) + tx + heading_deg;
+    }
+
+    /** @return azimuth that points the turret at a bearing with the robot at some heading */
+    public static double toAzimuth(double bearing, double heading_deg) {
+        return bearing - heading_deg;
+    }
+}
@@ -3,17 +3,24 @@ package frc.robot.subsystem.scoring.shooter.ball_management;
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.config.Config;
 import frc.robot.subsystem.BitBucketSubsystem;
 import frc.robot.subsystem.scoring.shooter.ShooterSubsystem;
 import frc.robot.utils.talonutils.MotorUtils;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.DashboardPublisher.StringEntry;
 
 public class BallManagementSubsystem extends BitBucketSubsystem {
 
     //////////////////////////////////////////////////////////////////////////////
     // Variables
 
+    // Because you can neva 'ave enuf dakka!
+    private static final String FIRING = "DAKKADAKKADAKKADAKKADAKKDAKKADAKKADAKKADAKKADAKKADAKKADAKKDAKKADAKKADAKKADAKKADAKKADAKKADAKKDAKKADAKKADAKKADAKKADAKKADAKKADAKKDAKKADAKKA";
+    private static final String NOT_FIRING = "Doing nothing";
+
+    private StringEntry stateEntry;
+
     //////////////////////////////////////////////////////////////////////////////
     // Motors
 
@@ -31,6 +38,8 @@ public class BallManagementSubsystem extends BitBucketSubsystem {
     public void initialize() {
         super.initialize();
         motor = MotorUtils.makeSRX(config.ballManagement.spinner);
+
+        stateEntry = dashboard.addString(getName() + "/State", Rate.Slow);
     }
 
     public void testInit() {
@@ -63,14 +72,12 @@ public class BallManagementSubsystem extends BitBucketSubsystem {
     public void fire(float rate) {
 
         motor.set(ControlMode.PercentOutput, rate);
-        // Because you can neva 'ave enuf dakka!
-        SmartDashboard.putString(getName() + "/State",
-                "DAKKADAKKADAKKADAKKADAKKDAKKADAKKADAKKADAKKADAKKADAKKADAKKDAKKADAKKADAKKADAKKADAKKADAKKADAKKDAKKADAKKADAKKADAKKADAKKADAKKADAKKDAKKADAKKA");
+        stateEntry.set(FIRING);
     }
 
     public void doNotFire() {
         motor.set(0);
-        SmartDashboard.putString(getName() + "/State", "Doing nothing");
+        stateEntry.set(NOT_FIRING);
     }
 
     @Override
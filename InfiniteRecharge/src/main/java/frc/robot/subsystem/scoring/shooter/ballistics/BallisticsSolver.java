@@ -0,0 +1,133 @@
+package frc.robot.subsystem.scoring.shooter.ballistics;
+
+import frc.robot.config.Config.BallisticsConfig;
+
+
+
+/**
+ * Works out how fast the ball has to leave the shooter to go through the
+ * target, by flying it (with quadratic drag) and bisecting on the speed.
+ *
+ * This is slow compared to the no-drag equation, which is why BallisticsTable
+ * only does it once per grid point at startup.
+ *
+ * Everything in here is SI, the public methods take inches and degrees like
+ * the rest of the shooter.
+ */
+public class BallisticsSolver {
+    private static final double INCHES_TO_METERS = 0.0254;
+    private static final double G = 9.80665;
+    private static final double AIR_DENSITY = 1.225;
+
+    /** integration step (s) */
+    private static final double DT = 0.005;
+    /** longest flight that's worth looking at (s) */
+    private static final double MAX_TIME = 4;
+
+    // speeds to search between (m/s)
+    private static final double MIN_SPEED = 1;
+    private static final double MAX_SPEED = 40;
+    /** stop bisecting once the speed is known to within this (m/s) */
+    private static final double TOLERANCE = 0.001;
+
+    /** drag acceleration is K v^2 (1/m) */
+    private final double K;
+    /** target height above where the ball leaves (m) */
+    private final double HEIGHT;
+
+
+
+    public BallisticsSolver(BallisticsConfig config) {
+        double radius = config.ballDiameter_in * INCHES_TO_METERS / 2;
+        double area = Math.PI * radius * radius;
+
+        K = 0.5 * AIR_DENSITY * config.dragCoefficient * area / config.ballMass_kg;
+        HEIGHT = (config.targetHeight_in - config.launchHeight_in) * INCHES_TO_METERS;
+    }
+
+
+
+    /**
+     * Find the launch speed that puts the ball through the target
+     *
+     * @param distance_in horizontal distance to the target
+     * @param angle_deg launch angle above horizontal
+     * @param timeOfFlight if not null, out[0] gets how long it takes to get there (s)
+     *
+     * @return speed the ball has to leave at (in/s), or NaN if it can't get there
+     */
+    public double solve(double distance_in, double angle_deg, double[] timeOfFlight) {
+        double distance = distance_in * INCHES_TO_METERS;
+        double angle = Math.toRadians(angle_deg);
+
+        // height when it gets to the target goes up with speed, so bisect
+        double low = MIN_SPEED;
+        double high = MAX_SPEED;
+
+        if (heightAt(distance, high, angle, null) < HEIGHT) {
+            return Double.NaN;
+        }
+
+        while (high - low > TOLERANCE) {
+            double middle = (low + high) / 2;
+
+            if (heightAt(distance, middle, angle, null) < HEIGHT) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+
+        if (timeOfFlight != null) {
+            heightAt(distance, high, angle, timeOfFlight);
+        }
+
+        return high / INCHES_TO_METERS;
+    }
+
+    /**
+     * Fly the ball until it's gone the distance
+     *
+     * @param time if not null, time[0] gets when it got there
+     *
+     * @return height (m) it's at when it gets there, or -infinity if it doesn't
+     */
+    private double heightAt(double distance, double speed, double angle, double[] time) {
+        double x = 0;
+        double y = 0;
+        double vx = speed * Math.cos(angle);
+        double vy = speed * Math.sin(angle);
+
+        for (double t = 0; t < MAX_TIME; t += DT) {
+            // midpoint method, plain Euler needs a much smaller step to be as good
+            double v = Math.sqrt(vx * vx + vy * vy);
+            double ax = -K * v * vx;
+            double ay = -G - K * v * vy;
+
+            double mvx = vx + ax * DT / 2;
+            double mvy = vy + ay * DT / 2;
+            double mv = Math.sqrt(mvx * mvx + mvy * mvy);
+
+            double nx = x + mvx * DT;
+            double ny = y + mvy * DT;
+
+            if (nx >= distance) {
+                // somewhere in this step, so interpolate to exactly the distance
+                double fraction = (distance - x) / (nx - x);
+
+                if (time != null) {
+                    time[0] = t + fraction * DT;
+                }
+
+                return y + fraction * (ny - y);
+            }
+
+            vx += -K * mv * mvx * DT;
+            vy += (-G - K * mv * mvy) * DT;
+            x = nx;
+            y = ny;
+        }
+
+        return Double.NEGATIVE_INFINITY;
+    }
+}
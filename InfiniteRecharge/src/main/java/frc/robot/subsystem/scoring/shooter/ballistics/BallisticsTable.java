@@ -0,0 +1,242 @@
+package frc.robot.subsystem.scoring.shooter.ballistics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import frc.robot.config.Config.BallisticsConfig;
+
+
+
+/**
+ * (distance, launch angle) -> (flywheel RPM, time of flight), worked out for
+ * a grid of distances and angles once at startup so that aiming is just a
+ * lookup and a bilinear interpolation.
+ *
+ * The physics only gets close, so the table can be corrected with measured
+ * shots: lines of
+ *     distance (in), launch angle (deg), RPM that went in
+ * in a CSV file (# starts a comment). Each one gives a correction factor for
+ * its distance, and every distance in the table gets scaled by the factor
+ * interpolated from the closest measured distances. Tuning the shooter is then
+ * a matter of taking a few shots and writing down what worked.
+ */
+public class BallisticsTable {
+    private final double MIN_DISTANCE;
+    private final double DISTANCE_STEP;
+    private final int DISTANCES;
+
+    private final double MIN_ANGLE;
+    private final double ANGLE_STEP;
+    private final int ANGLES;
+
+    /** surface speed (in/s) of the flywheel per RPM, times how much of that the ball gets */
+    private final double SPEED_PER_RPM;
+
+    /** [distance][angle], NaN where the ball can't get there */
+    private final double[][] rpm;
+    private final double[][] timeOfFlight;
+
+    /** how many calibration points were used */
+    private int calibrationPoints = 0;
+
+
+
+    /** Build the table. This flies a lot of balls, so only do it at startup. */
+    public BallisticsTable(BallisticsConfig config) {
+        MIN_DISTANCE = config.minDistance_in;
+        DISTANCE_STEP = config.distanceStep_in;
+        DISTANCES = Math.max(2, (int) Math.round((config.maxDistance_in - config.minDistance_in) / DISTANCE_STEP) + 1);
+
+        MIN_ANGLE = config.minAngle_deg;
+        ANGLE_STEP = config.angleStep_deg;
+        ANGLES = Math.max(2, (int) Math.round((config.maxAngle_deg - config.minAngle_deg) / ANGLE_STEP) + 1);
+
+        SPEED_PER_RPM = 2 * Math.PI * config.flywheelRadius_in / 60 * config.flywheelEfficiency;
+
+        rpm = new double[DISTANCES][ANGLES];
+        timeOfFlight = new double[DISTANCES][ANGLES];
+
+        BallisticsSolver solver = new BallisticsSolver(config);
+        double[] time = new double[1];
+
+        for (int i = 0; i < DISTANCES; i++) {
+            for (int j = 0; j < ANGLES; j++) {
+                double speed = solver.solve(getDistance(i), getAngle(j), time);
+
+                rpm[i][j] = speed / SPEED_PER_RPM;
+                timeOfFlight[i][j] = Double.isNaN(speed) ? Double.NaN : time[0];
+            }
+        }
+    }
+
+
+
+    /**
+     * Correct the table with measured shots. Only call this once.
+     *
+     * @param points {distance (in), launch angle (deg), RPM}
+     */
+    public void calibrate(List<double[]> points) {
+        // correction factor at each measured distance, in order of distance
+        List<double[]> factors = new ArrayList<double[]>();
+
+        for (double[] point : points) {
+            double predicted = getRPM(point[0], point[1]);
+
+            if (Double.isNaN(predicted) || predicted <= 0 || point[2] <= 0) {
+                System.out.println("Ballistics calibration point " + Arrays.toString(point) + " is out of range, ignoring it");
+                continue;
+            }
+
+            factors.add(new double[] {point[0], point[2] / predicted});
+        }
+
+        if (factors.isEmpty()) {
+            return;
+        }
+
+        factors.sort((a, b) -> Double.compare(a[0], b[0]));
+
+        for (int i = 0; i < DISTANCES; i++) {
+            double factor = interpolateFactor(factors, getDistance(i));
+
+            for (int j = 0; j < ANGLES; j++) {
+                rpm[i][j] *= factor;
+            }
+        }
+
+        calibrationPoints = factors.size();
+    }
+
+    /** piecewise linear, and flat past the ends */
+    private static double interpolateFactor(List<double[]> factors, double distance) {
+        if (distance <= factors.get(0)[0]) {
+            return factors.get(0)[1];
+        }
+
+        for (int i = 1; i < factors.size(); i++) {
+            double[] a = factors.get(i - 1);
+            double[] b = factors.get(i);
+
+            if (distance <= b[0]) {
+                // two points at the same distance just get averaged
+                double fraction = b[0] > a[0] ? (distance - a[0]) / (b[0] - a[0]) : 0.5;
+                return a[1] + fraction * (b[1] - a[1]);
+            }
+        }
+
+        return factors.get(factors.size() - 1)[1];
+    }
+
+    /**
+     * Read calibration points from a file
+     *
+     * @return points, or an empty list if the file isn't there or can't be read
+     */
+    public static List<double[]> loadCalibration(Path path) {
+        List<double[]> points = new ArrayList<double[]>();
+
+        if (!Files.exists(path)) {
+            return points;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int number = 0;
+
+            while ((line = reader.readLine()) != null) {
+                number++;
+
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                String[] values = line.split("\\s*[,\\s]\\s*");
+                if (values.length != 3) {
+                    System.out.println(path + ":" + number + " should be distance, angle, RPM");
+                    continue;
+                }
+
+                try {
+                    points.add(new double[] {
+                        Double.parseDouble(values[0]),
+                        Double.parseDouble(values[1]),
+                        Double.parseDouble(values[2])
+                    });
+                } catch (NumberFormatException e) {
+                    System.out.println(path + ":" + number + " isn't numbers");
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't read ballistics calibration " + path + ": " + e.getMessage());
+        }
+
+        return points;
+    }
+
+
+
+    /**
+     * @param distance_in horizontal distance to the target, clamped to the table
+     * @param angle_deg launch angle, clamped to the table
+     *
+     * @return flywheel RPM to hit the target, or NaN if it can't be
+     */
+    public double getRPM(double distance_in, double angle_deg) {
+        return interpolate(rpm, distance_in, angle_deg);
+    }
+
+    /** @return how long (s) the ball takes to get to the target, or NaN if it can't */
+    public double getTimeOfFlight(double distance_in, double angle_deg) {
+        return interpolate(timeOfFlight, distance_in, angle_deg);
+    }
+
+    /** @return whether a distance (in) is in the table, rather than clamped to its edge */
+    public boolean isInRange(double distance_in) {
+        return distance_in >= MIN_DISTANCE && distance_in <= getDistance(DISTANCES - 1);
+    }
+
+    private double interpolate(double[][] table, double distance, double angle) {
+        double d = clamp((distance - MIN_DISTANCE) / DISTANCE_STEP, DISTANCES - 1);
+        double a = clamp((angle - MIN_ANGLE) / ANGLE_STEP, ANGLES - 1);
+
+        // the cell it's in, with the last row/column belonging to the cell before it
+        int i = Math.min((int) d, DISTANCES - 2);
+        int j = Math.min((int) a, ANGLES - 2);
+        double fd = d - i;
+        double fa = a - j;
+
+        double near = lerp(table[i][j], table[i][j + 1], fa);
+        double far = lerp(table[i + 1][j], table[i + 1][j + 1], fa);
+
+        return lerp(near, far, fd);
+    }
+
+    /** doesn't look at b if it doesn't have to, so a NaN next door doesn't spread to a grid point */
+    private static double lerp(double a, double b, double fraction) {
+        return fraction == 0 ? a : a + fraction * (b - a);
+    }
+
+    private static double clamp(double index, int max) {
+        return index < 0 ? 0 : (index > max ? max : index);
+    }
+
+
+
+    public double getDistance(int i) { return MIN_DISTANCE + i * DISTANCE_STEP; }
+    public double getAngle(int j) { return MIN_ANGLE + j * ANGLE_STEP; }
+    public int getDistances() { return DISTANCES; }
+    public int getAngles() { return ANGLES; }
+    public int getCalibrationPoints() { return calibrationPoints; }
+}
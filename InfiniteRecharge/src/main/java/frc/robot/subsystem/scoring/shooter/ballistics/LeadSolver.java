@@ -0,0 +1,138 @@
+package frc.robot.subsystem.scoring.shooter.ballistics;
+
+
+
+/**
+ * Where to aim so a shot goes in while the robot is moving.
+ *
+ * The ball leaves with the robot's velocity on top of whatever the shooter
+ * gives it, so over its time of flight T it drifts by v T. Aiming at the
+ * virtual target
+ *     target - v T
+ * instead of the real one cancels that out. T depends on how far away the
+ * virtual target is, which depends on T, so it's solved by fixed-point
+ * iteration: start with T for the real target, move the virtual target,
+ * look up T for that, and so on. It converges in a few iterations at any
+ * speed the robot can actually drive at.
+ *
+ * The table clamps distances past its ends, which would quietly give the RPM
+ * for the wrong distance, so a target (real or virtual) outside the table's
+ * distances is no shot.
+ *
+ * Everything is relative to the robot: x forward, y left, bearings in degrees
+ * clockwise (to the right) from straight ahead like the Limelight's tx.
+ * Nothing is allocated, the results are read back with the getters.
+ */
+public class LeadSolver {
+    private final BallisticsTable TABLE;
+    private final int MAX_ITERATIONS;
+    /** stop once the time of flight changes less than this (s) */
+    private final double TOLERANCE;
+
+    // results of the last solve()
+    private double bearing;
+    private double distance;
+    private double rpm;
+    private double timeOfFlight;
+    private int iterations;
+    private boolean converged;
+
+
+
+    /**
+     * @param table where times of flight and RPMs come from
+     * @param maxIterations most fixed-point iterations to do
+     * @param tolerance time of flight change (s) that's considered converged
+     */
+    public LeadSolver(BallisticsTable table, int maxIterations, double tolerance) {
+        TABLE = table;
+        MAX_ITERATIONS = maxIterations;
+        TOLERANCE = tolerance;
+    }
+
+
+
+    /**
+     * Work out where to aim
+     *
+     * @param distance_in distance to the target
+     * @param bearing_deg bearing to the target
+     * @param vx_ips robot velocity forward
+     * @param vy_ips robot velocity to the left (0 for a tank drive)
+     * @param angle_deg launch angle
+     *
+     * @return whether there's a shot. If there isn't, the results are for the
+     * target without any lead, and the RPM is NaN
+     */
+    public boolean solve(double distance_in, double bearing_deg, double vx_ips, double vy_ips, double angle_deg) {
+        double bearingRad = Math.toRadians(bearing_deg);
+        double targetX = distance_in * Math.cos(bearingRad);
+        double targetY = -distance_in * Math.sin(bearingRad);
+
+        bearing = bearing_deg;
+        distance = distance_in;
+        timeOfFlight = TABLE.isInRange(distance_in) ? TABLE.getTimeOfFlight(distance_in, angle_deg) : Double.NaN;
+        iterations = 0;
+        converged = false;
+
+        if (Double.isNaN(timeOfFlight)) {
+            return noShot(bearing_deg, distance_in);
+        }
+
+        while (iterations < MAX_ITERATIONS) {
+            iterations++;
+
+            double x = targetX - vx_ips * timeOfFlight;
+            double y = targetY - vy_ips * timeOfFlight;
+            double virtualDistance = Math.sqrt(x * x + y * y);
+
+            if (!TABLE.isInRange(virtualDistance)) {
+                // the lead it needs is more than the table covers
+                return noShot(bearing_deg, distance_in);
+            }
+
+            double t = TABLE.getTimeOfFlight(virtualDistance, angle_deg);
+            if (Double.isNaN(t)) {
+                // the virtual target is somewhere we can't shoot, keep the last good one
+                break;
+            }
+
+            bearing = -Math.toDegrees(Math.atan2(y, x));
+            distance = virtualDistance;
+
+            double change = Math.abs(t - timeOfFlight);
+            timeOfFlight = t;
+
+            if (change < TOLERANCE) {
+                converged = true;
+                break;
+            }
+        }
+
+        rpm = TABLE.getRPM(distance, angle_deg);
+
+        return !Double.isNaN(rpm);
+    }
+
+    private boolean noShot(double bearing_deg, double distance_in) {
+        bearing = bearing_deg;
+        distance = distance_in;
+        rpm = Double.NaN;
+        converged = false;
+
+        return false;
+    }
+
+
+
+    /** @return bearing (deg) to aim at */
+    public double getBearing() { return bearing; }
+    /** @return distance (in) to shoot for */
+    public double getDistance() { return distance; }
+    public double getRPM() { return rpm; }
+    /** @return how long (s) the ball will be in the air */
+    public double getTimeOfFlight() { return timeOfFlight; }
+    public int getIterations() { return iterations; }
+    /** @return whether it settled before running out of iterations */
+    public boolean isConverged() { return converged; }
+}
@@ -5,11 +5,12 @@ import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 import com.revrobotics.ColorSensorV3;
 
 import edu.wpi.first.wpilibj.I2C;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.util.Color;
 import frc.robot.config.Config;
 import frc.robot.subsystem.BitBucketSubsystem;
 import frc.robot.utils.talonutils.MotorUtils;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
 
 
 
@@ -20,6 +21,12 @@ public class SpinnyBoiSubsystem extends BitBucketSubsystem {
     private final ColorSensorV3 m_colorSensor = new ColorSensorV3(i2cPort);
   
     WPI_TalonSRX motor;
+
+    private NumberEntry redEntry;
+    private NumberEntry greenEntry;
+    private NumberEntry blueEntry;
+    private NumberEntry irEntry;
+    private NumberEntry proximityEntry;
     
     public SpinnyBoiSubsystem(Config config) {
         super(config);
@@ -28,6 +35,13 @@ public class SpinnyBoiSubsystem extends BitBucketSubsystem {
     public void initialize() {
         super.initialize();
         motor = MotorUtils.makeSRX(config.spinnyboi.spinner);
+
+        // the color sensor is noisy in the last few digits, which would otherwise be sent every time
+        redEntry = dashboard.addNumber("Red", Rate.Fast, 0.001);
+        greenEntry = dashboard.addNumber("Green", Rate.Fast, 0.001);
+        blueEntry = dashboard.addNumber("Blue", Rate.Fast, 0.001);
+        irEntry = dashboard.addNumber("IR", Rate.Fast, 1);
+        proximityEntry = dashboard.addNumber("Proximity", Rate.Fast, 1);
     }
 
 	public void testInit() {
@@ -57,10 +71,10 @@ public class SpinnyBoiSubsystem extends BitBucketSubsystem {
          * Open Smart Dashboard or Shuffleboard to see the color detected by the 
          * sensor.
          */
-        SmartDashboard.putNumber("Red", detectedColor.red);
-        SmartDashboard.putNumber("Green", detectedColor.green);
-        SmartDashboard.putNumber("Blue", detectedColor.blue);
-        SmartDashboard.putNumber("IR", IR);
+        redEntry.set(detectedColor.red);
+        greenEntry.set(detectedColor.green);
+        blueEntry.set(detectedColor.blue);
+        irEntry.set(IR);
     
         /**
          * In addition to RGB IR values, the color sensor can also return an 
@@ -75,7 +89,7 @@ public class SpinnyBoiSubsystem extends BitBucketSubsystem {
          */
         int proximity = m_colorSensor.getProximity();
     
-        SmartDashboard.putNumber("Proximity", proximity);
+        proximityEntry.set(proximity);
     
     }
 
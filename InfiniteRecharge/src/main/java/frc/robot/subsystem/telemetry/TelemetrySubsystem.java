@@ -0,0 +1,92 @@
+package frc.robot.subsystem.telemetry;
+
+import frc.robot.config.Config;
+import frc.robot.subsystem.BitBucketSubsystem;
+import frc.robot.utils.roborio.RoboRIOFS;
+import frc.robot.utils.telemetry.DashboardPublisher.BooleanEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+
+
+
+/**
+ * Owns the binary telemetry recorder that every subsystem records into.
+ *
+ * Has to be initialized and run after all the other subsystems: initialize()
+ * starts recording (which locks in everyone's channels) and periodic() ends
+ * the loop's record once everyone's set their values.
+ */
+public class TelemetrySubsystem extends BitBucketSubsystem {
+    private boolean recording = false;
+
+    private BooleanEntry recordingEntry;
+    private NumberEntry channelsEntry;
+    private NumberEntry recordSizeEntry;
+    private NumberEntry recordsWrittenEntry;
+    private NumberEntry recordsBufferedEntry;
+    private NumberEntry recordsDroppedEntry;
+    private NumberEntry segmentEntry;
+
+
+
+    public TelemetrySubsystem(Config config) {
+        super(config);
+    }
+
+
+
+    @Override
+    public void initialize() {
+        super.initialize();
+
+        RoboRIOFS.init();
+        recording = recorder.start();
+
+        if (!recording) {
+            System.out.println("Telemetry recorder couldn't start, not recording");
+        }
+
+        recordingEntry = dashboard.addBoolean(getName() + "/recording", Rate.Slow);
+        channelsEntry = dashboard.addNumber(getName() + "/channels", Rate.Slow);
+        recordSizeEntry = dashboard.addNumber(getName() + "/record size (bytes)", Rate.Slow);
+        recordsWrittenEntry = dashboard.addNumber(getName() + "/records written", Rate.Slow);
+        recordsBufferedEntry = dashboard.addNumber(getName() + "/records buffered", Rate.Slow);
+        recordsDroppedEntry = dashboard.addNumber(getName() + "/records dropped", Rate.Slow);
+        segmentEntry = dashboard.addNumber(getName() + "/segment", Rate.Slow);
+    }
+
+    @Override
+    public void testInit() {
+
+    }
+
+    @Override
+    public void testPeriodic() {
+
+    }
+
+    @Override
+    public void diagnosticsCheck() {
+
+    }
+
+
+
+    @Override
+    public void periodic(float deltaTime) {
+        recorder.commit();
+    }
+
+    @Override
+    public void dashboardPeriodic(float deltaTime) {
+        if (getTelemetryEnabled()) {
+            recordingEntry.set(recording && !recorder.hasFailed());
+            channelsEntry.set(recorder.getChannels().size());
+            recordSizeEntry.set(recorder.getRecordSize());
+            recordsWrittenEntry.set(recorder.getRecordsWritten());
+            recordsBufferedEntry.set(recorder.getBufferedRecords());
+            recordsDroppedEntry.set(recorder.getDropped());
+            segmentEntry.set(recorder.getSegmentIndex());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package frc.robot.subsystem.vision;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.Timer;
+
+
+
+/**
+ * Reads the Limelight's NetworkTable without polling it.
+ *
+ * The entries are looked up once, and NetworkTables calls us (on its listener
+ * thread) whenever the Limelight publishes a new frame's results. Each frame
+ * is turned into a Target with the time it was captured and swapped in all at
+ * once, so getTarget() never sees tx from one frame and ty from another.
+ *
+ * The Limelight sends tv, tx, ty and tl every frame, but NetworkTables doesn't
+ * promise anything about the order entries get updated in, so reading all four
+ * whenever any of them changes could mix two frames together. tl (the
+ * pipeline's latency) is what marks a new frame: only it's listened to, and
+ * the rest are read when it changes. If a frame happens to take exactly as
+ * long as the last one, NetworkTables doesn't tell us about it and it's
+ * skipped, which is better than making up a target from two frames.
+ */
+public class LimelightClient {
+    /** One frame's results. Never changes once it's made. */
+    public static class Target {
+        public static final Target NONE = new Target(0, false, 0, 0, 0, 0, 0);
+
+        /** counts up with every update, so you can tell if you've seen this one already */
+        public final long frame;
+        public final boolean valid;
+        /** horizontal and vertical offset to the target (deg) */
+        public final double tx;
+        public final double ty;
+        /** time between the image being captured and the results arriving here (s) */
+        public final double latency;
+        /** FPGA time (s) the results arrived */
+        public final double receivedTimestamp;
+        /** FPGA time (s) the image was captured */
+        public final double captureTimestamp;
+
+        public Target(long frame, boolean valid, double tx, double ty, double latency,
+                double receivedTimestamp, double captureTimestamp) {
+            this.frame = frame;
+            this.valid = valid;
+            this.tx = tx;
+            this.ty = ty;
+            this.latency = latency;
+            this.receivedTimestamp = receivedTimestamp;
+            this.captureTimestamp = captureTimestamp;
+        }
+    }
+
+
+
+    private static final String TV = "tv";
+    private static final String TX = "tx";
+    private static final String TY = "ty";
+    private static final String TL = "tl";
+    private static final String PIPELINE = "pipeline";
+
+    /** what the Limelight sends every frame, tl changing means there's a new one */
+    private static final String[] KEYS = {TV, TX, TY, TL};
+
+
+
+    /** the bits of a NetworkTable LimelightClient uses, so it can be tested without one */
+    interface Table {
+        public double get(String key);
+        public void set(String key, double value);
+        /** @return handle for removeListener() */
+        public int addListener(String key, Runnable listener);
+        public void removeListener(String key, int handle);
+    }
+
+    /** Table for a real NetworkTable, with each entry looked up once */
+    private static class NetworkTableTable implements Table {
+        private final NetworkTable TABLE;
+        private final Map<String, NetworkTableEntry> entries = new HashMap<String, NetworkTableEntry>();
+
+        private NetworkTableTable(NetworkTable table) {
+            TABLE = table;
+
+            for (String key : KEYS) {
+                entries.put(key, TABLE.getEntry(key));
+            }
+            entries.put(PIPELINE, TABLE.getEntry(PIPELINE));
+        }
+
+        @Override
+        public double get(String key) {
+            return entries.get(key).getDouble(0);
+        }
+
+        @Override
+        public void set(String key, double value) {
+            entries.get(key).setDouble(value);
+        }
+
+        @Override
+        public int addListener(String key, Runnable listener) {
+            return entries.get(key).addListener(
+                notification -> listener.run(),
+                EntryListenerFlags.kNew | EntryListenerFlags.kUpdate
+            );
+        }
+
+        @Override
+        public void removeListener(String key, int handle) {
+            entries.get(key).removeListener(handle);
+        }
+    }
+
+
+
+    private final Table table;
+
+    private final int listener;
+
+    private final AtomicReference<Target> target = new AtomicReference<Target>(Target.NONE);
+    private long frames = 0;
+
+    /** -1 so the first setPipeline() always writes */
+    private int pipeline = -1;
+
+
+
+    public LimelightClient(NetworkTable table) {
+        this(new NetworkTableTable(table));
+    }
+
+    LimelightClient(Table table) {
+        this.table = table;
+
+        listener = table.addListener(TL, this::update);
+    }
+
+    private synchronized void update() {
+        // tl is the pipeline's latency, capture takes a little more on top of that
+        double latency = (table.get(TL) + VisionConstants.IMAGE_CAPTURE_LATENCY_MS) / 1000;
+        boolean valid = table.get(TV) == 1;
+        double tx = table.get(TX);
+        double ty = table.get(TY);
+
+        double now = Timer.getFPGATimestamp();
+
+        target.set(new Target(++frames, valid, tx, ty, latency, now, now - latency));
+    }
+
+    /** The latest results. Safe to call from any thread. */
+    public Target getTarget() {
+        return target.get();
+    }
+
+    /** Switch pipelines. Only actually sends anything if it's a different one. */
+    public void setPipeline(int pipeline) {
+        if (pipeline == this.pipeline) {
+            return;
+        }
+
+        table.set(PIPELINE, pipeline);
+        this.pipeline = pipeline;
+    }
+
+    public int getPipeline() {
+        return pipeline;
+    }
+
+    public void close() {
+        table.removeListener(TL, listener);
+    }
+}
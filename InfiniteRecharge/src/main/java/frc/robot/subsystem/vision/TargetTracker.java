@@ -0,0 +1,310 @@
+package frc.robot.subsystem.vision;
+
+import org.ejml.simple.SimpleMatrix;
+
+import frc.robot.utils.control.statespace.estimators.kalman.InPlaceKalmanFilter;
+import frc.robot.utils.control.statespace.models.kinematics.ConstantVelocity;
+
+
+
+/**
+ * Smooths out and predicts where the vision target is, instead of chasing
+ * every noisy frame the Limelight gives us.
+ *
+ * Each thing we've seen recently gets a track: a constant velocity Kalman
+ * filter over (bearing, ty, distance). The bearing is whatever VisionSubsystem
+ * is set up to give it, which with the shooter around is the target's bearing
+ * on the field (see TargetBearing) and not tx, since tx moves whenever the
+ * turret the camera's on does. A new measurement goes to the track it's
+ * closest to, as long as it's close enough given how sure that track is
+ * (innovation gating). If it isn't close to any of them it starts a new track
+ * instead of yanking the one we're aiming at, so a single bad frame (a light,
+ * a reflection, the wrong target) doesn't move the turret. Tracks that stop
+ * getting measurements coast on their velocity until they time out, which
+ * covers frames where the target drops out for a moment.
+ *
+ * The primary track is the one we're aiming at. It only changes when it
+ * times out, to a track that's been seen enough times to be believable.
+ *
+ * Times are all FPGA time (s). Measurements should be given with the time the
+ * image was captured, so latency is taken care of by predicting forward.
+ */
+public class TargetTracker {
+    public static final int BEARING = 0;
+    public static final int TY = 1;
+    public static final int DISTANCE = 2;
+
+    private static final int OUTPUTS = 3;
+
+
+
+    public class Track {
+        private final ConstantVelocity model = new ConstantVelocity(OUTPUTS);
+        private final InPlaceKalmanFilter filter;
+
+        /** time the model's state is at */
+        private double time;
+        /** last time a measurement was given to this track */
+        private double lastMeasurement;
+        private int hits = 1;
+
+        // reused every step
+        private final SimpleMatrix G = new SimpleMatrix(2 * OUTPUTS, OUTPUTS);
+
+        private Track(double t, SimpleMatrix measurement) {
+            SimpleMatrix state = new SimpleMatrix(2 * OUTPUTS, 1);
+            SimpleMatrix P0 = new SimpleMatrix(2 * OUTPUTS, 2 * OUTPUTS);
+
+            for (int i = 0; i < OUTPUTS; i++) {
+                state.set(i, measurement.get(i));
+
+                // start where we saw it, with no idea how fast it's moving
+                P0.set(i, i, R.get(i, i));
+                P0.set(OUTPUTS + i, OUTPUTS + i, VisionConstants.TRACK_INITIAL_VELOCITY_VARIANCE[i]);
+            }
+
+            model.setState(state);
+            time = t;
+            lastMeasurement = t;
+
+            filter = new InPlaceKalmanFilter(P0, model) {
+                @Override
+                protected SimpleMatrix getC(SimpleMatrix state, SimpleMatrix input, double t) { return C; }
+
+                @Override
+                protected SimpleMatrix getD(SimpleMatrix state, SimpleMatrix input, double t) { return D; }
+
+                @Override
+                protected SimpleMatrix getQ(SimpleMatrix state, SimpleMatrix input, double t) { return Q; }
+
+                @Override
+                protected SimpleMatrix getR(SimpleMatrix state, SimpleMatrix input, double t) { return R; }
+
+                @Override
+                protected SimpleMatrix getG(SimpleMatrix state, SimpleMatrix input, double t) {
+                    // accelerations over the step, since that's what the noise is
+                    double dt = model.getDt();
+                    for (int i = 0; i < OUTPUTS; i++) {
+                        G.set(i, i, dt * dt / 2);
+                        G.set(OUTPUTS + i, i, dt);
+                    }
+                    return G;
+                }
+            };
+        }
+
+        /** Move the estimate forward to t. Measurements from before then don't move it back. */
+        private void predict(double t) {
+            model.setDt(Math.max(t - time, 0));
+            model.apply(NO_INPUT);
+            filter.predict();
+
+            time = Math.max(t, time);
+        }
+
+        /** @return squared Mahalanobis distance to the measurement, after predict() */
+        private double distanceTo(SimpleMatrix measurement) {
+            return filter.getInnovationDistance(measurement);
+        }
+
+        private void update(double t, SimpleMatrix measurement) {
+            filter.update(measurement);
+
+            lastMeasurement = t;
+            hits++;
+        }
+
+        private void skipUpdate() {
+            filter.skipUpdate();
+        }
+
+        /** @return where this track will be at time t, without changing anything */
+        public double get(int output, double t) {
+            SimpleMatrix state = model.getState();
+            return state.get(output) + state.get(OUTPUTS + output) * (t - time);
+        }
+
+        /** @return how fast the output is changing (per second) */
+        public double getVelocity(int output) {
+            return model.getState().get(OUTPUTS + output);
+        }
+
+        public double getLastMeasurement() { return lastMeasurement; }
+        public int getHits() { return hits; }
+
+        private boolean isConfirmed() {
+            return hits >= VisionConstants.TRACK_CONFIRM_HITS;
+        }
+
+        private boolean isAlive(double t) {
+            return t - lastMeasurement <= VisionConstants.TRACK_TIMEOUT_S;
+        }
+    }
+
+
+
+    // the same for every track
+    private final SimpleMatrix C = new SimpleMatrix(OUTPUTS, 2 * OUTPUTS);
+    private final SimpleMatrix D = new SimpleMatrix(OUTPUTS, 1);
+    private final SimpleMatrix Q = new SimpleMatrix(OUTPUTS, OUTPUTS);
+    private final SimpleMatrix R = new SimpleMatrix(OUTPUTS, OUTPUTS);
+    private final SimpleMatrix NO_INPUT = new SimpleMatrix(1, 1);
+
+    private final Track[] tracks = new Track[VisionConstants.MAX_TRACKS];
+    private Track primary = null;
+
+    private final SimpleMatrix measurement = new SimpleMatrix(OUTPUTS, 1);
+
+    private long started = 0;
+
+
+
+    public TargetTracker() {
+        for (int i = 0; i < OUTPUTS; i++) {
+            C.set(i, i, 1);
+            Q.set(i, i, VisionConstants.TRACK_ACCELERATION_VARIANCE[i]);
+            R.set(i, i, VisionConstants.TRACK_MEASUREMENT_VARIANCE[i]);
+        }
+    }
+
+
+
+    /**
+     * Give the tracker a frame with a valid target. Frames without one don't
+     * need to be given at all, the tracks just coast.
+     *
+     * @param t time (s) the image was captured
+     */
+    public void addMeasurement(double t, double bearing, double ty, double distance) {
+        measurement.set(BEARING, bearing);
+        measurement.set(TY, ty);
+        measurement.set(DISTANCE, distance);
+
+        Track closest = null;
+        double closestDistance = VisionConstants.TRACK_GATE;
+
+        for (Track track : tracks) {
+            if (track == null) {
+                continue;
+            }
+
+            track.predict(t);
+
+            double d = track.distanceTo(measurement);
+            if (d <= closestDistance) {
+                closest = track;
+                closestDistance = d;
+            }
+        }
+
+        for (Track track : tracks) {
+            if (track == null) {
+                continue;
+            }
+
+            if (track == closest) {
+                track.update(t, measurement);
+            } else {
+                track.skipUpdate();
+            }
+        }
+
+        if (closest == null) {
+            // nothing it could belong to, so it might be something new
+            startTrack(t);
+            started++;
+        }
+
+        update(t);
+    }
+
+    private void startTrack(double t) {
+        // replace a dead track, or if they're all alive the one that's been
+        // quiet the longest (but never the one we're aiming at)
+        int replace = -1;
+        for (int i = 0; i < tracks.length; i++) {
+            if (tracks[i] == null) {
+                replace = i;
+                break;
+            }
+
+            if (tracks[i] != primary
+                && (replace < 0 || tracks[i].lastMeasurement < tracks[replace].lastMeasurement)) {
+                replace = i;
+            }
+        }
+
+        if (replace >= 0) {
+            tracks[replace] = new Track(t, measurement);
+        }
+    }
+
+    /**
+     * Drop tracks that haven't been seen in a while and pick the primary track.
+     * Called by addMeasurement(), but should also be called every loop so
+     * tracks time out when there's no target at all.
+     */
+    public void update(double now) {
+        for (int i = 0; i < tracks.length; i++) {
+            if (tracks[i] != null && !tracks[i].isAlive(now)) {
+                tracks[i] = null;
+            }
+        }
+
+        if (primary != null && !primary.isAlive(now)) {
+            primary = null;
+        }
+
+        if (primary == null) {
+            for (Track track : tracks) {
+                if (track != null && track.isConfirmed()
+                    && (primary == null || track.hits > primary.hits)) {
+                    primary = track;
+                }
+            }
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = null;
+        }
+        primary = null;
+    }
+
+
+
+    public boolean hasTarget() {
+        return primary != null;
+    }
+
+    /** @return the track being aimed at, or null if there isn't one */
+    public Track getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Where the target will be at some time, like when the ball will leave the shooter
+     *
+     * @param output BEARING, TY, or DISTANCE
+     * @param t time (s)
+     *
+     * @return prediction, or NaN if there's no target
+     */
+    public double predict(int output, double t) {
+        return primary == null ? Double.NaN : primary.get(output, t);
+    }
+
+    public int getTracks() {
+        int count = 0;
+        for (Track track : tracks) {
+            if (track != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** @return how many tracks have been started, which is about how many measurements didn't fit anywhere */
+    public long getStarted() { return started; }
+}
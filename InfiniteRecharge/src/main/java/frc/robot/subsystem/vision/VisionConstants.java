@@ -8,6 +8,35 @@ public class VisionConstants {
     
     static final double BALL_SHOOTING_ANGLE = 30; // wild guess
 
+    /** time between the image being captured and the pipeline starting, on top of tl (ms) */
+    static final double IMAGE_CAPTURE_LATENCY_MS = 11;
+
+    /** if nothing's come from the Limelight in this long it's probably not there anymore (s) */
+    static final double TARGET_TIMEOUT_S = 0.5;
+
+
+
+    // TargetTracker, with (tx, ty, distance) in that order in the arrays
+
+    /** measurement noise (deg^2, deg^2, in^2) */
+    static final double[] TRACK_MEASUREMENT_VARIANCE = {0.1, 0.1, 4};
+    /** how much the target can accelerate, as process noise ((deg/s^2)^2, (deg/s^2)^2, (in/s^2)^2) */
+    static final double[] TRACK_ACCELERATION_VARIANCE = {400, 100, 10000};
+    /** velocity uncertainty when a track starts ((deg/s)^2, (deg/s)^2, (in/s)^2) */
+    static final double[] TRACK_INITIAL_VELOCITY_VARIANCE = {900, 100, 3600};
+
+    /**
+     * Measurements further than this from a track (squared Mahalanobis distance)
+     * don't belong to it. 11.34 is the 99th percentile of chi-squared with 3
+     * degrees of freedom, so only 1% of good measurements get thrown out.
+     */
+    static final double TRACK_GATE = 11.34;
+    /** a track has to be seen this many times before it's aimed at */
+    static final int TRACK_CONFIRM_HITS = 3;
+    /** tracks without measurements for this long are dropped (s) */
+    static final double TRACK_TIMEOUT_S = 0.5;
+    static final int MAX_TRACKS = 4;
+
     public static double getTargetHeightInches() {
         return TARGET_HEIGHT_INCHES;
     }
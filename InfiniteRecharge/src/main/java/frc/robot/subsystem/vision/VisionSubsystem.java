@@ -3,23 +3,41 @@ package frc.robot.subsystem.vision;
 import frc.robot.config.Config;
 import frc.robot.subsystem.BitBucketSubsystem;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import frc.robot.utils.math.MathUtils;
-import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.utils.telemetry.DashboardPublisher.BooleanEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
 import edu.wpi.first.networktables.NetworkTableInstance;
 
 public class VisionSubsystem extends BitBucketSubsystem {
+    /** Turns a frame's tx into the bearing the tracker tracks */
+    public interface Bearing {
+        double get(double captureTimestamp, double tx);
+    }
 
     private boolean validTarget = false;
-    
-    private final double defaultVal = 0.0;
-    private NetworkTable limelightTable;
+
+    private LimelightClient limelight;
+    /** what the Limelight last told us, kept for the whole loop so everyone sees the same thing */
+    private LimelightClient.Target target = LimelightClient.Target.NONE;
+
+    private final TargetTracker tracker = new TargetTracker();
+    /** just tx until the shooter says where the turret was */
+    private Bearing bearing = (captureTimestamp, tx) -> tx;
 
     private double tx = 0;
     private double ty = 0;
 
     private double distance = 0;
 
+    /** how old the current target info is (s) */
+    private double latency = 0;
+    /** FPGA time (s) the image the current target info came from was captured */
+    private double captureTimestamp = 0;
+
+    private BooleanEntry validTargetEntry;
+    private NumberEntry distanceEntry;
+
     public VisionSubsystem(final Config config) {
         super(config);
     }
@@ -30,7 +48,10 @@ public class VisionSubsystem extends BitBucketSubsystem {
         final NetworkTableInstance tableInstance = NetworkTableInstance.getDefault();
         tableInstance.startClientTeam(4183);
 
-        limelightTable = tableInstance.getTable("limelight");
+        limelight = new LimelightClient(tableInstance.getTable("limelight"));
+
+        validTargetEntry = dashboard.addBoolean(getName() + "/Valid Target ", Rate.Fast);
+        distanceEntry = dashboard.addNumber(getName() + "/Estimated Distance ", Rate.Fast, 0.1);
     }
 
     public void diagnosticsInitialize() {
@@ -52,48 +73,51 @@ public class VisionSubsystem extends BitBucketSubsystem {
         distance = approximateDistanceFromTarget(ty);
         adjustZoom();
 
-        SmartDashboard.putBoolean(getName() + "/Valid Target ", validTarget);
-        SmartDashboard.putNumber(getName() + "/Estimated Distance ", distance);
-    }
-
-    public double getShooterVelocityForTarget() {
-
-        final double d = approximateDistanceFromTarget(ty);
-        final double h = VisionConstants.TARGET_HEIGHT_INCHES;
-        final double angle = VisionConstants.BALL_SHOOTING_ANGLE;
-
-        final double numerator = MathUtils.G * Math.pow(d, 2);
-        final double denominator = 2 * (d * Math.tan(angle) - h) * Math.pow(Math.cos(angle), 2);
-
-        final double vel = Math.sqrt(numerator / denominator);
-
-        return vel;
+        validTargetEntry.set(validTarget);
+        distanceEntry.set(distance);
     }
 
+    /** @return horizontal distance (in) to the target, from the camera's angle to it */
     public double approximateDistanceFromTarget(final double ty) {
         return (VisionConstants.TARGET_HEIGHT_INCHES - VisionConstants.CAMERA_HEIGHT_INCHES)
-                / Math.tan(VisionConstants.CAMERA_MOUNTING_ANGLE + ty);
+                / Math.tan(Math.toRadians(VisionConstants.CAMERA_MOUNTING_ANGLE + ty));
     }
 
-    public double queryLimelightNetworkTable(final String value) {
-        return limelightTable.getEntry(value).getDouble(defaultVal);
+    /** @return ty (deg) the target would be at from a horizontal distance (in), the other way around */
+    public double approximateTyFromDistance(final double distance_in) {
+        return Math.toDegrees(Math.atan2(VisionConstants.TARGET_HEIGHT_INCHES - VisionConstants.CAMERA_HEIGHT_INCHES,
+                distance_in)) - VisionConstants.CAMERA_MOUNTING_ANGLE;
     }
 
 	public void updateTargetInfo() {
-        
-        final double tv = queryLimelightNetworkTable("tv");
-        if (tv == 1) {
-            validTarget = true;
-        } else {
-            validTarget = false;
+        LimelightClient.Target target = limelight.getTarget();
+        double now = Timer.getFPGATimestamp();
+
+        // if the Limelight stops talking to us its last target would stick around forever
+        boolean stale = now - target.receivedTimestamp > VisionConstants.TARGET_TIMEOUT_S;
+        validTarget = target.valid && !stale;
+
+        // each frame only goes to the tracker once
+        if (validTarget && target.frame != this.target.frame) {
+            tracker.addMeasurement(
+                target.captureTimestamp,
+                bearing.get(target.captureTimestamp, target.tx),
+                target.ty,
+                approximateDistanceFromTarget(target.ty)
+            );
         }
+        tracker.update(now);
+
+        this.target = target;
+        tx = target.tx;
+        ty = target.ty;
 
-        tx = queryLimelightNetworkTable("tx");
-        ty = queryLimelightNetworkTable("ty");
+        latency = target.latency;
+        captureTimestamp = target.captureTimestamp;
     }
 
     public void adjustZoom() {
-        double pipelineToChangeTo = 0;
+        int pipelineToChangeTo = 0;
 
         if (distance >= 0) {
             pipelineToChangeTo = 0;
@@ -105,7 +129,7 @@ public class VisionSubsystem extends BitBucketSubsystem {
             pipelineToChangeTo = 2;
         }
 
-        limelightTable.getEntry("pipeline").setDouble(pipelineToChangeTo);
+        limelight.setPipeline(pipelineToChangeTo);
     }
 
     public double getTx() {
@@ -120,6 +144,40 @@ public class VisionSubsystem extends BitBucketSubsystem {
         return validTarget;
     }
 
+    /** @return distance (in) to the target in the latest frame */
+    public double getDistance() {
+        return distance;
+    }
+
+    /** @return how old the target info is (s) */
+    public double getLatency() {
+        return latency;
+    }
+
+    /** @return FPGA time (s) the image the target info came from was captured */
+    public double getCaptureTimestamp() {
+        return captureTimestamp;
+    }
+
+    /**
+     * Set what the tracker tracks instead of tx. The camera's on the turret, so
+     * the turret moving changes tx without the target moving at all.
+     */
+    public void setBearing(Bearing bearing) {
+        this.bearing = bearing;
+        tracker.reset();
+    }
+
+    /** @return smoothed target, which can be predicted forward to when a shot will actually happen */
+    public TargetTracker getTracker() {
+        return tracker;
+    }
+
+    /** @return everything about the latest frame, which (unlike the getters above) can be checked for being new */
+    public LimelightClient.Target getTarget() {
+        return target;
+    }
+
     @Override
     public void testInit() {
         // TODO Auto-generated method stub
@@ -1,5 +1,42 @@
 package frc.robot.utils.control;
 
+import frc.robot.utils.data.MultiChannelRingBuffer;
+
+/**
+ * One diagnostic sample of a motor. BBMotorController keeps a window of them
+ * (see enableDiagnostics()) as a MultiChannelRingBuffer with a channel per
+ * field, which are the constants here.
+ */
 public class MotorInfo {
-    
-}
\ No newline at end of file
+    // channels of the diagnostic window
+    public static final int POSITION = 0;
+    public static final int VELOCITY = 1;
+    public static final int VOLTAGE = 2;
+    public static final int CURRENT = 3;
+    public static final int CHANNELS = 4;
+
+    public double position;
+    public double velocity;
+    /** V */
+    public double voltage;
+    /** A */
+    public double current;
+
+
+
+    /**
+     * Read sample i of a diagnostic window into this one, so nothing's allocated
+     *
+     * @param i 0 for the oldest sample, size() - 1 for the newest
+     *
+     * @return this
+     */
+    public MotorInfo read(MultiChannelRingBuffer data, int i) {
+        position = data.get(POSITION, i);
+        velocity = data.get(VELOCITY, i);
+        voltage = data.get(VOLTAGE, i);
+        current = data.get(CURRENT, i);
+
+        return this;
+    }
+}
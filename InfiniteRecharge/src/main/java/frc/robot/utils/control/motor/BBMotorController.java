@@ -2,16 +2,20 @@ package frc.robot.utils.control.motor;
 
 
 
-import frc.robot.utils.data.DataWindow;
+import frc.robot.utils.data.MultiChannelRingBuffer;
 
 import frc.robot.utils.control.controltype.ControlType;
 import frc.robot.utils.control.motionprofile.motionmagic.MotionMagic;
 import frc.robot.utils.control.pidf.PID;
 import frc.robot.utils.control.pidf.PIDF;
-import frc.robot.utils.control.MotorInfo;
 import frc.robot.utils.control.MotionConfig;
+import frc.robot.utils.control.MotorInfo;
 
 import frc.robot.utils.control.encoder.*;
+import frc.robot.utils.control.motor.slots.Gain;
+import frc.robot.utils.control.motor.slots.LRUSlotPolicy;
+import frc.robot.utils.control.motor.slots.MotionSlotCache;
+import frc.robot.utils.control.motor.slots.SlotPolicy;
 
 import frc.robot.utils.math.units.BaseUnit;
 import frc.robot.utils.math.units.Unit;
@@ -19,6 +23,7 @@ import frc.robot.utils.math.units.Units;
 import frc.robot.utils.math.units.BaseUnit.Dimension;
 import frc.robot.utils.math.units.UnitBuilder;
 import frc.robot.utils.math.units.Quantity;
+import frc.robot.utils.math.units.UnitConversion;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -111,30 +116,64 @@ public abstract class BBMotorController {
     protected abstract int getMaxMotionSlots();
     /** number of available motion configurations */
     protected final int MOTION_SLOTS = getMaxMotionSlots();
-    /** Array of motion config IDs in slots that are currently loaded into motor controller */
-    protected int[] loadedMotionConfigs = new int[MOTION_SLOTS];
     /**
-     * Number of motion configuration loaded in motor controller.
-     * Not equal to loadedMotionConfigs.length in general: this would be so only if every
-     * available slot was in use
+     * Which configs are in which slots, what's been written to them, and
+     * which get evicted (LRU unless setMotionSlotPolicy() says otherwise)
+     */
+    protected final MotionSlotCache motionSlots = new MotionSlotCache(MOTION_SLOTS, new LRUSlotPolicy());
+
+    /**
+     * Set how configs get picked to be evicted when a new one needs a slot,
+     * like a PinnedSlotPolicy to keep some loaded no matter what
      */
-    protected int slotsUsed = 0;
+    public void setMotionSlotPolicy(SlotPolicy policy) {
+        motionSlots.setPolicy(policy);
+    }
 
+    /** @return the slot cache, mostly for its hit/miss/write counts */
+    public MotionSlotCache getMotionSlots() {
+        return motionSlots;
+    }
 
 
-    protected abstract void clearPIDF(int slot);
-    protected abstract void clearMotionMagic(int slot);
-    
-    protected void clearMotionSlot(int slot) {
-    	clearPIDF(slot);
-    	clearMotionMagic(slot);
+
+    /**
+     * Write a single constant to a slot. Every call is a CAN config call, so
+     * only ever called for constants that changed.
+     *
+     * @param slot slot to write to, ignored for constants the controller only has one of
+     */
+    protected abstract void loadGain(Gain gain, double value, int slot);
+
+    /** @return whether each slot has its own MotionMagic constants, instead of one set for all of them */
+    protected boolean hasMotionMagicPerSlot() {
+        return true;
+    }
+
+    /**
+     * @return whether loadGain() already skips constants that haven't changed,
+     * and forgets ones that couldn't be written so they get tried again. Then
+     * it's the only record of what's been written, since the slot cache would
+     * go on thinking a failed write made it and never send it again.
+     */
+    protected boolean hasOwnGainCache() {
+        return false;
+    }
+
+    /** Write a constant if it's different from what's already there */
+    private void writeGain(Gain gain, double value, int slot) {
+        if (motionSlots.update(slot, gain, value) || hasOwnGainCache()) {
+            loadGain(gain, value, slot);
+        }
+    }
+
+    protected void loadPID(PID constants, int slot) {
+        writeGain(Gain.P, constants.getKP(), slot);
+        writeGain(Gain.I, constants.getKI(), slot);
+        writeGain(Gain.D, constants.getKD(), slot);
+        writeGain(Gain.F, constants instanceof PIDF ? ((PIDF) constants).getKF() : 0, slot);
+        writeGain(Gain.I_ZONE, constants.getIZone(), slot);
     }
-    
-    protected abstract void loadPID(PID constants, int slot);
-    protected abstract void loadPIDF(PIDF constants, int slot);
-    
-    /** Configure MotionMagic parameters to use with native units */
-    protected abstract void loadMotionMagic(double acc, double vel, int slot);
 
     protected void loadMotionMagic(MotionMagic mm, int slot) {
         Quantity vel = mm.getCruiseVelocity();
@@ -155,7 +194,9 @@ public abstract class BBMotorController {
             acc_nu = toAngular(acc).to(ALPHA_UNIT_NU).getValue();
         }
 
-        loadMotionMagic(acc_nu, vel_nu, slot);
+        int mmSlot = hasMotionMagicPerSlot() ? slot : MotionSlotCache.SHARED;
+        writeGain(Gain.MOTION_MAGIC_ACCELERATION, acc_nu, mmSlot);
+        writeGain(Gain.MOTION_MAGIC_VELOCITY, vel_nu, mmSlot);
 
         motionMagic = mm;
     }
@@ -168,7 +209,8 @@ public abstract class BBMotorController {
     public abstract void selectMotionConfigSlot(int slot);
     /**
      * Load in a motion slot stored in the BBMotorController into the
-     * wrapped motor controller object.
+     * wrapped motor controller object. Only the constants that are different
+     * from what's already in the slot get written.
      * 
      * @param configID id of motion config in motionConfigs
      * @param slot slot to load into
@@ -176,31 +218,19 @@ public abstract class BBMotorController {
     protected int loadMotionConfig(int configID, int slot) {
     	MotionConfig config = motionConfigs.get(configID);
     	
-    	if (slotsUsed == MOTION_SLOTS) {
-    		clearMotionSlot(slot);
-    	}
-    	
     	PID pid = config.getPID();
     	if (pid != null) {
-    		if (pid instanceof PIDF) {
-    			loadPIDF((PIDF) pid, slot);
-    		} else {
-    			loadPID(pid, slot);
-    		}
+    		loadPID(pid, slot);
     	}
     	
+    	// shared MotionMagic gets written when the slot's selected instead
     	MotionMagic mm = config.getMotionMagic();
-    	if (mm != null) {
+    	if (mm != null && hasMotionMagicPerSlot()) {
     		loadMotionMagic(mm, slot);
     	}
-    	
-    	loadedMotionConfigs[slot] = configID; // very important
-    	if (slot == slotsUsed) {
-    		slotsUsed++;
-    	}
 
         // "use" this new configuration
-        motionConfigs.get(configID).use();
+        config.use();
     	
     	// no need to load control type, that is to help find
     	// an appropriate motion configuration if necessary
@@ -209,47 +239,14 @@ public abstract class BBMotorController {
     }
     /**
      * Load in a motion configuration stored in the BBMotorController into the
-     * wrapped motor controller object. Defaults to the least used slot
-     * in terms of amount of times its been reloaded into the motor controller
-     * (probably not the best way but also how would you get to this point?
-     * (also very overkill)).
+     * wrapped motor controller object, in a slot picked by the slot policy
      * 
      * @param configID id of motion configuration in motionConfigs
      * 
      * @return slot it was loaded into
      */
     protected int loadMotionConfig(int configID) {
-        // which slot to laod into
-        int slot;
-
-        // if no slots are unused, look for least used slot to swap in a new set of constants
-        // also should be at max == but just in case...
-        if (slotsUsed >= MOTION_SLOTS) {
-            // to find the minimum uses and corresponding slot, first assume last one
-            int minUses = motionConfigs.get(loadedMotionConfigs[loadedMotionConfigs.length - 1]).getUses();
-            slot = loadedMotionConfigs.length - 1;
-
-            // loop through all slots in reverse order (except for last one, already covered)
-            // to try to find a smaller amount of uses
-            for (int i = loadedMotionConfigs.length - 2; i >= 0; i--) {
-                // number of uses for this motion configuration
-                int uses = motionConfigs.get(loadedMotionConfigs[i]).getUses();
-
-                // test if its a new minimum
-                if (uses < minUses) {
-                    minUses = uses;
-                    // set the new slot to switch into
-                    slot = i;
-                }
-            }
-        } else {
-            // if haven't used all available slots, might as well load it into the motor controller
-            // in the next unused slot
-            slot = slotsUsed;
-        }
-
-        // load it in now that you know which slot to use
-        return loadMotionConfig(configID, slot);
+        return loadMotionConfig(configID, motionSlots.allocate(configID, false));
     }
 // haha funny FRC number 254
 
@@ -281,19 +278,21 @@ public abstract class BBMotorController {
      * @return slot slot the configuration was loaded into in motor controller
      */
     public int setMotionConfig(int configID) {
-        // test if the configuration is already loaded, and if it is, select it
-        for (int i = 0; i < slotsUsed; i++) {
-            if (loadedMotionConfigs[i] == configID) {
-                selectMotionConfigSlot(i);
-
-                return i;
-            }
+        // test if the configuration is already loaded, and if not load it in
+        int slot = motionSlots.lookup(configID);
+        if (slot == -1) {
+            slot = loadMotionConfig(configID);
         }
 
-        // load the configuration in and get the slot to which it was loaded
-        int slot = loadMotionConfig(configID);
         // select the slot it was loaded into
         selectMotionConfigSlot(slot);
+        motionSlots.select(slot);
+
+        // a controller with one set of MotionMagic constants needs this config's now
+        MotionMagic mm = motionConfigs.get(configID).getMotionMagic();
+        if (mm != null && !hasMotionMagicPerSlot()) {
+            loadMotionMagic(mm, slot);
+        }
 
         return slot;
     }
@@ -329,6 +328,49 @@ public abstract class BBMotorController {
 
 
 
+    /**
+     * Load a motion configuration ahead of time, without selecting it, so
+     * switching to it later doesn't have to write anything. Call it when you
+     * know what's coming next, like when the command before it starts. It
+     * won't evict the selected config or a pinned one, so it might not load.
+     *
+     * @param configID index of motion configuration in motionConfigs
+     *
+     * @return slot it's in, or -1 if there wasn't room
+     */
+    public int prefetchMotionConfig(int configID) {
+        int slot = motionSlots.find(configID);
+        if (slot != -1) {
+            return slot;
+        }
+
+        slot = motionSlots.allocate(configID, true);
+        if (slot == -1) {
+            return -1;
+        }
+
+        return loadMotionConfig(configID, slot);
+    }
+
+    /** Same as prefetchMotionConfig(int) but by name, does nothing if it isn't a recognized name */
+    public int prefetchMotionConfig(String configName) {
+        if (!motionConfigNames.containsKey(configName)) {
+            return -1;
+        }
+
+        return prefetchMotionConfig(motionConfigNames.get(configName));
+    }
+
+    /** Same as prefetchMotionConfig(int) but by control type, does nothing if none has it */
+    public int prefetchMotionConfig(ControlType controlType) {
+        int configID = findMotionConfig(controlType);
+
+        if (configID == -1) { return -1; }
+        return prefetchMotionConfig(configID);
+    }
+
+
+
     /**
      * Add a motion configuration to the motor controller's stored set
      * 
@@ -365,8 +407,8 @@ public abstract class BBMotorController {
         motionConfigNames.put(name, id);
 
         // load in the first few until no more unused slots
-        if (slotsUsed < MOTION_SLOTS) {
-            loadMotionConfig(id, slotsUsed);
+        if (motionSlots.getSlotsUsed() < MOTION_SLOTS) {
+            prefetchMotionConfig(id);
         }
 
         // return the ID
@@ -392,6 +434,8 @@ public abstract class BBMotorController {
         THETA_UNIT_NU = getThetaUnit_nu();
         OMEGA_UNIT_NU = (new UnitBuilder()).num(THETA_UNIT_NU).denom(TIME_UNIT_NU).make();
         ALPHA_UNIT_NU = (new UnitBuilder()).num(THETA_UNIT_NU).denom(TIME_UNIT_NU, SECOND_TIME_UNIT_NU).make();
+
+        updateConversions();
     }
 
 
@@ -425,11 +469,15 @@ public abstract class BBMotorController {
         }
 
         this.radius = new Quantity(radius, LENGTH_UNIT_PU);
+
+        updateConversions();
     }
 
     public void setRadius(Quantity radius) {
         if (radius.getUnit().isCompatible(Dimension.Length)) {
             this.radius = radius;
+
+            updateConversions();
         }
     }
 
@@ -438,6 +486,8 @@ public abstract class BBMotorController {
         if (radius == null) { return; }
 
         positionMeasurement = PositionMeasurement.Distance;
+
+        updateConversions();
     }
 
     public void setMeasurementToDistance(double radius) {
@@ -449,6 +499,8 @@ public abstract class BBMotorController {
         this.radius = new Quantity(radius, LENGTH_UNIT_PU);
 
         positionMeasurement = PositionMeasurement.Distance;
+
+        updateConversions();
     }
 
     public void setMeasurementToDistance(Quantity radius) {
@@ -464,10 +516,14 @@ public abstract class BBMotorController {
         }
 
         positionMeasurement = PositionMeasurement.Distance;
+
+        updateConversions();
     }
 
     public void setMeasurementToAngle() {
         positionMeasurement = PositionMeasurement.Angle;
+
+        updateConversions();
     }
 
     public void setThetaUnit(BaseUnit thetaUnit) {
@@ -521,6 +577,71 @@ public abstract class BBMotorController {
         
         VEL_UNIT_PU = (new UnitBuilder()).num(LENGTH_UNIT_PU).denom(TIME_UNIT_PU).make();
         ACC_UNIT_PU = (new UnitBuilder()).num(LENGTH_UNIT_PU).denom(SECOND_TIME_UNIT_PU).make();
+
+        updateConversions();
+    }
+
+
+
+    /*
+     * getPosition/getVelocity/cmdPosition/cmdVelocity get called for every motor
+     * every loop, so instead of going through Quantity each time (which makes
+     * several objects and walks through every dimension of the units) the
+     * native <-> preferred conversions get worked out whenever the units change
+     * and the hot path is just one multiply.
+     *
+     * The Quantity versions of the methods still go through the flexible path.
+     */
+    /** native position -> preferred position (angle or distance) */
+    private double positionToPU = 0;
+    /** preferred position (angle or distance) -> native position */
+    private double positionToNU = 0;
+    /** native velocity -> preferred velocity (angular or tangential) */
+    private double velocityToPU = 0;
+    /** preferred velocity (angular or tangential) -> native velocity */
+    private double velocityToNU = 0;
+
+    protected void updateConversions() {
+        positionToPU = 0;
+        positionToNU = 0;
+        velocityToPU = 0;
+        velocityToNU = 0;
+
+        // nothing to convert to without an encoder
+        if (THETA_UNIT_NU == null || OMEGA_UNIT_NU == null) {
+            return;
+        }
+
+        if (positionMeasurement == PositionMeasurement.Angle) {
+            positionToPU = factor(THETA_UNIT_NU.getUnit(), THETA_UNIT_PU.getUnit());
+            positionToNU = factor(THETA_UNIT_PU.getUnit(), THETA_UNIT_NU.getUnit());
+            velocityToPU = factor(OMEGA_UNIT_NU, OMEGA_UNIT_PU);
+            velocityToNU = factor(OMEGA_UNIT_PU, OMEGA_UNIT_NU);
+        } else {
+            if (radius == null || LENGTH_UNIT_PU == null) {
+                return;
+            }
+
+            // l = r theta, with theta in radians and l in whatever unit the radius is in
+            double r = radius.getValue();
+            // preferred length unit -> radius unit
+            double lengthToRadius = factor(LENGTH_UNIT_PU.getUnit(), radius.getUnit());
+
+            positionToPU = factor(THETA_UNIT_NU.getUnit(), Units.RAD.getUnit()) * r;
+            positionToNU = lengthToRadius / r * factor(Units.RAD.getUnit(), THETA_UNIT_NU.getUnit());
+            velocityToPU = factor(OMEGA_UNIT_NU, RAD_PER_TIME) * r;
+            velocityToNU = lengthToRadius / r * factor(RAD_PER_TIME, OMEGA_UNIT_NU);
+        }
+    }
+
+    private double factor(Unit from, Unit to) {
+        UnitConversion conversion = UnitConversion.between(from, to);
+
+        if (conversion == null) {
+            return 0;
+        }
+
+        return conversion.getFactor();
     }
 
 
@@ -558,18 +679,8 @@ public abstract class BBMotorController {
 
         setMotionConfig(configID);
 
-        if (positionMeasurement == PositionMeasurement.Angle) {
-            Quantity quant = new Quantity(pos, THETA_UNIT_PU);
-
-            cmdPosition_native(quant.to(THETA_UNIT_NU).getValue(), controlMethod);
-        // existence of a theta unit guaranteed
-        } else if (positionMeasurement == PositionMeasurement.Distance) {
-            // l = r theta
-            // theta = l / r and also radians are pretty rad
-            Quantity quant = new Quantity(pos, LENGTH_UNIT_PU).divide(radius).multiply(Units.RAD);
-
-            cmdPosition_native(quant.to(THETA_UNIT_NU).getValue(), controlMethod);
-        }
+        // angle or distance already taken care of in the conversion
+        cmdPosition_native(pos * positionToNU, controlMethod);
     }
 
     public void cmdPosition(double pos, ControlType controlMethod, String configName) {
@@ -638,16 +749,8 @@ public abstract class BBMotorController {
 
         setMotionConfig(configID);
 
-        if (positionMeasurement == PositionMeasurement.Angle) {
-            Quantity quant = new Quantity(vel, OMEGA_UNIT_PU);
-
-            cmdVelocity_native(quant.to(OMEGA_UNIT_NU).getValue());
-        // existence of a velocity unit guaranteed
-        } else if (positionMeasurement == PositionMeasurement.Distance) {
-            Quantity quant = new Quantity(vel, VEL_UNIT_PU);
-
-            cmdVelocity_native(toAngular(quant).to(OMEGA_UNIT_NU).getValue());
-        }
+        // angular or tangential already taken care of in the conversion
+        cmdVelocity_native(vel * velocityToNU);
     }
 
     public void cmdVelocity(double vel, String configName) {
@@ -751,14 +854,7 @@ public abstract class BBMotorController {
     		return 0;
     	}
     	
-        Quantity theta_nu = new Quantity(getPosition_nu(), THETA_UNIT_NU);
-
-        if (positionMeasurement == PositionMeasurement.Angle) {
-            return theta_nu.to(THETA_UNIT_PU).getValue();
-        } else {
-            // l = r theta but theta in rads that don't really exist but oh well
-            return theta_nu.to(Units.RAD).divide(Units.RAD).multiply(radius).getValue();
-        }
+        return getPosition_nu() * positionToPU;
     }
 
     public double getPosition(BaseUnit unit) {
@@ -788,11 +884,7 @@ public abstract class BBMotorController {
     protected abstract void setPosition_nu(double pos_nu);
 
     public void setPosition(double pos_pu) {
-        if (positionMeasurement == PositionMeasurement.Angle) {
-            setPosition_nu((new Quantity(pos_pu, THETA_UNIT_PU)).to(THETA_UNIT_NU).getValue());
-        } else {
-            setPosition_nu(toAngular(new Quantity(pos_pu, LENGTH_UNIT_PU)).to(THETA_UNIT_NU).getValue());
-        }
+        setPosition_nu(pos_pu * positionToNU);
     }
 
     public void setPosition(Quantity quant) {
@@ -820,15 +912,8 @@ public abstract class BBMotorController {
      * Get the velocity of the object in preferred units of the object
      */
     public double getVelocity() {
-        // ticks per TIME_PERIOD
-        Quantity vel_nu = new Quantity(getVelocity_nu(), OMEGA_UNIT_NU);
-
-        if (positionMeasurement == PositionMeasurement.Angle) {
-            return vel_nu.to(OMEGA_UNIT_PU).getValue();
-        } else {
-            // v = r omega but omega in rads that don't really exist but oh well
-            return vel_nu.to(RAD_PER_TIME).divide(Units.RAD).multiply(radius).getValue();
-        }
+        // ticks per TIME_PERIOD -> preferred units
+        return getVelocity_nu() * velocityToPU;
     }
 
 
@@ -853,6 +938,15 @@ public abstract class BBMotorController {
 
     public abstract double getCurrent();
 
+    /**
+     * Set how often the controller sends its position, velocity, voltage and
+     * current over CAN. The defaults are 10-20 ms, which is fine for control
+     * but too slow to sample faster than that.
+     *
+     * @param period_ms how often to send them, as low as 1
+     */
+    public abstract void setFeedbackPeriod(int period_ms);
+
 
 
     public abstract void follow(BBMotorController motorController);
@@ -878,5 +972,35 @@ public abstract class BBMotorController {
 
 
     protected boolean hasDiagnostics;
-    protected DataWindow<MotorInfo> diagnosticData;
+    protected MultiChannelRingBuffer diagnosticData;
+
+
+
+    /**
+     * Start keeping a window of position, velocity, voltage and current
+     *
+     * @param length number of samples to keep
+     */
+    public void enableDiagnostics(int length) {
+        diagnosticData = new MultiChannelRingBuffer(MotorInfo.CHANNELS, length);
+        hasDiagnostics = true;
+    }
+
+    /** Record a diagnostic sample, if diagnostics are enabled. Call once per loop. */
+    public void updateDiagnostics() {
+        if (!hasDiagnostics) {
+            return;
+        }
+
+        diagnosticData.add(getPosition(), getVelocity(), getVoltage(), getCurrent());
+    }
+
+    /**
+     * Get the diagnostic window. Use the MotorInfo constants for the channels.
+     *
+     * @return diagnostic window, or null if diagnostics aren't enabled
+     */
+    public MultiChannelRingBuffer getDiagnostics() {
+        return diagnosticData;
+    }
 }
\ No newline at end of file
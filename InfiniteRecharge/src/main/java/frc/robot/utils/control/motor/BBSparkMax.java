@@ -4,8 +4,7 @@ package frc.robot.utils.control.motor;
 
 import frc.robot.utils.control.controltype.ControlType;
 import frc.robot.utils.control.encoder.QuadratureEncoder;
-import frc.robot.utils.control.pidf.PID;
-import frc.robot.utils.control.pidf.PIDF;
+import frc.robot.utils.control.motor.slots.Gain;
 
 import frc.robot.utils.math.units.BaseUnit;
 import frc.robot.utils.math.units.Units;
@@ -15,6 +14,7 @@ import com.revrobotics.CANPIDController;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.EncoderType;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 
 import edu.wpi.first.wpilibj.RobotController;
 
@@ -44,29 +44,30 @@ public class BBSparkMax extends BBMotorController {
 
 
     @Override
-    protected void loadPID(PID constants, int slot) {
-        PID_CONTROLLER.setP(constants.getKP(), slot);
-        PID_CONTROLLER.setI(constants.getKI(), slot);
-        PID_CONTROLLER.setD(constants.getKD(), slot);
-        PID_CONTROLLER.setIZone(constants.getIZone(), slot);
-    }
-
-    @Override
-    protected void loadPIDF(PIDF constants, int slot) {
-        loadPID(constants, slot);
-
-        PID_CONTROLLER.setFF(constants.getKF(), slot);
-    }
-
-    @Override
-    protected void clearPIDF(int slot) {
-        // literally no idea how you'd here get considering there's FOUR slots...
-
-        PID_CONTROLLER.setP(0, slot);
-        PID_CONTROLLER.setI(0, slot);
-        PID_CONTROLLER.setD(0, slot);
-        PID_CONTROLLER.setFF(0, slot);
-        PID_CONTROLLER.setIZone(0, slot);
+    protected void loadGain(Gain gain, double value, int slot) {
+        switch (gain) {
+            case P:
+                PID_CONTROLLER.setP(value, slot);
+                break;
+            case I:
+                PID_CONTROLLER.setI(value, slot);
+                break;
+            case D:
+                PID_CONTROLLER.setD(value, slot);
+                break;
+            case F:
+                PID_CONTROLLER.setFF(value, slot);
+                break;
+            case I_ZONE:
+                PID_CONTROLLER.setIZone(value, slot);
+                break;
+            case MOTION_MAGIC_ACCELERATION:
+                PID_CONTROLLER.setSmartMotionMaxAccel(value, slot);
+                break;
+            case MOTION_MAGIC_VELOCITY:
+                PID_CONTROLLER.setSmartMotionMaxVelocity(value, slot);
+                break;
+        }
     }
 
 
@@ -116,18 +117,6 @@ public class BBSparkMax extends BBMotorController {
         PID_CONTROLLER.setReference(perc, com.revrobotics.ControlType.kDutyCycle, slotInUse);
     }
 
-    @Override
-    protected void loadMotionMagic(double acc, double vel, int slot) {
-        PID_CONTROLLER.setSmartMotionMaxAccel(acc, slot);
-        PID_CONTROLLER.setSmartMotionMaxVelocity(vel, slot);
-    }
-
-    @Override
-    protected void clearMotionMagic(int slot) {
-        PID_CONTROLLER.setSmartMotionMaxAccel(0, slot);
-        PID_CONTROLLER.setSmartMotionMaxVelocity(0, slot);
-    }
-
     @Override
     protected void addQuadratureEncoder(QuadratureEncoder sensor) {
         encoder = MOTOR.getEncoder(EncoderType.kQuadrature, sensor.getCPR());
@@ -217,6 +206,14 @@ public class BBSparkMax extends BBMotorController {
         return MOTOR.getOutputCurrent();
     }
 
+    @Override
+    public void setFeedbackPeriod(int period_ms) {
+        // applied output, velocity/voltage/current, position
+        MOTOR.setPeriodicFramePeriod(PeriodicFrame.kStatus0, period_ms);
+        MOTOR.setPeriodicFramePeriod(PeriodicFrame.kStatus1, period_ms);
+        MOTOR.setPeriodicFramePeriod(PeriodicFrame.kStatus2, period_ms);
+    }
+
     @Override
     protected void setPosition_nu(double pos_nu) {
         encoder.setPosition(pos_nu);
@@ -5,9 +5,11 @@ package frc.robot.utils.control.motor;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 
 import frc.robot.utils.control.controltype.ControlType;
-import frc.robot.utils.control.pidf.PID;
-import frc.robot.utils.control.pidf.PIDF;
 import frc.robot.utils.control.encoder.QuadratureEncoder;
+import frc.robot.utils.control.motor.slots.Gain;
+import frc.robot.utils.talonutils.MotorSettings;
+import frc.robot.utils.talonutils.MotorUtils;
+import frc.robot.utils.talonutils.MotorSettings.Setting;
 
 import frc.robot.utils.math.units.Units;
 import frc.robot.utils.math.units.BaseUnit;
@@ -30,28 +32,49 @@ public class BBTalonSRX extends BBMotorController {
 
 
 
+    /** written by the config writer so switching configs never waits on CAN */
     @Override
-    protected void loadPID(PID constants, int slot) {
-        MOTOR.config_kP(slot, constants.getKP());
-        MOTOR.config_kI(slot, constants.getKI());
-        MOTOR.config_kD(slot, constants.getKD());
-        MOTOR.config_IntegralZone(slot, (int) constants.getIZone());
+    protected void loadGain(Gain gain, double value, int slot) {
+        MotorSettings settings = new MotorSettings();
+
+        switch (gain) {
+            case P:
+                settings.set(Setting.KP, slot, value);
+                break;
+            case I:
+                settings.set(Setting.KI, slot, value);
+                break;
+            case D:
+                settings.set(Setting.KD, slot, value);
+                break;
+            case F:
+                settings.set(Setting.KF, slot, value);
+                break;
+            case I_ZONE:
+                settings.set(Setting.INTEGRAL_ZONE, slot, (int) value);
+                break;
+            // TalonSRX actually doesn't store MM per slot
+            // and instead stores for the motor controller
+            case MOTION_MAGIC_ACCELERATION:
+                settings.set(Setting.MOTION_ACCELERATION, Math.round(value));
+                break;
+            case MOTION_MAGIC_VELOCITY:
+                settings.set(Setting.MOTION_CRUISE_VELOCITY, Math.round(value));
+                break;
+        }
+
+        MotorUtils.configure(MOTOR, settings);
     }
 
+    /** the config writer skips what hasn't changed and retries what failed */
     @Override
-    protected void loadPIDF(PIDF constants, int slot) {
-        loadPID(constants, slot);
-
-        MOTOR.config_kF(slot, constants.getKD());
+    protected boolean hasOwnGainCache() {
+        return true;
     }
 
     @Override
-    protected void clearPIDF(int slot) {
-        MOTOR.config_kP(slot, 0);
-        MOTOR.config_kI(slot, 0);
-        MOTOR.config_kD(slot, 0);
-        MOTOR.config_kF(slot, 0);
-        MOTOR.config_IntegralZone(slot, 0);
+    protected boolean hasMotionMagicPerSlot() {
+        return false;
     }
 
     @Override
@@ -100,27 +123,13 @@ public class BBTalonSRX extends BBMotorController {
         MOTOR.set(ControlMode.PercentOutput, perc);
     }
 
-    @Override
-    protected void loadMotionMagic(double acc, double vel, int slot) {
-        int accInt = (int) Math.round(acc);
-        int velInt = (int) Math.round(vel);
-
-        MOTOR.configMotionAcceleration(accInt);
-        MOTOR.configMotionCruiseVelocity(velInt);
-    }
-
-    @Override
-    protected void clearMotionMagic(int slot) {
-        // could set to 0, but TalonSRX actually doesn't store MM per slot
-        // and instead stores for the motor controller, so no need to
-        // (will never need to get wiped)
-    }
-
     @Override
     protected void addQuadratureEncoder(QuadratureEncoder sensor) {
-        MOTOR.configSelectedFeedbackSensor(FeedbackDevice.QuadEncoder);
-        MOTOR.setSelectedSensorPosition(0);
-        MOTOR.setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, 100);
+        MotorUtils.configure(MOTOR, new MotorSettings()
+            .feedbackSensor(FeedbackDevice.QuadEncoder)
+            .zeroSensor()
+            .statusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, 100)
+        );
     }
 
     @Override
@@ -196,12 +205,12 @@ public class BBTalonSRX extends BBMotorController {
 
     @Override
     public void setOpenLoopRampRate(double fullThrottleSec) {
-        MOTOR.configOpenloopRamp(fullThrottleSec);
+        MotorUtils.configure(MOTOR, new MotorSettings().openLoopRamp(fullThrottleSec));
     }
 
     @Override
     public void setClosedLoopRampRate(double fullThrottleSec) {
-        MOTOR.configClosedloopRamp(fullThrottleSec);
+        MotorUtils.configure(MOTOR, new MotorSettings().closedLoopRamp(fullThrottleSec));
     }
 
     @Override
@@ -209,6 +218,16 @@ public class BBTalonSRX extends BBMotorController {
         return MOTOR.getOutputCurrent();
     }
 
+    @Override
+    public void setFeedbackPeriod(int period_ms) {
+        // output %, sensor position/velocity/current, and battery voltage for the output voltage
+        MotorUtils.configure(MOTOR, new MotorSettings()
+            .statusFramePeriod(StatusFrameEnhanced.Status_1_General, period_ms)
+            .statusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, period_ms)
+            .statusFramePeriod(StatusFrameEnhanced.Status_4_AinTempVbat, period_ms)
+        );
+    }
+
     @Override
     protected void setPosition_nu(double pos_nu) {
         MOTOR.setSelectedSensorPosition((int) Math.round(pos_nu));
@@ -0,0 +1,16 @@
+package frc.robot.utils.control.motor.slots;
+
+
+
+/** Each constant a motion config writes to a motor controller, one CAN config call each */
+public enum Gain {
+    P,
+    I,
+    D,
+    F,
+    I_ZONE,
+    /** in native units */
+    MOTION_MAGIC_ACCELERATION,
+    /** in native units */
+    MOTION_MAGIC_VELOCITY
+}
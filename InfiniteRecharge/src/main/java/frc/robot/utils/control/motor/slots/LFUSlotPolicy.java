@@ -0,0 +1,36 @@
+package frc.robot.utils.control.motor.slots;
+
+import java.util.Arrays;
+
+
+
+/**
+ * Evict whatever config has been used the fewest times. Uses are counted
+ * for as long as the motor controller's around, not just while the config's
+ * loaded, so a config that's needed all the time doesn't lose its place by
+ * getting evicted once.
+ */
+public class LFUSlotPolicy implements SlotPolicy {
+    private long[] uses = new long[8];
+
+
+
+    @Override
+    public void used(int configID) {
+        if (configID >= uses.length) {
+            uses = Arrays.copyOf(uses, Math.max(configID + 1, uses.length * 2));
+        }
+
+        uses[configID]++;
+    }
+
+    @Override
+    public void evicted(int configID) {
+        // keep the count, see above
+    }
+
+    @Override
+    public long priority(int configID) {
+        return configID < uses.length ? uses[configID] : 0;
+    }
+}
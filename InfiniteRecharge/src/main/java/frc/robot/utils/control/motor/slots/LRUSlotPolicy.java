@@ -0,0 +1,32 @@
+package frc.robot.utils.control.motor.slots;
+
+import java.util.Arrays;
+
+
+
+/** Evict whatever config was used longest ago */
+public class LRUSlotPolicy implements SlotPolicy {
+    private long[] lastUse = new long[8];
+    private long tick = 0;
+
+
+
+    @Override
+    public void used(int configID) {
+        if (configID >= lastUse.length) {
+            lastUse = Arrays.copyOf(lastUse, Math.max(configID + 1, lastUse.length * 2));
+        }
+
+        lastUse[configID] = ++tick;
+    }
+
+    @Override
+    public void evicted(int configID) {
+        // it's the next use that matters
+    }
+
+    @Override
+    public long priority(int configID) {
+        return configID < lastUse.length ? lastUse[configID] : 0;
+    }
+}
@@ -0,0 +1,241 @@
+package frc.robot.utils.control.motor.slots;
+
+import java.util.Arrays;
+
+
+
+/**
+ * Keeps track of which motion configs are loaded into which of a motor
+ * controller's slots, and what's actually been written to each of them.
+ *
+ * Loading a config means a blocking CAN config call for every constant, a few
+ * ms each, so this tries to do as few as possible: configs stay in their slot
+ * until the SlotPolicy picks them to make room, and only constants that are
+ * different from what's already in the slot get written at all.
+ *
+ * Doesn't talk to the motor controller itself, BBMotorController does that.
+ */
+public class MotionSlotCache {
+    /** use as the slot for constants the controller only has one of (like a TalonSRX's MotionMagic) */
+    public static final int SHARED = -1;
+
+    private static final int EMPTY = -1;
+
+    private final int SLOTS;
+    private SlotPolicy policy;
+
+    /** config ID in each slot */
+    private final int[] configs;
+    /** what's been written to each slot (and the shared constants at the end), NaN if it's unknown */
+    private final double[][] written;
+    private int selected = -1;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long prefetches = 0;
+    private long writes = 0;
+    private long skippedWrites = 0;
+
+
+
+    public MotionSlotCache(int slots, SlotPolicy policy) {
+        SLOTS = slots;
+        this.policy = policy;
+
+        configs = new int[slots];
+        Arrays.fill(configs, EMPTY);
+
+        written = new double[slots + 1][Gain.values().length];
+        for (double[] gains : written) {
+            Arrays.fill(gains, Double.NaN);
+        }
+    }
+
+
+
+    /** Switch policies, keeping what's loaded */
+    public void setPolicy(SlotPolicy policy) {
+        this.policy = policy;
+
+        for (int config : configs) {
+            if (config != EMPTY) {
+                policy.used(config);
+            }
+        }
+    }
+
+    public SlotPolicy getPolicy() {
+        return policy;
+    }
+
+
+
+    /** @return slot the config's in, -1 if it isn't loaded */
+    public int find(int configID) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (configs[slot] == configID) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Look for a config that's about to be used, counting it as a hit or a miss
+     *
+     * @return slot the config's in, -1 if it has to be loaded
+     */
+    public int lookup(int configID) {
+        int slot = find(configID);
+
+        if (slot == -1) {
+            misses++;
+        } else {
+            hits++;
+            policy.used(configID);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Find a slot for a config that isn't loaded, evicting whatever's there.
+     * The caller has to actually load it.
+     *
+     * @param prefetch if it's only going to be needed later. A prefetch won't
+     * evict the selected slot or a pinned config and gives up instead.
+     *
+     * @return slot to load it into, -1 if it's a prefetch and there isn't room
+     */
+    public int allocate(int configID, boolean prefetch) {
+        int slot = find(EMPTY);
+
+        if (slot == -1) {
+            slot = victim(prefetch ? selected : -1, true);
+
+            // everything's pinned, so something has to give
+            if (slot == -1 && !prefetch) {
+                slot = victim(-1, false);
+            }
+
+            if (slot == -1) {
+                return -1;
+            }
+
+            policy.evicted(configs[slot]);
+            evictions++;
+        }
+
+        if (prefetch) {
+            prefetches++;
+        }
+
+        configs[slot] = configID;
+        policy.used(configID);
+
+        return slot;
+    }
+
+    /** @return lowest priority slot that isn't skip, or -1 if none can be evicted */
+    private int victim(int skip, boolean respectPins) {
+        int victim = -1;
+        long lowest = Long.MAX_VALUE;
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slot == skip || configs[slot] == EMPTY || (respectPins && !policy.isEvictable(configs[slot]))) {
+                continue;
+            }
+
+            long priority = policy.priority(configs[slot]);
+            if (priority < lowest) {
+                lowest = priority;
+                victim = slot;
+            }
+        }
+
+        return victim;
+    }
+
+    public void select(int slot) {
+        selected = slot;
+    }
+
+    /** @return slot the motor controller is using, -1 if none's been selected */
+    public int getSelected() {
+        return selected;
+    }
+
+    /** @return config in the slot, -1 if it's empty */
+    public int getConfig(int slot) {
+        return configs[slot];
+    }
+
+    /** @return number of slots with a config in them */
+    public int getSlotsUsed() {
+        int used = 0;
+        for (int config : configs) {
+            if (config != EMPTY) {
+                used++;
+            }
+        }
+
+        return used;
+    }
+
+    public int getSlots() {
+        return SLOTS;
+    }
+
+
+
+    /**
+     * Check a constant against what's already in the slot. If it's different
+     * it's remembered as written, so call this right before writing it.
+     *
+     * @param slot slot or SHARED
+     * @return whether it needs to be written
+     */
+    public boolean update(int slot, Gain gain, double value) {
+        double[] gains = written[slot == SHARED ? SLOTS : slot];
+
+        // bitwise so 0 and -0 are the same but NaN (never written) never is
+        if (Double.doubleToLongBits(gains[gain.ordinal()] + 0.0) == Double.doubleToLongBits(value + 0.0)) {
+            skippedWrites++;
+            return false;
+        }
+
+        gains[gain.ordinal()] = value;
+        writes++;
+        return true;
+    }
+
+    /** Forget what's been written, like after the motor controller resets, so everything gets written again */
+    public void invalidate() {
+        for (double[] gains : written) {
+            Arrays.fill(gains, Double.NaN);
+        }
+    }
+
+
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getPrefetches() { return prefetches; }
+    public long getWrites() { return writes; }
+    public long getSkippedWrites() { return skippedWrites; }
+
+    /** @return fraction of lookups that were already loaded, NaN if there haven't been any */
+    public double getHitRate() {
+        return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public String toString() {
+        return "slots " + Arrays.toString(configs) + ", selected " + selected
+            + ", hits " + hits + ", misses " + misses + ", evictions " + evictions + ", prefetches " + prefetches
+            + ", writes " + writes + ", skipped writes " + skippedWrites;
+    }
+}
@@ -0,0 +1,69 @@
+package frc.robot.utils.control.motor.slots;
+
+import java.util.HashSet;
+import java.util.Set;
+
+
+
+/**
+ * Keeps some configs loaded no matter what and leaves the rest to another
+ * policy. Pin the configs that get switched to in the middle of something
+ * time sensitive so switching to them never has to write anything.
+ *
+ * If every slot ends up pinned, a config that has to be loaded still evicts
+ * one of them (see MotionSlotCache).
+ */
+public class PinnedSlotPolicy implements SlotPolicy {
+    private final SlotPolicy POLICY;
+    private final Set<Integer> pinned = new HashSet<Integer>();
+
+
+
+    /**
+     * @param policy what to do with configs that aren't pinned
+     * @param configIDs configs to pin to begin with
+     */
+    public PinnedSlotPolicy(SlotPolicy policy, int... configIDs) {
+        POLICY = policy;
+
+        for (int configID : configIDs) {
+            pin(configID);
+        }
+    }
+
+
+
+    public void pin(int configID) {
+        pinned.add(configID);
+    }
+
+    public void unpin(int configID) {
+        pinned.remove(configID);
+    }
+
+    public boolean isPinned(int configID) {
+        return pinned.contains(configID);
+    }
+
+
+
+    @Override
+    public void used(int configID) {
+        POLICY.used(configID);
+    }
+
+    @Override
+    public void evicted(int configID) {
+        POLICY.evicted(configID);
+    }
+
+    @Override
+    public long priority(int configID) {
+        return POLICY.priority(configID);
+    }
+
+    @Override
+    public boolean isEvictable(int configID) {
+        return !pinned.contains(configID) && POLICY.isEvictable(configID);
+    }
+}
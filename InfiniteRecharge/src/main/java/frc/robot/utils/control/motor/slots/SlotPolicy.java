@@ -0,0 +1,26 @@
+package frc.robot.utils.control.motor.slots;
+
+
+
+/**
+ * Decides which motion config gets kicked out of a motor controller's slots
+ * when a new one needs to go in (see MotionSlotCache).
+ *
+ * Configs are identified by their ID in the BBMotorController. The slot with
+ * the lowest priority gets evicted.
+ */
+public interface SlotPolicy {
+    /** A config was loaded into a slot or selected while it was already in one */
+    public void used(int configID);
+
+    /** A config was taken out of its slot */
+    public void evicted(int configID);
+
+    /** @return how much the config should stay loaded, lowest gets evicted first */
+    public long priority(int configID);
+
+    /** @return whether the config can be evicted at all */
+    public default boolean isEvictable(int configID) {
+        return true;
+    }
+}
@@ -0,0 +1,191 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import org.ejml.simple.SimpleMatrix;
+
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.models.motor.MotorVelocity;
+
+
+
+/**
+ * LQR velocity controller with a Kalman filter observer for a flywheel,
+ * commanding voltage.
+ *
+ * The flywheel is a one state system (angular velocity, rad/s at the motor)
+ * so everything here is scalar and update() doesn't allocate, which means it
+ * can run on a fast Notifier. The gains are the steady state ones from a
+ * GainSchedule, either precomputed or worked out when it's made. On top of the
+ * LQR there's a feedforward of the voltage that holds the reference according
+ * to the model, so the feedback only has to deal with errors.
+ *
+ * Because the filter knows how sure it is, "ready to fire" can be decided from
+ * the estimate plus a few standard deviations instead of a single noisy
+ * reading.
+ *
+ * update() should only be called from one thread. Everything else can be
+ * called from anywhere.
+ */
+public class FlywheelController extends StateSpaceController {
+    // discrete model
+    private final double A;
+    private final double B;
+
+    /** feedback gain (V per rad/s) */
+    private final double K;
+    /** Kalman gain */
+    private final double L;
+    /** variance of the estimate (rad/s)^2 */
+    private final double VARIANCE;
+
+    private final double MAX_VOLTAGE;
+
+    private volatile double reference = 0;
+
+    // written by update() only
+    private volatile double estimate = 0;
+    private volatile double voltage = 0;
+
+
+
+    /**
+     * @param model flywheel model, discretized at the rate update() will be called
+     * @param maxError velocity error (rad/s) that's worth using maxVoltage to fix (LQR weighting)
+     * @param maxVoltage most voltage to apply
+     * @param modelStdDev how much the model's velocity is off per step (rad/s)
+     * @param measurementStdDev velocity measurement noise (rad/s)
+     *
+     * @throws StateSpaceException if there are no gains for the model
+     */
+    public FlywheelController(MotorVelocity model, double maxError, double maxVoltage,
+            double modelStdDev, double measurementStdDev) throws StateSpaceException {
+        this(model, synthesize("flywheel", model, maxError, maxVoltage, modelStdDev, measurementStdDev), maxVoltage);
+    }
+
+    /**
+     * @param model flywheel model, discretized at the rate update() will be called
+     * @param gains single point schedule with K, L and P, like from synthesize()
+     * @param maxVoltage most voltage to apply
+     */
+    public FlywheelController(MotorVelocity model, GainSchedule gains, double maxVoltage) {
+        super(model);
+
+        A = model.getA().get(0, 0);
+        B = model.getB().get(0, 0);
+
+        K = gains.get(GainSchedule.K).get(0, 0);
+        L = gains.get(GainSchedule.L).get(0, 0);
+        VARIANCE = gains.get(GainSchedule.P).get(0, 0);
+
+        MAX_VOLTAGE = maxVoltage;
+    }
+
+    /**
+     * Work out the gains for a flywheel. See the constructor for what the
+     * parameters are.
+     */
+    public static GainSchedule synthesize(String name, MotorVelocity model, double maxError, double maxVoltage,
+            double modelStdDev, double measurementStdDev) throws StateSpaceException {
+        return getOrSynthesize(null, name, model, maxError, maxVoltage, modelStdDev, measurementStdDev);
+    }
+
+    /**
+     * Same as synthesize(), but uses a precomputed schedule if it was made
+     * from the same model and weights
+     *
+     * @param precomputed from the gain schedule file, or null
+     */
+    public static GainSchedule getOrSynthesize(GainSchedule precomputed, String name, MotorVelocity model,
+            double maxError, double maxVoltage, double modelStdDev, double measurementStdDev) throws StateSpaceException {
+        // velocity is measured directly
+        SimpleMatrix C = SimpleMatrix.identity(1);
+
+        return GainSynthesis.getOrSynthesize(precomputed, name, model.getA(), model.getB(),
+            Riccati.bryson(maxError), Riccati.bryson(maxVoltage),
+            C, SimpleMatrix.diag(modelStdDev * modelStdDev), SimpleMatrix.diag(measurementStdDev * measurementStdDev)
+        );
+    }
+
+
+
+    /**
+     * Take a velocity measurement and work out the voltage to apply until the
+     * next one
+     *
+     * @param measured velocity (rad/s)
+     *
+     * @return voltage to apply
+     */
+    public double update(double measured) {
+        // predict from the voltage that's been applied since the last update, then correct
+        double x = A * estimate + B * voltage;
+        x += L * (measured - x);
+
+        estimate = x;
+        voltage = getVoltage(x, reference);
+
+        return voltage;
+    }
+
+    /** LQR feedback plus feedforward, or nothing to let it coast down if the reference is 0 */
+    private double getVoltage(double state, double ref) {
+        if (ref == 0) {
+            return 0;
+        }
+
+        // voltage that keeps it at ref: ref = A ref + B u
+        double feedforward = (1 - A) / B * ref;
+        double u = K * (ref - state) + feedforward;
+
+        return Math.max(-MAX_VOLTAGE, Math.min(MAX_VOLTAGE, u));
+    }
+
+    /** Start the estimate over from a measurement, like when the flywheel's known to be stopped */
+    public void reset(double velocity) {
+        estimate = velocity;
+        voltage = 0;
+    }
+
+
+
+    /**
+     * Whether the flywheel's close enough to the reference to shoot
+     *
+     * @param tolerance how far off (rad/s) is still good enough
+     * @param sigmas how many standard deviations of the estimate have to fit in the tolerance
+     */
+    public boolean isReady(double tolerance, double sigmas) {
+        double ref = reference;
+        if (ref == 0) {
+            return false;
+        }
+
+        return Math.abs(ref - estimate) + sigmas * Math.sqrt(VARIANCE) <= tolerance;
+    }
+
+
+
+    /** @param reference velocity (rad/s) to hold, 0 to coast */
+    public void setReference(double reference) {
+        this.reference = reference;
+    }
+
+    @Override
+    public SimpleMatrix getState() {
+        return new SimpleMatrix(1, 1, true, new double[] {estimate});
+    }
+
+    @Override
+    protected SimpleMatrix getInput(SimpleMatrix state) {
+        return new SimpleMatrix(1, 1, true, new double[] {getVoltage(state.get(0, 0), reference)});
+    }
+
+    public double getReference() { return reference; }
+    /** @return estimated velocity (rad/s) */
+    public double getEstimate() { return estimate; }
+    /** @return variance of the estimate (rad/s)^2 */
+    public double getVariance() { return VARIANCE; }
+    /** @return voltage from the last update */
+    public double getVoltage() { return voltage; }
+    public double getK() { return K; }
+    public double getL() { return L; }
+}
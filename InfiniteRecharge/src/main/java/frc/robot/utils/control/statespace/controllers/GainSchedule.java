@@ -0,0 +1,320 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+
+
+
+/**
+ * Gains worked out ahead of time on a grid of operating points (x, y), so
+ * that the robot only has to look them up instead of solving Riccati
+ * equations. For an LTI system the grid is just one point.
+ *
+ * Each grid point has the same set of matrices: the LQR gain K, the steady
+ * state Kalman gain L and the steady state (posteriori) covariance P. Any of
+ * them can be empty (0x0) if it doesn't make sense for the system. Between
+ * grid points they're bilinearly interpolated, and past the edges the closest
+ * grid point is used.
+ *
+ * Schedules are made offline by GainSynthesis (see frc.robot.tools.GainTool)
+ * and saved together in one binary file that gets deployed with the code.
+ * Each one remembers a fingerprint of the model and weights it was made from
+ * (GainSynthesis.fingerprint()), so gains left over from an old model can be
+ * noticed and worked out again instead of quietly used.
+ *
+ * Robot loads the deployed file once at startup with loadPrecomputed(), and
+ * whatever needs gains looks its schedule up with getPrecomputed() and hands
+ * it to GainSynthesis.getOrSynthesize().
+ */
+public class GainSchedule {
+    public static final int K = 0;
+    public static final int L = 1;
+    public static final int P = 2;
+    private static final int MATRICES = 3;
+
+    /** "GAIN" */
+    private static final int MAGIC = 0x4741494e;
+    private static final int VERSION = 2;
+
+    /** from the deployed file, by name */
+    private static final Map<String, GainSchedule> precomputed = new ConcurrentHashMap<String, GainSchedule>();
+
+
+
+    private final String NAME;
+
+    private final double X_MIN;
+    private final double X_STEP;
+    private final int X_COUNT;
+
+    private final double Y_MIN;
+    private final double Y_STEP;
+    private final int Y_COUNT;
+
+    private final int[] ROWS;
+    private final int[] COLS;
+
+    /** [x][y][matrix] row major */
+    private final double[][][][] gains;
+
+    /** GainSynthesis.fingerprint() of what it was made from, 0 if it wasn't */
+    private long model = 0;
+
+
+
+    /**
+     * Make an empty schedule to fill in with set()
+     *
+     * @param rows rows of K, L and P
+     * @param cols columns of K, L and P
+     */
+    public GainSchedule(String name, double xMin, double xStep, int xCount, double yMin, double yStep, int yCount,
+            int[] rows, int[] cols) {
+        NAME = name;
+
+        X_MIN = xMin;
+        X_STEP = xStep;
+        X_COUNT = xCount;
+
+        Y_MIN = yMin;
+        Y_STEP = yStep;
+        Y_COUNT = yCount;
+
+        ROWS = rows.clone();
+        COLS = cols.clone();
+
+        gains = new double[X_COUNT][Y_COUNT][MATRICES][];
+        for (int i = 0; i < X_COUNT; i++) {
+            for (int j = 0; j < Y_COUNT; j++) {
+                for (int m = 0; m < MATRICES; m++) {
+                    gains[i][j][m] = new double[ROWS[m] * COLS[m]];
+                }
+            }
+        }
+    }
+
+    /** Schedule with a single operating point */
+    public GainSchedule(String name, int[] rows, int[] cols) {
+        this(name, 0, 1, 1, 0, 1, 1, rows, cols);
+    }
+
+
+
+    /** Set one of the matrices at grid point (i, j) */
+    public void set(int i, int j, int matrix, SimpleMatrix value) {
+        if (value.numRows() != ROWS[matrix] || value.numCols() != COLS[matrix]) {
+            throw new IllegalArgumentException(NAME + " matrix " + matrix + " should be " + ROWS[matrix] + "x" + COLS[matrix]
+                + ", not " + value.numRows() + "x" + value.numCols());
+        }
+
+        double[] data = gains[i][j][matrix];
+        for (int r = 0; r < ROWS[matrix]; r++) {
+            for (int c = 0; c < COLS[matrix]; c++) {
+                data[r * COLS[matrix] + c] = value.get(r, c);
+            }
+        }
+    }
+
+    /**
+     * Look up one of the matrices at an operating point. Doesn't allocate.
+     *
+     * @param out where to put it, reshaped if it isn't the right size
+     */
+    public void get(int matrix, double x, double y, DMatrixRMaj out) {
+        out.reshape(ROWS[matrix], COLS[matrix]);
+
+        double gx = clamp((x - X_MIN) / X_STEP, X_COUNT - 1);
+        double gy = clamp((y - Y_MIN) / Y_STEP, Y_COUNT - 1);
+
+        // the cell it's in, with the last row/column belonging to the cell before it
+        int i = Math.max(0, Math.min((int) gx, X_COUNT - 2));
+        int j = Math.max(0, Math.min((int) gy, Y_COUNT - 2));
+        double fx = X_COUNT > 1 ? gx - i : 0;
+        double fy = Y_COUNT > 1 ? gy - j : 0;
+
+        int i1 = Math.min(i + 1, X_COUNT - 1);
+        int j1 = Math.min(j + 1, Y_COUNT - 1);
+
+        double[] g00 = gains[i][j][matrix];
+        double[] g10 = gains[i1][j][matrix];
+        double[] g01 = gains[i][j1][matrix];
+        double[] g11 = gains[i1][j1][matrix];
+
+        for (int k = 0; k < g00.length; k++) {
+            out.data[k] =
+                (1 - fx) * (1 - fy) * g00[k] +
+                fx * (1 - fy) * g10[k] +
+                (1 - fx) * fy * g01[k] +
+                fx * fy * g11[k];
+        }
+    }
+
+    /** Look up one of the matrices of a single point schedule */
+    public DMatrixRMaj get(int matrix) {
+        DMatrixRMaj out = new DMatrixRMaj(ROWS[matrix], COLS[matrix]);
+        get(matrix, X_MIN, Y_MIN, out);
+        return out;
+    }
+
+    /** @return whether it was made from a model and weights with this GainSynthesis.fingerprint() */
+    public boolean isFor(long model) {
+        return this.model == model;
+    }
+
+    void setModel(long model) {
+        this.model = model;
+    }
+
+    private static double clamp(double index, int max) {
+        return index < 0 ? 0 : (index > max ? max : index);
+    }
+
+
+
+    /** Load the deployed gain schedule file so getPrecomputed() finds them. Call once at startup. */
+    public static void loadPrecomputed(Path path) {
+        Map<String, GainSchedule> schedules = load(path);
+        precomputed.putAll(schedules);
+
+        if (schedules.isEmpty()) {
+            System.out.println("No precomputed gains in " + path + ", they'll all be worked out on the robot");
+        } else {
+            System.out.println("Loaded precomputed gains for " + schedules.keySet());
+        }
+    }
+
+    /** @return schedule from the deployed file, or null if it isn't there */
+    public static GainSchedule getPrecomputed(String name) {
+        return precomputed.get(name);
+    }
+
+    /** Save schedules to a file */
+    public static void save(Path path, Collection<GainSchedule> schedules) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(schedules.size());
+
+            for (GainSchedule schedule : schedules) {
+                schedule.write(out);
+            }
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeUTF(NAME);
+        out.writeLong(model);
+
+        out.writeDouble(X_MIN);
+        out.writeDouble(X_STEP);
+        out.writeInt(X_COUNT);
+        out.writeDouble(Y_MIN);
+        out.writeDouble(Y_STEP);
+        out.writeInt(Y_COUNT);
+
+        for (int m = 0; m < MATRICES; m++) {
+            out.writeInt(ROWS[m]);
+            out.writeInt(COLS[m]);
+        }
+
+        for (int i = 0; i < X_COUNT; i++) {
+            for (int j = 0; j < Y_COUNT; j++) {
+                for (int m = 0; m < MATRICES; m++) {
+                    for (double value : gains[i][j][m]) {
+                        // floats are plenty for gains and keep the file small
+                        out.writeFloat((float) value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read schedules from a file
+     *
+     * @return schedules by name, or an empty map if the file isn't there or can't be read
+     */
+    public static Map<String, GainSchedule> load(Path path) {
+        Map<String, GainSchedule> schedules = new LinkedHashMap<String, GainSchedule>();
+
+        if (!Files.exists(path)) {
+            return schedules;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.out.println(path + " isn't a gain schedule file this code can read");
+                return schedules;
+            }
+
+            int count = in.readInt();
+            for (int s = 0; s < count; s++) {
+                GainSchedule schedule = read(in);
+                schedules.put(schedule.getName(), schedule);
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't read gain schedules " + path + ": " + e.getMessage());
+            schedules.clear();
+        }
+
+        return schedules;
+    }
+
+    private static GainSchedule read(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        long model = in.readLong();
+
+        double xMin = in.readDouble();
+        double xStep = in.readDouble();
+        int xCount = in.readInt();
+        double yMin = in.readDouble();
+        double yStep = in.readDouble();
+        int yCount = in.readInt();
+
+        int[] rows = new int[MATRICES];
+        int[] cols = new int[MATRICES];
+        for (int m = 0; m < MATRICES; m++) {
+            rows[m] = in.readInt();
+            cols[m] = in.readInt();
+        }
+
+        GainSchedule schedule = new GainSchedule(name, xMin, xStep, xCount, yMin, yStep, yCount, rows, cols);
+        schedule.model = model;
+
+        for (int i = 0; i < xCount; i++) {
+            for (int j = 0; j < yCount; j++) {
+                for (int m = 0; m < MATRICES; m++) {
+                    double[] data = schedule.gains[i][j][m];
+                    for (int k = 0; k < data.length; k++) {
+                        data[k] = in.readFloat();
+                    }
+                }
+            }
+        }
+
+        return schedule;
+    }
+
+
+
+    public String getName() { return NAME; }
+    public long getModel() { return model; }
+    public int getRows(int matrix) { return ROWS[matrix]; }
+    public int getCols(int matrix) { return COLS[matrix]; }
+    public int getXCount() { return X_COUNT; }
+    public int getYCount() { return Y_COUNT; }
+    public double getX(int i) { return X_MIN + i * X_STEP; }
+    public double getY(int j) { return Y_MIN + j * Y_STEP; }
+}
@@ -0,0 +1,209 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import org.ejml.simple.SimpleMatrix;
+
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.models.ABFTriple;
+import frc.robot.utils.control.statespace.models.DiscretizationCache.Discretizer;
+
+
+
+/**
+ * Works out GainSchedules: at every grid point, discretize the system and
+ * solve the Riccati equations for the LQR gain and the steady state Kalman
+ * filter.
+ *
+ * This is meant to be run offline (by frc.robot.tools.GainTool) since a big
+ * schedule can take a while, but a single point is quick enough to do on the
+ * robot when there's no precomputed schedule.
+ *
+ * Every schedule gets a fingerprint of the discretized A and B at each grid
+ * point and all the weights. A precomputed schedule is only any good if
+ * fingerprint() of the current model still gives the same thing, which is what
+ * getOrSynthesize() checks.
+ */
+public class GainSynthesis {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+
+
+    /**
+     * Make a schedule
+     *
+     * @param system discrete system at an operating point
+     * @param Q LQR state weights
+     * @param R LQR input weights
+     * @param C measurement matrix, or null to skip the Kalman filter (L and P are left empty)
+     * @param processNoise process noise covariance
+     * @param measurementNoise measurement noise covariance
+     *
+     * @throws StateSpaceException if there's no solution at some operating point
+     */
+    public static GainSchedule synthesize(String name, Discretizer system,
+            double xMin, double xStep, int xCount, double yMin, double yStep, int yCount,
+            SimpleMatrix Q, SimpleMatrix R, SimpleMatrix C, SimpleMatrix processNoise, SimpleMatrix measurementNoise)
+            throws StateSpaceException {
+        int states = Q.numRows();
+        int inputs = R.numRows();
+        int outputs = C == null ? 0 : C.numRows();
+        int filtered = C == null ? 0 : states;
+
+        GainSchedule schedule = new GainSchedule(name, xMin, xStep, xCount, yMin, yStep, yCount,
+            new int[] {inputs, filtered, filtered},
+            new int[] {states, outputs, filtered}
+        );
+
+        long hash = hashWeights(schedule, Q, R, C, processNoise, measurementNoise);
+
+        for (int i = 0; i < xCount; i++) {
+            for (int j = 0; j < yCount; j++) {
+                double x = schedule.getX(i);
+                double y = schedule.getY(j);
+
+                ABFTriple abf = system.discretize(x, y);
+                hash = hash(hash(hash, abf.getA()), abf.getB());
+
+                SimpleMatrix K = Riccati.lqr(abf.getA(), abf.getB(), Q, R);
+                if (K == null) {
+                    throw new StateSpaceException(name + ": no LQR gain at (" + x + ", " + y + ")");
+                }
+                schedule.set(i, j, GainSchedule.K, K);
+
+                if (C == null) {
+                    continue;
+                }
+
+                SimpleMatrix P_apriori = Riccati.solve(abf.getA().transpose(), C.transpose(), processNoise, measurementNoise);
+                if (P_apriori == null) {
+                    throw new StateSpaceException(name + ": no Kalman gain at (" + x + ", " + y + ")");
+                }
+
+                // L = PC'(CPC' + R)^-1, and the covariance after a measurement is (I - LC)P
+                SimpleMatrix L = C.mult(P_apriori).mult(C.transpose()).plus(measurementNoise)
+                    .solve(C.mult(P_apriori)).transpose();
+                SimpleMatrix P = SimpleMatrix.identity(states).minus(L.mult(C)).mult(P_apriori);
+
+                schedule.set(i, j, GainSchedule.L, L);
+                schedule.set(i, j, GainSchedule.P, P);
+            }
+        }
+
+        schedule.setModel(hash);
+        return schedule;
+    }
+
+    /**
+     * Fingerprint of what synthesize() would make a schedule from, with the same
+     * parameters. Only discretizes, so it's much quicker than synthesize().
+     */
+    public static long fingerprint(String name, Discretizer system,
+            double xMin, double xStep, int xCount, double yMin, double yStep, int yCount,
+            SimpleMatrix Q, SimpleMatrix R, SimpleMatrix C, SimpleMatrix processNoise, SimpleMatrix measurementNoise) {
+        // just for its grid
+        GainSchedule schedule = new GainSchedule(name, xMin, xStep, xCount, yMin, yStep, yCount, new int[3], new int[3]);
+
+        long hash = hashWeights(schedule, Q, R, C, processNoise, measurementNoise);
+
+        for (int i = 0; i < xCount; i++) {
+            for (int j = 0; j < yCount; j++) {
+                ABFTriple abf = system.discretize(schedule.getX(i), schedule.getY(j));
+                hash = hash(hash(hash, abf.getA()), abf.getB());
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Use a precomputed schedule if it was made from the same model and weights,
+     * otherwise work it out again. Same parameters as synthesize().
+     *
+     * @param precomputed schedule from the gain schedule file, or null if there isn't one
+     */
+    public static GainSchedule getOrSynthesize(GainSchedule precomputed, String name, Discretizer system,
+            double xMin, double xStep, int xCount, double yMin, double yStep, int yCount,
+            SimpleMatrix Q, SimpleMatrix R, SimpleMatrix C, SimpleMatrix processNoise, SimpleMatrix measurementNoise)
+            throws StateSpaceException {
+        if (precomputed != null) {
+            long model = fingerprint(name, system, xMin, xStep, xCount, yMin, yStep, yCount,
+                Q, R, C, processNoise, measurementNoise);
+
+            if (precomputed.isFor(model)) {
+                return precomputed;
+            }
+
+            System.out.println(name + " gains were made for a different model, working them out again (rerun ./gradlew gains)");
+        }
+
+        return synthesize(name, system, xMin, xStep, xCount, yMin, yStep, yCount, Q, R, C, processNoise, measurementNoise);
+    }
+
+    /** Make a schedule for an LTI system, which only needs one point */
+    public static GainSchedule synthesize(String name, SimpleMatrix A, SimpleMatrix B,
+            SimpleMatrix Q, SimpleMatrix R, SimpleMatrix C, SimpleMatrix processNoise, SimpleMatrix measurementNoise)
+            throws StateSpaceException {
+        return getOrSynthesize(null, name, A, B, Q, R, C, processNoise, measurementNoise);
+    }
+
+    /** getOrSynthesize() for an LTI system */
+    public static GainSchedule getOrSynthesize(GainSchedule precomputed, String name, SimpleMatrix A, SimpleMatrix B,
+            SimpleMatrix Q, SimpleMatrix R, SimpleMatrix C, SimpleMatrix processNoise, SimpleMatrix measurementNoise)
+            throws StateSpaceException {
+        ABFTriple abf = new ABFTriple(A, B, new SimpleMatrix(A.numRows(), 1));
+
+        return getOrSynthesize(precomputed, name, (x, y) -> abf, 0, 1, 1, 0, 1, 1, Q, R, C, processNoise, measurementNoise);
+    }
+
+
+
+    private static long hashWeights(GainSchedule grid, SimpleMatrix... weights) {
+        long hash = hash(FNV_OFFSET, grid.getXCount());
+        hash = hash(hash, grid.getYCount());
+        hash = hash(hash, grid.getX(0));
+        hash = hash(hash, grid.getY(0));
+        hash = hash(hash, grid.getX(1) - grid.getX(0));
+        hash = hash(hash, grid.getY(1) - grid.getY(0));
+
+        for (SimpleMatrix weight : weights) {
+            hash = hash(hash, weight);
+        }
+
+        return hash;
+    }
+
+    /** null and empty both count as 0x0 */
+    private static long hash(long hash, SimpleMatrix m) {
+        int rows = m == null ? 0 : m.numRows();
+        int cols = m == null ? 0 : m.numCols();
+
+        hash = hash(hash, rows);
+        hash = hash(hash, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                hash = hash(hash, m.get(r, c));
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Rounded to a float, so a last bit difference between the math on the
+     * robot and on the computer that made the schedule doesn't count as a
+     * different model
+     */
+    private static long hash(long hash, double value) {
+        return hash(hash, (long) Float.floatToIntBits((float) value + 0.0f));
+    }
+
+    /** FNV-1a, a byte at a time */
+    private static long hash(long hash, long value) {
+        for (int b = 0; b < 8; b++) {
+            hash ^= (value >>> (8 * b)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,128 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import org.ejml.simple.SimpleMatrix;
+
+
+
+/**
+ * Discrete algebraic Riccati equation
+ *     P = A'PA - A'PB (R + B'PB)^-1 B'PA + Q
+ * which gives both the infinite horizon LQR gain and (by duality) the
+ * steady state Kalman gain for a discrete system.
+ *
+ * Solved by just iterating the equation until P stops changing. That's slow
+ * compared to the fancy methods, but it's simple, works for anything
+ * stabilizable and is only done once when a controller is made.
+ */
+public class Riccati {
+    private static final int MAX_ITERATIONS = 10000;
+    /** stop once P changes by less than this, relative to its biggest element */
+    private static final double TOLERANCE = 1e-10;
+
+
+
+    /**
+     * Solve the DARE
+     *
+     * @return P, or null if it didn't converge
+     */
+    public static SimpleMatrix solve(SimpleMatrix A, SimpleMatrix B, SimpleMatrix Q, SimpleMatrix R) {
+        SimpleMatrix At = A.transpose();
+        SimpleMatrix Bt = B.transpose();
+
+        SimpleMatrix P = Q.copy();
+
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            SimpleMatrix AtPB = At.mult(P).mult(B);
+
+            SimpleMatrix next = At.mult(P).mult(A)
+                .minus(AtPB.mult(R.plus(Bt.mult(P).mult(B)).solve(AtPB.transpose())))
+                .plus(Q);
+            // P is symmetric, but rounding makes it drift away from that and then blow up
+            next = next.plus(next.transpose()).scale(0.5);
+
+            double change = largest(next.minus(P));
+            P = next;
+
+            double size = largest(P);
+            if (!Double.isFinite(size)) {
+                // blowing up, so there isn't a solution
+                return null;
+            }
+
+            if (change <= TOLERANCE * Math.max(1, size)) {
+                return P;
+            }
+        }
+
+        return null;
+    }
+
+    /** biggest element (in absolute value), which unlike normF() can't overflow before P does */
+    private static double largest(SimpleMatrix m) {
+        double largest = 0;
+
+        for (int r = 0; r < m.numRows(); r++) {
+            for (int c = 0; c < m.numCols(); c++) {
+                double value = Math.abs(m.get(r, c));
+                // NaN has to count as big
+                if (!(value <= largest)) {
+                    largest = value;
+                }
+            }
+        }
+
+        return largest;
+    }
+
+    /**
+     * Infinite horizon LQR gain, so that u = -Kx minimizes sum(x'Qx + u'Ru)
+     *
+     * @return K, or null if there isn't one
+     */
+    public static SimpleMatrix lqr(SimpleMatrix A, SimpleMatrix B, SimpleMatrix Q, SimpleMatrix R) {
+        SimpleMatrix P = solve(A, B, Q, R);
+        if (P == null) {
+            return null;
+        }
+
+        SimpleMatrix Bt = B.transpose();
+
+        // (R + B'PB)^-1 B'PA
+        return R.plus(Bt.mult(P).mult(B)).solve(Bt.mult(P).mult(A));
+    }
+
+    /**
+     * Steady state Kalman gain for x_{k+1} = Ax_k + w, y_k = Cx_k + v with
+     * process noise covariance Q and measurement noise covariance R
+     *
+     * @return K such that x = x_apriori + K(y - Cx_apriori), or null if there isn't one
+     */
+    public static SimpleMatrix kalman(SimpleMatrix A, SimpleMatrix C, SimpleMatrix Q, SimpleMatrix R) {
+        // same equation with A' and C' in place of A and B gives the apriori covariance
+        SimpleMatrix P = solve(A.transpose(), C.transpose(), Q, R);
+        if (P == null) {
+            return null;
+        }
+
+        SimpleMatrix Ct = C.transpose();
+
+        // PC'(CPC' + R)^-1, solved transposed since CPC' + R is symmetric
+        return C.mult(P).mult(Ct).plus(R).solve(C.mult(P)).transpose();
+    }
+
+    /**
+     * Bryson's rule: weight each state or input by 1 / (the most it should be)^2
+     *
+     * @param max most each state/input should be
+     */
+    public static SimpleMatrix bryson(double... max) {
+        SimpleMatrix weights = new SimpleMatrix(max.length, max.length);
+
+        for (int i = 0; i < max.length; i++) {
+            weights.set(i, i, 1 / (max[i] * max[i]));
+        }
+
+        return weights;
+    }
+}
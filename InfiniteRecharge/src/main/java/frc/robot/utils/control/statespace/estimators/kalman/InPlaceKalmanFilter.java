@@ -0,0 +1,245 @@
+package frc.robot.utils.control.statespace.estimators.kalman;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.mult.VectorVectorMult_DDRM;
+import org.ejml.dense.row.factory.LinearSolverFactory_DDRM;
+import org.ejml.interfaces.linsol.LinearSolverDense;
+import org.ejml.simple.SimpleMatrix;
+
+import frc.robot.utils.control.statespace.models.linearized.LinearizedModel;
+
+
+
+/**
+ * Same filter as KalmanFilter, but all of the math is done in place on
+ * preallocated DMatrixRMaj workspaces so that once it's warmed up a
+ * predict/update cycle doesn't allocate anything. That matters if we want to
+ * run it at 100-200 Hz on the roboRIO without feeding the garbage collector.
+ *
+ * The other difference is the gain. Instead of inverting the innovation
+ * covariance S = CPC' + R, we use the fact that S is symmetric positive
+ * definite and solve S K' = CP' with a Cholesky decomposition, which is both
+ * cheaper and more numerically stable than an explicit inverse.
+ *
+ * The matrices given by the get* methods are only read, so subclasses can
+ * return the same matrices every time (and should, to avoid allocating).
+ */
+public abstract class InPlaceKalmanFilter {
+    private final LinearizedModel MODEL;
+
+    private final int NUM_STATES;
+
+    /** posteriori covariance */
+    private final DMatrixRMaj P;
+    /** apriori covariance */
+    private final DMatrixRMaj P_apriori;
+
+
+
+    // workspaces, sized to the model's states and reshaped (without reallocating
+    // once they're big enough) for however many outputs/noise inputs there are
+    private final DMatrixRMaj AP;
+    private final DMatrixRMaj GQ = new DMatrixRMaj(1, 1);
+    private final DMatrixRMaj GQGt;
+
+    /** PC' (n x m) */
+    private final DMatrixRMaj PCt = new DMatrixRMaj(1, 1);
+    /** CP' (m x n), right hand side of the gain solve */
+    private final DMatrixRMaj CPt = new DMatrixRMaj(1, 1);
+    /** innovation covariance CPC' + R (m x m) */
+    private final DMatrixRMaj S = new DMatrixRMaj(1, 1);
+    /** Kalman gain transposed (m x n) and not (n x m) */
+    private final DMatrixRMaj Kt = new DMatrixRMaj(1, 1);
+    private final DMatrixRMaj K = new DMatrixRMaj(1, 1);
+
+    /** predicted output and innovation (m x 1) */
+    private final DMatrixRMaj yhat = new DMatrixRMaj(1, 1);
+    private final DMatrixRMaj innovation = new DMatrixRMaj(1, 1);
+    /** S^-1 times the innovation (m x 1) */
+    private final DMatrixRMaj weightedInnovation = new DMatrixRMaj(1, 1);
+
+    private LinearSolverDense<DMatrixRMaj> cholesky;
+    private LinearSolverDense<DMatrixRMaj> lu;
+    /** number of outputs the solvers were made for */
+    private int solverSize = -1;
+
+
+
+    public InPlaceKalmanFilter(SimpleMatrix P0, LinearizedModel model) {
+        MODEL = model;
+        NUM_STATES = model.getNumStates();
+
+        P = new DMatrixRMaj(P0.getDDRM());
+        P_apriori = new DMatrixRMaj(P0.getDDRM());
+
+        AP = new DMatrixRMaj(NUM_STATES, NUM_STATES);
+        GQGt = new DMatrixRMaj(NUM_STATES, NUM_STATES);
+    }
+
+
+
+    protected abstract SimpleMatrix getC(SimpleMatrix state, SimpleMatrix input, double t);
+    protected abstract SimpleMatrix getD(SimpleMatrix state, SimpleMatrix input, double t);
+
+    protected abstract SimpleMatrix getQ(SimpleMatrix state, SimpleMatrix input, double t);
+    protected abstract SimpleMatrix getR(SimpleMatrix state, SimpleMatrix input, double t);
+    protected abstract SimpleMatrix getG(SimpleMatrix state, SimpleMatrix input, double t);
+
+
+
+    /**
+     * Propagate the covariance through the model's last discrete system.
+     * The model should already have been stepped with apply().
+     *
+     * @return apriori state estimate (the model's state)
+     */
+    public SimpleMatrix predict() {
+        SimpleMatrix state = MODEL.getState();
+        SimpleMatrix input = MODEL.getInput();
+        double t = MODEL.getLastTime();
+
+        DMatrixRMaj A = MODEL.getLastSystem().getA().getDDRM();
+        DMatrixRMaj Q = getQ(state, input, t).getDDRM();
+        DMatrixRMaj G = getG(state, input, t).getDDRM();
+
+        // APA' + GQG'
+        CommonOps_DDRM.mult(A, P, AP);
+        CommonOps_DDRM.multTransB(AP, A, P_apriori);
+
+        GQ.reshape(G.numRows, Q.numCols);
+        CommonOps_DDRM.mult(G, Q, GQ);
+        CommonOps_DDRM.multTransB(GQ, G, GQGt);
+
+        CommonOps_DDRM.addEquals(P_apriori, GQGt);
+
+        return state;
+    }
+
+    /**
+     * Correct the model's state with a measurement
+     *
+     * @param y measurement
+     *
+     * @return posteriori covariance. Owned by the filter, don't modify it
+     */
+    public DMatrixRMaj update(SimpleMatrix y) {
+        DMatrixRMaj C = computeInnovation(y);
+        DMatrixRMaj R = getR(MODEL.getState(), MODEL.getInput(), MODEL.getLastTime()).getDDRM();
+        DMatrixRMaj x = MODEL.getState().getDDRM();
+
+        int outputs = C.numRows;
+
+        // K = PC'S^-1, or S K' = CP' since S is symmetric
+        Kt.reshape(outputs, NUM_STATES);
+        if (cholesky.setA(S)) {
+            cholesky.solve(CPt, Kt);
+        } else {
+            // S should always be positive definite, but if R is bad it might not be numerically
+            S.reshape(outputs, outputs);
+            CommonOps_DDRM.mult(C, PCt, S);
+            CommonOps_DDRM.addEquals(S, R);
+
+            if (!lu.setA(S)) {
+                // singular, so can't learn anything from this measurement
+                P.set(P_apriori);
+                return P;
+            }
+
+            lu.solve(CPt, Kt);
+        }
+
+        K.reshape(NUM_STATES, outputs);
+        CommonOps_DDRM.transpose(Kt, K);
+
+        // x = x + K(y - Cx)
+        CommonOps_DDRM.multAdd(K, innovation, x);
+
+        // P = (I - KC)P = P - K(CP) = P - K(PC')'
+        P.set(P_apriori);
+        CommonOps_DDRM.multAddTransB(-1, K, PCt, P);
+
+        return P;
+    }
+
+    /**
+     * Go with the prediction when there's no measurement to correct it with (or
+     * it was thrown out), so the next predict() starts from here
+     */
+    public void skipUpdate() {
+        P.set(P_apriori);
+    }
+
+    /**
+     * How far a measurement is from what the filter expects, taking into account
+     * how sure it is: the squared Mahalanobis distance (y - Cx)' S^-1 (y - Cx).
+     * It's chi-squared distributed with as many degrees of freedom as there are
+     * outputs, so measurements past a chi-squared threshold can be thrown out
+     * as outliers before they're given to update().
+     *
+     * Call after predict().
+     *
+     * @return distance, or infinity if S can't be inverted
+     */
+    public double getInnovationDistance(SimpleMatrix y) {
+        computeInnovation(y);
+
+        weightedInnovation.reshape(innovation.numRows, 1);
+        if (!lu.setA(S)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        lu.solve(innovation, weightedInnovation);
+
+        return VectorVectorMult_DDRM.innerProd(innovation, weightedInnovation);
+    }
+
+    /**
+     * Fill in PC', CP', S = CPC' + R and the innovation y - Cx for a measurement
+     *
+     * @return C
+     */
+    private DMatrixRMaj computeInnovation(SimpleMatrix y) {
+        SimpleMatrix stateMatrix = MODEL.getState();
+        SimpleMatrix input = MODEL.getInput();
+        double t = MODEL.getLastTime();
+
+        DMatrixRMaj C = getC(stateMatrix, input, t).getDDRM();
+        DMatrixRMaj R = getR(stateMatrix, input, t).getDDRM();
+        DMatrixRMaj x = stateMatrix.getDDRM();
+
+        int outputs = C.numRows;
+
+        if (outputs != solverSize) {
+            // only happens the first time (or if the measurement changes size)
+            cholesky = LinearSolverFactory_DDRM.chol(outputs);
+            lu = LinearSolverFactory_DDRM.lu(outputs);
+            solverSize = outputs;
+        }
+
+        // PC' and its transpose CP'
+        PCt.reshape(NUM_STATES, outputs);
+        CommonOps_DDRM.multTransB(P_apriori, C, PCt);
+        CPt.reshape(outputs, NUM_STATES);
+        CommonOps_DDRM.transpose(PCt, CPt);
+
+        // S = CPC' + R
+        S.reshape(outputs, outputs);
+        CommonOps_DDRM.mult(C, PCt, S);
+        CommonOps_DDRM.addEquals(S, R);
+
+        // y - Cx
+        yhat.reshape(outputs, 1);
+        CommonOps_DDRM.mult(C, x, yhat);
+        innovation.reshape(outputs, 1);
+        CommonOps_DDRM.subtract(y.getDDRM(), yhat, innovation);
+
+        return C;
+    }
+
+
+
+    public DMatrixRMaj getP() { return P; }
+    public DMatrixRMaj getPApriori() { return P_apriori; }
+    public DMatrixRMaj getK() { return K; }
+    public DMatrixRMaj getInnovation() { return innovation; }
+}
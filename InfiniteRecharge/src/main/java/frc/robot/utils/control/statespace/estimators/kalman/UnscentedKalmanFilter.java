@@ -0,0 +1,404 @@
+package frc.robot.utils.control.statespace.estimators.kalman;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.factory.DecompositionFactory_DDRM;
+import org.ejml.dense.row.factory.LinearSolverFactory_DDRM;
+import org.ejml.interfaces.decomposition.CholeskyDecomposition_F64;
+import org.ejml.interfaces.linsol.LinearSolverDense;
+
+
+
+/**
+ * Unscented Kalman Filter.
+ *
+ * Instead of linearizing the system like an EKF does, it pushes a handful of
+ * "sigma points" spread around the estimate (by the square root of the
+ * covariance) through the real nonlinear system and measures how they come
+ * out. That gets the mean and covariance right to second order for any
+ * nonlinearity, which matters for things like the drivetrain where heading
+ * changes fast enough during turns to throw an EKF off. No Jacobians needed
+ * either, just f and h.
+ *
+ * Measurements can be of any number of different types (encoders, gyro,
+ * vision...), each with its own model and noise, added with addMeasurement().
+ * They can come in whenever, in any order and at any rate, with a predict() to
+ * the measurement's time in between.
+ *
+ * Angles are a problem for averaging (the mean of 179 deg and -179 deg isn't
+ * 0), so states and outputs that are angles (rad) can be marked, and their
+ * means and differences are wrapped.
+ *
+ * Everything is preallocated, so once it's made predict() and update() don't
+ * allocate as long as f and h don't.
+ *
+ * Some very useful links to learn more:
+ *   https://www.seas.harvard.edu/courses/cs281/papers/unscented.pdf
+ *   https://github.com/rlabbe/Kalman-and-Bayesian-Filters-in-Python/blob/master/10-Unscented-Kalman-Filter.ipynb
+ */
+public class UnscentedKalmanFilter {
+    /** Discrete process model */
+    public interface Process {
+        /**
+         * @param out where to write the state dt later given the state x and input u. Don't modify x or u.
+         */
+        void predict(DMatrixRMaj x, DMatrixRMaj u, double dt, DMatrixRMaj out);
+    }
+
+    /** Measurement model */
+    public interface MeasurementModel {
+        /**
+         * @param out where to write what would be measured in state x. Don't modify x.
+         */
+        void measure(DMatrixRMaj x, DMatrixRMaj out);
+    }
+
+
+
+    /** One type of measurement, with its own workspaces. Made by addMeasurement(). */
+    public class Measurement {
+        private final MeasurementModel MODEL;
+        private final int SIZE;
+        private final boolean[] ANGLES;
+
+        /** measurement noise covariance */
+        private final DMatrixRMaj R;
+
+        // workspaces
+        private final DMatrixRMaj[] Z;
+        private final DMatrixRMaj z;
+        private final DMatrixRMaj dz;
+        private final DMatrixRMaj S;
+        private final DMatrixRMaj S_decomposed;
+        private final DMatrixRMaj Pxz;
+        private final DMatrixRMaj PxzT;
+        private final DMatrixRMaj Kt;
+        private final DMatrixRMaj innovation;
+        private final LinearSolverDense<DMatrixRMaj> solver;
+
+
+
+        private Measurement(MeasurementModel model, DMatrixRMaj R, int[] angles) {
+            MODEL = model;
+            SIZE = R.numRows;
+            this.R = new DMatrixRMaj(R);
+
+            ANGLES = new boolean[SIZE];
+            for (int i : angles) {
+                ANGLES[i] = true;
+            }
+
+            Z = new DMatrixRMaj[SIGMAS];
+            for (int i = 0; i < SIGMAS; i++) {
+                Z[i] = new DMatrixRMaj(SIZE, 1);
+            }
+
+            z = new DMatrixRMaj(SIZE, 1);
+            dz = new DMatrixRMaj(SIZE, 1);
+            S = new DMatrixRMaj(SIZE, SIZE);
+            S_decomposed = new DMatrixRMaj(SIZE, SIZE);
+            Pxz = new DMatrixRMaj(N, SIZE);
+            PxzT = new DMatrixRMaj(SIZE, N);
+            Kt = new DMatrixRMaj(SIZE, N);
+            innovation = new DMatrixRMaj(SIZE, 1);
+            solver = LinearSolverFactory_DDRM.chol(SIZE);
+        }
+
+
+
+        /** @return measurement noise covariance, which can be changed (like for vision getting worse with distance) */
+        public DMatrixRMaj getR() { return R; }
+        public int getSize() { return SIZE; }
+        /** @return what the filter expected to measure, from the last update */
+        public DMatrixRMaj getExpected() { return z; }
+        /** @return measurement minus what was expected, from the last update */
+        public DMatrixRMaj getInnovation() { return innovation; }
+    }
+
+
+
+    private final Process PROCESS;
+
+    private final int N;
+    private final int SIGMAS;
+
+    // sigma point weights, for the mean and the covariance
+    private final double WM0;
+    private final double WC0;
+    private final double W;
+    /** scales the covariance before taking its square root */
+    private final double SPREAD;
+
+    private final boolean[] angleStates;
+
+    private final DMatrixRMaj x;
+    private final DMatrixRMaj P;
+    private final DMatrixRMaj Q;
+
+    // workspaces
+    private final DMatrixRMaj[] sigma;
+    private final DMatrixRMaj[] propagated;
+    private final DMatrixRMaj scaledP;
+    private final DMatrixRMaj sqrtP;
+    private final DMatrixRMaj dx;
+    private final CholeskyDecomposition_F64<DMatrixRMaj> cholesky;
+
+
+
+    /**
+     * Make a filter with sigma points one standard deviation (times sqrt(n))
+     * out (alpha = 1, beta = 2, kappa = 0). A tiny alpha like the 1e-3 that's
+     * often quoted makes the center weight around -1e6 for a few states, and
+     * the covariance doesn't stay positive definite for long after that.
+     *
+     * @param f process model
+     * @param x0 starting state
+     * @param P0 starting covariance
+     * @param Q process noise covariance per predict(), which can be changed with getQ()
+     */
+    public UnscentedKalmanFilter(Process f, DMatrixRMaj x0, DMatrixRMaj P0, DMatrixRMaj Q) {
+        this(f, x0, P0, Q, 1, 2, 0);
+    }
+
+    /**
+     * @param alpha how far the sigma points spread from the mean (positive)
+     * @param beta prior knowledge of the distribution (2 is best for Gaussians)
+     * @param kappa secondary spread
+     *
+     * @throws IllegalArgumentException if the points don't spread out or the
+     * center covariance weight is negative, either of which can make the
+     * covariance stop being positive definite
+     */
+    public UnscentedKalmanFilter(Process f, DMatrixRMaj x0, DMatrixRMaj P0, DMatrixRMaj Q,
+            double alpha, double beta, double kappa) {
+        PROCESS = f;
+
+        N = x0.numRows;
+        SIGMAS = 2 * N + 1;
+
+        double lambda = alpha * alpha * (N + kappa) - N;
+        SPREAD = N + lambda;
+
+        WM0 = lambda / SPREAD;
+        WC0 = WM0 + 1 - alpha * alpha + beta;
+        W = 1 / (2 * SPREAD);
+
+        if (!(SPREAD > 0) || !(WC0 >= 0)) {
+            throw new IllegalArgumentException("alpha = " + alpha + ", beta = " + beta + ", kappa = " + kappa
+                + " gives n + lambda = " + SPREAD + " and a center covariance weight of " + WC0
+                + ", both need to be positive");
+        }
+
+        angleStates = new boolean[N];
+
+        x = new DMatrixRMaj(x0);
+        P = new DMatrixRMaj(P0);
+        this.Q = new DMatrixRMaj(Q);
+
+        sigma = new DMatrixRMaj[SIGMAS];
+        propagated = new DMatrixRMaj[SIGMAS];
+        for (int i = 0; i < SIGMAS; i++) {
+            sigma[i] = new DMatrixRMaj(N, 1);
+            propagated[i] = new DMatrixRMaj(N, 1);
+        }
+
+        scaledP = new DMatrixRMaj(N, N);
+        sqrtP = new DMatrixRMaj(N, N);
+        dx = new DMatrixRMaj(N, 1);
+        cholesky = DecompositionFactory_DDRM.chol(N, true);
+    }
+
+
+
+    /** Mark states that are angles (rad) */
+    public void setAngleStates(int... states) {
+        for (int i : states) {
+            angleStates[i] = true;
+        }
+    }
+
+    /**
+     * Add a type of measurement
+     *
+     * @param h measurement model
+     * @param R measurement noise covariance (copied)
+     * @param angles outputs that are angles (rad)
+     */
+    public Measurement addMeasurement(MeasurementModel h, DMatrixRMaj R, int... angles) {
+        return new Measurement(h, R, angles);
+    }
+
+
+
+    /**
+     * Predict the state dt later
+     *
+     * @param u input applied over that time
+     *
+     * @return false if the covariance stopped being positive definite, in which case nothing's changed
+     */
+    public boolean predict(DMatrixRMaj u, double dt) {
+        if (!makeSigmaPoints()) {
+            return false;
+        }
+
+        for (int i = 0; i < SIGMAS; i++) {
+            PROCESS.predict(sigma[i], u, dt, propagated[i]);
+        }
+
+        mean(propagated, angleStates, x);
+
+        // P = sum w (X - x)(X - x)' + Q
+        P.set(Q);
+        for (int i = 0; i < SIGMAS; i++) {
+            difference(propagated[i], x, angleStates, dx);
+            CommonOps_DDRM.multAddTransB(i == 0 ? WC0 : W, dx, dx, P);
+        }
+        symmetrize(P);
+
+        return true;
+    }
+
+    /**
+     * Correct the state with a measurement
+     *
+     * @param y what was measured
+     *
+     * @return false if the measurement couldn't be used, in which case nothing's changed
+     */
+    public boolean update(Measurement measurement, DMatrixRMaj y) {
+        // the covariance has changed since predict() if there were other measurements, so start over
+        if (!makeSigmaPoints()) {
+            return false;
+        }
+
+        for (int i = 0; i < SIGMAS; i++) {
+            measurement.MODEL.measure(sigma[i], measurement.Z[i]);
+        }
+
+        mean(measurement.Z, measurement.ANGLES, measurement.z);
+
+        // S = sum w (Z - z)(Z - z)' + R and Pxz = sum w (X - x)(Z - z)'
+        measurement.S.set(measurement.R);
+        measurement.Pxz.zero();
+        for (int i = 0; i < SIGMAS; i++) {
+            double w = i == 0 ? WC0 : W;
+
+            difference(measurement.Z[i], measurement.z, measurement.ANGLES, measurement.dz);
+            difference(sigma[i], x, angleStates, dx);
+
+            CommonOps_DDRM.multAddTransB(w, measurement.dz, measurement.dz, measurement.S);
+            CommonOps_DDRM.multAddTransB(w, dx, measurement.dz, measurement.Pxz);
+        }
+
+        // K = Pxz S^-1, or S K' = Pxz' since S is symmetric
+        measurement.S_decomposed.set(measurement.S);
+        if (!measurement.solver.setA(measurement.S_decomposed)) {
+            return false;
+        }
+        CommonOps_DDRM.transpose(measurement.Pxz, measurement.PxzT);
+        measurement.solver.solve(measurement.PxzT, measurement.Kt);
+
+        // x = x + K(y - z)
+        difference(y, measurement.z, measurement.ANGLES, measurement.innovation);
+        CommonOps_DDRM.multAddTransA(measurement.Kt, measurement.innovation, x);
+        wrap(x, angleStates);
+
+        // P = P - K S K' = P - Pxz K'
+        CommonOps_DDRM.multAdd(-1, measurement.Pxz, measurement.Kt, P);
+        symmetrize(P);
+
+        return true;
+    }
+
+
+
+    /** sigma[0] = x, sigma[i] = x +- column i of sqrt((n + lambda)P) */
+    private boolean makeSigmaPoints() {
+        // rounding (or whoever changed it through getCovariance()) can leave it a little off, which the Cholesky won't take
+        symmetrize(P);
+        CommonOps_DDRM.scale(SPREAD, P, scaledP);
+        if (!cholesky.decompose(scaledP)) {
+            return false;
+        }
+        cholesky.getT(sqrtP);
+
+        sigma[0].set(x);
+        for (int j = 0; j < N; j++) {
+            for (int r = 0; r < N; r++) {
+                double offset = sqrtP.get(r, j);
+
+                sigma[1 + j].set(r, 0, x.get(r, 0) + offset);
+                sigma[1 + N + j].set(r, 0, x.get(r, 0) - offset);
+            }
+        }
+
+        return true;
+    }
+
+    /** weighted mean of the points, averaging angles relative to the first point so they don't wrap */
+    private void mean(DMatrixRMaj[] points, boolean[] angles, DMatrixRMaj out) {
+        for (int r = 0; r < out.numRows; r++) {
+            double reference = points[0].get(r, 0);
+            double sum = 0;
+
+            for (int i = 0; i < SIGMAS; i++) {
+                double value = points[i].get(r, 0);
+                if (angles[r]) {
+                    value = reference + wrap(value - reference);
+                }
+
+                sum += (i == 0 ? WM0 : W) * value;
+            }
+
+            out.set(r, 0, angles[r] ? wrap(sum) : sum);
+        }
+    }
+
+    /** out = a - b, with angles wrapped */
+    private static void difference(DMatrixRMaj a, DMatrixRMaj b, boolean[] angles, DMatrixRMaj out) {
+        for (int r = 0; r < out.numRows; r++) {
+            double value = a.get(r, 0) - b.get(r, 0);
+            out.set(r, 0, angles[r] ? wrap(value) : value);
+        }
+    }
+
+    private static void wrap(DMatrixRMaj v, boolean[] angles) {
+        for (int r = 0; r < v.numRows; r++) {
+            if (angles[r]) {
+                v.set(r, 0, wrap(v.get(r, 0)));
+            }
+        }
+    }
+
+    /** @return angle in [-pi, pi) */
+    private static double wrap(double angle) {
+        return angle - 2 * Math.PI * Math.floor((angle + Math.PI) / (2 * Math.PI));
+    }
+
+    private static void symmetrize(DMatrixRMaj m) {
+        for (int r = 0; r < m.numRows; r++) {
+            for (int c = r + 1; c < m.numCols; c++) {
+                double average = (m.get(r, c) + m.get(c, r)) / 2;
+                m.set(r, c, average);
+                m.set(c, r, average);
+            }
+        }
+    }
+
+
+
+    /** Start over from a new estimate */
+    public void reset(DMatrixRMaj x0, DMatrixRMaj P0) {
+        x.set(x0);
+        P.set(P0);
+    }
+
+    /** @return state estimate. Owned by the filter, copy it to keep it */
+    public DMatrixRMaj getState() { return x; }
+    /** @return covariance of the estimate. Owned by the filter, copy it to keep it */
+    public DMatrixRMaj getCovariance() { return P; }
+    /** @return process noise covariance, which can be changed */
+    public DMatrixRMaj getQ() { return Q; }
+    public int getNumStates() { return N; }
+}
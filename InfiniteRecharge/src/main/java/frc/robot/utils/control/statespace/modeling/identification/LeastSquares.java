@@ -0,0 +1,129 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+
+
+
+/**
+ * Ordinary least squares, streamed: only X'X, X'y and y'y are kept, so any
+ * number of samples fit in the same memory and the fit can be looked at any
+ * time along the way.
+ *
+ * The parameter covariance is the usual sigma^2 (X'X)^-1, with sigma^2 the
+ * residual variance, which assumes the noise is independent and the same
+ * size for every sample.
+ */
+public class LeastSquares extends Regression {
+    private final DMatrixRMaj XtX;
+    private final DMatrixRMaj Xty;
+    private double yty = 0;
+    private long count = 0;
+
+    // fit, worked out when asked for after new samples
+    private boolean solved = false;
+    private double[] parameters;
+    private double[] covariance;
+    private double residualVariance = Double.NaN;
+
+
+
+    public LeastSquares(int parameters) {
+        super(parameters);
+
+        XtX = new DMatrixRMaj(parameters, parameters);
+        Xty = new DMatrixRMaj(parameters, 1);
+    }
+
+
+
+    @Override
+    public void add(double[] x, double y) {
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                XtX.add(i, j, x[i] * x[j]);
+            }
+
+            Xty.add(i, 0, x[i] * y);
+        }
+
+        yty += y * y;
+        count++;
+        solved = false;
+    }
+
+    private void solve() {
+        if (solved) {
+            return;
+        }
+        solved = true;
+
+        parameters = null;
+        covariance = null;
+        residualVariance = Double.NaN;
+
+        // need more samples than parameters for the residual variance to mean anything
+        if (count <= N) {
+            return;
+        }
+
+        DMatrixRMaj inverse = new DMatrixRMaj(N, N);
+        if (!CommonOps_DDRM.invert(XtX, inverse)) {
+            return;
+        }
+
+        DMatrixRMaj theta = new DMatrixRMaj(N, 1);
+        CommonOps_DDRM.mult(inverse, Xty, theta);
+
+        // sum of squared residuals = y'y - theta'X'y
+        double rss = yty;
+        for (int i = 0; i < N; i++) {
+            rss -= theta.get(i, 0) * Xty.get(i, 0);
+        }
+        residualVariance = Math.max(rss, 0) / (count - N);
+
+        parameters = new double[N];
+        covariance = new double[N * N];
+        for (int i = 0; i < N; i++) {
+            parameters[i] = theta.get(i, 0);
+
+            for (int j = 0; j < N; j++) {
+                covariance[i * N + j] = residualVariance * inverse.get(i, j);
+            }
+        }
+    }
+
+
+
+    @Override
+    public double[] getParameters() {
+        solve();
+        return parameters;
+    }
+
+    @Override
+    public double[] getCovariance() {
+        solve();
+        return covariance;
+    }
+
+    /** @return variance of the residuals, or NaN if there isn't enough data */
+    public double getResidualVariance() {
+        solve();
+        return residualVariance;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        XtX.zero();
+        Xty.zero();
+        yty = 0;
+        count = 0;
+        solved = false;
+    }
+}
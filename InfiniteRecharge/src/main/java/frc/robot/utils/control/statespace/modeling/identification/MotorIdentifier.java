@@ -0,0 +1,272 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+import java.io.IOException;
+
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+import frc.robot.utils.telemetry.LogReader;
+
+
+
+/**
+ * Works out a motor's constants from samples of it running with no load, like
+ * the ones ILData records.
+ *
+ * A DC motor is
+ *     V = R i + L di/dt + Kw omega       (electrical)
+ *     J domega/dt = Kt i - b omega       (mechanical)
+ * Both are linear in the constants, so each gets its own regression:
+ *   - V on (i, di/dt, omega) gives R, L and Kw
+ *   - domega/dt on (i, -omega) gives Kt/J and b/J
+ * Kt/J and b/J can't be pulled apart without knowing one of them, so Kt is
+ * taken to be Kw (true in SI units for an ideal motor), which then gives J
+ * and b.
+ *
+ * Derivatives come from differences between consecutive samples, with the
+ * other values averaged over the same interval, so the samples don't need to
+ * be evenly spaced. ILData's own dI/dt column isn't used, so logs that don't
+ * have one work the same way.
+ *
+ * Samples can come from trial files (addTrial()) or be streamed in live
+ * (add()); call endTrial() between runs so the motor stopping and starting
+ * again isn't taken as one big derivative.
+ */
+public class MotorIdentifier {
+    /** The fitted constants of a motor, with 95% confidence intervals (+-) */
+    public static class MotorFit {
+        public final double b;
+        public final double R;
+        public final double Kt;
+        public final double Kw;
+        /** rotor moment of inertia (kg m^2) */
+        public final double J;
+        /** inductance (H) */
+        public final double L;
+
+        public final double bConfidence;
+        public final double RConfidence;
+        public final double KtConfidence;
+        public final double KwConfidence;
+        public final double JConfidence;
+        public final double LConfidence;
+
+        public final long samples;
+
+        public MotorFit(double b, double R, double Kt, double Kw, double J, double L,
+                double bConfidence, double RConfidence, double KtConfidence, double KwConfidence,
+                double JConfidence, double LConfidence, long samples) {
+            this.b = b;
+            this.R = R;
+            this.Kt = Kt;
+            this.Kw = Kw;
+            this.J = J;
+            this.L = L;
+
+            this.bConfidence = bConfidence;
+            this.RConfidence = RConfidence;
+            this.KtConfidence = KtConfidence;
+            this.KwConfidence = KwConfidence;
+            this.JConfidence = JConfidence;
+            this.LConfidence = LConfidence;
+
+            this.samples = samples;
+        }
+
+        public MotorType toMotorType() {
+            return new MotorType(b, R, Kt, Kw);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "b  = %.6g +- %.2g Nm/(rad/s)%n"
+                + "R  = %.6g +- %.2g Ohm%n"
+                + "Kt = %.6g +- %.2g Nm/A%n"
+                + "Kw = %.6g +- %.2g V/(rad/s)%n"
+                + "J  = %.6g +- %.2g kg m^2%n"
+                + "L  = %.6g +- %.2g H%n"
+                + "from %d samples",
+                b, bConfidence, R, RConfidence, Kt, KtConfidence, Kw, KwConfidence,
+                J, JConfidence, L, LConfidence, samples
+            );
+        }
+    }
+
+
+
+    // electrical regression parameters
+    private static final int R = 0;
+    private static final int L = 1;
+    private static final int KW = 2;
+
+    // mechanical regression parameters
+    private static final int KT_J = 0;
+    private static final int B_J = 1;
+
+
+
+    private final Regression electrical;
+    private final Regression mechanical;
+
+    // reused for regressors
+    private final double[] electricalX = new double[3];
+    private final double[] mechanicalX = new double[2];
+
+    // previous sample
+    private boolean havePrevious = false;
+    private double lastTime;
+    private double lastOmega;
+    private double lastCurrent;
+    private double lastVoltage;
+
+
+
+    /** Batch fit with least squares */
+    public MotorIdentifier() {
+        this(new LeastSquares(3), new LeastSquares(2));
+    }
+
+    /**
+     * Live fit with recursive least squares, which follows constants that change
+     *
+     * @param forgetting see RecursiveLeastSquares
+     */
+    public MotorIdentifier(double forgetting) {
+        this(new RecursiveLeastSquares(3, forgetting), new RecursiveLeastSquares(2, forgetting));
+    }
+
+    private MotorIdentifier(Regression electrical, Regression mechanical) {
+        this.electrical = electrical;
+        this.mechanical = mechanical;
+    }
+
+
+
+    /**
+     * Add a sample
+     *
+     * @param time timestamp (s)
+     * @param omega velocity (rad/s)
+     * @param current (A)
+     * @param voltage (V)
+     */
+    public void add(double time, double omega, double current, double voltage) {
+        if (havePrevious && time > lastTime) {
+            double dt = time - lastTime;
+
+            double i = (current + lastCurrent) / 2;
+            double w = (omega + lastOmega) / 2;
+            double v = (voltage + lastVoltage) / 2;
+
+            electricalX[R] = i;
+            electricalX[L] = (current - lastCurrent) / dt;
+            electricalX[KW] = w;
+            electrical.add(electricalX, v);
+
+            mechanicalX[KT_J] = i;
+            mechanicalX[B_J] = -w;
+            mechanical.add(mechanicalX, (omega - lastOmega) / dt);
+        }
+
+        havePrevious = true;
+        lastTime = time;
+        lastOmega = omega;
+        lastCurrent = current;
+        lastVoltage = voltage;
+    }
+
+    /** The next sample starts a new run */
+    public void endTrial() {
+        havePrevious = false;
+    }
+
+    /**
+     * Add a whole trial from a log with omega, current and voltage channels
+     * (like ILData's trial files through TextLogReader)
+     *
+     * @return false if the log doesn't have the channels
+     */
+    public boolean addTrial(LogReader reader) throws IOException {
+        String[] names = reader.getChannelNames();
+
+        int omega = indexOf(names, "omega");
+        int current = indexOf(names, "current");
+        int voltage = indexOf(names, "voltage");
+
+        if (omega < 0 || current < 0 || voltage < 0) {
+            return false;
+        }
+
+        double[] sample = new double[names.length + 1];
+
+        endTrial();
+        while (reader.next(sample)) {
+            add(sample[0], sample[omega], sample[current], sample[voltage]);
+        }
+        endTrial();
+
+        return true;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                // +1 since sample[0] is the timestamp
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+
+
+    /** @return the fit so far, or null if there isn't enough data for one */
+    public MotorFit fit() {
+        double[] e = electrical.getParameters();
+        double[] m = mechanical.getParameters();
+
+        if (e == null || m == null || electrical.getCovariance() == null || mechanical.getCovariance() == null) {
+            return null;
+        }
+
+        double Kw = e[KW];
+        double Kt = Kw;
+
+        double ktj = m[KT_J];
+        double bj = m[B_J];
+
+        double J = Kt / ktj;
+        double b = bj * J;
+
+        // first order propagation of the variances, the two regressions being independent
+        double varKw = square(electrical.getStdDev(KW));
+        double relKt = varKw / (Kt * Kt);
+        double relKtj = square(mechanical.getStdDev(KT_J)) / (ktj * ktj);
+        double relBj = square(mechanical.getStdDev(B_J)) / (bj * bj);
+        double relCovariance = mechanical.getCovariance(KT_J, B_J) / (ktj * bj);
+
+        double varJ = J * J * (relKt + relKtj);
+        double varB = b * b * (relKt + relBj + relKtj - 2 * relCovariance);
+
+        return new MotorFit(
+            b, e[R], Kt, Kw, J, e[L],
+            Regression.Z_95 * Math.sqrt(Math.max(varB, 0)),
+            electrical.getConfidence(R),
+            electrical.getConfidence(KW),
+            electrical.getConfidence(KW),
+            Regression.Z_95 * Math.sqrt(varJ),
+            electrical.getConfidence(L),
+            electrical.getCount()
+        );
+    }
+
+    private static double square(double x) {
+        return x * x;
+    }
+
+    public void reset() {
+        electrical.reset();
+        mechanical.reset();
+        endTrial();
+    }
+}
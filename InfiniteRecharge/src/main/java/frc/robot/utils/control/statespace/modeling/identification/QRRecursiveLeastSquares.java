@@ -0,0 +1,202 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+
+
+/**
+ * Recursive least squares done with a QR factorization instead of updating
+ * the inverse covariance like RecursiveLeastSquares does.
+ *
+ * It keeps the upper triangular R and z with R theta = z, where R'R is the
+ * (weighted) X'X. Each sample is a new row under R that gets rotated back into
+ * it with Givens rotations, and whatever's left of y after that is the
+ * sample's residual. Nothing ever gets squared or subtracted from itself, so
+ * it stays accurate even when the regressors are badly scaled or nearly
+ * dependent (like kS and kV when the robot's only ever driven one speed),
+ * which is where RecursiveLeastSquares can lose its covariance to rounding.
+ *
+ * There's no starting covariance to pick either: with no forgetting it's
+ * exactly the batch least squares answer.
+ *
+ * add() doesn't allocate. The getters work into preallocated arrays.
+ */
+public class QRRecursiveLeastSquares extends Regression {
+    private final double FORGETTING;
+    private final double SQRT_FORGETTING;
+
+    /** upper triangular, row major */
+    private final double[] R;
+    private final double[] z;
+
+    // workspaces
+    private final double[] row;
+    private final double[] inverse;
+
+    // what the getters give out
+    private final double[] theta;
+    private final double[] covariance;
+
+    private double weightedRss = 0;
+    private double weightedCount = 0;
+    private long count = 0;
+
+
+
+    /**
+     * @param parameters number of parameters
+     * @param forgetting how much each sample's weight is multiplied by for every one
+     * after it, in (0, 1]. 1 to never forget.
+     */
+    public QRRecursiveLeastSquares(int parameters, double forgetting) {
+        super(parameters);
+
+        FORGETTING = forgetting;
+        SQRT_FORGETTING = Math.sqrt(forgetting);
+
+        R = new double[parameters * parameters];
+        z = new double[parameters];
+        row = new double[parameters];
+        inverse = new double[parameters * parameters];
+        theta = new double[parameters];
+        covariance = new double[parameters * parameters];
+    }
+
+
+
+    @Override
+    public void add(double[] x, double y) {
+        if (FORGETTING != 1) {
+            for (int i = 0; i < N * N; i++) {
+                R[i] *= SQRT_FORGETTING;
+            }
+            for (int i = 0; i < N; i++) {
+                z[i] *= SQRT_FORGETTING;
+            }
+        }
+
+        System.arraycopy(x, 0, row, 0, N);
+        double ry = y;
+
+        // rotate the new row into R one column at a time
+        for (int k = 0; k < N; k++) {
+            double diagonal = R[k * N + k];
+            double r = Math.hypot(diagonal, row[k]);
+            if (r == 0) {
+                continue;
+            }
+
+            double c = diagonal / r;
+            double s = row[k] / r;
+
+            for (int j = k; j < N; j++) {
+                double a = R[k * N + j];
+                double b = row[j];
+
+                R[k * N + j] = c * a + s * b;
+                row[j] = c * b - s * a;
+            }
+
+            double a = z[k];
+            z[k] = c * a + s * ry;
+            ry = c * ry - s * a;
+        }
+
+        weightedRss = FORGETTING * weightedRss + ry * ry;
+        weightedCount = FORGETTING * weightedCount + 1;
+        count++;
+    }
+
+    /** @return false if R's singular, meaning some parameter hasn't been excited yet */
+    private boolean isSolvable() {
+        for (int k = 0; k < N; k++) {
+            if (R[k * N + k] == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+
+    @Override
+    public double[] getParameters() {
+        if (!isSolvable()) {
+            return null;
+        }
+
+        // back substitution
+        for (int i = N - 1; i >= 0; i--) {
+            double sum = z[i];
+            for (int j = i + 1; j < N; j++) {
+                sum -= R[i * N + j] * theta[j];
+            }
+
+            theta[i] = sum / R[i * N + i];
+        }
+
+        return theta;
+    }
+
+    /** @return sigma^2 (R'R)^-1 = sigma^2 R^-1 R^-T */
+    @Override
+    public double[] getCovariance() {
+        if (weightedCount <= N || !isSolvable()) {
+            return null;
+        }
+
+        // R^-1, upper triangular, by back substitution a column at a time
+        for (int c = 0; c < N; c++) {
+            for (int i = N - 1; i >= 0; i--) {
+                double sum = i == c ? 1 : 0;
+                for (int j = i + 1; j < N; j++) {
+                    sum -= R[i * N + j] * inverse[j * N + c];
+                }
+
+                inverse[i * N + c] = i > c ? 0 : sum / R[i * N + i];
+            }
+        }
+
+        double residualVariance = getResidualVariance();
+
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                double sum = 0;
+                for (int k = Math.max(i, j); k < N; k++) {
+                    sum += inverse[i * N + k] * inverse[j * N + k];
+                }
+
+                covariance[i * N + j] = residualVariance * sum;
+            }
+        }
+
+        return covariance;
+    }
+
+    /** @return weighted variance of the residuals, or NaN if there isn't enough data */
+    public double getResidualVariance() {
+        return weightedCount <= N ? Double.NaN : weightedRss / (weightedCount - N);
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    public double getForgetting() {
+        return FORGETTING;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < N * N; i++) {
+            R[i] = 0;
+        }
+        for (int i = 0; i < N; i++) {
+            z[i] = 0;
+        }
+
+        weightedRss = 0;
+        weightedCount = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,163 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+
+
+/**
+ * Recursive least squares: the fit is updated with every sample instead of
+ * being solved at the end, so there's always a current estimate to look at
+ * (or to control with). With a forgetting factor below 1, old samples count
+ * for less and less, which lets it follow parameters that change, like a
+ * motor's resistance as it heats up.
+ *
+ * With a forgetting factor of 1 it ends up at the same answer as
+ * LeastSquares, give or take the starting covariance.
+ *
+ * add() doesn't allocate, so it can run on a fast loop.
+ */
+public class RecursiveLeastSquares extends Regression {
+    private final double FORGETTING;
+    private final double INITIAL_COVARIANCE;
+
+    private final double[] theta;
+    /** P, which is (X'X)^-1 with old samples weighted down */
+    private final double[] P;
+
+    // workspaces
+    private final double[] Px;
+    private final double[] gain;
+
+    /** what's given out by getCovariance() */
+    private final double[] covariance;
+
+    /** residual sum of squares and sample count, weighted the same way as P */
+    private double weightedRss = 0;
+    private double weightedCount = 0;
+    private long count = 0;
+
+
+
+    /**
+     * @param parameters number of parameters
+     * @param forgetting how much each sample's weight is multiplied by for every one
+     * after it, in (0, 1]. The fit effectively covers the last 1 / (1 - forgetting) samples.
+     * @param initialCovariance starting variance of every parameter, big if nothing's known
+     */
+    public RecursiveLeastSquares(int parameters, double forgetting, double initialCovariance) {
+        super(parameters);
+
+        FORGETTING = forgetting;
+        INITIAL_COVARIANCE = initialCovariance;
+
+        theta = new double[parameters];
+        P = new double[parameters * parameters];
+        Px = new double[parameters];
+        gain = new double[parameters];
+        covariance = new double[parameters * parameters];
+
+        reset();
+    }
+
+    /** @param forgetting see the other constructor */
+    public RecursiveLeastSquares(int parameters, double forgetting) {
+        this(parameters, forgetting, 1e6);
+    }
+
+
+
+    @Override
+    public void add(double[] x, double y) {
+        // Px and x'Px
+        double xPx = 0;
+        for (int i = 0; i < N; i++) {
+            double sum = 0;
+            for (int j = 0; j < N; j++) {
+                sum += P[i * N + j] * x[j];
+            }
+
+            Px[i] = sum;
+            xPx += x[i] * sum;
+        }
+
+        double denominator = FORGETTING + xPx;
+
+        double prediction = 0;
+        for (int i = 0; i < N; i++) {
+            gain[i] = Px[i] / denominator;
+            prediction += x[i] * theta[i];
+        }
+
+        double error = y - prediction;
+
+        for (int i = 0; i < N; i++) {
+            theta[i] += gain[i] * error;
+        }
+
+        // P = (P - gain x'P) / forgetting, and x'P = Px' since P is symmetric
+        for (int i = 0; i < N; i++) {
+            for (int j = i; j < N; j++) {
+                double value = (P[i * N + j] - gain[i] * Px[j]) / FORGETTING;
+
+                P[i * N + j] = value;
+                P[j * N + i] = value;
+            }
+        }
+
+        // the residual after the update, which is the a priori one scaled down by how much the sample moved the fit
+        double residual = error * FORGETTING / denominator;
+
+        weightedRss = FORGETTING * weightedRss + residual * error;
+        weightedCount = FORGETTING * weightedCount + 1;
+        count++;
+    }
+
+
+
+    @Override
+    public double[] getParameters() {
+        return count == 0 ? null : theta;
+    }
+
+    /** @return the same sigma^2 P as LeastSquares, with sigma^2 from the weighted residuals */
+    @Override
+    public double[] getCovariance() {
+        if (weightedCount <= N) {
+            return null;
+        }
+
+        double residualVariance = getResidualVariance();
+        for (int i = 0; i < N * N; i++) {
+            covariance[i] = residualVariance * P[i];
+        }
+
+        return covariance;
+    }
+
+    /** @return weighted variance of the residuals, or NaN if there isn't enough data */
+    public double getResidualVariance() {
+        return weightedCount <= N ? Double.NaN : Math.max(weightedRss, 0) / (weightedCount - N);
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    public double getForgetting() {
+        return FORGETTING;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < N; i++) {
+            theta[i] = 0;
+
+            for (int j = 0; j < N; j++) {
+                P[i * N + j] = i == j ? INITIAL_COVARIANCE : 0;
+            }
+        }
+
+        weightedRss = 0;
+        weightedCount = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+
+
+/**
+ * Fits y = x . theta to samples (x, y) one at a time, without keeping the
+ * samples around, and says how sure it is of each parameter.
+ */
+public abstract class Regression {
+    /** standard deviations either side for a 95% confidence interval */
+    public static final double Z_95 = 1.959964;
+
+    protected final int N;
+
+
+
+    /** @param parameters number of parameters (length of x) */
+    protected Regression(int parameters) {
+        N = parameters;
+    }
+
+
+
+    /** Add a sample. x isn't kept, so it can be reused. */
+    public abstract void add(double[] x, double y);
+
+    /**
+     * @return fitted parameters, or null if there isn't enough data to fit them.
+     * Owned by the regression, so don't modify it.
+     */
+    public abstract double[] getParameters();
+
+    /**
+     * @return covariance of the fitted parameters (row major, N x N), or null if
+     * there isn't enough data
+     */
+    public abstract double[] getCovariance();
+
+    /** @return number of samples added */
+    public abstract long getCount();
+
+    public abstract void reset();
+
+
+
+    /** @return standard deviation of parameter i, or NaN if there isn't enough data */
+    public double getStdDev(int i) {
+        double[] covariance = getCovariance();
+        return covariance == null ? Double.NaN : Math.sqrt(covariance[i * N + i]);
+    }
+
+    /** @return half width of the 95% confidence interval of parameter i */
+    public double getConfidence(int i) {
+        return Z_95 * getStdDev(i);
+    }
+
+    /** @return covariance between parameters i and j, or NaN if there isn't enough data */
+    public double getCovariance(int i, int j) {
+        double[] covariance = getCovariance();
+        return covariance == null ? Double.NaN : covariance[i * N + j];
+    }
+
+    public int getNumParameters() { return N; }
+}
@@ -1,10 +1,13 @@
 package frc.robot.utils.control.statespace.modeling.ildata;
 
+import frc.robot.utils.control.MotorInfo;
 import frc.robot.utils.control.motor.BBMotorController;
+import frc.robot.utils.data.DoubleRingBuffer;
 import frc.robot.utils.roborio.RoboRIOFS;
 import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.Timer;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.File;
 import java.io.FileWriter;
@@ -16,36 +19,31 @@ import java.io.PrintWriter;
  * Measure moment of inertia (I) and inductance (L) through a motor by running it
  * at a set voltage. Warning: this requires changing all motor units to SI and
  * having no gear ratios or load.
+ *
+ * Every trial goes into arrays that are all allocated up front, one per column,
+ * with the FPGA time each sample was actually taken, so nothing on the sampling
+ * thread allocates or waits on the disk. A second Notifier writes trials out
+ * as they finish, working out dI/dt from the real times between samples
+ * instead of assuming the loop ran exactly on time.
+ *
+ * The motor's diagnostic window holds the trial being sampled, so a trial the
+ * voltage didn't hold steady through (like when the battery sags) is pointed
+ * out as it finishes.
  */
 public class ILData {
-    private static final double PERIOD_SEC = 0.01; // periodt
+    /** what each column in a trial file is, in order */
+    public static final String[] COLUMNS = { "time", "theta", "omega", "current", "currentDeriv", "voltage" };
 
-    private static final int MEASUREMENTS_PER_TRIAL = 100;
-    private static final int TRIALS = 10;
+    private static final double DEFAULT_RATE_HZ = 100;
+    private static final double MAX_RATE_HZ = 1000;
 
+    private static final int DEFAULT_MEASUREMENTS_PER_TRIAL = 100;
+    private static final int DEFAULT_TRIALS = 10;
 
-
-    public static class DataPoint {
-        private final double TIME0;
-        private final double THETA;
-        private final double OMEGA;
-        private final double CURRENT;
-        private final double CURRENT_DERIV;
-        private final double VOLTAGE;
-
-        private DataPoint(double time0, double theta, double omega, double current, double currentDeriv, double voltage) {
-            TIME0 = time0;
-            THETA = theta;
-            OMEGA = omega;
-            CURRENT = current;
-            CURRENT_DERIV = currentDeriv;
-            VOLTAGE = voltage;
-        }
-
-        public String toString() {
-            return TIME0 + " " + THETA + " " + OMEGA + " " + CURRENT + " " + CURRENT_DERIV + " " + VOLTAGE;
-        }
-    }
+    /** how often the writer looks for finished trials */
+    private static final double WRITE_PERIOD_SEC = 0.05;
+    /** most the voltage can move during a trial (V) before it's not really constant */
+    private static final double VOLTAGE_TOLERANCE = 0.5;
 
 
 
@@ -57,37 +55,78 @@ public class ILData {
 
 
 
-    
+
 
     private final BBMotorController MOTOR;
     private final double PERCENT;
 
-    private int trialNum = 0;
+    private final double PERIOD_SEC;
+    private final int MEASUREMENTS_PER_TRIAL;
+    private final int TRIALS;
 
     private Notifier notifier;
+    private Notifier writer;
     private State state = State.Rest;
 
 
 
-    // measurement stuff
+    // every trial's samples, trial t's are at [t * MEASUREMENTS_PER_TRIAL, (t + 1) * MEASUREMENTS_PER_TRIAL)
+    private final double[] times;
+    private final double[] thetas;
+    private final double[] omegas;
+    private final double[] currents;
+    private final double[] voltages;
+
+    // only touched by the sampling thread
     private double time0;
-    private double lastCurrent = 0;
-    private DataPoint[] dataPoints = new DataPoint[MEASUREMENTS_PER_TRIAL];
+    private int trialNum = 0;
     private int measurementNum = 0;
-    
 
-    
+    /** trials that are done being sampled, only written by the sampling thread */
+    private volatile int trialsCaptured = 0;
+    /** only written by the writer */
+    private volatile int trialsWritten = 0;
+    private final double[] currentDerivs;
+
+
+
     public ILData(BBMotorController motor, double percent) {
+        this(motor, percent, DEFAULT_RATE_HZ, DEFAULT_MEASUREMENTS_PER_TRIAL, DEFAULT_TRIALS);
+    }
+
+    /**
+     * @param motor what to measure
+     * @param percent output to run it at
+     * @param rate_hz how often to sample, at most 1 kHz. The motor controller's
+     * status frames get sped up to match.
+     * @param measurementsPerTrial samples in each trial
+     * @param trials how many times to run it
+     */
+    public ILData(BBMotorController motor, double percent, double rate_hz, int measurementsPerTrial, int trials) {
         MOTOR = motor;
         PERCENT = percent;
 
+        rate_hz = Math.min(rate_hz, MAX_RATE_HZ);
+        PERIOD_SEC = 1 / rate_hz;
+        MEASUREMENTS_PER_TRIAL = measurementsPerTrial;
+        TRIALS = trials;
+
+        times = new double[TRIALS * MEASUREMENTS_PER_TRIAL];
+        thetas = new double[TRIALS * MEASUREMENTS_PER_TRIAL];
+        omegas = new double[TRIALS * MEASUREMENTS_PER_TRIAL];
+        currents = new double[TRIALS * MEASUREMENTS_PER_TRIAL];
+        voltages = new double[TRIALS * MEASUREMENTS_PER_TRIAL];
+        currentDerivs = new double[MEASUREMENTS_PER_TRIAL];
+
 
 
         MOTOR.setSI();
         MOTOR.setInverted(false);
         MOTOR.setSensorPhase(false);
         MOTOR.setOpenLoopRampRate(0);
+        MOTOR.setFeedbackPeriod(Math.max(1, (int) (PERIOD_SEC * 1000)));
         MOTOR.zero();
+        MOTOR.enableDiagnostics(MEASUREMENTS_PER_TRIAL);
 
 
 
@@ -101,85 +140,114 @@ public class ILData {
 
     public void run() {
         notifier = new Notifier(new Loop());
-        notifier.startPeriodic(PERIOD_SEC); // 5 ms loop
+        notifier.setName("ILData");
+        notifier.startPeriodic(PERIOD_SEC);
+
+        writer = new Notifier(this::writeMeasurements);
+        writer.setName("ILData writer");
+        writer.startPeriodic(WRITE_PERIOD_SEC);
+    }
+
+    /** @return whether every trial's been sampled and written */
+    public boolean isDone() {
+        return trialsWritten == TRIALS;
     }
 
 
 
+    /** Write out whatever trials have finished since last time. Called by the writer. */
     private void writeMeasurements() {
-        String pathName = RoboRIOFS.MOTOR_DATA_NAME + MOTOR.getDeviceID() + "/trial" + trialNum + ".txt";
+        int captured = trialsCaptured;
 
-        File file = new File(pathName);
+        while (trialsWritten < captured) {
+            writeTrial(trialsWritten);
+            trialsWritten++;
+        }
 
-        if (!file.exists()) {
-            try {
-                file.createNewFile();
-            } catch (IOException e) {
-                System.out.println("Couldn'tcreatefile");
-            }
+        if (trialsWritten == TRIALS) {
+            writer.stop();
         }
+    }
 
-        try {
-            FileWriter fileWriter = new FileWriter(pathName);
-            PrintWriter writer = new PrintWriter(fileWriter);
+    private void writeTrial(int trial) {
+        String pathName = RoboRIOFS.MOTOR_DATA_NAME + MOTOR.getDeviceID() + "/trial" + trial + ".txt";
+        int start = trial * MEASUREMENTS_PER_TRIAL;
 
+        differentiate(times, currents, start, MEASUREMENTS_PER_TRIAL, currentDerivs);
+
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(pathName)))) {
             for (int i = 0; i < MEASUREMENTS_PER_TRIAL; i++) {
-                writer.println(dataPoints[i].toString());
+                int j = start + i;
+                out.println(times[j] + " " + thetas[j] + " " + omegas[j] + " " + currents[j] + " " + currentDerivs[i] + " " + voltages[j]);
             }
 
-            writer.close();
+            System.out.println("Wrote " + pathName);
         } catch (IOException e) {
             System.out.println("Error: " + e);
         }
     }
 
+    /**
+     * Derivative of unevenly spaced samples: central differences over the
+     * measured times inside, one sided at the ends
+     *
+     * @param out where to put the n derivatives, starting at 0
+     */
+    static void differentiate(double[] t, double[] x, int start, int n, double[] out) {
+        for (int i = 0; i < n; i++) {
+            int before = start + Math.max(i - 1, 0);
+            int after = start + Math.min(i + 1, n - 1);
+
+            double dt = t[after] - t[before];
+            out[i] = dt > 0 ? (x[after] - x[before]) / dt : 0;
+        }
+    }
+
 
 
     private class Loop implements Runnable {
         @Override
         public void run() {
-            if (state == State.Measurement) {
-                MOTOR.cmdPercent(PERCENT);
-
-                double voltage = MOTOR.getVoltage();
+            double now = Timer.getFPGATimestamp();
 
-                double theta = MOTOR.getPosition();
-                double omega = MOTOR.getVelocity();
-                double current = MOTOR.getCurrent();
-                double currentDeriv = (current - lastCurrent) / PERIOD_SEC;
-
-                lastCurrent = current; // set the last current to the current current
+            if (state == State.Measurement) {
+                int j = trialNum * MEASUREMENTS_PER_TRIAL + measurementNum;
 
-                double time = Timer.getFPGATimestamp() - time0;
+                MOTOR.updateDiagnostics();
+                int newest = MOTOR.getDiagnostics().size() - 1;
 
-                DataPoint dp = new DataPoint(time, theta, omega, current, currentDeriv, voltage);
-                dataPoints[measurementNum] = dp;
+                times[j] = now - time0;
+                thetas[j] = MOTOR.getDiagnostics().get(MotorInfo.POSITION, newest);
+                omegas[j] = MOTOR.getDiagnostics().get(MotorInfo.VELOCITY, newest);
+                currents[j] = MOTOR.getDiagnostics().get(MotorInfo.CURRENT, newest);
+                voltages[j] = MOTOR.getDiagnostics().get(MotorInfo.VOLTAGE, newest);
 
                 measurementNum++;
                 if (measurementNum == MEASUREMENTS_PER_TRIAL) {
-                    writeMeasurements();
-
-                    trialNum++;
-
                     MOTOR.cmdPercent(0); // rest the motor
                     state = State.Rest;
 
-                    lastCurrent = 0;
+                    DoubleRingBuffer voltage = MOTOR.getDiagnostics().getChannel(MotorInfo.VOLTAGE);
+                    if (voltage.getMax() - voltage.getMin() > VOLTAGE_TOLERANCE) {
+                        System.out.println("ILData trial " + trialNum + ": voltage went from " + voltage.getMin() + " to "
+                            + voltage.getMax() + " V, so it's probably not very accurate");
+                    }
+
+                    trialNum++;
+                    trialsCaptured = trialNum; // hand it to the writer
                     measurementNum = 0;
                 }
             } else if (state == State.Rest) {
                 double omega = MOTOR.getVelocity();
-                double current = MOTOR.getCurrent();
                 double voltage = MOTOR.getVoltage();
 
-                System.out.println("Voltage: " + voltage);
-
                 if (omega == 0 && voltage == 0) {
                     if (trialNum == TRIALS) {
                         notifier.stop();
                     } else {
-                        time0 = Timer.getFPGATimestamp();
+                        time0 = now;
 
+                        MOTOR.getDiagnostics().reset();
                         MOTOR.zero();
                         MOTOR.cmdPercent(PERCENT);
 
@@ -189,4 +257,4 @@ public class ILData {
             }
         }
     }
-}
\ No newline at end of file
+}
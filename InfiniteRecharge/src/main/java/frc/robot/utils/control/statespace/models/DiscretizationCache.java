@@ -0,0 +1,284 @@
+package frc.robot.utils.control.statespace.models;
+
+import java.util.Arrays;
+
+import org.ejml.simple.SimpleMatrix;
+
+
+
+/**
+ * Cache of discretized systems for a model that's linearized around an
+ * operating point (x, y) - for the drivetrain that's (v0, theta0).
+ *
+ * Discretizing means a matrix exponential, which is way too expensive to do
+ * every loop when the operating point barely moves between loops. Instead the
+ * operating point is snapped to a grid, and the discrete system at each grid
+ * point is only worked out the first time it's needed. Only the most recently
+ * used CAPACITY grid points are kept around.
+ *
+ * With interpolation on, the system at an operating point between grid points
+ * is bilinearly interpolated from the 4 grid points around it instead of just
+ * using the closest one. That's blended into matrices that are allocated once,
+ * so what get() gives back gets overwritten by the next call.
+ *
+ * The grid points are kept in preallocated arrays: an open addressing hash
+ * table keyed by the packed grid indexes (as a long, no boxing) pointing into
+ * CAPACITY entries that are linked together from most to least recently used.
+ * So a lookup doesn't allocate, hit or miss, apart from whatever the
+ * discretizer does.
+ */
+public class DiscretizationCache {
+    /** Works out the (already discretized) system at an operating point */
+    public interface Discretizer {
+        ABFTriple discretize(double x, double y);
+    }
+
+
+
+    private final Discretizer DISCRETIZER;
+
+    private final double X_STEP;
+    private final double Y_STEP;
+    private final int CAPACITY;
+
+    private boolean interpolate;
+
+    // entries, linked from the most recently used (head) to the least (tail)
+    private final long[] keys;
+    private final ABFTriple[] systems;
+    private final int[] newer;
+    private final int[] older;
+    private int head = -1;
+    private int tail = -1;
+    private int size = 0;
+
+    /** hash table of entry + 1, 0 for an empty slot. At least twice CAPACITY so probes stay short */
+    private final int[] slots;
+    private final int MASK;
+
+    /** where interpolated systems go, allocated the first time it interpolates */
+    private ABFTriple blended;
+
+    private int hits = 0;
+    private int misses = 0;
+    private int evictions = 0;
+
+
+
+    /**
+     * Create a discretization cache
+     *
+     * @param discretizer what to call on a miss
+     * @param xStep grid spacing of the first operating point variable
+     * @param yStep grid spacing of the second operating point variable
+     * @param capacity max number of grid points to keep
+     * @param interpolate whether to interpolate between grid points
+     */
+    public DiscretizationCache(Discretizer discretizer, double xStep, double yStep, int capacity, boolean interpolate) {
+        DISCRETIZER = discretizer;
+        X_STEP = xStep;
+        Y_STEP = yStep;
+        CAPACITY = capacity;
+
+        this.interpolate = interpolate;
+
+        keys = new long[CAPACITY];
+        systems = new ABFTriple[CAPACITY];
+        newer = new int[CAPACITY];
+        older = new int[CAPACITY];
+
+        slots = new int[Integer.highestOneBit(Math.max(1, CAPACITY) * 4 - 1)];
+        MASK = slots.length - 1;
+    }
+
+
+
+    /**
+     * Get the discrete system at an operating point
+     *
+     * @param x first operating point variable
+     * @param y second operating point variable
+     *
+     * @return discrete system at (or interpolated to) the operating point. Don't
+     * change it, and copy it if it needs to last past the next call.
+     */
+    public ABFTriple get(double x, double y) {
+        double gx = x / X_STEP;
+        double gy = y / Y_STEP;
+
+        if (!interpolate) {
+            return get((int) Math.round(gx), (int) Math.round(gy));
+        }
+
+        int i = (int) Math.floor(gx);
+        int j = (int) Math.floor(gy);
+
+        // how far between grid points
+        double fx = gx - i;
+        double fy = gy - j;
+
+        ABFTriple s00 = get(i,     j);
+        ABFTriple s10 = get(i + 1, j);
+        ABFTriple s01 = get(i,     j + 1);
+        ABFTriple s11 = get(i + 1, j + 1);
+
+        double w00 = (1 - fx) * (1 - fy);
+        double w10 = fx * (1 - fy);
+        double w01 = (1 - fx) * fy;
+        double w11 = fx * fy;
+
+        if (blended == null) {
+            blended = new ABFTriple(
+                new SimpleMatrix(s00.getA().numRows(), s00.getA().numCols()),
+                new SimpleMatrix(s00.getB().numRows(), s00.getB().numCols()),
+                new SimpleMatrix(s00.getF().numRows(), s00.getF().numCols())
+            );
+        }
+
+        blend(s00.getA(), s10.getA(), s01.getA(), s11.getA(), w00, w10, w01, w11, blended.getA());
+        blend(s00.getB(), s10.getB(), s01.getB(), s11.getB(), w00, w10, w01, w11, blended.getB());
+        blend(s00.getF(), s10.getF(), s01.getF(), s11.getF(), w00, w10, w01, w11, blended.getF());
+
+        return blended;
+    }
+
+    private ABFTriple get(int i, int j) {
+        long key = key(i, j);
+        int entry = find(key);
+
+        if (entry >= 0) {
+            hits++;
+            unlink(entry);
+            linkHead(entry);
+            return systems[entry];
+        }
+
+        misses++;
+
+        ABFTriple system = DISCRETIZER.discretize(i * X_STEP, j * Y_STEP);
+
+        if (size < CAPACITY) {
+            entry = size++;
+        } else {
+            // reuse the least recently used one
+            entry = tail;
+            remove(keys[entry]);
+            unlink(entry);
+            evictions++;
+        }
+
+        keys[entry] = key;
+        systems[entry] = system;
+        insert(key, entry);
+        linkHead(entry);
+
+        return system;
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | (j & 0xffffffffL);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & MASK;
+    }
+
+    /** @return entry with the key, or -1 */
+    private int find(long key) {
+        for (int s = slot(key); slots[s] != 0; s = (s + 1) & MASK) {
+            if (keys[slots[s] - 1] == key) {
+                return slots[s] - 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private void insert(long key, int entry) {
+        int s = slot(key);
+        while (slots[s] != 0) {
+            s = (s + 1) & MASK;
+        }
+
+        slots[s] = entry + 1;
+    }
+
+    /** take a key out of the hash table, moving back anything after it that probed past it */
+    private void remove(long key) {
+        int s = slot(key);
+        while (keys[slots[s] - 1] != key) {
+            s = (s + 1) & MASK;
+        }
+
+        int next = s;
+        while (true) {
+            next = (next + 1) & MASK;
+            if (slots[next] == 0) {
+                break;
+            }
+
+            // it can fill the hole if the hole is between where it wants to be and where it is
+            int wanted = slot(keys[slots[next] - 1]);
+            boolean movable = s <= next ? (wanted <= s || wanted > next) : (wanted <= s && wanted > next);
+
+            if (movable) {
+                slots[s] = slots[next];
+                s = next;
+            }
+        }
+
+        slots[s] = 0;
+    }
+
+    private void unlink(int entry) {
+        if (newer[entry] >= 0) { older[newer[entry]] = older[entry]; } else { head = older[entry]; }
+        if (older[entry] >= 0) { newer[older[entry]] = newer[entry]; } else { tail = newer[entry]; }
+    }
+
+    private void linkHead(int entry) {
+        newer[entry] = -1;
+        older[entry] = head;
+
+        if (head >= 0) {
+            newer[head] = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private static void blend(SimpleMatrix m00, SimpleMatrix m10, SimpleMatrix m01, SimpleMatrix m11,
+            double w00, double w10, double w01, double w11, SimpleMatrix result) {
+        for (int r = 0; r < result.numRows(); r++) {
+            for (int c = 0; c < result.numCols(); c++) {
+                result.set(r, c,
+                    w00 * m00.get(r, c) +
+                    w10 * m10.get(r, c) +
+                    w01 * m01.get(r, c) +
+                    w11 * m11.get(r, c)
+                );
+            }
+        }
+    }
+
+
+
+    public void setInterpolate(boolean interpolate) {
+        this.interpolate = interpolate;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(systems, null);
+        head = -1;
+        tail = -1;
+        size = 0;
+    }
+
+    public boolean getInterpolate() { return interpolate; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public int getEvictions() { return evictions; }
+    public int getSize() { return size; }
+}
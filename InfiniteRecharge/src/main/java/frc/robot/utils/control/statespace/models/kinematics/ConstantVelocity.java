@@ -0,0 +1,81 @@
+package frc.robot.utils.control.statespace.models.kinematics;
+
+import org.ejml.simple.SimpleMatrix;
+
+import frc.robot.utils.control.statespace.models.linearized.LinearizedModel;
+
+
+
+/**
+ * Things that keep moving the way they're moving. For n positions the state is
+ *     [p_1 ... p_n, v_1 ... v_n]
+ * and over a time step dt
+ *     p_{k + 1} = p_k + v_k dt
+ *     v_{k + 1} = v_k
+ * Anything that changes the velocities is left to the process noise.
+ *
+ * The time step can change every step (setDt()), for things like vision that
+ * don't come at a fixed rate. There's a single input that doesn't do anything,
+ * since LinearizedModel needs one.
+ */
+public class ConstantVelocity extends LinearizedModel {
+    private final int POSITIONS;
+
+    private double dt = 0;
+
+    // returned every time so stepping doesn't allocate them
+    private final SimpleMatrix A;
+    private final SimpleMatrix B;
+    private final SimpleMatrix F;
+
+
+
+    /**
+     * @param positions number of positions, which is half the number of states
+     */
+    public ConstantVelocity(int positions) {
+        super(2 * positions, 1);
+
+        POSITIONS = positions;
+
+        A = SimpleMatrix.identity(NUM_STATES);
+        B = new SimpleMatrix(NUM_STATES, 1);
+        F = new SimpleMatrix(NUM_STATES, 1);
+    }
+
+
+
+    /** Set how long the next step is (s) */
+    public void setDt(double dt) {
+        this.dt = dt;
+    }
+
+    public double getDt() {
+        return dt;
+    }
+
+    public int getNumPositions() {
+        return POSITIONS;
+    }
+
+
+
+    @Override
+    protected SimpleMatrix updateA(SimpleMatrix stateVector, double t, int k) {
+        for (int i = 0; i < POSITIONS; i++) {
+            A.set(i, POSITIONS + i, dt);
+        }
+
+        return A;
+    }
+
+    @Override
+    protected SimpleMatrix updateB(SimpleMatrix stateVector, double t, int k) {
+        return B;
+    }
+
+    @Override
+    protected SimpleMatrix updateF(SimpleMatrix stateVector, double t, int k) {
+        return F;
+    }
+}
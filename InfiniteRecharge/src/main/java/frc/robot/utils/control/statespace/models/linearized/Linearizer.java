@@ -1,7 +1,139 @@
 package frc.robot.utils.control.statespace.models.linearized;
 
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
 
 
+
+/**
+ * Linearizes nonlinear dynamics
+ *     x' = f(x, u, t)
+ * around an operating point (x0, u0) into
+ *     x' ~= A x + B u + F
+ * the same form LinearizedModel uses, with A = df/dx and B = df/du at the
+ * operating point and F = f(x0, u0) - A x0 - B u0.
+ *
+ * The Jacobians come from central finite differences, so the only thing that
+ * has to be written for a new system is f itself. Each column takes two
+ * evaluations of f with one state (or input) nudged each way by a step
+ * scaled to its size.
+ *
+ * A, B and F are preallocated and overwritten by every linearize(), so it
+ * doesn't allocate anything (as long as f doesn't), but copy them if they
+ * need to be kept.
+ */
 public class Linearizer {
-    
-}
\ No newline at end of file
+    /** Nonlinear dynamics */
+    public interface Dynamics {
+        /**
+         * @param out where to write f(x, u, t). Don't modify x or u.
+         */
+        void evaluate(DMatrixRMaj x, DMatrixRMaj u, double t, DMatrixRMaj out);
+    }
+
+
+
+    /** cube root of machine epsilon, which balances truncation and rounding error for central differences */
+    private static final double STEP = Math.cbrt(Math.ulp(1.0));
+
+    private final Dynamics F_X;
+
+    private final int NUM_STATES;
+    private final int NUM_INPUTS;
+
+    private final DMatrixRMaj A;
+    private final DMatrixRMaj B;
+    private final DMatrixRMaj F;
+
+    // workspaces
+    private final DMatrixRMaj x;
+    private final DMatrixRMaj u;
+    private final DMatrixRMaj plus;
+    private final DMatrixRMaj minus;
+
+
+
+    public Linearizer(Dynamics f, int states, int inputs) {
+        F_X = f;
+
+        NUM_STATES = states;
+        NUM_INPUTS = inputs;
+
+        A = new DMatrixRMaj(states, states);
+        B = new DMatrixRMaj(states, inputs);
+        F = new DMatrixRMaj(states, 1);
+
+        x = new DMatrixRMaj(states, 1);
+        u = new DMatrixRMaj(inputs, 1);
+        plus = new DMatrixRMaj(states, 1);
+        minus = new DMatrixRMaj(states, 1);
+    }
+
+
+
+    /**
+     * Linearize around an operating point. Read the result with getA(),
+     * getB() and getF().
+     */
+    public void linearize(DMatrixRMaj x0, DMatrixRMaj u0, double t) {
+        x.set(x0);
+        u.set(u0);
+
+        // A = df/dx
+        for (int j = 0; j < NUM_STATES; j++) {
+            double h = difference(x, j, t);
+
+            for (int i = 0; i < NUM_STATES; i++) {
+                A.set(i, j, (plus.get(i, 0) - minus.get(i, 0)) / h);
+            }
+        }
+
+        // B = df/du
+        for (int j = 0; j < NUM_INPUTS; j++) {
+            double h = difference(u, j, t);
+
+            for (int i = 0; i < NUM_STATES; i++) {
+                B.set(i, j, (plus.get(i, 0) - minus.get(i, 0)) / h);
+            }
+        }
+
+        // F = f(x0, u0) - A x0 - B u0
+        F_X.evaluate(x, u, t, F);
+        CommonOps_DDRM.multAdd(-1, A, x, F);
+        CommonOps_DDRM.multAdd(-1, B, u, F);
+    }
+
+    /**
+     * Evaluate f into plus and minus with element j of v nudged up and down
+     *
+     * @return how far apart the two points were
+     */
+    private double difference(DMatrixRMaj v, int j, double t) {
+        double value = v.get(j, 0);
+        double h = STEP * Math.max(1, Math.abs(value));
+
+        // value + h gets rounded, so divide by how far apart the points really are and not 2h
+        double up = value + h;
+        double down = value - h;
+
+        v.set(j, 0, up);
+        F_X.evaluate(x, u, t, plus);
+        v.set(j, 0, down);
+        F_X.evaluate(x, u, t, minus);
+        v.set(j, 0, value);
+
+        return up - down;
+    }
+
+
+
+    /** @return df/dx from the last linearize() */
+    public DMatrixRMaj getA() { return A; }
+    /** @return df/du from the last linearize() */
+    public DMatrixRMaj getB() { return B; }
+    /** @return f(x0, u0) - A x0 - B u0 from the last linearize() */
+    public DMatrixRMaj getF() { return F; }
+
+    public int getNumStates() { return NUM_STATES; }
+    public int getNumInputs() { return NUM_INPUTS; }
+}
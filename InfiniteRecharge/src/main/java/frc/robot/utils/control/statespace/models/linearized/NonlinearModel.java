@@ -0,0 +1,73 @@
+package frc.robot.utils.control.statespace.models.linearized;
+
+import org.ejml.simple.SimpleMatrix;
+
+import frc.robot.utils.control.statespace.models.ABFTriple;
+import frc.robot.utils.control.statespace.models.C2D;
+
+
+
+/**
+ * Model of a nonlinear continuous system where the only thing that has to be
+ * written is the dynamics f(x, u, t). Every step it's linearized around the
+ * current state and the last input by a Linearizer and then discretized, so it
+ * can be given straight to a KalmanFilter (which makes it an EKF) or used for
+ * LQR without working out any Jacobians by hand.
+ */
+public class NonlinearModel extends CLinearizedModel {
+    private final Linearizer linearizer;
+
+
+
+    /**
+     * @param f continuous dynamics
+     * @param dt time step to discretize with
+     */
+    public NonlinearModel(Linearizer.Dynamics f, int states, int inputs, double dt) {
+        super(states, inputs, dt);
+
+        linearizer = new Linearizer(f, states, inputs);
+    }
+
+
+
+    private void linearize(SimpleMatrix stateVector, double t) {
+        linearizer.linearize(stateVector.getDDRM(), input.getDDRM(), t);
+    }
+
+    @Override
+    public SimpleMatrix updateAc(SimpleMatrix stateVector, double t, int k) {
+        linearize(stateVector, t);
+        return SimpleMatrix.wrap(linearizer.getA().copy());
+    }
+
+    @Override
+    public SimpleMatrix updateBc(SimpleMatrix stateVector, double t, int k) {
+        linearize(stateVector, t);
+        return SimpleMatrix.wrap(linearizer.getB().copy());
+    }
+
+    @Override
+    public SimpleMatrix updateFc(SimpleMatrix stateVector, double t, int k) {
+        linearize(stateVector, t);
+        return SimpleMatrix.wrap(linearizer.getF().copy());
+    }
+
+    @Override
+    public ABFTriple getDiscreteSystem(SimpleMatrix stateVector, double t, int k) {
+        // only linearize once instead of once for each matrix
+        linearize(stateVector, t);
+
+        // c2d only reads these, so the linearizer's workspaces can be used directly
+        return C2D.c2d(
+            SimpleMatrix.wrap(linearizer.getA()),
+            SimpleMatrix.wrap(linearizer.getB()),
+            SimpleMatrix.wrap(linearizer.getF()),
+            DT
+        );
+    }
+
+    public Linearizer getLinearizer() {
+        return linearizer;
+    }
+}
@@ -1,5 +1,15 @@
 package frc.robot.utils.control.statespace.models.motors;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.ejml.data.DMatrixRMaj;
 
 import frc.robot.utils.math.units.Quantity;
@@ -13,6 +23,9 @@ public class MotorType {
     public static final MotorType NEO = new NEO();
     public static final MotorType pro775 = new pro775();
 
+    /** constants measured on our own motors (see MotorIdentifier), by name */
+    private static final Map<String, MotorType> identified = new ConcurrentHashMap<String, MotorType>();
+
 
 
 
@@ -32,14 +45,98 @@ public class MotorType {
         K_W = new Quantity(Kw, Units.V.divide(Units.RAD_PER_S));
     }
 
-    
+
 
     public Quantity getB() { return b; }
     public Quantity getR() { return R; }
     public Quantity getKT() { return K_T; }
     public Quantity getKW() { return K_W; }
-    
+
     public Quantity getKF() {
         return (b.multiply(R).divide(K_T)).add(K_W);
     }
-}
\ No newline at end of file
+
+
+
+    /**
+     * Get a motor's measured constants
+     *
+     * @param name what it was saved as
+     * @param fallback what to use if it hasn't been measured, like the datasheet type
+     */
+    public static MotorType get(String name, MotorType fallback) {
+        MotorType type = identified.get(name);
+        return type == null ? fallback : type;
+    }
+
+    /** Load measured constants from a motor file so get() finds them. Call once at startup. */
+    public static void loadIdentified(Path path) {
+        Map<String, MotorType> types = load(path);
+        identified.putAll(types);
+
+        if (!types.isEmpty()) {
+            System.out.println("Loaded measured constants for " + types.keySet());
+        }
+    }
+
+    /**
+     * Read a motor file: one motor per line as "name b R Kt Kw" (SI), with # comments
+     *
+     * @return motors by name, empty if the file doesn't exist or can't be read
+     */
+    public static Map<String, MotorType> load(Path path) {
+        Map<String, MotorType> types = new LinkedHashMap<String, MotorType>();
+
+        if (!Files.exists(path)) {
+            return types;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] fields = line.split("\\s+");
+                if (fields.length < 5) {
+                    System.out.println("Skipping bad line in " + path + ": " + line);
+                    continue;
+                }
+
+                try {
+                    types.put(fields[0], new MotorType(
+                        Double.parseDouble(fields[1]),
+                        Double.parseDouble(fields[2]),
+                        Double.parseDouble(fields[3]),
+                        Double.parseDouble(fields[4])
+                    ));
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping bad line in " + path + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't read motor file " + path + ": " + e.getMessage());
+            types.clear();
+        }
+
+        return types;
+    }
+
+    /** Write a motor file that load() can read */
+    public static void save(Path path, Map<String, MotorType> types) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# name b (Nm/(rad/s)) R (Ohm) Kt (Nm/A) Kw (V/(rad/s))");
+            writer.newLine();
+
+            for (Map.Entry<String, MotorType> entry : types.entrySet()) {
+                MotorType type = entry.getValue();
+
+                writer.write(entry.getKey() + " " + type.b.getValue() + " " + type.R.getValue() + " "
+                    + type.K_T.getValue() + " " + type.K_W.getValue());
+                writer.newLine();
+            }
+        }
+    }
+}
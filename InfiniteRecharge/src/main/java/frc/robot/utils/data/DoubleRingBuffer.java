@@ -0,0 +1,311 @@
+package frc.robot.utils.data;
+
+
+
+/**
+ * Window of the last CAPACITY doubles, stored in a plain double[] so adding
+ * never boxes or allocates (unlike DataWindow<Double>).
+ *
+ * Keeps running statistics over the window as values come in:
+ *   - mean and variance with Welford's method (adjusted for values leaving the
+ *     window), so they're O(1) and don't fall apart the way sum(x^2) - n*mean^2
+ *     does when the variance is small compared to the mean. Every time the
+ *     window wraps around they're recomputed from scratch so rounding errors
+ *     can't build up forever.
+ *   - min and max with monotonic deques, O(1) amortized
+ * Percentiles are worked out when asked for with a quickselect on a
+ * preallocated scratch array, so O(CAPACITY) but still no allocating.
+ *
+ * Not thread safe.
+ */
+public class DoubleRingBuffer {
+    private final int CAPACITY;
+
+    private final double[] values;
+    /** for percentiles, so they don't reorder values */
+    private final double[] scratch;
+
+    /** total number of values ever added, the next value's sample number */
+    private long count = 0;
+    private int size = 0;
+
+    private double mean = 0;
+    /** sum of squared differences from the mean */
+    private double m2 = 0;
+
+    private final IndexDeque minDeque;
+    private final IndexDeque maxDeque;
+
+
+
+    public DoubleRingBuffer(int capacity) {
+        CAPACITY = capacity;
+
+        values = new double[CAPACITY];
+        scratch = new double[CAPACITY];
+
+        minDeque = new IndexDeque(CAPACITY);
+        maxDeque = new IndexDeque(CAPACITY);
+    }
+
+
+
+    public void add(double x) {
+        long index = count;
+        int slot = (int) (index % CAPACITY);
+
+        if (size < CAPACITY) {
+            size++;
+
+            double delta = x - mean;
+            mean += delta / size;
+            m2 += delta * (x - mean);
+        } else {
+            // x replaces the oldest value
+            double old = values[slot];
+            double oldMean = mean;
+
+            mean += (x - old) / size;
+            m2 += (x - old) * (x - mean + old - oldMean);
+        }
+
+        // drop samples that are leaving the window
+        while (!minDeque.isEmpty() && minDeque.peekFront() <= index - CAPACITY) {
+            minDeque.popFront();
+        }
+        while (!maxDeque.isEmpty() && maxDeque.peekFront() <= index - CAPACITY) {
+            maxDeque.popFront();
+        }
+
+        values[slot] = x;
+        count++;
+
+        // anything x beats can never be the min/max again
+        while (!minDeque.isEmpty() && valueAt(minDeque.peekBack()) >= x) {
+            minDeque.popBack();
+        }
+        minDeque.pushBack(index);
+
+        while (!maxDeque.isEmpty() && valueAt(maxDeque.peekBack()) <= x) {
+            maxDeque.popBack();
+        }
+        maxDeque.pushBack(index);
+
+        if (size == CAPACITY && count % CAPACITY == 0) {
+            recompute();
+        }
+    }
+
+    private double valueAt(long index) {
+        return values[(int) (index % CAPACITY)];
+    }
+
+    /** recompute mean and variance in two passes */
+    private void recompute() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        mean = sum / size;
+
+        double sumSq = 0;
+        for (int i = 0; i < size; i++) {
+            double d = values[i] - mean;
+            sumSq += d * d;
+        }
+        m2 = sumSq;
+    }
+
+    public void reset() {
+        count = 0;
+        size = 0;
+        mean = 0;
+        m2 = 0;
+
+        minDeque.clear();
+        maxDeque.clear();
+    }
+
+
+
+    /**
+     * Get a value in the window
+     *
+     * @param i 0 for the oldest value, size() - 1 for the newest
+     */
+    public double get(int i) {
+        return valueAt(count - size + i);
+    }
+
+    public double getNewest() {
+        return size == 0 ? 0 : valueAt(count - 1);
+    }
+
+    /**
+     * Copy the window, oldest first
+     *
+     * @param out array of at least size() elements
+     *
+     * @return number of values copied
+     */
+    public int toArray(double[] out) {
+        for (int i = 0; i < size; i++) {
+            out[i] = get(i);
+        }
+
+        return size;
+    }
+
+    /** number of values in the window, at most the capacity */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return CAPACITY;
+    }
+
+    /** do we have a full window of data? */
+    public boolean isFilled() {
+        return size == CAPACITY;
+    }
+
+
+
+    // statistics. All of these are 0 if the window is empty
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getSum() {
+        return mean * size;
+    }
+
+    /** population variance (divides by n) */
+    public double getVariance() {
+        if (size == 0) {
+            return 0;
+        }
+
+        // rounding can make it a hair below 0 when all the values are the same
+        return Math.max(m2, 0) / size;
+    }
+
+    /** unbiased sample variance (divides by n - 1) */
+    public double getSampleVariance() {
+        if (size <= 1) {
+            return 0;
+        }
+
+        return Math.max(m2, 0) / (size - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return minDeque.isEmpty() ? 0 : valueAt(minDeque.peekFront());
+    }
+
+    public double getMax() {
+        return maxDeque.isEmpty() ? 0 : valueAt(maxDeque.peekFront());
+    }
+
+    /**
+     * Get a percentile of the window, linearly interpolating between values
+     *
+     * @param percentile 0 to 100
+     */
+    public double getPercentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+
+        for (int i = 0; i < size; i++) {
+            scratch[i] = values[i];
+        }
+
+        double rank = Math.min(Math.max(percentile, 0), 100) / 100 * (size - 1);
+        int lo = (int) rank;
+        double frac = rank - lo;
+
+        double a = select(scratch, size, lo);
+        if (frac == 0) {
+            return a;
+        }
+
+        // select leaves everything after lo at least as big, so the next value is the smallest of those
+        double b = scratch[lo + 1];
+        for (int i = lo + 2; i < size; i++) {
+            b = Math.min(b, scratch[i]);
+        }
+
+        return a + (b - a) * frac;
+    }
+
+    public double getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * Quickselect. Rearranges arr[0, n) so arr[k] is the kth smallest, with
+     * everything before it no bigger and everything after it no smaller.
+     */
+    private static double select(double[] arr, int n, int k) {
+        int lo = 0;
+        int hi = n - 1;
+
+        while (lo < hi) {
+            // median of three pivot so sorted windows aren't the worst case
+            int mid = (lo + hi) >>> 1;
+            if (arr[mid] < arr[lo]) { swap(arr, mid, lo); }
+            if (arr[hi] < arr[lo]) { swap(arr, hi, lo); }
+            if (arr[hi] < arr[mid]) { swap(arr, hi, mid); }
+            double pivot = arr[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (arr[i] < pivot) { i++; }
+                while (arr[j] > pivot) { j--; }
+
+                if (i <= j) {
+                    swap(arr, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                break;
+            }
+        }
+
+        return arr[k];
+    }
+
+    private static void swap(double[] arr, int i, int j) {
+        double tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+    }
+
+
+
+    @Override
+    public String toString() {
+        String ret = "";
+
+        for (int i = 0; i < size; i++) {
+            ret += "\t" + get(i) + "\n";
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,58 @@
+package frc.robot.utils.data;
+
+
+
+/**
+ * Fixed size double ended queue of sample numbers, used by the ring buffers
+ * to keep monotonic deques for their windowed min/max. The values themselves
+ * stay in the ring buffer, this only holds which samples are still candidates.
+ *
+ * Never holds more than the window length, so it never grows or allocates.
+ */
+class IndexDeque {
+    private final long[] indices;
+    private final int CAPACITY;
+
+    private int front = 0;
+    private int size = 0;
+
+
+
+    IndexDeque(int capacity) {
+        CAPACITY = capacity;
+        indices = new long[CAPACITY];
+    }
+
+
+
+    void pushBack(long index) {
+        indices[(front + size) % CAPACITY] = index;
+        size++;
+    }
+
+    void popBack() {
+        size--;
+    }
+
+    void popFront() {
+        front = (front + 1) % CAPACITY;
+        size--;
+    }
+
+    long peekFront() {
+        return indices[front];
+    }
+
+    long peekBack() {
+        return indices[(front + size - 1) % CAPACITY];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        front = 0;
+        size = 0;
+    }
+}
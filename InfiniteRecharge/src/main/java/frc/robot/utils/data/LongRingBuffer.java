@@ -0,0 +1,132 @@
+package frc.robot.utils.data;
+
+
+
+/**
+ * Window of the last CAPACITY longs, for things like timestamps and
+ * System.nanoTime() durations that shouldn't go through a double (or a Long).
+ *
+ * The sum is kept exactly in a long so the mean never drifts, and min/max
+ * use monotonic deques like DoubleRingBuffer. Nothing allocates after it's made.
+ *
+ * Not thread safe.
+ */
+public class LongRingBuffer {
+    private final int CAPACITY;
+
+    private final long[] values;
+
+    /** total number of values ever added, the next value's sample number */
+    private long count = 0;
+    private int size = 0;
+
+    private long sum = 0;
+
+    private final IndexDeque minDeque;
+    private final IndexDeque maxDeque;
+
+
+
+    public LongRingBuffer(int capacity) {
+        CAPACITY = capacity;
+
+        values = new long[CAPACITY];
+
+        minDeque = new IndexDeque(CAPACITY);
+        maxDeque = new IndexDeque(CAPACITY);
+    }
+
+
+
+    public void add(long x) {
+        long index = count;
+        int slot = (int) (index % CAPACITY);
+
+        if (size < CAPACITY) {
+            size++;
+        } else {
+            sum -= values[slot];
+        }
+        sum += x;
+
+        while (!minDeque.isEmpty() && minDeque.peekFront() <= index - CAPACITY) {
+            minDeque.popFront();
+        }
+        while (!maxDeque.isEmpty() && maxDeque.peekFront() <= index - CAPACITY) {
+            maxDeque.popFront();
+        }
+
+        values[slot] = x;
+        count++;
+
+        while (!minDeque.isEmpty() && valueAt(minDeque.peekBack()) >= x) {
+            minDeque.popBack();
+        }
+        minDeque.pushBack(index);
+
+        while (!maxDeque.isEmpty() && valueAt(maxDeque.peekBack()) <= x) {
+            maxDeque.popBack();
+        }
+        maxDeque.pushBack(index);
+    }
+
+    private long valueAt(long index) {
+        return values[(int) (index % CAPACITY)];
+    }
+
+    public void reset() {
+        count = 0;
+        size = 0;
+        sum = 0;
+
+        minDeque.clear();
+        maxDeque.clear();
+    }
+
+
+
+    /**
+     * Get a value in the window
+     *
+     * @param i 0 for the oldest value, size() - 1 for the newest
+     */
+    public long get(int i) {
+        return valueAt(count - size + i);
+    }
+
+    public long getNewest() {
+        return size == 0 ? 0 : valueAt(count - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return CAPACITY;
+    }
+
+    public boolean isFilled() {
+        return size == CAPACITY;
+    }
+
+
+
+    // statistics. All of these are 0 if the window is empty
+
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return size == 0 ? 0 : (double) sum / size;
+    }
+
+    public long getMin() {
+        return minDeque.isEmpty() ? 0 : valueAt(minDeque.peekFront());
+    }
+
+    public long getMax() {
+        return maxDeque.isEmpty() ? 0 : valueAt(maxDeque.peekFront());
+    }
+}
@@ -0,0 +1,107 @@
+package frc.robot.utils.data;
+
+
+
+/**
+ * Window of samples that each have several values (channels), like
+ * position/velocity/current for a motor. Stored as a struct of arrays - one
+ * DoubleRingBuffer per channel - instead of an array of sample objects, so
+ * adding a sample doesn't allocate and each channel gets its own running
+ * statistics.
+ *
+ * All channels always have the same number of values. Not thread safe.
+ */
+public class MultiChannelRingBuffer {
+    private final DoubleRingBuffer[] channels;
+
+
+
+    /**
+     * @param channels number of values in each sample
+     * @param capacity number of samples to keep
+     */
+    public MultiChannelRingBuffer(int channels, int capacity) {
+        this.channels = new DoubleRingBuffer[channels];
+
+        for (int i = 0; i < channels; i++) {
+            this.channels[i] = new DoubleRingBuffer(capacity);
+        }
+    }
+
+
+
+    /*
+     * Separate overloads instead of varargs so adding a sample doesn't
+     * allocate an array; channels past the ones given get 0.
+     */
+    public void add(double a) {
+        add(a, 0, 0, 0);
+    }
+
+    public void add(double a, double b) {
+        add(a, b, 0, 0);
+    }
+
+    public void add(double a, double b, double c) {
+        add(a, b, c, 0);
+    }
+
+    public void add(double a, double b, double c, double d) {
+        int n = channels.length;
+
+        if (n > 0) { channels[0].add(a); }
+        if (n > 1) { channels[1].add(b); }
+        if (n > 2) { channels[2].add(c); }
+        if (n > 3) { channels[3].add(d); }
+
+        for (int i = 4; i < n; i++) {
+            channels[i].add(0);
+        }
+    }
+
+    /**
+     * Add a sample with any number of channels
+     *
+     * @param sample array of at least getChannels() values
+     */
+    public void add(double[] sample) {
+        for (int i = 0; i < channels.length; i++) {
+            channels[i].add(sample[i]);
+        }
+    }
+
+    public void reset() {
+        for (DoubleRingBuffer channel : channels) {
+            channel.reset();
+        }
+    }
+
+
+
+    /**
+     * Get a value in the window
+     *
+     * @param channel which value of the sample
+     * @param i 0 for the oldest sample, size() - 1 for the newest
+     */
+    public double get(int channel, int i) {
+        return channels[channel].get(i);
+    }
+
+    /** Get one channel, which has its own statistics (mean, min, percentiles, ...) */
+    public DoubleRingBuffer getChannel(int channel) {
+        return channels[channel];
+    }
+
+    public int getChannels() {
+        return channels.length;
+    }
+
+    public int size() {
+        return channels.length == 0 ? 0 : channels[0].size();
+    }
+
+    public boolean isFilled() {
+        return channels.length == 0 || channels[0].isFilled();
+    }
+}
@@ -0,0 +1,167 @@
+package frc.robot.utils.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+
+/**
+ * Lock-free queue of timestamped samples for passing sensor data from exactly
+ * one producer thread to exactly one consumer thread.
+ *
+ * Each sample is a timestamp and WIDTH doubles, stored in preallocated arrays
+ * so neither side ever allocates or blocks. If the consumer falls behind and
+ * the buffer fills up, new samples are dropped (and counted) rather than
+ * overwriting ones the consumer might be reading.
+ *
+ * Only the producer may call offer(), and only the consumer may call peek/poll.
+ * The rest can be called from any thread.
+ */
+public class SPSCRingBuffer {
+    private final int CAPACITY;
+    private final int MASK;
+    private final int WIDTH;
+
+    private final double[] timestamps;
+    private final double[] values;
+
+    /** index of the next sample to read, only written by the consumer */
+    private final AtomicLong head = new AtomicLong(0);
+    /** index of the next sample to write, only written by the producer */
+    private final AtomicLong tail = new AtomicLong(0);
+
+    /** only written by the producer, but getDropped() can be called from anywhere */
+    private final AtomicLong dropped = new AtomicLong(0);
+
+
+
+    /**
+     * Create a ring buffer
+     *
+     * @param capacity max number of samples waiting to be read, rounded up to a power of 2
+     * @param width number of values in each sample (not counting the timestamp), at most 4
+     */
+    public SPSCRingBuffer(int capacity, int width) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        CAPACITY = size;
+        MASK = size - 1;
+        WIDTH = width;
+
+        timestamps = new double[CAPACITY];
+        values = new double[CAPACITY * WIDTH];
+    }
+
+
+
+    /*
+     * Producer side. Separate overloads instead of varargs so adding a sample
+     * doesn't allocate an array; values past the ones given are set to 0.
+     */
+    public boolean offer(double t, double a) {
+        return offer(t, a, 0, 0, 0);
+    }
+
+    public boolean offer(double t, double a, double b) {
+        return offer(t, a, b, 0, 0);
+    }
+
+    public boolean offer(double t, double a, double b, double c) {
+        return offer(t, a, b, c, 0);
+    }
+
+    /**
+     * Add a sample to the buffer
+     *
+     * @return false if the buffer was full and the sample was dropped
+     */
+    public boolean offer(double t, double a, double b, double c, double d) {
+        long index = tail.get();
+
+        if (index - head.get() >= CAPACITY) {
+            // only one writer, so this doesn't need to be an atomic increment
+            dropped.lazySet(dropped.get() + 1);
+            return false;
+        }
+
+        int slot = (int) (index & MASK);
+        int offset = slot * WIDTH;
+
+        timestamps[slot] = t;
+        if (WIDTH > 0) { values[offset]     = a; }
+        if (WIDTH > 1) { values[offset + 1] = b; }
+        if (WIDTH > 2) { values[offset + 2] = c; }
+        if (WIDTH > 3) { values[offset + 3] = d; }
+
+        // publish: everything written above is visible before the new tail is
+        tail.lazySet(index + 1);
+
+        return true;
+    }
+
+    /** @return samples dropped because the buffer was full. Safe to call from any thread. */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+
+
+    // Consumer side
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Get the timestamp of the oldest sample without removing it
+     *
+     * @return timestamp, or Double.POSITIVE_INFINITY if empty
+     */
+    public double peekTimestamp() {
+        long index = head.get();
+
+        if (index == tail.get()) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return timestamps[(int) (index & MASK)];
+    }
+
+    /**
+     * Remove the oldest sample
+     *
+     * @param out array of at least WIDTH + 1 elements; out[0] gets the timestamp and
+     * out[1..WIDTH] get the values
+     *
+     * @return false if there was nothing to read
+     */
+    public boolean poll(double[] out) {
+        long index = head.get();
+
+        if (index == tail.get()) {
+            return false;
+        }
+
+        int slot = (int) (index & MASK);
+        int offset = slot * WIDTH;
+
+        out[0] = timestamps[slot];
+        for (int i = 0; i < WIDTH; i++) {
+            out[i + 1] = values[offset + i];
+        }
+
+        // let the producer reuse the slot
+        head.lazySet(index + 1);
+
+        return true;
+    }
+
+    public int getCapacity() { return CAPACITY; }
+    public int getWidth() { return WIDTH; }
+}
@@ -1,16 +1,16 @@
 package frc.robot.utils.data.filters;
 
-import frc.robot.utils.data.DoubleDataWindow;
+import frc.robot.utils.data.DoubleRingBuffer;
 
 
 
 public class RunningAverageFilter {
-    private DoubleDataWindow dw;
+    private DoubleRingBuffer dw;
 
 
 
     public RunningAverageFilter(int length) {
-        dw = new DoubleDataWindow(length);
+        dw = new DoubleRingBuffer(length);
     }
 
 
@@ -18,6 +18,6 @@ public class RunningAverageFilter {
     public double calculate(double data) {
         dw.add(data);
 
-        return dw.getAverage();
+        return dw.getMean();
     }
 }
\ No newline at end of file
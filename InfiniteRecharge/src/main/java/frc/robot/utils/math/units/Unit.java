@@ -422,8 +422,8 @@ public class Unit {
     }
 
     public Unit multiply(Unit unit2) {
-        ArrayList<BaseUnit> numList = NUMERATOR_LIST; // this is a copy
-        ArrayList<BaseUnit> denomList = DENOMINATOR_LIST; // this is also a copy
+        ArrayList<BaseUnit> numList = getNumeratorList(); // this is a copy
+        ArrayList<BaseUnit> denomList = getDenominatorList(); // this is also a copy
 
         numList.addAll(unit2.getNumeratorList()); // can add whatever without causing problems
         denomList.addAll(unit2.getDenominatorList()); // can add whatever without causing problems
@@ -436,8 +436,8 @@ public class Unit {
     }
 
     public Unit divide(Unit unit2) {
-        ArrayList<BaseUnit> numList = NUMERATOR_LIST; // this is a copy
-        ArrayList<BaseUnit> denomList = DENOMINATOR_LIST; // this is also a copy
+        ArrayList<BaseUnit> numList = getNumeratorList(); // this is a copy
+        ArrayList<BaseUnit> denomList = getDenominatorList(); // this is also a copy
 
         numList.addAll(unit2.getDenominatorList()); // can add whatever without causing problems
         denomList.addAll(unit2.getNumeratorList()); // can add whatever without causing problems
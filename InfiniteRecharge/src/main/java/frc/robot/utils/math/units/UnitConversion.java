@@ -0,0 +1,78 @@
+package frc.robot.utils.math.units;
+
+
+
+/**
+ * A conversion between two units that has already been worked out.
+ *
+ * Quantity.to() is nice and flexible but it walks through every dimension of
+ * both units and makes a new Quantity each time, which adds up when it's done
+ * for every motor every loop. Since every conversion we have is just a
+ * multiplication, the (from, to) pair can be resolved once into a single
+ * double and then applied as many times as we want without making any garbage.
+ */
+public class UnitConversion {
+    private final Unit FROM;
+    private final Unit TO;
+
+    /** how many TO units are in 1 FROM unit */
+    private final double FACTOR;
+
+
+
+    private UnitConversion(Unit from, Unit to, double factor) {
+        FROM = from;
+        TO = to;
+        FACTOR = factor;
+    }
+
+    /**
+     * Resolve the conversion between two units
+     *
+     * @param from unit values will be given in
+     * @param to unit values should be converted to
+     *
+     * @return the conversion, or null if the units don't measure the same thing
+     */
+    public static UnitConversion between(Unit from, Unit to) {
+        if (!from.isCompatible(to)) {
+            return null;
+        }
+
+        // same as Quantity.to(): value in to = value in from / from.per(to)
+        return new UnitConversion(from, to, 1 / from.per(to));
+    }
+
+    public static UnitConversion between(BaseUnit from, BaseUnit to) {
+        return between(from.getUnit(), to.getUnit());
+    }
+
+    public static UnitConversion between(Unit from, BaseUnit to) {
+        return between(from, to.getUnit());
+    }
+
+    public static UnitConversion between(BaseUnit from, Unit to) {
+        return between(from.getUnit(), to);
+    }
+
+
+
+    public Unit getFrom() { return FROM; }
+    public Unit getTo() { return TO; }
+    public double getFactor() { return FACTOR; }
+
+    /** Convert a value from the FROM unit to the TO unit */
+    public double convert(double value) {
+        return value * FACTOR;
+    }
+
+    /** Convert a value from the TO unit back to the FROM unit */
+    public double invert(double value) {
+        return value / FACTOR;
+    }
+
+    /** Get the conversion going the other way */
+    public UnitConversion inverse() {
+        return new UnitConversion(TO, FROM, 1 / FACTOR);
+    }
+}
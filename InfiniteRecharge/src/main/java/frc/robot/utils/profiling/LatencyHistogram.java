@@ -0,0 +1,118 @@
+package frc.robot.utils.profiling;
+
+
+
+/**
+ * Fixed-size histogram of durations in nanoseconds. All of the memory is
+ * allocated in the constructor so recording a sample in the robot loop
+ * never creates garbage.
+ *
+ * Samples are binned linearly with a width of RESOLUTION_NS up to MAX_NS;
+ * anything longer goes into a single overflow bin (the exact maximum is
+ * still tracked separately so the worst case is never lost).
+ */
+public class LatencyHistogram {
+    private final long RESOLUTION_NS;
+    private final long MAX_NS;
+
+    private final int[] bins;
+    private int overflow = 0;
+
+    private int count = 0;
+    private long max = 0;
+    private long total = 0;
+
+
+
+    /**
+     * Create a histogram
+     *
+     * @param resolution_ns width of each bin in nanoseconds
+     * @param max_ns largest duration that still gets its own bin
+     */
+    public LatencyHistogram(long resolution_ns, long max_ns) {
+        RESOLUTION_NS = Math.max(1, resolution_ns);
+        MAX_NS = max_ns;
+
+        bins = new int[(int) (MAX_NS / RESOLUTION_NS) + 1];
+    }
+
+
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        if (nanos > MAX_NS) {
+            overflow++;
+        } else {
+            bins[(int) (nanos / RESOLUTION_NS)]++;
+        }
+
+        count++;
+        total += nanos;
+
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = 0;
+        }
+
+        overflow = 0;
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+
+
+    /**
+     * Get an upper bound of the duration below which the given fraction of samples fall
+     *
+     * @param fraction fraction of samples (0.5 for median, 0.99 for 99th percentile)
+     *
+     * @return percentile in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+
+        // number of samples that need to be at or below the returned value
+        long needed = (long) Math.ceil(fraction * count);
+        if (needed < 1) {
+            needed = 1;
+        }
+
+        long seen = 0;
+
+        for (int i = 0; i < bins.length; i++) {
+            seen += bins[i];
+
+            if (seen >= needed) {
+                // upper edge of the bin, but never above what we've actually seen
+                return Math.min((i + 1) * RESOLUTION_NS, max);
+            }
+        }
+
+        // it's in the overflow bin, so the best we can do is the max
+        return max;
+    }
+
+    public long getMax() { return max; }
+    public int getCount() { return count; }
+    public int getOverflowCount() { return overflow; }
+
+    public double getAverage() {
+        if (count == 0) {
+            return 0;
+        }
+
+        return (double) total / count;
+    }
+}
@@ -0,0 +1,260 @@
+package frc.robot.utils.profiling;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.config.Config.ProfilerConfig;
+
+
+
+/**
+ * Records how long each part of the robot loop takes so that when we overrun
+ * the loop we can tell who did it.
+ *
+ * Each timed part of the loop (a subsystem, the command scheduler, ...) is
+ * registered once at startup as a "section". Every loop, the time spent in each
+ * phase of a section is recorded into a preallocated LatencyHistogram, so the
+ * loop itself does no allocation. Once per publish period the p50/p99/max of
+ * every histogram is sent to the dashboard and the histograms are cleared.
+ *
+ * A section whose total time in a loop is more than the configured share of
+ * the loop budget gets flagged, as does the section that used the most time
+ * in a loop that went over budget.
+ */
+public class LoopProfiler {
+    public enum Phase {
+        Periodic,
+        Dashboard,
+        Scheduler
+    }
+
+    private static final String NAME = "LoopProfiler";
+    private static final double NS_PER_MS = 1000000.0;
+
+    private final boolean ENABLED;
+    private final long LOOP_BUDGET_NS;
+    private final long SECTION_BUDGET_NS;
+    private final long PUBLISH_PERIOD_NS;
+    private final long RESOLUTION_NS;
+    private final long HISTOGRAM_MAX_NS;
+
+
+
+    /** One timed part of the loop */
+    private class Section {
+        private final String NAME;
+
+        /** histogram per phase, null if the section doesn't have that phase */
+        private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+        /** dashboard keys, built once so publishing doesn't concatenate strings */
+        private final String[][] keys = new String[Phase.values().length][];
+
+        private final String OVERRUN_KEY;
+        private final String LOOP_OVERRUN_KEY;
+
+        /** time spent in this section during the current loop */
+        private long loopNanos = 0;
+        /** number of loops this section went over its own budget */
+        private int overruns = 0;
+        /** number of over-budget loops where this section was the biggest */
+        private int loopOverruns = 0;
+
+        private Section(String name, Phase[] phases) {
+            NAME = name;
+
+            for (Phase phase : phases) {
+                histograms[phase.ordinal()] = new LatencyHistogram(RESOLUTION_NS, HISTOGRAM_MAX_NS);
+
+                String prefix = LoopProfiler.NAME + "/" + NAME + "/" + phase.toString();
+                keys[phase.ordinal()] = new String[] {
+                    prefix + " p50 (ms)",
+                    prefix + " p99 (ms)",
+                    prefix + " max (ms)"
+                };
+            }
+
+            OVERRUN_KEY = LoopProfiler.NAME + "/" + NAME + "/Budget overruns";
+            LOOP_OVERRUN_KEY = LoopProfiler.NAME + "/" + NAME + "/Loop overruns caused";
+        }
+    }
+
+    private final ArrayList<Section> sections = new ArrayList<Section>();
+
+    /** time between consecutive loop starts */
+    private final LatencyHistogram loopPeriod;
+    /** time spent between startLoop() and endLoop() */
+    private final LatencyHistogram loopWork;
+
+    private long loopStart = 0;
+    private long lastPublish = 0;
+    private int totalLoopOverruns = 0;
+
+    private String lastSectionOverrun = "None";
+    private String lastLoopOverrun = "None";
+
+
+
+    public LoopProfiler(ProfilerConfig config) {
+        ENABLED = config.enabled;
+
+        LOOP_BUDGET_NS = (long) (config.loopBudget_ms * NS_PER_MS);
+        SECTION_BUDGET_NS = (long) (config.loopBudget_ms * config.sectionBudgetShare * NS_PER_MS);
+        PUBLISH_PERIOD_NS = (long) (config.publishPeriod_s * 1000 * NS_PER_MS);
+        RESOLUTION_NS = (long) (config.histogramResolution_us * 1000);
+        // anything more than two whole loops is an overflow
+        HISTOGRAM_MAX_NS = 2 * LOOP_BUDGET_NS;
+
+        loopPeriod = new LatencyHistogram(RESOLUTION_NS, HISTOGRAM_MAX_NS);
+        loopWork = new LatencyHistogram(RESOLUTION_NS, HISTOGRAM_MAX_NS);
+    }
+
+
+
+    /**
+     * Register a part of the loop to be timed. Call this during initialization,
+     * not in the loop, since it allocates.
+     *
+     * @param name name shown on the dashboard
+     * @param phases phases of the loop this section will record
+     *
+     * @return id to pass to record()
+     */
+    public int register(String name, Phase... phases) {
+        sections.add(new Section(name, phases));
+
+        return sections.size() - 1;
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+
+
+    /** Call at the very beginning of the timed part of the loop */
+    public void startLoop() {
+        if (!ENABLED) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        if (loopStart != 0) {
+            loopPeriod.record(now - loopStart);
+        }
+
+        loopStart = now;
+
+        for (int i = 0; i < sections.size(); i++) {
+            sections.get(i).loopNanos = 0;
+        }
+    }
+
+    /**
+     * Record how long a phase of a section took this loop
+     *
+     * @param id id given by register()
+     * @param phase phase that was timed
+     * @param nanos duration in nanoseconds
+     */
+    public void record(int id, Phase phase, long nanos) {
+        if (!ENABLED) {
+            return;
+        }
+
+        Section section = sections.get(id);
+        LatencyHistogram histogram = section.histograms[phase.ordinal()];
+
+        if (histogram != null) {
+            histogram.record(nanos);
+        }
+
+        section.loopNanos += nanos;
+    }
+
+    /** Call at the very end of the timed part of the loop */
+    public void endLoop() {
+        if (!ENABLED) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long work = now - loopStart;
+
+        loopWork.record(work);
+
+        // who went over their own share, and who was the biggest this loop
+        Section biggest = null;
+
+        for (int i = 0; i < sections.size(); i++) {
+            Section section = sections.get(i);
+
+            if (section.loopNanos > SECTION_BUDGET_NS) {
+                section.overruns++;
+                lastSectionOverrun = section.NAME;
+            }
+
+            if (biggest == null || section.loopNanos > biggest.loopNanos) {
+                biggest = section;
+            }
+        }
+
+        if (work > LOOP_BUDGET_NS) {
+            totalLoopOverruns++;
+
+            if (biggest != null) {
+                biggest.loopOverruns++;
+                lastLoopOverrun = biggest.NAME;
+            }
+        }
+
+        if (now - lastPublish >= PUBLISH_PERIOD_NS) {
+            publish();
+
+            lastPublish = now;
+        }
+    }
+
+
+
+    private void publish() {
+        for (int i = 0; i < sections.size(); i++) {
+            Section section = sections.get(i);
+
+            for (int p = 0; p < section.histograms.length; p++) {
+                LatencyHistogram histogram = section.histograms[p];
+
+                if (histogram == null) {
+                    continue;
+                }
+
+                publish(section.keys[p], histogram);
+            }
+
+            SmartDashboard.putNumber(section.OVERRUN_KEY, section.overruns);
+            SmartDashboard.putNumber(section.LOOP_OVERRUN_KEY, section.loopOverruns);
+        }
+
+        SmartDashboard.putNumber(NAME + "/Loop period p50 (ms)", loopPeriod.getPercentile(0.5) / NS_PER_MS);
+        SmartDashboard.putNumber(NAME + "/Loop period p99 (ms)", loopPeriod.getPercentile(0.99) / NS_PER_MS);
+        SmartDashboard.putNumber(NAME + "/Loop period max (ms)", loopPeriod.getMax() / NS_PER_MS);
+        loopPeriod.reset();
+
+        SmartDashboard.putNumber(NAME + "/Loop work p50 (ms)", loopWork.getPercentile(0.5) / NS_PER_MS);
+        SmartDashboard.putNumber(NAME + "/Loop work p99 (ms)", loopWork.getPercentile(0.99) / NS_PER_MS);
+        SmartDashboard.putNumber(NAME + "/Loop work max (ms)", loopWork.getMax() / NS_PER_MS);
+        loopWork.reset();
+
+        SmartDashboard.putNumber(NAME + "/Loop overruns", totalLoopOverruns);
+        SmartDashboard.putString(NAME + "/Last section over budget", lastSectionOverrun);
+        SmartDashboard.putString(NAME + "/Last loop overrun culprit", lastLoopOverrun);
+    }
+
+    private void publish(String[] keys, LatencyHistogram histogram) {
+        SmartDashboard.putNumber(keys[0], histogram.getPercentile(0.5) / NS_PER_MS);
+        SmartDashboard.putNumber(keys[1], histogram.getPercentile(0.99) / NS_PER_MS);
+        SmartDashboard.putNumber(keys[2], histogram.getMax() / NS_PER_MS);
+
+        histogram.reset();
+    }
+}
@@ -20,6 +20,19 @@ public class RoboRIOFS {
 
 
 
+    public static final String TELEMETRY_NAME = ABS_PATH_NAME + "telemetry/";
+    public static final File TELEMETRY_FILE = new File(TELEMETRY_NAME);
+    public static final Path TELEMETRY_PATH = Paths.get(TELEMETRY_NAME);
+
+
+
+    /** drivetrain kS/kV/kA measured in test mode, see DriveCharacterization */
+    public static final String CHARACTERIZATION_NAME = ABS_PATH_NAME + "characterization.txt";
+    public static final File CHARACTERIZATION_FILE = new File(CHARACTERIZATION_NAME);
+    public static final Path CHARACTERIZATION_PATH = Paths.get(CHARACTERIZATION_NAME);
+
+
+
     public static boolean init() {
         boolean success = true;
 
@@ -29,6 +42,12 @@ public class RoboRIOFS {
             }
         }
 
+        if (!Files.exists(TELEMETRY_PATH)) {
+            if (!TELEMETRY_FILE.mkdir()) {
+                success = false;
+            }
+        }
+
         return success;
     }
 }
\ No newline at end of file
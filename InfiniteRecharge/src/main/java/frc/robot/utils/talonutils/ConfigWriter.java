@@ -0,0 +1,398 @@
+package frc.robot.utils.talonutils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.VelocityMeasPeriod;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.RobotMap;
+import frc.robot.utils.talonutils.MotorSettings.Setting;
+
+
+
+/**
+ * Writes motor controller configurations from a background thread so the
+ * robot loop never waits on a config call.
+ *
+ * apply() compares the settings against what's already been asked for on
+ * that device and queues up only the ones that are different, then returns
+ * right away. A Notifier works through the queue making each config call
+ * with a timeout so it actually finds out whether it worked. Each device's
+ * calls are made in the order they were queued: one that fails gets retried
+ * before anything after it on that device, so a factory default can never
+ * land after (and wipe) the settings queued behind it. Ones that still fail
+ * after a few tries are counted, printed, and forgotten so the next apply()
+ * tries them again.
+ *
+ * Since a config call is a few ms of CAN each, applying the same settings
+ * again (like on every mode change) costs nothing, and changing a couple of
+ * gains only writes those.
+ *
+ * Factory defaults and zeroing the sensor aren't settings though, they're
+ * things to do, so they're queued every time they're asked for. A factory
+ * default also forgets everything asked for on that device before, since it
+ * wipes it, so whatever's applied along with it all gets written again.
+ */
+public class ConfigWriter {
+    /** what ConfigWriter needs from a motor controller, so it can be tested without one */
+    public interface Device {
+        public int getDeviceID();
+        public ErrorCode factoryDefault(int timeout_ms);
+        public ErrorCode write(Setting setting, int index, double value, int timeout_ms);
+        public ErrorCode zeroSensor(int timeout_ms);
+    }
+
+    /** Device for a TalonSRX/TalonFX */
+    public static class TalonDevice implements Device {
+        private final BaseTalon MOTOR;
+
+        public TalonDevice(BaseTalon motor) {
+            MOTOR = motor;
+        }
+
+        @Override
+        public int getDeviceID() {
+            return MOTOR.getDeviceID();
+        }
+
+        @Override
+        public ErrorCode factoryDefault(int timeout_ms) {
+            return MOTOR.configFactoryDefault(timeout_ms);
+        }
+
+        @Override
+        public ErrorCode zeroSensor(int timeout_ms) {
+            return MOTOR.setSelectedSensorPosition(0, RobotMap.PRIMARY_PID_LOOP, timeout_ms);
+        }
+
+        @Override
+        public ErrorCode write(Setting setting, int index, double value, int timeout_ms) {
+            switch (setting) {
+                case FEEDBACK_SENSOR:
+                    return MOTOR.configSelectedFeedbackSensor(FeedbackDevice.values()[(int) value], index, timeout_ms);
+                case VELOCITY_MEASUREMENT_PERIOD:
+                    return MOTOR.configVelocityMeasurementPeriod(VelocityMeasPeriod.values()[(int) value], timeout_ms);
+                case VELOCITY_MEASUREMENT_WINDOW:
+                    return MOTOR.configVelocityMeasurementWindow((int) value, timeout_ms);
+                case VOLTAGE_COMP_SATURATION:
+                    return MOTOR.configVoltageCompSaturation(value, timeout_ms);
+                case OPEN_LOOP_RAMP:
+                    return MOTOR.configOpenloopRamp(value, timeout_ms);
+                case CLOSED_LOOP_RAMP:
+                    return MOTOR.configClosedloopRamp(value, timeout_ms);
+                case MOTION_CRUISE_VELOCITY:
+                    return MOTOR.configMotionCruiseVelocity((int) value, timeout_ms);
+                case MOTION_ACCELERATION:
+                    return MOTOR.configMotionAcceleration((int) value, timeout_ms);
+                case KF:
+                    return MOTOR.config_kF(index, value, timeout_ms);
+                case KP:
+                    return MOTOR.config_kP(index, value, timeout_ms);
+                case KI:
+                    return MOTOR.config_kI(index, value, timeout_ms);
+                case KD:
+                    return MOTOR.config_kD(index, value, timeout_ms);
+                case INTEGRAL_ZONE:
+                    return MOTOR.config_IntegralZone(index, (int) value, timeout_ms);
+                case FORWARD_SOFT_LIMIT_THRESHOLD:
+                    return MOTOR.configForwardSoftLimitThreshold((int) value, timeout_ms);
+                case REVERSE_SOFT_LIMIT_THRESHOLD:
+                    return MOTOR.configReverseSoftLimitThreshold((int) value, timeout_ms);
+                case FORWARD_SOFT_LIMIT_ENABLE:
+                    return MOTOR.configForwardSoftLimitEnable(value != 0, timeout_ms);
+                case REVERSE_SOFT_LIMIT_ENABLE:
+                    return MOTOR.configReverseSoftLimitEnable(value != 0, timeout_ms);
+                case STATUS_FRAME_PERIOD:
+                    return MOTOR.setStatusFramePeriod(StatusFrameEnhanced.values()[index], (int) value, timeout_ms);
+                default:
+                    return ErrorCode.GeneralError;
+            }
+        }
+    }
+
+
+
+    /** what's been asked for on a device */
+    private static class DeviceState {
+        private final Device DEVICE;
+
+        /** by MotorSettings key, what the device should end up with (queued or written) */
+        private final Map<Integer, Double> requested = new ConcurrentHashMap<Integer, Double>();
+
+        /** in order, the one at the front is being tried */
+        private final ConcurrentLinkedQueue<Job> jobs = new ConcurrentLinkedQueue<Job>();
+
+        private DeviceState(Device device) {
+            DEVICE = device;
+        }
+    }
+
+    private static enum JobType {
+        FactoryDefault,
+        Setting,
+        ZeroSensor
+    }
+
+    private static class Job {
+        private final DeviceState STATE;
+        private final JobType TYPE;
+        private final int KEY;
+        private final double VALUE;
+
+        private int attempts = 0;
+
+        private Job(DeviceState state, JobType type, int key, double value) {
+            STATE = state;
+            TYPE = type;
+            KEY = key;
+            VALUE = value;
+        }
+
+        @Override
+        public String toString() {
+            String what = TYPE == JobType.Setting
+                ? MotorSettings.getSetting(KEY) + "[" + MotorSettings.getIndex(KEY) + "] = " + VALUE
+                : TYPE.toString();
+
+            return "device " + STATE.DEVICE.getDeviceID() + " " + what;
+        }
+    }
+
+
+
+    private static final double PERIOD_S = 0.005;
+
+    private final int TIMEOUT_MS;
+    private final int MAX_ATTEMPTS;
+
+    /** only touched by apply(), which is only called from the robot loop */
+    private final Map<Object, DeviceState> devices = new HashMap<Object, DeviceState>();
+    /** the same devices, for the background thread */
+    private final List<DeviceState> states = new CopyOnWriteArrayList<DeviceState>();
+
+    private final AtomicInteger pending = new AtomicInteger(0);
+
+    private Notifier notifier;
+
+    private final AtomicLong writes = new AtomicLong(0);
+    private final AtomicLong skipped = new AtomicLong(0);
+    private final AtomicLong retries = new AtomicLong(0);
+    private final AtomicLong failures = new AtomicLong(0);
+    private final List<String> errors = new ArrayList<String>();
+
+
+
+    /**
+     * @param timeout_ms how long each config call waits for the device to answer
+     * @param maxAttempts how many times to try each one before giving up
+     */
+    public ConfigWriter(int timeout_ms, int maxAttempts) {
+        TIMEOUT_MS = timeout_ms;
+        MAX_ATTEMPTS = maxAttempts;
+    }
+
+
+
+    /** Start the background thread, does nothing if it's already started */
+    public synchronized void start() {
+        if (notifier != null) {
+            return;
+        }
+
+        notifier = new Notifier(this::work);
+        notifier.setName("ConfigWriter");
+        notifier.startPeriodic(PERIOD_S);
+    }
+
+    public synchronized void stop() {
+        if (notifier != null) {
+            notifier.stop();
+            notifier = null;
+        }
+    }
+
+
+
+    /** Queue up whatever's different on a Talon. Doesn't wait for any of it. */
+    public void apply(BaseTalon motor, MotorSettings settings) {
+        DeviceState state = devices.get(motor);
+        apply(state == null ? new TalonDevice(motor) : state.DEVICE, motor, settings);
+    }
+
+    /** Same as apply(BaseTalon, MotorSettings) for anything else */
+    public void apply(Device device, MotorSettings settings) {
+        apply(device, device, settings);
+    }
+
+    private void apply(Device device, Object identity, MotorSettings settings) {
+        DeviceState state = devices.get(identity);
+        if (state == null) {
+            state = new DeviceState(device);
+            devices.put(identity, state);
+            states.add(state);
+        }
+
+        if (settings.isFactoryDefault()) {
+            // anything queued before it that hasn't gone out yet gets dropped as superseded, it'd be wiped anyway
+            state.requested.clear();
+            enqueue(new Job(state, JobType.FactoryDefault, -1, 0));
+        }
+
+        for (Map.Entry<Integer, Double> entry : settings.getValues().entrySet()) {
+            double value = entry.getValue();
+            Double requested = state.requested.get(entry.getKey());
+
+            if (requested != null && same(requested, value)) {
+                skipped.incrementAndGet();
+                continue;
+            }
+
+            state.requested.put(entry.getKey(), value);
+            enqueue(new Job(state, JobType.Setting, entry.getKey(), value));
+        }
+
+        if (settings.isZeroSensor()) {
+            enqueue(new Job(state, JobType.ZeroSensor, -1, 0));
+        }
+    }
+
+    private static boolean same(double a, double b) {
+        return Double.doubleToLongBits(a + 0.0) == Double.doubleToLongBits(b + 0.0);
+    }
+
+    private void enqueue(Job job) {
+        pending.incrementAndGet();
+        job.STATE.jobs.add(job);
+    }
+
+
+
+    /**
+     * Make every queued config call. Called by the background thread, or by
+     * hand if it isn't started.
+     */
+    public synchronized void work() {
+        for (DeviceState state : states) {
+            work(state);
+        }
+    }
+
+    private void work(DeviceState state) {
+        Job job;
+        while ((job = state.jobs.peek()) != null) {
+            // superseded by a newer value while it was waiting to be retried
+            if (job.TYPE == JobType.Setting) {
+                Double requested = state.requested.get(job.KEY);
+                if (requested == null || !same(requested, job.VALUE)) {
+                    state.jobs.poll();
+                    pending.decrementAndGet();
+                    continue;
+                }
+            }
+
+            ErrorCode error = run(job);
+            job.attempts++;
+
+            if (error == ErrorCode.OK) {
+                state.jobs.poll();
+                writes.incrementAndGet();
+                pending.decrementAndGet();
+            } else if (job.attempts < MAX_ATTEMPTS) {
+                // stays at the front, and the rest of this device waits for it until next time
+                retries.incrementAndGet();
+                return;
+            } else {
+                state.jobs.poll();
+
+                String message = job + ": " + error + " after " + job.attempts + " tries";
+                System.out.println("Couldn't configure " + message);
+
+                synchronized (errors) {
+                    errors.add(message);
+                }
+                failures.incrementAndGet();
+
+                // so the next apply() tries again
+                if (job.TYPE == JobType.Setting) {
+                    state.requested.remove(job.KEY, job.VALUE);
+                }
+
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private ErrorCode run(Job job) {
+        Device device = job.STATE.DEVICE;
+
+        switch (job.TYPE) {
+            case FactoryDefault:
+                return device.factoryDefault(TIMEOUT_MS);
+            case ZeroSensor:
+                return device.zeroSensor(TIMEOUT_MS);
+            default:
+                return device.write(MotorSettings.getSetting(job.KEY), MotorSettings.getIndex(job.KEY), job.VALUE, TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Wait for everything queued to be written (or given up on). Only for
+     * when something really can't go on without it, like before the motors
+     * get used for the first time.
+     *
+     * @return whether it all got done in time
+     */
+    public boolean waitUntilDone(double timeout_s) {
+        long deadline = System.nanoTime() + (long) (timeout_s * 1e9);
+
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            if (notifier == null) {
+                work();
+            } else {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        return pending.get() == 0;
+    }
+
+
+
+    /** @return config calls queued and not done yet */
+    public int getPending() { return pending.get(); }
+    public long getWrites() { return writes.get(); }
+    /** @return settings that didn't need writing because they already were */
+    public long getSkipped() { return skipped.get(); }
+    public long getRetries() { return retries.get(); }
+    public long getFailures() { return failures.get(); }
+
+    /** @return every config call that was given up on, with its error code */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<String>(errors);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "pending " + getPending() + ", writes " + getWrites() + ", skipped " + getSkipped()
+            + ", retries " + getRetries() + ", failures " + getFailures();
+    }
+}
@@ -0,0 +1,189 @@
+package frc.robot.utils.talonutils;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.ctre.phoenix.motorcontrol.FeedbackDevice;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.VelocityMeasPeriod;
+
+import frc.robot.RobotMap;
+import frc.robot.utils.control.pidf.PID;
+import frc.robot.utils.control.pidf.PIDF;
+
+
+
+/**
+ * What a motor controller's configuration should be, for ConfigWriter to
+ * make it so. Only what's set here gets touched, anything else is left the
+ * way it is, so different parts of the code can each configure their bit.
+ *
+ *   new MotorSettings()
+ *       .feedbackSensor(FeedbackDevice.IntegratedSensor)
+ *       .pidf(MotorUtils.velocitySlot, config.velocityPIDF)
+ *       .voltageCompSaturation(12);
+ */
+public class MotorSettings {
+    /** Every config call ConfigWriter knows how to make, in the order they get made */
+    public enum Setting {
+        FEEDBACK_SENSOR, // per PID loop
+        VELOCITY_MEASUREMENT_PERIOD,
+        VELOCITY_MEASUREMENT_WINDOW,
+        VOLTAGE_COMP_SATURATION,
+        OPEN_LOOP_RAMP,
+        CLOSED_LOOP_RAMP,
+        MOTION_CRUISE_VELOCITY,
+        MOTION_ACCELERATION,
+        // per slot
+        KF,
+        KP,
+        KI,
+        KD,
+        INTEGRAL_ZONE,
+        // thresholds before enables so a limit is never on with an old threshold
+        FORWARD_SOFT_LIMIT_THRESHOLD,
+        REVERSE_SOFT_LIMIT_THRESHOLD,
+        FORWARD_SOFT_LIMIT_ENABLE,
+        REVERSE_SOFT_LIMIT_ENABLE,
+        // per StatusFrameEnhanced
+        STATUS_FRAME_PERIOD
+    }
+
+    /** most slots/status frames a setting can have */
+    static final int INDEXES = 64;
+
+
+
+    /** setting and index packed into one key (see key()) so they sort in the order to write them */
+    private final TreeMap<Integer, Double> values = new TreeMap<Integer, Double>();
+
+    private boolean factoryDefault = false;
+    private boolean zeroSensor = false;
+
+
+
+    static int key(Setting setting, int index) {
+        return setting.ordinal() * INDEXES + index;
+    }
+
+    static Setting getSetting(int key) {
+        return Setting.values()[key / INDEXES];
+    }
+
+    static int getIndex(int key) {
+        return key % INDEXES;
+    }
+
+
+
+    /** Set any setting. The others all end up here. */
+    public MotorSettings set(Setting setting, int index, double value) {
+        values.put(key(setting, index), value);
+
+        return this;
+    }
+
+    public MotorSettings set(Setting setting, double value) {
+        return set(setting, 0, value);
+    }
+
+    /** @return what the setting should be, NaN if it isn't set */
+    public double get(Setting setting, int index) {
+        Double value = values.get(key(setting, index));
+        return value == null ? Double.NaN : value;
+    }
+
+    /** @return every setting by key, in the order to write them */
+    Map<Integer, Double> getValues() {
+        return values;
+    }
+
+
+
+    /**
+     * Reset the motor controller to factory defaults before anything else is
+     * written. Happens every time these settings are applied, and everything
+     * in them is written again after it.
+     */
+    public MotorSettings factoryDefault() {
+        factoryDefault = true;
+
+        return this;
+    }
+
+    /** Zero the primary PID loop's sensor after everything else is written, every time these are applied */
+    public MotorSettings zeroSensor() {
+        zeroSensor = true;
+
+        return this;
+    }
+
+    public boolean isFactoryDefault() {
+        return factoryDefault;
+    }
+
+    public boolean isZeroSensor() {
+        return zeroSensor;
+    }
+
+
+
+    public MotorSettings feedbackSensor(FeedbackDevice sensor) {
+        return feedbackSensor(sensor, RobotMap.PRIMARY_PID_LOOP);
+    }
+
+    public MotorSettings feedbackSensor(FeedbackDevice sensor, int pidLoop) {
+        return set(Setting.FEEDBACK_SENSOR, pidLoop, sensor.ordinal());
+    }
+
+    /**
+     * How the sensor velocity's measured: the change in position over period,
+     * averaged over the last window samples (one per ms). The defaults (100ms,
+     * 64) are smooth but lag by most of a tenth of a second.
+     */
+    public MotorSettings velocityMeasurement(VelocityMeasPeriod period, int window) {
+        set(Setting.VELOCITY_MEASUREMENT_PERIOD, period.ordinal());
+        return set(Setting.VELOCITY_MEASUREMENT_WINDOW, window);
+    }
+
+    public MotorSettings voltageCompSaturation(double volts) {
+        return set(Setting.VOLTAGE_COMP_SATURATION, volts);
+    }
+
+    /** @param fullThrottle_s time to go from 0 to full output */
+    public MotorSettings openLoopRamp(double fullThrottle_s) {
+        return set(Setting.OPEN_LOOP_RAMP, fullThrottle_s);
+    }
+
+    public MotorSettings closedLoopRamp(double fullThrottle_s) {
+        return set(Setting.CLOSED_LOOP_RAMP, fullThrottle_s);
+    }
+
+    public MotorSettings motionMagic(int cruiseVelocity, int acceleration) {
+        set(Setting.MOTION_CRUISE_VELOCITY, cruiseVelocity);
+        return set(Setting.MOTION_ACCELERATION, acceleration);
+    }
+
+    /** PID constants for a slot. A PID that isn't a PIDF gets kF = 0. */
+    public MotorSettings pidf(int slot, PID pid) {
+        set(Setting.KF, slot, pid instanceof PIDF ? ((PIDF) pid).getKF() : 0);
+        set(Setting.KP, slot, pid.getKP());
+        set(Setting.KI, slot, pid.getKI());
+        set(Setting.KD, slot, pid.getKD());
+        return set(Setting.INTEGRAL_ZONE, slot, (int) pid.getIZone());
+    }
+
+    public MotorSettings forwardSoftLimit(int threshold) {
+        set(Setting.FORWARD_SOFT_LIMIT_THRESHOLD, threshold);
+        return set(Setting.FORWARD_SOFT_LIMIT_ENABLE, 1);
+    }
+
+    public MotorSettings reverseSoftLimit(int threshold) {
+        set(Setting.REVERSE_SOFT_LIMIT_THRESHOLD, threshold);
+        return set(Setting.REVERSE_SOFT_LIMIT_ENABLE, 1);
+    }
+
+    public MotorSettings statusFramePeriod(StatusFrameEnhanced frame, int period_ms) {
+        return set(Setting.STATUS_FRAME_PERIOD, frame.ordinal(), period_ms);
+    }
+}
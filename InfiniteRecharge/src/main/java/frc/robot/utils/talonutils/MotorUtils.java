@@ -14,6 +14,7 @@ import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
 import frc.robot.RobotMap;
 import frc.robot.config.MotorConfig;
+import frc.robot.utils.control.pidf.PIDF;
 
 public class MotorUtils {
 
@@ -22,6 +23,21 @@ public class MotorUtils {
 
     public static int MAX_STATUS_FRAME_PERIOD = 160;
 
+    /** how many times the config writer tries each config call */
+    public static final int CONFIG_ATTEMPTS = 3;
+
+    /** every Talon's config calls go through this so none of them block the robot loop */
+    public static final ConfigWriter CONFIG_WRITER = new ConfigWriter(RobotMap.CONTROLLER_TIMEOUT_MS, CONFIG_ATTEMPTS);
+
+    /**
+     * Write whatever's different in the settings from the config writer's
+     * background thread, starting it if it isn't yet
+     */
+    public static void configure(BaseTalon motor, MotorSettings settings) {
+        CONFIG_WRITER.start();
+        CONFIG_WRITER.apply(motor, settings);
+    }
+
     /**
      * initializeMotor - set all of the motor configuration states to a known value
      * This is important when we are not sure if the motor is in a factory state
@@ -32,8 +48,8 @@ public class MotorUtils {
      *              package?
      */
     public static void initializeMotorDefaults(WPI_TalonSRX motor) {
-        // TODO: Check ErrorCode?
-        motor.configFactoryDefault(RobotMap.CONTROLLER_TIMEOUT_MS);
+        // the config writer checks the ErrorCode
+        configure(motor, new MotorSettings().factoryDefault());
 
         motor.stopMotor();
 
@@ -54,14 +70,8 @@ public class MotorUtils {
          * The following T O D O is done. T O D O: Actually write this function too.
          */
 
-        int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
-
         motor.selectProfileSlot(slotIdx, RobotMap.PRIMARY_PID_LOOP);
-        motor.config_kF(slotIdx, kF, timeout);
-        motor.config_kP(slotIdx, kP, timeout);
-        motor.config_kI(slotIdx, kI, timeout);
-        motor.config_kD(slotIdx, kD, timeout);
-        motor.config_IntegralZone(slotIdx, iZone, RobotMap.CONTROLLER_TIMEOUT_MS);
+        configure(motor, new MotorSettings().pidf(slotIdx, new PIDF(kP, kI, kD, kF, iZone)));
     }
 
     public static void initializeQuadEncoderMotor(WPI_TalonSRX motor) {
@@ -88,11 +98,11 @@ public class MotorUtils {
      * Initializes the quad encoder motor, whatever that means.
      */
     public static void initializeQuadEncoderMotor(WPI_TalonSRX motor, int statusFramePeriod, int pidLoop) {
-        int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
-
-        motor.configSelectedFeedbackSensor(FeedbackDevice.QuadEncoder, pidLoop, timeout);
-        motor.setSelectedSensorPosition(0, pidLoop, timeout);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod, timeout);
+        configure(motor, new MotorSettings()
+            .feedbackSensor(FeedbackDevice.QuadEncoder, pidLoop)
+            .zeroSensor()
+            .statusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod)
+        );
 
     }
 
@@ -100,12 +110,11 @@ public class MotorUtils {
      * Initializes the motor controller to have a relative mag encoder.
      */
     public static void initializeMagEncoderRelativeMotor(WPI_TalonSRX motor, int statusFramePeriod) {
-        int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
-        int pidLoop = RobotMap.PRIMARY_PID_LOOP;
-
-        motor.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, pidLoop, timeout);
-        motor.setSelectedSensorPosition(0, pidLoop, timeout);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod, timeout);
+        configure(motor, new MotorSettings()
+            .feedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative)
+            .zeroSensor()
+            .statusFramePeriod(StatusFrameEnhanced.Status_3_Quadrature, statusFramePeriod)
+        );
 
     }
 
@@ -113,66 +122,58 @@ public class MotorUtils {
      * Initializes the motor controller to have a relative mag encoder.
      */
     public static void initializeMagEncoderAbsoluteMotor(WPI_TalonSRX motor, int statusFramePeriod) {
-        int timeout = RobotMap.CONTROLLER_TIMEOUT_MS;
-        int pidLoop = RobotMap.PRIMARY_PID_LOOP;
-
-        motor.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute, pidLoop, timeout);
-        motor.setSelectedSensorPosition(0, pidLoop, timeout);
-        motor.setStatusFramePeriod(StatusFrameEnhanced.Status_8_PulseWidth, statusFramePeriod, timeout);
+        configure(motor, new MotorSettings()
+            .feedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute)
+            .zeroSensor()
+            .statusFramePeriod(StatusFrameEnhanced.Status_8_PulseWidth, statusFramePeriod)
+        );
 
     }
 
     public static void motorInit(BaseTalon motor, MotorConfig motorConfig) {
-        motor.configFactoryDefault();
-
         motor.setSensorPhase(motorConfig.sensorPhase);
         motor.setInverted(motorConfig.inverted);
 
+        if (motorConfig.followingID != -1) {
+            motor.set(ControlMode.Follower, motorConfig.followingID);
+        }
+
+        motor.enableVoltageCompensation(true);
+
+        configure(motor, motorSettings(motorConfig));
+    }
+
+    /** @return every config call motorInit makes on a Talon */
+    public static MotorSettings motorSettings(MotorConfig motorConfig) {
+        MotorSettings settings = new MotorSettings().factoryDefault();
+
         switch (motorConfig.encoderType) {
         case None:
-            motor.configSelectedFeedbackSensor(FeedbackDevice.None);
+            settings.feedbackSensor(FeedbackDevice.None);
             break;
 
         case Quadrature:
-            motor.configSelectedFeedbackSensor(FeedbackDevice.QuadEncoder);
-            motor.setSelectedSensorPosition(0);
+            settings.feedbackSensor(FeedbackDevice.QuadEncoder).zeroSensor();
             break;
 
         case Relative:
-            motor.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative);
-            motor.setSelectedSensorPosition(0);
+            settings.feedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative).zeroSensor();
             break;
 
         case Absolute:
-            motor.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute);
+            settings.feedbackSensor(FeedbackDevice.CTRE_MagEncoder_Absolute);
             break;
 
         case Integrated:
-            motor.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor);
-            motor.setSelectedSensorPosition(0);
+            settings.feedbackSensor(FeedbackDevice.IntegratedSensor).zeroSensor();
             break;
         }
 
-        motor.configMotionCruiseVelocity(motorConfig.motionMagicCruiseVelocity);
-        motor.configMotionAcceleration(motorConfig.motionMagicAcceleration);
-
-        if (motorConfig.followingID != -1) {
-            motor.set(ControlMode.Follower, motorConfig.followingID);
-        }
-
-        motor.config_kF(positionSlot, motorConfig.positionPIDF.getKF());
-        motor.config_kP(positionSlot, motorConfig.positionPIDF.getKP());
-        motor.config_kI(positionSlot, motorConfig.positionPIDF.getKI());
-        motor.config_kD(positionSlot, motorConfig.positionPIDF.getKD());
-        motor.config_IntegralZone(positionSlot, (int) motorConfig.positionPIDF.getIZone());
-
-        motor.config_kF(velocitySlot, motorConfig.velocityPIDF.getKF());
-        motor.config_kP(velocitySlot, motorConfig.velocityPIDF.getKP());
-        motor.config_kI(velocitySlot, motorConfig.velocityPIDF.getKI());
-        motor.config_kD(velocitySlot, motorConfig.velocityPIDF.getKD());
-        motor.config_IntegralZone(velocitySlot, (int) motorConfig.velocityPIDF.getIZone());
-        motor.enableVoltageCompensation(true);
-        motor.configVoltageCompSaturation(12);
+        return settings
+            .motionMagic(motorConfig.motionMagicCruiseVelocity, motorConfig.motionMagicAcceleration)
+            .pidf(positionSlot, motorConfig.positionPIDF)
+            .pidf(velocitySlot, motorConfig.velocityPIDF)
+            .voltageCompSaturation(12);
     }
 
     public static void motorInit(CANSparkMax motor, MotorConfig motorConfig) {
@@ -0,0 +1,262 @@
+package frc.robot.utils.telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+
+
+/**
+ * Cheaper way to put things on SmartDashboard than SmartDashboard.put*() every loop.
+ *
+ * Keys are registered once, which looks up the NetworkTable entry (and builds
+ * the key string) once instead of every call. set() just stores the value;
+ * flush(), once at the end of the loop, writes everything that's due:
+ *   - every key has a Rate, and only gets written every PERIOD loops. Keys
+ *     with the same rate are spread out over different loops so they don't
+ *     all go out at once.
+ *   - values that haven't changed (by more than the key's epsilon for numbers)
+ *     since they were last written are skipped, since NetworkTables would send
+ *     them again anyway
+ * so the dashboard costs less CPU and less of the radio bandwidth the field caps us at.
+ */
+public class DashboardPublisher {
+    public static enum Rate {
+        /** 50 Hz, for things that need to be watched closely like while tuning */
+        EveryLoop(1),
+        /** 10 Hz, for most numbers */
+        Fast(5),
+        /** 2 Hz, for status and counters */
+        Slow(25);
+
+        public final int PERIOD;
+
+        private Rate(int period) {
+            PERIOD = period;
+        }
+    }
+
+
+
+    public abstract class Entry {
+        private final String KEY;
+        private final int PERIOD;
+        private final int PHASE;
+
+        private final NetworkTableEntry entry;
+        /** nothing's been written yet, or everything should be written again */
+        protected boolean stale = true;
+
+        private Entry(String key, Rate rate) {
+            KEY = key;
+            PERIOD = rate.PERIOD;
+            PHASE = phases[rate.ordinal()]++ % PERIOD;
+
+            entry = RESOLVER.apply(key);
+        }
+
+        private void flush() {
+            if ((loop % PERIOD) != PHASE) {
+                return;
+            }
+
+            if (!stale && !changed()) {
+                skipped++;
+                return;
+            }
+
+            if (entry != null) {
+                write(entry);
+            }
+            remember();
+
+            stale = false;
+            writes++;
+        }
+
+        protected abstract boolean changed();
+        protected abstract void write(NetworkTableEntry entry);
+        /** remember the value as the last one written */
+        protected abstract void remember();
+
+        public String getKey() {
+            return KEY;
+        }
+    }
+
+    public class NumberEntry extends Entry {
+        private final double EPSILON;
+
+        private double value = 0;
+        private double written = 0;
+
+        private NumberEntry(String key, Rate rate, double epsilon) {
+            super(key, rate);
+            EPSILON = epsilon;
+        }
+
+        public void set(double value) {
+            this.value = value;
+        }
+
+        @Override
+        protected boolean changed() {
+            double difference = Math.abs(value - written);
+
+            // the difference is NaN if either is NaN (or for infinity - infinity), so compare those exactly
+            return difference > EPSILON
+                || (Double.isNaN(difference) && Double.doubleToLongBits(value) != Double.doubleToLongBits(written));
+        }
+
+        @Override
+        protected void write(NetworkTableEntry entry) {
+            entry.setDouble(value);
+        }
+
+        @Override
+        protected void remember() {
+            written = value;
+        }
+    }
+
+    public class BooleanEntry extends Entry {
+        private boolean value = false;
+        private boolean written = false;
+
+        private BooleanEntry(String key, Rate rate) {
+            super(key, rate);
+        }
+
+        public void set(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        protected boolean changed() {
+            return value != written;
+        }
+
+        @Override
+        protected void write(NetworkTableEntry entry) {
+            entry.setBoolean(value);
+        }
+
+        @Override
+        protected void remember() {
+            written = value;
+        }
+    }
+
+    public class StringEntry extends Entry {
+        private String value = "";
+        private String written = "";
+
+        private StringEntry(String key, Rate rate) {
+            super(key, rate);
+        }
+
+        public void set(String value) {
+            this.value = value;
+        }
+
+        @Override
+        protected boolean changed() {
+            // usually the exact same constant, so this is almost always just the == check
+            return value != written && (value == null || !value.equals(written));
+        }
+
+        @Override
+        protected void write(NetworkTableEntry entry) {
+            entry.setString(value == null ? "" : value);
+        }
+
+        @Override
+        protected void remember() {
+            written = value;
+        }
+    }
+
+
+
+    private final Function<String, NetworkTableEntry> RESOLVER;
+
+    private final List<Entry> entries = new ArrayList<Entry>();
+    /** next phase to give out for each rate */
+    private final int[] phases = new int[Rate.values().length];
+
+    private long loop = 0;
+    private long writes = 0;
+    private long skipped = 0;
+
+
+
+    public DashboardPublisher() {
+        this(SmartDashboard::getEntry);
+    }
+
+    /**
+     * @param resolver finds the NetworkTable entry for a key. If it gives null the key
+     * still works, it just isn't written anywhere
+     */
+    DashboardPublisher(Function<String, NetworkTableEntry> resolver) {
+        RESOLVER = resolver;
+    }
+
+
+
+    /**
+     * Register a number
+     *
+     * @param key SmartDashboard key
+     * @param rate how often to write it
+     * @param epsilon how much it has to change by before it's written again
+     */
+    public NumberEntry addNumber(String key, Rate rate, double epsilon) {
+        return add(new NumberEntry(key, rate, epsilon));
+    }
+
+    /** Register a number that's written whenever it changes at all */
+    public NumberEntry addNumber(String key, Rate rate) {
+        return addNumber(key, rate, 0);
+    }
+
+    public BooleanEntry addBoolean(String key, Rate rate) {
+        return add(new BooleanEntry(key, rate));
+    }
+
+    public StringEntry addString(String key, Rate rate) {
+        return add(new StringEntry(key, rate));
+    }
+
+    private <T extends Entry> T add(T entry) {
+        entries.add(entry);
+        return entry;
+    }
+
+
+
+    /** Write everything that's due. Call once per loop, after everything's been set. */
+    public void flush() {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).flush();
+        }
+
+        loop++;
+    }
+
+    /** Write every value again the next time it's due, changed or not (like after the dashboard reconnects) */
+    public void invalidate() {
+        for (Entry entry : entries) {
+            entry.stale = true;
+        }
+    }
+
+
+
+    public int getEntries() { return entries.size(); }
+    public long getWrites() { return writes; }
+    public long getSkipped() { return skipped; }
+}
@@ -0,0 +1,33 @@
+package frc.robot.utils.telemetry;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+
+
+/**
+ * Reads a log one sample at a time, so logs don't have to fit in memory.
+ * Every value comes out as a double: booleans are 0/1 and enums are their
+ * ordinal (with getLabels() to turn them back into names).
+ */
+public interface LogReader extends Closeable {
+    /** names of the channels, not counting the timestamp */
+    String[] getChannelNames();
+
+    /**
+     * @param channel index into getChannelNames()
+     *
+     * @return names of the enum constants if the channel is an enum, otherwise null
+     */
+    String[] getLabels(int channel);
+
+    /**
+     * Read the next sample
+     *
+     * @param out array of at least getChannelNames().length + 1 elements; out[0] gets the
+     * timestamp and the rest get the channel values
+     *
+     * @return false if there's nothing left
+     */
+    boolean next(double[] out) throws IOException;
+}
@@ -0,0 +1,98 @@
+package frc.robot.utils.telemetry;
+
+import java.nio.ByteBuffer;
+
+import frc.robot.utils.telemetry.TelemetryFormat.Type;
+
+
+
+/**
+ * One value in every telemetry record. Get these from TelemetryRecorder once
+ * (in initialize() or a constructor) and call set() whenever the value changes
+ * or every loop; whatever was set last goes into the record when the loop ends.
+ *
+ * set() only writes into the recorder's staging record, so it's a couple of
+ * nanoseconds and never allocates or boxes. Only call it from the robot loop thread.
+ */
+public abstract class TelemetryChannel {
+    private final String NAME;
+    private final Type TYPE;
+
+    protected final ByteBuffer record;
+    protected final int OFFSET;
+
+
+
+    protected TelemetryChannel(String name, Type type, ByteBuffer record, int offset) {
+        NAME = name;
+        TYPE = type;
+
+        this.record = record;
+        OFFSET = offset;
+    }
+
+
+
+    public String getName() { return NAME; }
+    public Type getType() { return TYPE; }
+    public int getOffset() { return OFFSET; }
+
+    /** @return names of the enum constants, or null if this isn't an enum channel */
+    public String[] getEnumConstants() { return null; }
+
+
+
+    public static class DoubleChannel extends TelemetryChannel {
+        DoubleChannel(String name, ByteBuffer record, int offset) {
+            super(name, Type.Double, record, offset);
+        }
+
+        public void set(double value) {
+            record.putDouble(OFFSET, value);
+        }
+    }
+
+    public static class LongChannel extends TelemetryChannel {
+        LongChannel(String name, ByteBuffer record, int offset) {
+            super(name, Type.Long, record, offset);
+        }
+
+        public void set(long value) {
+            record.putLong(OFFSET, value);
+        }
+    }
+
+    public static class BooleanChannel extends TelemetryChannel {
+        BooleanChannel(String name, ByteBuffer record, int offset) {
+            super(name, Type.Boolean, record, offset);
+        }
+
+        public void set(boolean value) {
+            record.put(OFFSET, (byte) (value ? 1 : 0));
+        }
+    }
+
+    public static class EnumChannel<E extends Enum<E>> extends TelemetryChannel {
+        private final String[] CONSTANTS;
+
+        EnumChannel(String name, Class<E> enumClass, ByteBuffer record, int offset) {
+            super(name, Type.Enum, record, offset);
+
+            E[] values = enumClass.getEnumConstants();
+            CONSTANTS = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                CONSTANTS[i] = values[i].name();
+            }
+        }
+
+        /** @param value value to record, null is recorded as -1 */
+        public void set(E value) {
+            record.putInt(OFFSET, value == null ? -1 : value.ordinal());
+        }
+
+        @Override
+        public String[] getEnumConstants() {
+            return CONSTANTS;
+        }
+    }
+}
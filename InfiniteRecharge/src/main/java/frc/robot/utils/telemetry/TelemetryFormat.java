@@ -0,0 +1,154 @@
+package frc.robot.utils.telemetry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+
+
+/**
+ * Layout of the binary telemetry segment files. Shared by the recorder and
+ * anything that reads the files back, so keep them in sync through here.
+ *
+ * A segment is a header followed by fixed size records, all big endian:
+ *
+ *   header
+ *     int    MAGIC
+ *     short  VERSION
+ *     int    header size (bytes, records start here)
+ *     int    record size (bytes)
+ *     int    record count (updated as records are flushed)
+ *     long   session start (ms since epoch)
+ *     int    segment index in the session
+ *     int    channel count
+ *     for each channel:
+ *       byte   type (Type.ordinal())
+ *       string name
+ *       for enums only: short number of constants, then a string for each
+ *
+ *   record
+ *     double FPGA timestamp (s)
+ *     each channel's value, in the order they were registered, sized by type
+ *
+ * Strings are a short length followed by that many UTF-8 bytes.
+ */
+public class TelemetryFormat {
+    public static final int MAGIC = 0x42425446; // "BBTF"
+    public static final short VERSION = 1;
+
+    // offsets of the fixed part of the header
+    public static final int HEADER_SIZE_OFFSET = 6;
+    public static final int RECORD_SIZE_OFFSET = 10;
+    public static final int RECORD_COUNT_OFFSET = 14;
+    public static final int SESSION_OFFSET = 18;
+    public static final int SEGMENT_INDEX_OFFSET = 26;
+    public static final int CHANNEL_COUNT_OFFSET = 30;
+    public static final int CHANNELS_OFFSET = 34;
+
+    /** every record starts with the timestamp */
+    public static final int TIMESTAMP_SIZE = 8;
+
+    public static final String FILE_PREFIX = "telemetry-";
+    public static final String FILE_SUFFIX = ".bin";
+
+
+
+    public static enum Type {
+        Double(8),
+        Long(8),
+        Boolean(1),
+        Enum(4); // ordinal
+
+        public final int SIZE;
+
+        private Type(int size) {
+            SIZE = size;
+        }
+    }
+
+
+
+    /**
+     * Name of a segment file. Zero padded so sorting by name sorts by time.
+     *
+     * @param session session start (ms since epoch)
+     * @param segment segment index in the session
+     */
+    public static String fileName(long session, int segment) {
+        return String.format("%s%013d-%05d%s", FILE_PREFIX, session, segment, FILE_SUFFIX);
+    }
+
+    public static boolean isSegmentFile(String name) {
+        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+    }
+
+
+
+    /**
+     * Work out how big the header is for a set of channels
+     */
+    public static int headerSize(List<TelemetryChannel> channels) {
+        int size = CHANNELS_OFFSET;
+
+        for (TelemetryChannel channel : channels) {
+            size += 1 + stringSize(channel.getName());
+
+            String[] constants = channel.getEnumConstants();
+            if (constants != null) {
+                size += 2;
+                for (String constant : constants) {
+                    size += stringSize(constant);
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Write a segment header
+     *
+     * @param buffer buffer positioned at the start of the segment. Left positioned after the header
+     */
+    public static void writeHeader(ByteBuffer buffer, List<TelemetryChannel> channels, int recordSize, long session, int segment) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(headerSize(channels));
+        buffer.putInt(recordSize);
+        buffer.putInt(0);
+        buffer.putLong(session);
+        buffer.putInt(segment);
+        buffer.putInt(channels.size());
+
+        for (TelemetryChannel channel : channels) {
+            buffer.put((byte) channel.getType().ordinal());
+            putString(buffer, channel.getName());
+
+            String[] constants = channel.getEnumConstants();
+            if (constants != null) {
+                buffer.putShort((short) constants.length);
+                for (String constant : constants) {
+                    putString(buffer, constant);
+                }
+            }
+        }
+    }
+
+    public static void putString(ByteBuffer buffer, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(String s) {
+        return 2 + s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,162 @@
+package frc.robot.utils.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import frc.robot.utils.telemetry.TelemetryFormat.Type;
+
+
+
+/**
+ * Reads a segment file written by TelemetryRecorder. Records are read through
+ * a fixed size buffer a chunk at a time, so any size of file can be read
+ * without loading all of it.
+ */
+public class TelemetryReader implements LogReader {
+    /** records to read from disk at a time */
+    private static final int CHUNK_RECORDS = 4096;
+
+    private final FileChannel file;
+
+    private final int RECORD_SIZE;
+    private final int RECORD_COUNT;
+    private final long SESSION;
+    private final int SEGMENT;
+
+    private final String[] names;
+    private final Type[] types;
+    private final int[] offsets;
+    private final String[][] labels;
+
+    private final ByteBuffer chunk;
+    private int recordsRead = 0;
+
+
+
+    public TelemetryReader(Path path) throws IOException {
+        file = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            ByteBuffer fixed = ByteBuffer.allocate(TelemetryFormat.CHANNELS_OFFSET);
+            readFully(fixed, 0);
+
+            if (fixed.getInt(0) != TelemetryFormat.MAGIC) {
+                throw new IOException(path + " isn't a telemetry segment");
+            }
+            if (fixed.getShort(4) != TelemetryFormat.VERSION) {
+                throw new IOException(path + " is version " + fixed.getShort(4) + ", can only read " + TelemetryFormat.VERSION);
+            }
+
+            int headerSize = fixed.getInt(TelemetryFormat.HEADER_SIZE_OFFSET);
+            RECORD_SIZE = fixed.getInt(TelemetryFormat.RECORD_SIZE_OFFSET);
+            SESSION = fixed.getLong(TelemetryFormat.SESSION_OFFSET);
+            SEGMENT = fixed.getInt(TelemetryFormat.SEGMENT_INDEX_OFFSET);
+            int channelCount = fixed.getInt(TelemetryFormat.CHANNEL_COUNT_OFFSET);
+
+            // a segment that was being written when the robot turned off can be shorter than its count says
+            long available = (file.size() - headerSize) / RECORD_SIZE;
+            RECORD_COUNT = (int) Math.min(fixed.getInt(TelemetryFormat.RECORD_COUNT_OFFSET), available);
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            readFully(header, 0);
+            header.position(TelemetryFormat.CHANNELS_OFFSET);
+
+            names = new String[channelCount];
+            types = new Type[channelCount];
+            offsets = new int[channelCount];
+            labels = new String[channelCount][];
+
+            int offset = TelemetryFormat.TIMESTAMP_SIZE;
+            for (int i = 0; i < channelCount; i++) {
+                types[i] = Type.values()[header.get()];
+                names[i] = TelemetryFormat.getString(header);
+                offsets[i] = offset;
+                offset += types[i].SIZE;
+
+                if (types[i] == Type.Enum) {
+                    labels[i] = new String[header.getShort()];
+                    for (int j = 0; j < labels[i].length; j++) {
+                        labels[i][j] = TelemetryFormat.getString(header);
+                    }
+                }
+            }
+
+            file.position(headerSize);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+
+        chunk = ByteBuffer.allocate(RECORD_SIZE * CHUNK_RECORDS);
+        chunk.limit(0);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (file.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("file ended in the header");
+            }
+        }
+    }
+
+
+
+    @Override
+    public boolean next(double[] out) throws IOException {
+        if (recordsRead == RECORD_COUNT) {
+            return false;
+        }
+
+        if (chunk.remaining() < RECORD_SIZE) {
+            chunk.clear();
+            chunk.limit(Math.min(CHUNK_RECORDS, RECORD_COUNT - recordsRead) * RECORD_SIZE);
+
+            while (chunk.hasRemaining()) {
+                if (file.read(chunk) < 0) {
+                    return false;
+                }
+            }
+
+            chunk.flip();
+        }
+
+        int start = chunk.position();
+
+        out[0] = chunk.getDouble(start);
+        for (int i = 0; i < names.length; i++) {
+            int at = start + offsets[i];
+
+            switch (types[i]) {
+                case Double:  out[i + 1] = chunk.getDouble(at); break;
+                case Long:    out[i + 1] = chunk.getLong(at); break;
+                case Boolean: out[i + 1] = chunk.get(at); break;
+                case Enum:    out[i + 1] = chunk.getInt(at); break;
+            }
+        }
+
+        chunk.position(start + RECORD_SIZE);
+        recordsRead++;
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+
+
+    @Override
+    public String[] getChannelNames() { return names; }
+    @Override
+    public String[] getLabels(int channel) { return labels[channel]; }
+
+    public Type getType(int channel) { return types[channel]; }
+    public int getRecordCount() { return RECORD_COUNT; }
+    public long getSession() { return SESSION; }
+    public int getSegment() { return SEGMENT; }
+}
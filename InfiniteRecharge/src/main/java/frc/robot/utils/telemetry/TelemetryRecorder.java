@@ -0,0 +1,375 @@
+package frc.robot.utils.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+import frc.robot.config.Config.TelemetryConfig;
+import frc.robot.utils.telemetry.TelemetryChannel.BooleanChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.DoubleChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.EnumChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.LongChannel;
+import frc.robot.utils.telemetry.TelemetryFormat.Type;
+
+
+
+/**
+ * Records every registered channel every loop into binary files, without the
+ * robot loop ever touching the disk.
+ *
+ * Subsystems register typed channels once, before start(), which fixes the
+ * size and layout of a record. During the loop they set() their channels,
+ * which just writes into a staging record, and at the end of the loop commit()
+ * copies the staging record into a lock-free single producer/single consumer
+ * ring buffer. If the ring is full the record is dropped (and counted) instead
+ * of waiting.
+ *
+ * A Notifier thread drains the ring into memory-mapped segment files (see
+ * TelemetryFormat), so writing is a memory copy and the OS pages it out on its
+ * own time. Segments hold a fixed number of records; when one fills up a new
+ * one is started, and the oldest files get deleted to stay under the size cap.
+ */
+public class TelemetryRecorder {
+    /**
+     * Records nothing and never starts. Channels can still be added and set,
+     * they just don't go anywhere. For anything that hasn't been given a real
+     * recorder.
+     */
+    public static final TelemetryRecorder NONE = new TelemetryRecorder();
+
+    /** null for NONE */
+    private final TelemetryConfig CONFIG;
+    private final Path DIRECTORY;
+
+    private final List<TelemetryChannel> channels = new ArrayList<TelemetryChannel>();
+
+    /** where channels write; the timestamp goes in the first 8 bytes */
+    private final ByteBuffer staging;
+    private int recordSize = TelemetryFormat.TIMESTAMP_SIZE;
+
+    private volatile boolean started = false;
+
+
+
+    // ring buffer of whole records, only allocated once the record size is known
+    private byte[] ring;
+    private int ringCapacity;
+    /** next record to write to disk, only written by the flush thread */
+    private final AtomicLong head = new AtomicLong(0);
+    /** next record to commit, only written by the robot loop */
+    private final AtomicLong tail = new AtomicLong(0);
+    /** only touched by the robot loop */
+    private long dropped = 0;
+
+
+
+    // only touched by the flush thread (and stop(), which is synchronized with it)
+    private Notifier notifier;
+    private final long session = System.currentTimeMillis();
+
+    private MappedByteBuffer segment;
+    private int segmentIndex = -1;
+    private int segmentRecords = 0;
+    private int headerSize;
+
+    private volatile boolean failed = false;
+    private volatile long recordsWritten = 0;
+
+
+
+    /**
+     * @param config buffer/segment sizes
+     * @param directory where to put the segment files
+     */
+    public TelemetryRecorder(TelemetryConfig config, Path directory) {
+        CONFIG = config;
+        DIRECTORY = directory;
+
+        staging = ByteBuffer.allocate(CONFIG.maxRecordSize);
+    }
+
+    private TelemetryRecorder() {
+        CONFIG = null;
+        DIRECTORY = null;
+
+        staging = ByteBuffer.allocate(TelemetryFormat.TIMESTAMP_SIZE);
+    }
+
+
+
+    /*
+     * Registering channels. Only before start(); channels added later (or that
+     * don't fit in maxRecordSize) still work but write somewhere that never
+     * gets recorded.
+     */
+
+    public DoubleChannel addDouble(String name) {
+        int offset = allocate(name, Type.Double);
+        return offset < 0 ? new DoubleChannel(name, ByteBuffer.allocate(Type.Double.SIZE), 0) : register(new DoubleChannel(name, staging, offset));
+    }
+
+    public LongChannel addLong(String name) {
+        int offset = allocate(name, Type.Long);
+        return offset < 0 ? new LongChannel(name, ByteBuffer.allocate(Type.Long.SIZE), 0) : register(new LongChannel(name, staging, offset));
+    }
+
+    public BooleanChannel addBoolean(String name) {
+        int offset = allocate(name, Type.Boolean);
+        return offset < 0 ? new BooleanChannel(name, ByteBuffer.allocate(Type.Boolean.SIZE), 0) : register(new BooleanChannel(name, staging, offset));
+    }
+
+    public <E extends Enum<E>> EnumChannel<E> addEnum(String name, Class<E> enumClass) {
+        int offset = allocate(name, Type.Enum);
+        return offset < 0 ? new EnumChannel<E>(name, enumClass, ByteBuffer.allocate(Type.Enum.SIZE), 0) : register(new EnumChannel<E>(name, enumClass, staging, offset));
+    }
+
+    /** @return offset of the new channel in the record, or -1 if it can't be recorded */
+    private int allocate(String name, Type type) {
+        if (CONFIG == null) {
+            return -1;
+        }
+
+        if (started) {
+            System.out.println("Telemetry channel " + name + " added after recording started, it won't be recorded");
+            return -1;
+        }
+
+        if (recordSize + type.SIZE > CONFIG.maxRecordSize) {
+            System.out.println("Telemetry channel " + name + " doesn't fit in a record, it won't be recorded");
+            return -1;
+        }
+
+        int offset = recordSize;
+        recordSize += type.SIZE;
+
+        return offset;
+    }
+
+    private <T extends TelemetryChannel> T register(T channel) {
+        channels.add(channel);
+        return channel;
+    }
+
+
+
+    /**
+     * Stop taking new channels and start recording
+     *
+     * @return false if the first segment couldn't be made, in which case nothing gets recorded
+     */
+    public boolean start() {
+        if (!open()) {
+            return false;
+        }
+
+        notifier = new Notifier(this::flush);
+        notifier.setName("TelemetryRecorder");
+        notifier.startPeriodic(CONFIG.flushPeriod_s);
+
+        return true;
+    }
+
+    /** Same as start() but without the flush thread, so flush() has to be called by hand */
+    boolean open() {
+        if (started) {
+            return true;
+        }
+
+        if (CONFIG == null) {
+            return false;
+        }
+
+        ringCapacity = CONFIG.bufferRecords;
+        ring = new byte[ringCapacity * recordSize];
+        headerSize = TelemetryFormat.headerSize(channels);
+
+        synchronized (this) {
+            if (!openSegment()) {
+                return false;
+            }
+        }
+
+        started = true;
+
+        return true;
+    }
+
+    /** Stop recording and write out everything that's left */
+    public void stop() {
+        if (notifier != null) {
+            notifier.stop();
+        }
+
+        synchronized (this) {
+            flush();
+            closeSegment();
+
+            started = false;
+        }
+    }
+
+
+
+    /**
+     * End the current record and queue it to be written. Call once at the end of each loop.
+     */
+    public void commit() {
+        commit(Timer.getFPGATimestamp());
+    }
+
+    /**
+     * End the current record and queue it to be written
+     *
+     * @param timestamp time of the record (s)
+     */
+    public void commit(double timestamp) {
+        if (!started) {
+            return;
+        }
+
+        long index = tail.get();
+
+        if (index - head.get() >= ringCapacity) {
+            dropped++;
+            return;
+        }
+
+        staging.putDouble(0, timestamp);
+        System.arraycopy(staging.array(), 0, ring, (int) (index % ringCapacity) * recordSize, recordSize);
+
+        // publish: the copy above is visible before the new tail is
+        tail.lazySet(index + 1);
+    }
+
+
+
+    /**
+     * Write everything in the ring to disk. Called by the flush thread.
+     */
+    public synchronized void flush() {
+        if (!started) {
+            return;
+        }
+
+        long index = head.get();
+        long end = tail.get();
+
+        if (index == end) {
+            return;
+        }
+
+        for (; index < end; index++) {
+            if (!failed) {
+                if (segmentRecords == CONFIG.recordsPerSegment) {
+                    closeSegment();
+
+                    if (!openSegment()) {
+                        failed = true;
+                    }
+                }
+            }
+
+            if (!failed) {
+                segment.put(ring, (int) (index % ringCapacity) * recordSize, recordSize);
+                segmentRecords++;
+                recordsWritten++;
+            }
+
+            // let the robot loop reuse the slot
+            head.lazySet(index + 1);
+        }
+
+        if (!failed) {
+            // so a segment that never gets closed (like when the robot's turned off) can still be read
+            segment.putInt(TelemetryFormat.RECORD_COUNT_OFFSET, segmentRecords);
+        }
+    }
+
+    private boolean openSegment() {
+        segmentIndex++;
+        segmentRecords = 0;
+
+        long segmentSize = headerSize + (long) CONFIG.recordsPerSegment * recordSize;
+
+        try {
+            Files.createDirectories(DIRECTORY);
+            makeRoom(segmentSize);
+
+            Path path = DIRECTORY.resolve(TelemetryFormat.fileName(session, segmentIndex));
+
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                // the mapping stays valid after the channel's closed
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+        } catch (IOException e) {
+            System.out.println("Error: couldn't open telemetry segment: " + e);
+            segment = null;
+            return false;
+        }
+
+        TelemetryFormat.writeHeader(segment, channels, recordSize, session, segmentIndex);
+
+        return true;
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+
+        segment.putInt(TelemetryFormat.RECORD_COUNT_OFFSET, segmentRecords);
+        segment.force();
+        segment = null;
+    }
+
+    /** delete the oldest segments until there's room for one more */
+    private void makeRoom(long segmentSize) {
+        long maxBytes = (long) (CONFIG.maxTotal_MB * 1024 * 1024);
+
+        File[] files = DIRECTORY.toFile().listFiles((dir, name) -> TelemetryFormat.isSegmentFile(name));
+        if (files == null) {
+            return;
+        }
+
+        // names sort by time
+        Arrays.sort(files);
+
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+
+        for (int i = 0; i < files.length && total + segmentSize > maxBytes; i++) {
+            long length = files[i].length();
+
+            if (files[i].delete()) {
+                total -= length;
+            }
+        }
+    }
+
+
+
+    public List<TelemetryChannel> getChannels() { return channels; }
+    public int getRecordSize() { return recordSize; }
+    public boolean isStarted() { return started; }
+    public long getDropped() { return dropped; }
+    public long getRecordsWritten() { return recordsWritten; }
+    public int getBufferedRecords() { return (int) (tail.get() - head.get()); }
+    public int getSegmentIndex() { return segmentIndex; }
+    public long getSession() { return session; }
+    public boolean hasFailed() { return failed; }
+}
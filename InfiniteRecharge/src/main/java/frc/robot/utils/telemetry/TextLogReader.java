@@ -0,0 +1,119 @@
+package frc.robot.utils.telemetry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import frc.robot.utils.control.statespace.modeling.ildata.ILData;
+
+
+
+/**
+ * Reads text logs one line at a time: whitespace or comma separated numbers,
+ * one sample per line, with the timestamp in the first column. That covers
+ * ILData's trial*.txt files and CSVs written by the telemetry tool.
+ *
+ * If the first line isn't numbers it's used as the column names. Otherwise
+ * ILData files get ILData's column names and anything else gets numbered ones.
+ */
+public class TextLogReader implements LogReader {
+    private final BufferedReader reader;
+    private final String[] names;
+
+    /** first line, if it was data and not a header */
+    private String pending;
+
+
+
+    public TextLogReader(Path path) throws IOException {
+        reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+
+        String first = reader.readLine();
+        String[] fields = first == null ? new String[0] : split(first);
+
+        if (fields.length > 0 && !isNumber(fields[0])) {
+            // header, first column is the timestamp
+            names = new String[fields.length - 1];
+            System.arraycopy(fields, 1, names, 0, names.length);
+        } else {
+            pending = first;
+
+            String[] columns;
+            if (isILData(path)) {
+                columns = ILData.COLUMNS;
+            } else {
+                columns = new String[fields.length];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = i == 0 ? "time" : "column" + i;
+                }
+            }
+
+            names = new String[Math.max(columns.length - 1, 0)];
+            System.arraycopy(columns, 1, names, 0, names.length);
+        }
+    }
+
+    public static boolean isILData(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith("trial") && name.endsWith(".txt");
+    }
+
+    private static String[] split(String line) {
+        return line.trim().split("[\\s,]+");
+    }
+
+    private static boolean isNumber(String s) {
+        return !Double.isNaN(parse(s)) || s.equalsIgnoreCase("NaN");
+    }
+
+    /** @return the number, or NaN if it isn't one */
+    private static double parse(String s) {
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+
+
+    @Override
+    public boolean next(double[] out) throws IOException {
+        String line;
+
+        do {
+            if (pending != null) {
+                line = pending;
+                pending = null;
+            } else {
+                line = reader.readLine();
+            }
+
+            if (line == null) {
+                return false;
+            }
+        } while (line.trim().isEmpty());
+
+        String[] fields = split(line);
+
+        for (int i = 0; i <= names.length; i++) {
+            out[i] = i < fields.length ? parse(fields[i]) : Double.NaN;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+
+
+    @Override
+    public String[] getChannelNames() { return names; }
+    @Override
+    public String[] getLabels(int channel) { return null; }
+}
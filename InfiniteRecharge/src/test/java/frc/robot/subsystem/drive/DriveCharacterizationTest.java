@@ -0,0 +1,126 @@
+package frc.robot.subsystem.drive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import frc.robot.subsystem.drive.DriveCharacterization.Fit;
+import frc.robot.subsystem.drive.DriveCharacterization.Phase;
+import frc.robot.subsystem.drive.DriveCharacterization.Side;
+
+
+
+public class DriveCharacterizationTest {
+    private static final double KS = 1.1;
+    private static final double KV = 2.4;
+    private static final double KA = 0.35;
+    // the right side's a bit draggier
+    private static final double RIGHT_KS = 1.3;
+
+    private static final double DT = 0.02;
+
+
+
+    /** one side of a drivetrain with V = kS sgn(v) + kV v + kA a, run for DT */
+    private static double accelerate(double voltage, double velocity, double ks) {
+        double step = DT / 100;
+
+        for (int i = 0; i < 100; i++) {
+            double friction = velocity != 0 ? ks * Math.signum(velocity) : Math.max(-ks, Math.min(ks, voltage));
+            double next = velocity + (voltage - friction - KV * velocity) / KA * step;
+
+            // friction can stop it but can't turn it around
+            velocity = velocity != 0 && Math.signum(next) != Math.signum(velocity) ? 0 : next;
+        }
+
+        return velocity;
+    }
+
+
+
+    @Test
+    public void fit() {
+        DriveCharacterization characterization = new DriveCharacterization();
+        Random random = new Random(971);
+
+        double left = 0, right = 0, distance = 0, voltage = 0;
+        characterization.start(0);
+
+        boolean sawBackward = false;
+        for (int i = 0; i < 20000 && !characterization.isDone(); i++) {
+            double t = i * DT;
+
+            voltage = characterization.step(
+                t,
+                voltage, left + 0.002 * random.nextGaussian(),
+                voltage, right + 0.002 * random.nextGaussian(),
+                distance
+            );
+            sawBackward |= voltage < 0;
+
+            left = accelerate(voltage, left, KS);
+            right = accelerate(voltage, right, RIGHT_KS);
+            distance += (left + right) / 2 * DT;
+        }
+
+        assertTrue(characterization.isDone());
+        assertTrue(sawBackward);
+
+        Fit fit = characterization.getFit(Side.LEFT);
+        assertNotNull(fit);
+        assertTrue(fit.isValid());
+        assertEquals(KS, fit.ks, 0.05);
+        assertEquals(KV, fit.kv, 0.05);
+        assertEquals(KA, fit.ka, 0.05);
+
+        assertEquals(RIGHT_KS, characterization.getFit(Side.RIGHT).ks, 0.05);
+
+        Fit both = characterization.getFit(Side.BOTH);
+        assertEquals((KS + RIGHT_KS) / 2, both.ks, 0.1);
+        assertEquals(KV, both.kv, 0.05);
+        assertEquals(both.samples, fit.samples + characterization.getFit(Side.RIGHT).samples);
+    }
+
+    @Test
+    public void distanceLimit() {
+        DriveCharacterization characterization = new DriveCharacterization(1, 6, 11, 1);
+        characterization.start(0);
+
+        double velocity = 0, distance = 0, voltage = 0;
+        for (int i = 0; i < 1000 && characterization.getPhase() == Phase.QUASISTATIC_FORWARD; i++) {
+            voltage = characterization.step(i * DT, voltage, velocity, voltage, velocity, distance);
+
+            velocity = accelerate(voltage, velocity, KS);
+            distance += velocity * DT;
+        }
+
+        assertEquals(Phase.QUASISTATIC_BACKWARD, characterization.getPhase());
+        assertTrue(characterization.isResting());
+        assertEquals(1, distance, 0.2);
+    }
+
+    @Test
+    public void file() throws Exception {
+        Path path = Files.createTempFile("characterization", ".txt");
+
+        Map<Side, Fit> fits = new EnumMap<Side, Fit>(Side.class);
+        fits.put(Side.LEFT, new Fit(KS, KV, KA));
+        fits.put(Side.BOTH, new Fit(RIGHT_KS, KV, KA));
+        DriveCharacterization.save(path, fits);
+
+        Map<Side, Fit> loaded = DriveCharacterization.load(path);
+        assertEquals(2, loaded.size());
+        assertEquals(KS, loaded.get(Side.LEFT).ks, 0);
+        assertEquals(KA, loaded.get(Side.BOTH).ka, 0);
+
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,72 @@
+package frc.robot.subsystem.navigation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PoseHistoryTest {
+    private static final double TOLERANCE = 0.000001;
+
+    @Test
+    public void interpolate() {
+        PoseHistory history = new PoseHistory(10);
+        double[] out = new double[PoseHistory.WIDTH];
+
+        assertFalse(history.get(0, out));
+
+        history.add(1.0, 0, 0, 0, 1, 0);
+        history.add(1.1, 1, 2, 0.2, 3, 4);
+
+        assertTrue(history.get(1.025, out));
+        assertEquals(0.25, out[PoseHistory.X], TOLERANCE);
+        assertEquals(0.5, out[PoseHistory.Y], TOLERANCE);
+        assertEquals(0.05, out[PoseHistory.THETA], TOLERANCE);
+        assertEquals(1.5, out[PoseHistory.V], TOLERANCE);
+        assertEquals(1, out[PoseHistory.OMEGA], TOLERANCE);
+
+        // newer than anything, newest is the best we've got
+        assertTrue(history.get(5, out));
+        assertEquals(1, out[PoseHistory.X], TOLERANCE);
+
+        // older than anything
+        assertFalse(history.get(0.5, out));
+        assertEquals(0, out[PoseHistory.X], TOLERANCE);
+    }
+
+    @Test
+    public void wrapAngle() {
+        // interpolating from just under pi to just over -pi should go through pi, not 0
+        double a = Math.PI - 0.1;
+        double b = -Math.PI + 0.1;
+
+        double mid = PoseHistory.interpolateAngle(a, b, 0.5);
+
+        assertEquals(0, Math.IEEEremainder(mid - Math.PI, 2 * Math.PI), TOLERANCE);
+    }
+
+    @Test
+    public void ringBuffer() {
+        PoseHistory history = new PoseHistory(4);
+        double[] out = new double[PoseHistory.WIDTH];
+
+        for (int i = 0; i < 10; i++) {
+            history.add(i, i, 0, 0, 0, 0);
+        }
+
+        assertEquals(4, history.size());
+        assertEquals(6, history.getOldestTime(), 0);
+        assertEquals(9, history.getNewestTime(), 0);
+
+        // binary search across the wrap point
+        for (double t = 6; t <= 9; t += 0.25) {
+            assertTrue(history.get(t, out));
+            assertEquals(t, out[PoseHistory.X], TOLERANCE);
+        }
+
+        // out of order is ignored
+        history.add(7.5, 100, 0, 0, 0, 0);
+        history.get(7.5, out);
+        assertEquals(7.5, out[PoseHistory.X], TOLERANCE);
+    }
+
+}
@@ -0,0 +1,70 @@
+package frc.robot.subsystem.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import frc.robot.utils.control.statespace.models.ABFTriple;
+import frc.robot.utils.control.statespace.models.DiscretizationCache;
+import frc.robot.utils.control.statespace.models.ltif.LTIFModel;
+
+
+
+public class RobotSystemTest {
+    private static final double TOLERANCE = 0.000001;
+
+    @Test
+    public void yawToTheta() {
+        assertEquals(0, RobotSystem.yawToTheta(0), TOLERANCE);
+        assertEquals(Math.PI / 2, RobotSystem.yawToTheta(90), TOLERANCE);
+        assertEquals(-Math.PI / 2, RobotSystem.yawToTheta(270), TOLERANCE);
+        assertEquals(-Math.PI, RobotSystem.yawToTheta(180), TOLERANCE);
+        assertEquals(-Math.PI, RobotSystem.yawToTheta(-180), TOLERANCE);
+        assertEquals(Math.toRadians(10), RobotSystem.yawToTheta(730), TOLERANCE);
+    }
+
+    /** called every loop while the robot spins in place */
+    @Test
+    public void fullTurn() {
+        RobotSystem sys = new RobotSystem();
+        DiscretizationCache cache = sys.getCache();
+
+        // the velocity's always between the same 2 grid points, and a turn
+        // crosses every heading grid point once
+        int thetaCells = (int) Math.ceil(2 * Math.PI / NavigationConstants.MODEL_CACHE_THETA_STEP) + 1;
+        int bound = 2 * thetaCells;
+        assertTrue(bound <= NavigationConstants.MODEL_CACHE_SIZE);
+
+        for (double yaw = -180; yaw < 180; yaw += 0.5) {
+            sys.getModelAtYaw(0.01, yaw);
+        }
+
+        int misses = cache.getMisses();
+        assertTrue("misses " + misses, misses <= bound);
+
+        // a second turn, past where the navX would wrap, is all hits
+        for (double yaw = 0; yaw < 720; yaw += 0.5) {
+            sys.getModelAtYaw(0.01, yaw);
+        }
+
+        assertEquals(misses, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void modelReused() {
+        RobotSystem sys = new RobotSystem();
+
+        LTIFModel first = sys.getModel(0.5, 0.1);
+        LTIFModel second = sys.getModel(1.5, -0.7);
+        assertSame(first, second);
+
+        // but it has the new operating point's matrices
+        ABFTriple system = sys.getCache().get(1.5, -0.7);
+        assertTrue(second.getA().isIdentical(system.getA(), TOLERANCE));
+        assertTrue(second.getB().isIdentical(system.getB(), TOLERANCE));
+        assertTrue(second.getF().isIdentical(system.getF(), TOLERANCE));
+    }
+}
@@ -0,0 +1,187 @@
+package frc.robot.subsystem.navigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.ejml.data.DMatrixRMaj;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+
+import frc.robot.subsystem.drive.DriveConstants;
+
+
+
+public class SensorFusionTest {
+    private static final double TOLERANCE = 0.000001;
+
+    /** position and velocity, constant velocity */
+    private static void process(DMatrixRMaj x, DMatrixRMaj u, double dt, DMatrixRMaj out) {
+        out.set(0, 0, x.get(0, 0) + x.get(1, 0) * dt);
+        out.set(1, 0, x.get(1, 0));
+    }
+
+    private static SensorFusion make(int capacity) {
+        SensorFusion fusion = new SensorFusion(
+            SensorFusionTest::process,
+            new DMatrixRMaj(2, 1), diag(1, 1), diag(0.01, 0.1),
+            0, capacity
+        );
+
+        fusion.addSensor("position", 50, (x, out) -> out.set(0, 0, x.get(0, 0)), diag(0.04));
+        fusion.addSensor("velocity", 100, (x, out) -> out.set(0, 0, x.get(1, 0)), diag(0.01));
+
+        return fusion;
+    }
+
+    private static DMatrixRMaj diag(double... values) {
+        DMatrixRMaj m = new DMatrixRMaj(values.length, values.length);
+        for (int i = 0; i < values.length; i++) {
+            m.set(i, i, values[i]);
+        }
+
+        return m;
+    }
+
+
+
+    /** A late measurement should end up the same as if it came in on time */
+    @Test
+    public void rewind() {
+        SensorFusion inOrder = make(64);
+        SensorFusion late = make(64);
+
+        SensorFusion.Sensor position = inOrder.getSensors().get(0);
+        SensorFusion.Sensor velocity = inOrder.getSensors().get(1);
+        SensorFusion.Sensor latePosition = late.getSensors().get(0);
+        SensorFusion.Sensor lateVelocity = late.getSensors().get(1);
+
+        // velocity every 10 ms, position at 35 ms that shows up at the end
+        for (int i = 1; i <= 8; i++) {
+            double t = i * 0.01;
+
+            inOrder.add(velocity, t, 2);
+            if (i == 3) {
+                inOrder.add(position, 0.035, 0.1);
+            }
+
+            late.add(lateVelocity, t, 2);
+        }
+        assertTrue(late.add(latePosition, 0.035, 0.1));
+
+        assertEquals(0.08, late.getTime(), TOLERANCE);
+        assertEquals(9, late.getLogSize());
+        assertEquals(1, latePosition.getLate());
+        // the position and the 5 velocities after it
+        assertEquals(6, late.getReplayed());
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(inOrder.getState().get(i, 0), late.getState().get(i, 0), TOLERANCE);
+            for (int j = 0; j < 2; j++) {
+                assertEquals(inOrder.getCovariance().get(i, j), late.getCovariance().get(i, j), TOLERANCE);
+            }
+        }
+    }
+
+    /** Once the log's full, measurements older than it can't be applied */
+    @Test
+    public void tooOld() {
+        SensorFusion fusion = make(4);
+        SensorFusion.Sensor position = fusion.getSensors().get(0);
+        SensorFusion.Sensor velocity = fusion.getSensors().get(1);
+
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(fusion.add(velocity, i * 0.01, 1));
+        }
+        assertEquals(4, fusion.getLogSize());
+
+        double x = fusion.getState().get(0, 0);
+
+        // the log only goes back to 0.07, the last state before that was 0.06
+        assertFalse(fusion.add(position, 0.05, 5));
+        assertEquals(1, position.getDropped());
+        assertEquals(x, fusion.getState().get(0, 0), TOLERANCE);
+
+        // right after the oldest entry is still fine, even though it pushes it out
+        assertTrue(fusion.add(position, 0.075, 5));
+        assertEquals(4, fusion.getLogSize());
+        assertTrue(fusion.getState().get(0, 0) > x);
+
+        // and after a reset nothing from before it is
+        fusion.reset(new DMatrixRMaj(2, 1), diag(1, 1), 1);
+        assertEquals(0, fusion.getLogSize());
+        assertFalse(fusion.add(position, 0.5, 0));
+        assertTrue(fusion.add(position, 1.5, 0));
+    }
+
+
+    /** A covariance that isn't positive definite gets fixed instead of stopping everything */
+    @Test
+    public void recovery() {
+        SensorFusion fusion = make(16);
+        SensorFusion.Sensor velocity = fusion.getSensors().get(1);
+
+        assertTrue(fusion.add(velocity, 0.01, 1));
+        assertEquals(0, fusion.getRecoveries());
+
+        fusion.getCovariance().set(0, 0, -1);
+
+        // it still moves on, and the covariance is usable again
+        assertTrue(fusion.add(velocity, 0.02, 1));
+        assertEquals(0.02, fusion.getTime(), TOLERANCE);
+        assertEquals(1, fusion.getRecoveries());
+        assertTrue(fusion.getCovariance().get(0, 0) > 0);
+
+        assertTrue(fusion.add(velocity, 0.03, 1));
+        assertEquals(1, fusion.getRecoveries());
+    }
+
+
+
+    /** Drive straight from a bad starting guess, with vision frames showing up late */
+    @Test
+    public void poseEstimator() {
+        double trackWidth = 0.6;
+        PoseEstimator estimator = new PoseEstimator(trackWidth, 0, 0);
+
+        // really at (-3, 2.404) facing the target, but it thinks it's at (-2.5, 2)
+        estimator.resetPose(new Pose2d(-2.5, 2, new Rotation2d(0)));
+
+        double x = -3;
+        double v = -0.5;
+
+        for (int i = 1; i <= 400; i++) {
+            double t = i * 0.005;
+            x = -3 + v * t;
+
+            estimator.addImu(t, 0, 0, 0);
+
+            if (i % 4 == 0) {
+                estimator.addEncoders(t, v * t, v * t);
+                estimator.addGyroRate(t, 0);
+            }
+
+            // captured 60 ms ago, at about 20 fps
+            if (i % 10 == 0 && i > 12) {
+                double captured = t - 0.06;
+                double distance = (NavigationConstants.TARGET_X_M - (-3 + v * captured)) / DriveConstants.METERS_PER_INCH;
+                estimator.addVision(captured, 0, 0, distance, 0);
+            }
+
+            estimator.step();
+        }
+
+        Pose2d pose = estimator.getPose();
+        assertEquals(x, pose.getTranslation().getX(), 0.05);
+        assertEquals(NavigationConstants.TARGET_Y_M, pose.getTranslation().getY(), 0.05);
+        assertEquals(0, pose.getRotation().getRadians(), 0.01);
+        assertEquals(2, estimator.getSnapshot().timestamp, TOLERANCE);
+
+        SensorFusion.Sensor vision = estimator.getFusion().getSensors().get(4);
+        assertEquals("vision", vision.getName());
+        assertTrue(vision.getLate() > 30);
+        assertEquals(0, vision.getDropped());
+    }
+}
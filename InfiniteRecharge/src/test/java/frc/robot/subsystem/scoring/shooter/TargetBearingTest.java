@@ -0,0 +1,104 @@
+package frc.robot.subsystem.scoring.shooter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import frc.robot.subsystem.vision.TargetTracker;
+
+
+
+public class TargetBearingTest {
+    private static final double TOLERANCE = 0.000001;
+
+    private static final double DT = 0.02;
+    private static final double LATENCY = 0.03;
+    private static final double RELEASE = 0.15;
+
+    /** where the target is from the robot, which never moves */
+    private static final double TARGET = 20;
+
+    /** turret swinging back and forth across the target, up to about 94 deg/s */
+    private static double azimuth(double t) {
+        return 30 * Math.sin(Math.PI * t);
+    }
+
+
+
+    @Test
+    public void interpolate() {
+        TargetBearing bearing = new TargetBearing(4);
+
+        assertEquals(0, bearing.getAzimuthAt(1), TOLERANCE);
+
+        for (int i = 0; i < 6; i++) {
+            bearing.addAzimuth(i, 10 * i);
+        }
+
+        // 0 and 1 are gone
+        assertEquals(25, bearing.getAzimuthAt(2.5), TOLERANCE);
+        assertEquals(40, bearing.getAzimuthAt(4), TOLERANCE);
+        assertEquals(20, bearing.getAzimuthAt(0), TOLERANCE);
+        assertEquals(50, bearing.getAzimuthAt(7), TOLERANCE);
+    }
+
+    /** the turret moving shouldn't look like the target moving */
+    @Test
+    public void turretMoving() {
+        TargetBearing bearing = new TargetBearing(ShooterConstants.AZIMUTH_HISTORY_SIZE);
+        TargetTracker tracker = new TargetTracker();
+        TargetTracker rawTracker = new TargetTracker();
+        Random random = new Random(4183);
+
+        double t = 0;
+        for (int i = 0; i <= 100; i++) {
+            bearing.addAzimuth(t, azimuth(t));
+
+            double capture = t - LATENCY;
+            double tx = TARGET - azimuth(capture) + random.nextGaussian() * 0.1;
+
+            tracker.addMeasurement(capture, bearing.getBearing(capture, tx, 0), 3, 200);
+            rawTracker.addMeasurement(capture, tx, 3, 200);
+
+            t += DT;
+        }
+        t -= DT;
+
+        // turret's going as fast as it does at t = 2
+        double aim = TargetBearing.toAzimuth(tracker.predict(TargetTracker.BEARING, t + RELEASE), 0);
+        assertEquals(TARGET, aim, 0.3);
+        assertEquals(0, tracker.getPrimary().getVelocity(TargetTracker.BEARING), 1);
+
+        // what tracking tx and adding the azimuth back does, which counts the turret twice
+        double rawAim = azimuth(t) + rawTracker.predict(TargetTracker.BEARING, t + RELEASE);
+        assertTrue("raw aim " + rawAim, Math.abs(rawAim - TARGET) > 5);
+    }
+
+    /** same with the robot spinning in place and the turret holding still */
+    @Test
+    public void robotTurning() {
+        TargetBearing bearing = new TargetBearing(ShooterConstants.AZIMUTH_HISTORY_SIZE);
+        TargetTracker tracker = new TargetTracker();
+
+        double t = 0;
+        for (int i = 0; i <= 150; i++) {
+            bearing.addAzimuth(t, 0);
+
+            // heading keeps going past 180
+            double capture = t - LATENCY;
+            double heading = 90 * capture;
+            double tx = TARGET - heading;
+
+            tracker.addMeasurement(capture, bearing.getBearing(capture, tx, heading), 3, 200);
+
+            t += DT;
+        }
+        t -= DT;
+
+        double aim = TargetBearing.toAzimuth(tracker.predict(TargetTracker.BEARING, t + RELEASE), 90 * t);
+        assertEquals(TARGET - 90 * t, aim, 0.3);
+    }
+}
@@ -0,0 +1,109 @@
+package frc.robot.subsystem.scoring.shooter.ballistics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import frc.robot.config.Config.BallisticsConfig;
+
+public class BallisticsTableTest {
+    private static final double G = 9.80665 / 0.0254; // in/s^2
+
+    private static BallisticsConfig noDrag() {
+        BallisticsConfig config = new BallisticsConfig();
+        config.dragCoefficient = 0;
+        return config;
+    }
+
+    /** speed (in/s) to hit the target without drag */
+    private static double vacuumSpeed(BallisticsConfig config, double d, double angle_deg) {
+        double h = config.targetHeight_in - config.launchHeight_in;
+        double angle = Math.toRadians(angle_deg);
+
+        return Math.sqrt(G * d * d / (2 * Math.pow(Math.cos(angle), 2) * (d * Math.tan(angle) - h)));
+    }
+
+
+
+    @Test
+    public void testNoDrag() {
+        BallisticsConfig config = noDrag();
+        BallisticsSolver solver = new BallisticsSolver(config);
+
+        double[] time = new double[1];
+        double speed = solver.solve(180, 45, time);
+
+        double expected = vacuumSpeed(config, 180, 45);
+        assertEquals(expected, speed, expected * 0.001);
+        assertEquals(180 / (expected * Math.cos(Math.toRadians(45))), time[0], 0.001);
+
+        // too flat to ever get up to the target
+        assertTrue(Double.isNaN(solver.solve(100, 5, null)));
+    }
+
+    @Test
+    public void testDrag() {
+        BallisticsConfig config = new BallisticsConfig();
+        BallisticsSolver solver = new BallisticsSolver(config);
+
+        // drag means it has to be thrown harder
+        assertTrue(solver.solve(300, 40, null) > vacuumSpeed(config, 300, 40) * 1.02);
+    }
+
+    @Test
+    public void testInterpolation() {
+        BallisticsConfig config = noDrag();
+        BallisticsTable table = new BallisticsTable(config);
+
+        double speedPerRPM = 2 * Math.PI * config.flywheelRadius_in / 60;
+
+        // on a grid point it's exact
+        assertEquals(vacuumSpeed(config, 180, 45) / speedPerRPM, table.getRPM(180, 45), 1);
+
+        // and between them it's close
+        double expected = vacuumSpeed(config, 185, 46) / speedPerRPM;
+        assertEquals(expected, table.getRPM(185, 46), expected * 0.01);
+
+        // past the edges it's clamped
+        assertEquals(table.getRPM(config.maxDistance_in, 45), table.getRPM(config.maxDistance_in + 100, 45), 0);
+    }
+
+    @Test
+    public void testCalibration() throws IOException {
+        BallisticsTable table = new BallisticsTable(noDrag());
+
+        double at120 = table.getRPM(120, 45);
+        double at240 = table.getRPM(240, 45);
+        double at180 = table.getRPM(180, 45);
+
+        Path file = Files.createTempFile("ballistics", ".csv");
+        Files.write(file, Arrays.asList(
+            "# distance, angle, rpm",
+            "120, 45, " + at120 * 1.1,
+            "",
+            "240 45 " + at240 * 1.3 + "  # measured",
+            "not, a, point"
+        ));
+
+        List<double[]> points = BallisticsTable.loadCalibration(file);
+        Files.delete(file);
+
+        assertEquals(2, points.size());
+
+        table.calibrate(points);
+        assertEquals(2, table.getCalibrationPoints());
+
+        assertEquals(at120 * 1.1, table.getRPM(120, 45), 1);
+        assertEquals(at240 * 1.3, table.getRPM(240, 45), 1);
+        // halfway between gets halfway between
+        assertEquals(at180 * 1.2, table.getRPM(180, 45), 1);
+
+        assertTrue(BallisticsTable.loadCalibration(file).isEmpty());
+    }
+}
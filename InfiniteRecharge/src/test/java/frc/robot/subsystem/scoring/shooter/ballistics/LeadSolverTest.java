@@ -0,0 +1,87 @@
+package frc.robot.subsystem.scoring.shooter.ballistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import frc.robot.config.Config.BallisticsConfig;
+
+public class LeadSolverTest {
+    private static final double ANGLE = 45;
+
+    /** takes a little while to build, so only once */
+    private static final BallisticsTable table = new BallisticsTable(new BallisticsConfig());
+
+
+
+    @Test
+    public void testStill() {
+        LeadSolver solver = new LeadSolver(table, 5, 0.001);
+
+        assertTrue(solver.solve(200, 10, 0, 0, ANGLE));
+        assertEquals(10, solver.getBearing(), 1e-9);
+        assertEquals(200, solver.getDistance(), 1e-9);
+        assertEquals(table.getRPM(200, ANGLE), solver.getRPM(), 1e-9);
+        assertTrue(solver.isConverged());
+    }
+
+    @Test
+    public void testDrivingAtTarget() {
+        LeadSolver solver = new LeadSolver(table, 10, 0.0001);
+
+        // driving straight at it, so the ball gets a push and it's a shorter shot
+        assertTrue(solver.solve(200, 0, 60, 0, ANGLE));
+        assertTrue(solver.isConverged());
+        assertEquals(0, solver.getBearing(), 1e-9);
+        assertEquals(200 - 60 * solver.getTimeOfFlight(), solver.getDistance(), 0.1);
+        assertEquals(table.getTimeOfFlight(solver.getDistance(), ANGLE), solver.getTimeOfFlight(), 0.001);
+        assertTrue(solver.getRPM() < table.getRPM(200, ANGLE));
+    }
+
+    @Test
+    public void testDrivingPastTarget() {
+        LeadSolver solver = new LeadSolver(table, 10, 0.0001);
+
+        // target's off to the right while driving forward, so aim behind it
+        assertTrue(solver.solve(200, 90, 60, 0, ANGLE));
+        assertTrue(solver.isConverged());
+        assertTrue(solver.getBearing() > 90);
+
+        double t = solver.getTimeOfFlight();
+        assertEquals(Math.toDegrees(Math.atan2(200, -60 * t)), solver.getBearing(), 0.1);
+        assertEquals(Math.hypot(200, 60 * t), solver.getDistance(), 0.1);
+
+        // strafing right instead puts it right in front, just further away
+        assertTrue(solver.solve(200, 90, 0, -60, ANGLE));
+        assertEquals(90, solver.getBearing(), 1e-9);
+        assertTrue(solver.getDistance() < 200);
+    }
+
+    @Test
+    public void testIterationLimit() {
+        LeadSolver solver = new LeadSolver(table, 1, 1e-9);
+
+        // gives up after one iteration but still has a shot
+        assertTrue(solver.solve(300, 30, 100, 0, ANGLE));
+        assertEquals(1, solver.getIterations());
+        assertFalse(solver.isConverged());
+        assertTrue(solver.getDistance() < 300);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        LeadSolver solver = new LeadSolver(table, 10, 0.0001);
+
+        // past the end of the table, which would otherwise get clamped
+        assertFalse(solver.solve(600, 10, 0, 0, ANGLE));
+        assertTrue(Double.isNaN(solver.getRPM()));
+        assertEquals(600, solver.getDistance(), 1e-9);
+
+        // in range, but backing away fast enough that the lead takes it out
+        assertTrue(table.isInRange(470));
+        assertFalse(solver.solve(470, 10, -100, 0, ANGLE));
+        assertTrue(Double.isNaN(solver.getRPM()));
+        assertEquals(470, solver.getDistance(), 1e-9);
+        assertEquals(10, solver.getBearing(), 1e-9);
+    }
+}
@@ -0,0 +1,150 @@
+package frc.robot.subsystem.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+
+
+public class LimelightClientTest {
+    /**
+     * Works like NetworkTables does when a frame arrives: every value is
+     * updated, then each one that changed gets its listeners called
+     */
+    private static class FakeTable implements LimelightClient.Table {
+        private final Map<String, Double> values = new HashMap<String, Double>();
+        private final Map<String, List<Runnable>> listeners = new HashMap<String, List<Runnable>>();
+
+        @Override
+        public double get(String key) {
+            return values.getOrDefault(key, 0.0);
+        }
+
+        @Override
+        public void set(String key, double value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public int addListener(String key, Runnable listener) {
+            listeners.computeIfAbsent(key, k -> new ArrayList<Runnable>()).add(listener);
+            return 0;
+        }
+
+        @Override
+        public void removeListener(String key, int handle) {
+            listeners.remove(key);
+        }
+
+        void frame(double tv, double tx, double ty, double tl) {
+            List<String> changed = new ArrayList<String>();
+            change("tv", tv, changed);
+            change("tx", tx, changed);
+            change("ty", ty, changed);
+            change("tl", tl, changed);
+
+            for (String key : changed) {
+                fire(key);
+            }
+        }
+
+        void fire(String key) {
+            for (Runnable listener : listeners.getOrDefault(key, new ArrayList<Runnable>())) {
+                listener.run();
+            }
+        }
+
+        private void change(String key, double value, List<String> changed) {
+            if (get(key) != value || !values.containsKey(key)) {
+                changed.add(key);
+            }
+            set(key, value);
+        }
+    }
+
+
+
+    @Test
+    public void oneTargetPerFrame() {
+        FakeTable table = new FakeTable();
+        LimelightClient client = new LimelightClient(table);
+
+        table.frame(1, 5, -3, 20);
+        LimelightClient.Target target = client.getTarget();
+        assertEquals(1, target.frame);
+        assertTrue(target.valid);
+        assertEquals(5, target.tx, 0);
+        assertEquals(-3, target.ty, 0);
+        assertEquals((20 + VisionConstants.IMAGE_CAPTURE_LATENCY_MS) / 1000, target.latency, 1e-9);
+
+        // only a couple of them changed
+        table.frame(1, 6, -3, 21);
+        assertEquals(2, client.getTarget().frame);
+        assertEquals(6, client.getTarget().tx, 0);
+
+        // nothing but the latency changed
+        table.frame(1, 6, -3, 22);
+        assertEquals(3, client.getTarget().frame);
+
+        // the target goes away
+        table.frame(0, 0, 0, 23);
+        assertEquals(4, client.getTarget().frame);
+        assertFalse(client.getTarget().valid);
+    }
+
+    @Test
+    public void noMixedFrames() {
+        FakeTable table = new FakeTable();
+        LimelightClient client = new LimelightClient(table);
+
+        table.frame(1, 5, -3, 20);
+        LimelightClient.Target target = client.getTarget();
+
+        // the next frame's tx shows up before the rest of it
+        table.set("tx", 7);
+        table.fire("tx");
+        assertSame(target, client.getTarget());
+
+        // and it's all used together once its tl does
+        table.set("ty", -4);
+        table.set("tl", 21);
+        table.fire("ty");
+        table.fire("tl");
+        assertEquals(2, client.getTarget().frame);
+        assertEquals(7, client.getTarget().tx, 0);
+        assertEquals(-4, client.getTarget().ty, 0);
+    }
+
+    @Test
+    public void sameFrame() {
+        FakeTable table = new FakeTable();
+        LimelightClient client = new LimelightClient(table);
+
+        table.frame(1, 5, -3, 20);
+        LimelightClient.Target target = client.getTarget();
+
+        // notifications for the same frame's other entries
+        table.fire("tx");
+        table.fire("ty");
+        assertSame(target, client.getTarget());
+        assertEquals(1, client.getTarget().frame);
+    }
+
+    @Test
+    public void pipeline() {
+        FakeTable table = new FakeTable();
+        LimelightClient client = new LimelightClient(table);
+
+        client.setPipeline(2);
+        assertEquals(2, table.get("pipeline"), 0);
+        assertEquals(2, client.getPipeline());
+    }
+}
@@ -0,0 +1,108 @@
+package frc.robot.subsystem.vision;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TargetTrackerTest {
+    private static final double DT = 0.02;
+
+    private TargetTracker tracker;
+    private Random random;
+
+
+
+    @Before
+    public void setup() {
+        tracker = new TargetTracker();
+        random = new Random(4183);
+    }
+
+    /** target moving 5 deg/s to the right and 2 in/s closer, seen with a little noise */
+    private void see(double t) {
+        tracker.addMeasurement(t,
+            10 + 5 * t + random.nextGaussian() * 0.2,
+            3 + random.nextGaussian() * 0.2,
+            200 - 2 * t + random.nextGaussian() * 1
+        );
+    }
+
+
+
+    @Test
+    public void testConstantVelocity() {
+        assertFalse(tracker.hasTarget());
+
+        double t = 0;
+        for (int i = 0; i < 100; i++) {
+            see(t);
+            t += DT;
+        }
+
+        assertTrue(tracker.hasTarget());
+        assertEquals(1, tracker.getTracks());
+
+        // predicted to when the shot would leave
+        double release = t + 0.15;
+        assertEquals(10 + 5 * release, tracker.predict(TargetTracker.BEARING, release), 0.3);
+        assertEquals(3, tracker.predict(TargetTracker.TY, release), 0.3);
+        assertEquals(5, tracker.getPrimary().getVelocity(TargetTracker.BEARING), 1);
+    }
+
+    @Test
+    public void testOutlier() {
+        double t = 0;
+        for (int i = 0; i < 50; i++) {
+            see(t);
+            t += DT;
+        }
+
+        double before = tracker.predict(TargetTracker.BEARING, t);
+
+        // something that's very much not the target
+        tracker.addMeasurement(t, -20, 10, 100);
+
+        assertEquals(2, tracker.getTracks());
+        assertEquals(before, tracker.predict(TargetTracker.BEARING, t), 0.01);
+
+        // and the real target keeps being tracked after it
+        t += DT;
+        see(t);
+        assertEquals(10 + 5 * t, tracker.predict(TargetTracker.BEARING, t), 0.3);
+
+        // the outlier's track dies on its own
+        for (int i = 0; i < 30; i++) {
+            t += DT;
+            see(t);
+        }
+        assertEquals(1, tracker.getTracks());
+    }
+
+    @Test
+    public void testDropout() {
+        double t = 0;
+        for (int i = 0; i < 50; i++) {
+            see(t);
+            t += DT;
+        }
+
+        // no target for a few frames, which still coasts
+        t += 0.2;
+        tracker.update(t);
+        assertTrue(tracker.hasTarget());
+        assertEquals(10 + 5 * t, tracker.predict(TargetTracker.BEARING, t), 0.5);
+
+        // picks back up where it should be
+        see(t);
+        assertEquals(1, tracker.getTracks());
+
+        // gone for good
+        t += 1;
+        tracker.update(t);
+        assertFalse(tracker.hasTarget());
+        assertTrue(Double.isNaN(tracker.predict(TargetTracker.BEARING, t)));
+    }
+}
@@ -0,0 +1,31 @@
+package frc.robot.utils.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import frc.robot.utils.data.MultiChannelRingBuffer;
+
+
+
+public class MotorInfoTest {
+    @Test
+    public void read() {
+        MultiChannelRingBuffer data = new MultiChannelRingBuffer(MotorInfo.CHANNELS, 2);
+        data.add(1, 2, 3, 4);
+        data.add(5, 6, 7, 8);
+        data.add(9, 10, 11, 12);
+
+        MotorInfo info = new MotorInfo();
+        assertSame(info, info.read(data, 0));
+        assertEquals(5, info.position, 0);
+        assertEquals(6, info.velocity, 0);
+        assertEquals(7, info.voltage, 0);
+        assertEquals(8, info.current, 0);
+
+        info.read(data, data.size() - 1);
+        assertEquals(9, info.position, 0);
+        assertEquals(12, info.current, 0);
+    }
+}
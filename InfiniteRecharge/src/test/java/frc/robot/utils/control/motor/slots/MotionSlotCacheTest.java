@@ -0,0 +1,112 @@
+package frc.robot.utils.control.motor.slots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+
+public class MotionSlotCacheTest {
+    /** do what BBMotorController.setMotionConfig() does */
+    private static int use(MotionSlotCache cache, int configID) {
+        int slot = cache.lookup(configID);
+        if (slot == -1) {
+            slot = cache.allocate(configID, false);
+        }
+
+        cache.select(slot);
+        return slot;
+    }
+
+
+
+    @Test
+    public void lru() {
+        MotionSlotCache cache = new MotionSlotCache(2, new LRUSlotPolicy());
+
+        use(cache, 0);
+        use(cache, 1);
+        use(cache, 0);
+
+        // 1 was used longest ago
+        int slot = use(cache, 2);
+        assertEquals(1, slot);
+        assertEquals(0, cache.find(0));
+        assertEquals(-1, cache.find(1));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void lfu() {
+        MotionSlotCache cache = new MotionSlotCache(2, new LFUSlotPolicy());
+
+        use(cache, 0);
+        use(cache, 0);
+        use(cache, 0);
+        use(cache, 1);
+
+        // 1 was used most recently but 0 a lot more
+        use(cache, 2);
+        assertEquals(-1, cache.find(1));
+        assertTrue(cache.find(0) != -1);
+    }
+
+    @Test
+    public void pinned() {
+        PinnedSlotPolicy policy = new PinnedSlotPolicy(new LRUSlotPolicy(), 0);
+        MotionSlotCache cache = new MotionSlotCache(2, policy);
+
+        use(cache, 0);
+        for (int config = 1; config < 5; config++) {
+            use(cache, config);
+            assertEquals(0, cache.getConfig(0));
+        }
+
+        // with everything pinned it still has to load
+        policy.pin(4);
+        assertTrue(use(cache, 5) != -1);
+        assertEquals(5, cache.getConfig(cache.getSelected()));
+    }
+
+    @Test
+    public void prefetch() {
+        MotionSlotCache cache = new MotionSlotCache(2, new LRUSlotPolicy());
+
+        use(cache, 0);
+        assertEquals(1, cache.allocate(1, true));
+
+        // 0 is older but it's selected, so 1 goes instead
+        assertEquals(1, cache.allocate(2, true));
+        assertEquals(0, cache.getConfig(0));
+
+        assertEquals(2, cache.getPrefetches());
+
+        // and a hit after it was prefetched
+        assertEquals(1, cache.lookup(2));
+    }
+
+    @Test
+    public void diff() {
+        MotionSlotCache cache = new MotionSlotCache(2, new LRUSlotPolicy());
+
+        assertTrue(cache.update(0, Gain.P, 0.5));
+        assertFalse(cache.update(0, Gain.P, 0.5));
+        assertTrue(cache.update(1, Gain.P, 0.5));
+        assertTrue(cache.update(0, Gain.P, 0.25));
+
+        // 0 and -0 are the same gain
+        assertTrue(cache.update(MotionSlotCache.SHARED, Gain.MOTION_MAGIC_VELOCITY, 0.0));
+        assertFalse(cache.update(MotionSlotCache.SHARED, Gain.MOTION_MAGIC_VELOCITY, -0.0));
+
+        assertEquals(4, cache.getWrites());
+        assertEquals(2, cache.getSkippedWrites());
+
+        cache.invalidate();
+        assertTrue(cache.update(0, Gain.P, 0.25));
+    }
+}
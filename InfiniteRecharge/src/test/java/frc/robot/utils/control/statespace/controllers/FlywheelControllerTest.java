@@ -0,0 +1,90 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.models.motor.MotorVelocity;
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+
+
+
+public class FlywheelControllerTest {
+    private static final double DT = 0.005;
+    private static final double INERTIA = 0.01;
+    private static final double TOLERANCE = 5;
+
+    private final MotorVelocity model = new MotorVelocity(DT, MotorType.Falcon500, INERTIA);
+    private final double A = model.getA().get(0, 0);
+    private final double B = model.getB().get(0, 0);
+
+    private final Random random = new Random(2020);
+
+    /** the "real" flywheel */
+    private double velocity = 0;
+
+    /** run for a while, returning how long it took to be ready (or NaN if it never was) */
+    private double run(FlywheelController controller, double time) {
+        double readyAt = Double.NaN;
+
+        for (double t = 0; t < time; t += DT) {
+            double voltage = controller.update(velocity + random.nextGaussian() * 2);
+            assertTrue(Math.abs(voltage) <= 12);
+
+            velocity = A * velocity + B * voltage;
+
+            if (Double.isNaN(readyAt) && controller.isReady(TOLERANCE, 2)) {
+                readyAt = t;
+            }
+        }
+
+        return readyAt;
+    }
+
+    @Test
+    public void spinUp() throws StateSpaceException {
+        FlywheelController controller = new FlywheelController(model, 20, 12, 0.5, 2);
+
+        assertFalse(controller.isReady(TOLERANCE, 2));
+
+        controller.setReference(300);
+        double readyAt = run(controller, 3);
+
+        assertFalse(Double.isNaN(readyAt));
+        assertEquals(300, velocity, TOLERANCE);
+        assertEquals(velocity, controller.getEstimate(), TOLERANCE);
+        assertTrue(controller.isReady(TOLERANCE, 2));
+    }
+
+    @Test
+    public void recovery() throws StateSpaceException {
+        FlywheelController controller = new FlywheelController(model, 20, 12, 0.5, 2);
+
+        controller.setReference(300);
+        run(controller, 3);
+
+        // a ball goes through and takes some speed with it
+        velocity -= 40;
+        controller.update(velocity);
+        assertFalse(controller.isReady(TOLERANCE, 2));
+
+        double readyAt = run(controller, 1);
+        assertFalse(Double.isNaN(readyAt));
+        assertTrue(readyAt < 0.5);
+    }
+
+    @Test
+    public void coast() throws StateSpaceException {
+        FlywheelController controller = new FlywheelController(model, 20, 12, 0.5, 2);
+
+        controller.setReference(300);
+        run(controller, 3);
+
+        controller.setReference(0);
+        assertEquals(0, controller.update(velocity), 0);
+        assertFalse(controller.isReady(TOLERANCE, 2));
+    }
+}
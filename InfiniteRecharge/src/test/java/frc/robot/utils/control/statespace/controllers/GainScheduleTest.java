@@ -0,0 +1,159 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.models.ABFTriple;
+
+
+
+public class GainScheduleTest {
+    private static final double TOLERANCE = 1e-4;
+
+    /** K = [x + y, 2x] everywhere, so interpolation is exact */
+    private static GainSchedule linear() {
+        GainSchedule schedule = new GainSchedule("linear", -1, 0.5, 5, 0, 2, 3,
+            new int[] {1, 0, 0}, new int[] {2, 0, 0});
+
+        for (int i = 0; i < schedule.getXCount(); i++) {
+            for (int j = 0; j < schedule.getYCount(); j++) {
+                double x = schedule.getX(i);
+                double y = schedule.getY(j);
+                schedule.set(i, j, GainSchedule.K, new SimpleMatrix(1, 2, true, new double[] {x + y, 2 * x}));
+            }
+        }
+
+        return schedule;
+    }
+
+    @Test
+    public void interpolation() {
+        GainSchedule schedule = linear();
+        DMatrixRMaj K = new DMatrixRMaj(1, 1);
+
+        schedule.get(GainSchedule.K, 0.2, 1.5, K);
+        assertEquals(1, K.numRows);
+        assertEquals(2, K.numCols);
+        assertEquals(1.7, K.get(0, 0), TOLERANCE);
+        assertEquals(0.4, K.get(0, 1), TOLERANCE);
+
+        // clamped to the edges
+        schedule.get(GainSchedule.K, 10, -10, K);
+        assertEquals(1, K.get(0, 0), TOLERANCE);
+        assertEquals(2, K.get(0, 1), TOLERANCE);
+    }
+
+    @Test
+    public void file() throws IOException, StateSpaceException {
+        SimpleMatrix A = new SimpleMatrix(1, 1, true, new double[] {0.99});
+        SimpleMatrix B = new SimpleMatrix(1, 1, true, new double[] {0.1});
+        SimpleMatrix one = SimpleMatrix.identity(1);
+        GainSchedule lti = GainSynthesis.synthesize("lti", A, B, one, one, one, one, one);
+
+        Path path = Files.createTempFile("gains", ".bin");
+        GainSchedule.save(path, Arrays.asList(linear(), lti));
+        Map<String, GainSchedule> loaded = GainSchedule.load(path);
+        Files.delete(path);
+
+        assertEquals(2, loaded.size());
+
+        DMatrixRMaj K = new DMatrixRMaj(1, 1);
+        loaded.get("linear").get(GainSchedule.K, 0.2, 1.5, K);
+        assertEquals(1.7, K.get(0, 0), TOLERANCE);
+
+        GainSchedule read = loaded.get("lti");
+        assertEquals(Riccati.lqr(A, B, one, one).get(0, 0), read.get(GainSchedule.K).get(0, 0), TOLERANCE);
+        assertEquals(Riccati.kalman(A, one, one, one).get(0, 0), read.get(GainSchedule.L).get(0, 0), TOLERANCE);
+        // the covariance after a measurement is less than the measurement noise
+        assertTrue(read.get(GainSchedule.P).get(0, 0) < 1);
+
+        // and nothing there is nothing
+        assertTrue(GainSchedule.load(path).isEmpty());
+    }
+
+    @Test
+    public void model() throws IOException, StateSpaceException {
+        SimpleMatrix one = SimpleMatrix.identity(1);
+        ABFTriple abf = new ABFTriple(
+            new SimpleMatrix(1, 1, true, new double[] {0.99}),
+            new SimpleMatrix(1, 1, true, new double[] {0.1}),
+            new SimpleMatrix(1, 1)
+        );
+        ABFTriple heavier = new ABFTriple(
+            new SimpleMatrix(1, 1, true, new double[] {0.99}),
+            new SimpleMatrix(1, 1, true, new double[] {0.05}),
+            new SimpleMatrix(1, 1)
+        );
+
+        GainSchedule made = GainSynthesis.synthesize("lti", (x, y) -> abf, 0, 1, 1, 0, 1, 1, one, one, one, one, one);
+
+        Path path = Files.createTempFile("gains", ".bin");
+        GainSchedule.save(path, Arrays.asList(made));
+        GainSchedule loaded = GainSchedule.load(path).get("lti");
+        Files.delete(path);
+
+        // survives the file
+        assertTrue(loaded.isFor(GainSynthesis.fingerprint("lti", (x, y) -> abf, 0, 1, 1, 0, 1, 1, one, one, one, one, one)));
+        assertSame(loaded,
+            GainSynthesis.getOrSynthesize(loaded, "lti", (x, y) -> abf, 0, 1, 1, 0, 1, 1, one, one, one, one, one));
+
+        // a different model or different weights don't match
+        assertFalse(loaded.isFor(GainSynthesis.fingerprint("lti", (x, y) -> heavier, 0, 1, 1, 0, 1, 1, one, one, one, one, one)));
+        assertFalse(loaded.isFor(GainSynthesis.fingerprint("lti", (x, y) -> abf, 0, 1, 1, 0, 1, 1, one, one, one, one, one.scale(2))));
+
+        // so it's worked out again for the one it's used with
+        GainSchedule redone = GainSynthesis.getOrSynthesize(loaded, "lti", (x, y) -> heavier, 0, 1, 1, 0, 1, 1,
+            one, one, one, one, one);
+        assertNotSame(loaded, redone);
+        assertEquals(Riccati.lqr(heavier.getA(), heavier.getB(), one, one).get(0, 0), redone.get(GainSchedule.K).get(0, 0),
+            TOLERANCE);
+    }
+
+    @Test
+    public void precomputed() throws IOException, StateSpaceException {
+        SimpleMatrix A = new SimpleMatrix(1, 1, true, new double[] {0.99});
+        SimpleMatrix B = new SimpleMatrix(1, 1, true, new double[] {0.1});
+        SimpleMatrix one = SimpleMatrix.identity(1);
+
+        Path path = Files.createTempFile("gains", ".bin");
+        GainSchedule.save(path, Arrays.asList(GainSynthesis.synthesize("deployed", A, B, one, one, one, one, one)));
+        GainSchedule.loadPrecomputed(path);
+        Files.delete(path);
+
+        GainSchedule deployed = GainSchedule.getPrecomputed("deployed");
+        assertNotNull(deployed);
+        assertNull(GainSchedule.getPrecomputed("nothing"));
+
+        // used as is for the same system, worked out again for a different one
+        assertSame(deployed, GainSynthesis.getOrSynthesize(deployed, "deployed", A, B, one, one, one, one, one));
+        assertNotSame(deployed, GainSynthesis.getOrSynthesize(deployed, "deployed", A, B.scale(2), one, one, one, one, one));
+    }
+
+    @Test
+    public void uncontrollable() {
+        // a state that grows with nothing to stop it
+        ABFTriple abf = new ABFTriple(
+            new SimpleMatrix(1, 1, true, new double[] {1.1}),
+            new SimpleMatrix(1, 1, true, new double[] {0}),
+            new SimpleMatrix(1, 1)
+        );
+
+        SimpleMatrix one = SimpleMatrix.identity(1);
+        try {
+            GainSynthesis.synthesize("unstable", (x, y) -> abf, 0, 1, 1, 0, 1, 1, one, one, null, null, null);
+            fail("there shouldn't be any gains");
+        } catch (StateSpaceException e) {
+            // good
+        }
+    }
+}
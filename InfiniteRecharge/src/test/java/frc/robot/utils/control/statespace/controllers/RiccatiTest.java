@@ -0,0 +1,76 @@
+package frc.robot.utils.control.statespace.controllers;
+
+import static org.junit.Assert.*;
+
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+
+
+public class RiccatiTest {
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    public void scalar() {
+        double a = 0.9;
+        double b = 0.5;
+        double q = 2;
+        double r = 1;
+
+        SimpleMatrix P = Riccati.solve(
+            new SimpleMatrix(1, 1, true, new double[] {a}),
+            new SimpleMatrix(1, 1, true, new double[] {b}),
+            new SimpleMatrix(1, 1, true, new double[] {q}),
+            new SimpleMatrix(1, 1, true, new double[] {r})
+        );
+
+        // b^2 p^2 + (r - a^2 r - q b^2) p - q r = 0
+        double B = r - a * a * r - q * b * b;
+        double expected = (-B + Math.sqrt(B * B + 4 * b * b * q * r)) / (2 * b * b);
+
+        assertEquals(expected, P.get(0, 0), TOLERANCE);
+    }
+
+    @Test
+    public void doubleIntegrator() {
+        double dt = 0.02;
+        SimpleMatrix A = new SimpleMatrix(2, 2, true, new double[] {1, dt, 0, 1});
+        SimpleMatrix B = new SimpleMatrix(2, 1, true, new double[] {dt * dt / 2, dt});
+        SimpleMatrix Q = Riccati.bryson(0.1, 1);
+        SimpleMatrix R = Riccati.bryson(12);
+
+        SimpleMatrix P = Riccati.solve(A, B, Q, R);
+        assertNotNull(P);
+
+        // P really does satisfy the DARE
+        SimpleMatrix AtPB = A.transpose().mult(P).mult(B);
+        SimpleMatrix rhs = A.transpose().mult(P).mult(A)
+            .minus(AtPB.mult(R.plus(B.transpose().mult(P).mult(B)).invert()).mult(AtPB.transpose()))
+            .plus(Q);
+        assertTrue(rhs.isIdentical(P, TOLERANCE * P.normF()));
+
+        // and the gain makes it stable, so the state goes to 0
+        SimpleMatrix K = Riccati.lqr(A, B, Q, R);
+        SimpleMatrix x = new SimpleMatrix(2, 1, true, new double[] {1, 0});
+        for (int i = 0; i < 500; i++) {
+            x = A.minus(B.mult(K)).mult(x);
+        }
+        assertEquals(0, x.normF(), 1e-3);
+    }
+
+    @Test
+    public void kalman() {
+        // random walk measured directly: the gain is p / (p + r) for the apriori p
+        double q = 1;
+        double r = 4;
+        SimpleMatrix one = new SimpleMatrix(1, 1, true, new double[] {1});
+
+        SimpleMatrix K = Riccati.kalman(one, one,
+            new SimpleMatrix(1, 1, true, new double[] {q}),
+            new SimpleMatrix(1, 1, true, new double[] {r}));
+
+        // p = p r / (p + r) + q
+        double p = (q + Math.sqrt(q * q + 4 * q * r)) / 2;
+        assertEquals(p / (p + r), K.get(0, 0), TOLERANCE);
+    }
+}
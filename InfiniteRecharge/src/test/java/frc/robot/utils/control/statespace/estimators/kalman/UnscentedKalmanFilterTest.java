@@ -0,0 +1,213 @@
+package frc.robot.utils.control.statespace.estimators.kalman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+
+
+public class UnscentedKalmanFilterTest {
+    private static final double TOLERANCE = 0.000001;
+
+    /** unicycle with state [x, y, heading] and input [speed, turn rate] */
+    private static void unicycle(DMatrixRMaj x, DMatrixRMaj u, double dt, DMatrixRMaj out) {
+        double heading = x.get(2, 0);
+
+        out.set(0, 0, x.get(0, 0) + u.get(0, 0) * Math.cos(heading) * dt);
+        out.set(1, 0, x.get(1, 0) + u.get(0, 0) * Math.sin(heading) * dt);
+        out.set(2, 0, heading + u.get(1, 0) * dt);
+    }
+
+    private static void yaw(DMatrixRMaj x, DMatrixRMaj out) {
+        out.set(0, 0, x.get(2, 0));
+    }
+
+    private static void pose(DMatrixRMaj x, DMatrixRMaj out) {
+        out.set(x);
+    }
+
+    private static DMatrixRMaj vector(double... values) {
+        return new DMatrixRMaj(values.length, 1, true, values);
+    }
+
+    private static DMatrixRMaj diag(double... values) {
+        return SimpleMatrix.diag(values).getMatrix();
+    }
+
+
+
+    /** It's exact for linear systems, so one step should be the same as a regular Kalman filter */
+    @Test
+    public void linear() {
+        SimpleMatrix A = new SimpleMatrix(new double[][] {
+            new double[] {1, 0.02},
+            new double[] {0, 0.9}
+        });
+        SimpleMatrix B = new SimpleMatrix(new double[][] {
+            new double[] {0},
+            new double[] {0.5}
+        });
+        SimpleMatrix C = new SimpleMatrix(new double[][] {
+            new double[] {1, 0.5}
+        });
+
+        SimpleMatrix x0 = new SimpleMatrix(new double[][] {new double[] {1}, new double[] {-2}});
+        SimpleMatrix P0 = new SimpleMatrix(new double[][] {
+            new double[] {0.5, 0.1},
+            new double[] {0.1, 0.3}
+        });
+        SimpleMatrix Q = SimpleMatrix.diag(0.01, 0.02);
+        SimpleMatrix R = SimpleMatrix.diag(0.04);
+        SimpleMatrix u = new SimpleMatrix(new double[][] {new double[] {3}});
+        SimpleMatrix y = new SimpleMatrix(new double[][] {new double[] {0.7}});
+
+        UnscentedKalmanFilter filter = new UnscentedKalmanFilter(
+            (x, input, dt, out) -> out.set(A.mult(SimpleMatrix.wrap(x.copy())).plus(B.mult(SimpleMatrix.wrap(input.copy()))).getMatrix()),
+            x0.getMatrix(), P0.getMatrix(), Q.getMatrix()
+        );
+        UnscentedKalmanFilter.Measurement measurement = filter.addMeasurement(
+            (x, out) -> out.set(C.mult(SimpleMatrix.wrap(x.copy())).getMatrix()),
+            R.getMatrix()
+        );
+
+        assertTrue(filter.predict(u.getMatrix(), 0.02));
+        assertTrue(filter.update(measurement, y.getMatrix()));
+
+        SimpleMatrix x = A.mult(x0).plus(B.mult(u));
+        SimpleMatrix P = A.mult(P0).mult(A.transpose()).plus(Q);
+        SimpleMatrix K = P.mult(C.transpose()).mult(C.mult(P).mult(C.transpose()).plus(R).invert());
+        x = x.plus(K.mult(y.minus(C.mult(x))));
+        P = P.minus(K.mult(C).mult(P));
+
+        assertTrue(SimpleMatrix.wrap(filter.getState().copy()).isIdentical(x, TOLERANCE));
+        assertTrue(SimpleMatrix.wrap(filter.getCovariance().copy()).isIdentical(P, TOLERANCE));
+    }
+
+
+
+    /** Drive in a circle starting from a bad guess, with yaw and vision coming in at their own rates */
+    @Test
+    public void asynchronous() {
+        double dt = 0.005;
+        Random random = new Random(2020);
+
+        DMatrixRMaj truth = vector(0, 0, 0);
+        DMatrixRMaj next = vector(0, 0, 0);
+        DMatrixRMaj u = vector(2, 1);
+
+        UnscentedKalmanFilter filter = new UnscentedKalmanFilter(
+            UnscentedKalmanFilterTest::unicycle,
+            vector(1, -1, 0.5), diag(1, 1, 0.5), diag(1e-6, 1e-6, 1e-6)
+        );
+        filter.setAngleStates(2);
+
+        UnscentedKalmanFilter.Measurement gyro = filter.addMeasurement(
+            UnscentedKalmanFilterTest::yaw, diag(1e-4), 0
+        );
+        UnscentedKalmanFilter.Measurement vision = filter.addMeasurement(
+            UnscentedKalmanFilterTest::pose, diag(0.01, 0.01, 0.01), 2
+        );
+
+        DMatrixRMaj y = new DMatrixRMaj(3, 1);
+        DMatrixRMaj yaw = new DMatrixRMaj(1, 1);
+
+        // 10 s, which is more than a lap
+        for (int i = 1; i <= 2000; i++) {
+            unicycle(truth, u, dt, next);
+            truth.set(next);
+
+            assertTrue(filter.predict(u, dt));
+
+            // gyro at 100 Hz
+            if (i % 2 == 0) {
+                yaw.set(0, 0, truth.get(2, 0) + 0.01 * random.nextGaussian());
+                assertTrue(filter.update(gyro, yaw));
+            }
+
+            // vision at 7 Hz or so
+            if (i % 29 == 0) {
+                for (int r = 0; r < 3; r++) {
+                    y.set(r, 0, truth.get(r, 0) + 0.1 * random.nextGaussian());
+                }
+                assertTrue(filter.update(vision, y));
+            }
+        }
+
+        DMatrixRMaj x = filter.getState();
+
+        assertEquals(truth.get(0, 0), x.get(0, 0), 0.1);
+        assertEquals(truth.get(1, 0), x.get(1, 0), 0.1);
+        assertEquals(0, Math.IEEEremainder(truth.get(2, 0) - x.get(2, 0), 2 * Math.PI), 0.02);
+
+        // the heading's wrapped even though the truth has gone around more than once
+        assertTrue(Math.abs(x.get(2, 0)) <= Math.PI);
+
+        // and it's sure of itself
+        DMatrixRMaj P = filter.getCovariance();
+        assertTrue(P.get(0, 0) < 0.01);
+        assertTrue(P.get(2, 2) < 1e-3);
+    }
+
+
+
+    /** The defaults should hold up with as many states as the pose estimator has */
+    @Test
+    public void conditioning() {
+        int n = 6;
+        DMatrixRMaj P0 = diag(1, 1, 1, 1, 1, 1);
+        DMatrixRMaj Q = diag(1e-6, 1e-6, 1e-6, 1e-6, 1e-6, 1e-6);
+
+        UnscentedKalmanFilter filter = new UnscentedKalmanFilter((x, input, dt, out) -> out.set(x), new DMatrixRMaj(n, 1), P0, Q);
+
+        UnscentedKalmanFilter.Measurement first = filter.addMeasurement((x, out) -> out.set(0, 0, x.get(0, 0)), diag(1e-4));
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.predict(vector(0), 0.005));
+            assertTrue(filter.update(first, vector(1)));
+        }
+
+        assertEquals(1, filter.getState().get(0, 0), 0.01);
+        assertEquals(filter.getCovariance().get(0, 1), filter.getCovariance().get(1, 0), 0);
+
+        // and the ones that make the center weight huge and negative aren't allowed
+        try {
+            new UnscentedKalmanFilter((x, input, dt, out) -> out.set(x), new DMatrixRMaj(n, 1), P0, Q, 1e-3, 2, 3 - n);
+            fail("the weights shouldn't work");
+        } catch (IllegalArgumentException e) {
+            // good
+        }
+    }
+
+
+
+    /** Heading and measurements on either side of pi shouldn't average out to 0 */
+    @Test
+    public void wrap() {
+        UnscentedKalmanFilter filter = new UnscentedKalmanFilter(
+            UnscentedKalmanFilterTest::unicycle,
+            vector(0, 0, Math.PI - 0.05), diag(0.01, 0.01, 0.01), diag(1e-6, 1e-6, 1e-6)
+        );
+        filter.setAngleStates(2);
+
+        UnscentedKalmanFilter.Measurement gyro = filter.addMeasurement(
+            UnscentedKalmanFilterTest::yaw, diag(0.01), 0
+        );
+
+        // turning left across pi
+        assertTrue(filter.predict(vector(0, 1), 0.1));
+        assertEquals(-Math.PI + 0.05, filter.getState().get(2, 0), TOLERANCE);
+
+        // measured just short of pi, so half way back
+        assertTrue(filter.update(gyro, vector(Math.PI - 0.05)));
+
+        double heading = filter.getState().get(2, 0);
+        assertTrue(Math.abs(heading) > Math.PI - 0.01);
+        assertEquals(0, Math.IEEEremainder(heading - Math.PI, 2 * Math.PI), 0.01);
+    }
+}
@@ -0,0 +1,108 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+
+
+
+public class MotorIdentifierTest {
+    // something like a Falcon 500 with nothing on it
+    private static final double B = 4.1e-5;
+    private static final double R = 0.0467;
+    private static final double K = 0.0182;
+    private static final double J = 3e-4;
+    private static final double L = 5e-5;
+
+    /** Run the motor from rest at a few voltages and sample it every ms like a live stream would */
+    private static void simulate(MotorIdentifier identifier, double noise) {
+        Random random = new Random(254);
+        double step = 1e-5;
+
+        for (double voltage : new double[] {3, 6, 9, 12}) {
+            double omega = 0;
+            double current = 0;
+
+            identifier.endTrial();
+
+            for (int sample = 0; sample <= 300; sample++) {
+                double t = sample * 0.001;
+                identifier.add(
+                    t,
+                    omega + noise * random.nextGaussian(),
+                    current + noise * random.nextGaussian(),
+                    voltage
+                );
+
+                for (int i = 0; i < 100; i++) {
+                    double dCurrent = (voltage - R * current - K * omega) / L;
+                    double dOmega = (K * current - B * omega) / J;
+
+                    current += dCurrent * step;
+                    omega += dOmega * step;
+                }
+            }
+        }
+    }
+
+
+
+    @Test
+    public void fit() {
+        MotorIdentifier identifier = new MotorIdentifier();
+        simulate(identifier, 0.01);
+
+        MotorIdentifier.MotorFit fit = identifier.fit();
+        assertNotNull(fit);
+
+        assertEquals(R, fit.R, R * 0.02);
+        assertEquals(K, fit.Kw, K * 0.02);
+        assertEquals(K, fit.Kt, K * 0.02);
+        assertEquals(J, fit.J, J * 0.05);
+        assertEquals(L, fit.L, L * 0.2);
+        assertEquals(B, fit.b, B * 0.2);
+
+        assertTrue(fit.RConfidence > 0 && fit.RConfidence < R * 0.05);
+        assertTrue(fit.JConfidence > 0 && fit.JConfidence < J * 0.1);
+        assertEquals(1200, fit.samples);
+    }
+
+    @Test
+    public void live() {
+        MotorIdentifier identifier = new MotorIdentifier(0.9999);
+        simulate(identifier, 0.01);
+
+        MotorIdentifier.MotorFit fit = identifier.fit();
+        assertEquals(R, fit.R, R * 0.02);
+        assertEquals(J, fit.J, J * 0.05);
+    }
+
+    @Test
+    public void file() throws Exception {
+        Path path = Files.createTempFile("motors", ".txt");
+
+        Map<String, MotorType> types = new LinkedHashMap<String, MotorType>();
+        types.put("test", new MotorType(B, R, K, K));
+        MotorType.save(path, types);
+
+        Map<String, MotorType> loaded = MotorType.load(path);
+        assertEquals(R, loaded.get("test").getR().getValue(), 0);
+        assertEquals(K, loaded.get("test").getKT().getValue(), 0);
+
+        MotorType.loadIdentified(path);
+        assertEquals(B, MotorType.get("test", MotorType.CIM).getB().getValue(), 0);
+        assertTrue(MotorType.get("nothing", MotorType.CIM) == MotorType.CIM);
+
+        Files.delete(path);
+    }
+}
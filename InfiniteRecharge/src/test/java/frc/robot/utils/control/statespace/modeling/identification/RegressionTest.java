@@ -0,0 +1,145 @@
+package frc.robot.utils.control.statespace.modeling.identification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+
+
+public class RegressionTest {
+    private static final double TOLERANCE = 0.000001;
+
+    /** y = 2 x0 - 3 x1 + 0.5 + noise */
+    private static void fill(Regression regression, int samples, double noise, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[3];
+
+        for (int i = 0; i < samples; i++) {
+            x[0] = random.nextDouble() * 10;
+            x[1] = random.nextGaussian();
+            x[2] = 1;
+
+            regression.add(x, 2 * x[0] - 3 * x[1] + 0.5 + noise * random.nextGaussian());
+        }
+    }
+
+
+
+    @Test
+    public void exact() {
+        LeastSquares ls = new LeastSquares(3);
+        assertNull(ls.getParameters());
+
+        fill(ls, 20, 0, 1);
+
+        double[] theta = ls.getParameters();
+        assertEquals(2, theta[0], TOLERANCE);
+        assertEquals(-3, theta[1], TOLERANCE);
+        assertEquals(0.5, theta[2], TOLERANCE);
+        assertEquals(0, ls.getConfidence(0), 0.0001);
+    }
+
+    @Test
+    public void confidence() {
+        // the 95% interval should hold the true value about 95% of the time
+        int hits = 0;
+
+        for (int trial = 0; trial < 200; trial++) {
+            LeastSquares ls = new LeastSquares(3);
+            fill(ls, 50, 0.5, trial);
+
+            if (Math.abs(ls.getParameters()[0] - 2) <= ls.getConfidence(0)) {
+                hits++;
+            }
+        }
+
+        assertTrue(hits > 180 && hits < 198);
+    }
+
+    @Test
+    public void recursiveMatchesBatch() {
+        LeastSquares ls = new LeastSquares(3);
+        RecursiveLeastSquares rls = new RecursiveLeastSquares(3, 1, 1e9);
+
+        fill(ls, 500, 0.5, 7);
+        fill(rls, 500, 0.5, 7);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ls.getParameters()[i], rls.getParameters()[i], 0.0001);
+            assertEquals(ls.getStdDev(i), rls.getStdDev(i), 0.0001);
+        }
+        assertEquals(ls.getResidualVariance(), rls.getResidualVariance(), 0.001);
+    }
+
+    @Test
+    public void qrMatchesBatch() {
+        LeastSquares ls = new LeastSquares(3);
+        QRRecursiveLeastSquares qr = new QRRecursiveLeastSquares(3, 1);
+        assertNull(qr.getParameters());
+
+        fill(ls, 500, 0.5, 7);
+        fill(qr, 500, 0.5, 7);
+
+        // no starting covariance to wash out, so it's the same answer
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ls.getParameters()[i], qr.getParameters()[i], TOLERANCE);
+            assertEquals(ls.getStdDev(i), qr.getStdDev(i), TOLERANCE);
+        }
+        assertEquals(ls.getResidualVariance(), qr.getResidualVariance(), TOLERANCE);
+        assertEquals(ls.getCovariance(0, 2), qr.getCovariance(0, 2), TOLERANCE);
+    }
+
+    @Test
+    public void qrIllConditioned() {
+        // kS and kV with the robot barely changing speed: x1 is nearly constant, so x0 and x1 are nearly dependent
+        QRRecursiveLeastSquares qr = new QRRecursiveLeastSquares(2, 1);
+        double[] x = new double[2];
+
+        for (int i = 0; i < 1000; i++) {
+            x[0] = 1;
+            x[1] = 1000 + 1e-3 * (i % 7);
+            qr.add(x, 0.5 * x[0] + 2 * x[1]);
+        }
+
+        assertEquals(0.5, qr.getParameters()[0], 0.001);
+        assertEquals(2, qr.getParameters()[1], 0.000001);
+    }
+
+    @Test
+    public void qrForgetting() {
+        QRRecursiveLeastSquares qr = new QRRecursiveLeastSquares(1, 0.98);
+        double[] x = new double[1];
+
+        for (int i = 0; i < 1000; i++) {
+            x[0] = 1 + i % 10;
+            qr.add(x, (i < 500 ? 2 : 3) * x[0]);
+        }
+
+        assertEquals(3, qr.getParameters()[0], 0.001);
+
+        qr.reset();
+        assertNull(qr.getParameters());
+    }
+
+    @Test
+    public void forgetting() {
+        // the slope changes half way through, which only forgetting can follow
+        RecursiveLeastSquares rls = new RecursiveLeastSquares(1, 0.98);
+        double[] x = new double[1];
+
+        for (int i = 0; i < 1000; i++) {
+            x[0] = 1 + i % 10;
+            rls.add(x, (i < 500 ? 2 : 3) * x[0]);
+        }
+
+        assertEquals(3, rls.getParameters()[0], 0.001);
+        assertEquals(1000, rls.getCount());
+
+        rls.reset();
+        assertNull(rls.getParameters());
+    }
+}
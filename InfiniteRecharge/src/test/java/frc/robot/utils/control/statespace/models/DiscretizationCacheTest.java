@@ -0,0 +1,148 @@
+package frc.robot.utils.control.statespace.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+
+
+public class DiscretizationCacheTest {
+    private static final double TOLERANCE = 0.000001;
+
+    private int calls = 0;
+
+    // linear in x and y so bilinear interpolation should be exact
+    private ABFTriple system(double x, double y) {
+        calls++;
+
+        return new ABFTriple(
+            new SimpleMatrix(1, 1, true, new double[] {x + 2 * y}),
+            new SimpleMatrix(1, 1, true, new double[] {3 * x}),
+            new SimpleMatrix(1, 1, true, new double[] {-y})
+        );
+    }
+
+    @Test
+    public void nearest() {
+        DiscretizationCache cache = new DiscretizationCache(this::system, 0.1, 0.5, 16, false);
+
+        ABFTriple s = cache.get(0.26, 0.9);
+
+        // snapped to (0.3, 1.0)
+        assertEquals(2.3, s.getA().get(0, 0), TOLERANCE);
+        assertEquals(1, cache.getMisses());
+
+        cache.get(0.31, 1.1);
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, calls);
+    }
+
+    @Test
+    public void interpolate() {
+        DiscretizationCache cache = new DiscretizationCache(this::system, 0.1, 0.5, 16, true);
+
+        ABFTriple s = cache.get(0.26, 0.9);
+
+        assertEquals(0.26 + 1.8, s.getA().get(0, 0), TOLERANCE);
+        assertEquals(0.78, s.getB().get(0, 0), TOLERANCE);
+        assertEquals(-0.9, s.getF().get(0, 0), TOLERANCE);
+
+        // 4 corners
+        assertEquals(4, cache.getMisses());
+
+        cache.get(0.27, 0.8);
+
+        assertEquals(4, cache.getHits());
+        assertEquals(4, calls);
+    }
+
+    @Test
+    public void reuse() {
+        DiscretizationCache cache = new DiscretizationCache(this::system, 0.1, 0.5, 16, true);
+
+        ABFTriple s = cache.get(0.26, 0.9);
+        ABFTriple t = cache.get(0.22, 0.6);
+
+        // blended into the same matrices
+        assertSame(s, t);
+        assertSame(s.getA(), t.getA());
+        assertEquals(0.22 + 1.2, t.getA().get(0, 0), TOLERANCE);
+        assertEquals(-0.6, t.getF().get(0, 0), TOLERANCE);
+    }
+
+    @Test
+    public void negative() {
+        DiscretizationCache cache = new DiscretizationCache(this::system, 0.1, 0.5, 16, true);
+
+        ABFTriple s = cache.get(-0.15, -0.2);
+
+        assertEquals(-0.15 - 0.4, s.getA().get(0, 0), TOLERANCE);
+    }
+
+    @Test
+    public void evict() {
+        DiscretizationCache cache = new DiscretizationCache(this::system, 1, 1, 2, false);
+
+        cache.get(0, 0);
+        cache.get(1, 0);
+        // touch (0, 0) so (1, 0) is least recently used
+        cache.get(0, 0);
+        cache.get(2, 0);
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+
+        // still there
+        cache.get(0, 0);
+        assertEquals(3, calls);
+
+        // got evicted
+        cache.get(1, 0);
+        assertEquals(4, calls);
+    }
+
+    /** lots of evictions shouldn't lose track of anything, checked against a LinkedHashMap doing the same */
+    @Test
+    public void churn() {
+        int capacity = 8;
+        DiscretizationCache cache = new DiscretizationCache(this::system, 1, 1, capacity, false);
+        Map<Long, Boolean> reference = new LinkedHashMap<Long, Boolean>(16, 0.75f, true);
+        Random random = new Random(4183);
+
+        int expectedCalls = 0;
+
+        for (int n = 0; n < 5000; n++) {
+            int i = random.nextInt(7) - 3;
+            int j = random.nextInt(5) - 2;
+            long key = i * 100L + j;
+
+            if (reference.get(key) == null) {
+                expectedCalls++;
+                reference.put(key, true);
+
+                if (reference.size() > capacity) {
+                    reference.remove(reference.keySet().iterator().next());
+                }
+            }
+
+            ABFTriple s = cache.get(i, j);
+            assertEquals(i + 2 * j, s.getA().get(0, 0), TOLERANCE);
+            assertEquals(expectedCalls, calls);
+        }
+
+        assertEquals(capacity, cache.getSize());
+        assertEquals(expectedCalls - capacity, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        cache.get(0, 0);
+        assertEquals(expectedCalls + 1, calls);
+    }
+}
@@ -10,7 +10,7 @@ import frc.robot.subsystem.navigation.RobotSystem;
 import frc.robot.utils.control.statespace.models.motor.MotorPosition;
 import frc.robot.utils.control.statespace.models.motor.MotorVelocity;
 import frc.robot.utils.control.statespace.models.motors.MotorType;
-import frc.robot.utils.data.DoubleDataWindow;
+import frc.robot.utils.data.DoubleRingBuffer;
 
 public class ModelTester {
     private static final double TOLERANCE = 0.000001;
@@ -148,7 +148,7 @@ public class ModelTester {
     public void robotSystem() {
         RobotSystem sys = new RobotSystem();
 
-        DoubleDataWindow window = new DoubleDataWindow(50);
+        DoubleRingBuffer window = new DoubleRingBuffer(50);
 
         for (int i = 0; i < 51; i++) {
             double t0 = System.nanoTime();
@@ -168,8 +168,8 @@ public class ModelTester {
             // }
         }
 
-        System.out.println("Average calculation time: " + window.getAverage() + "ms");
-        double var = window.getVariance2();
+        System.out.println("Average calculation time: " + window.getMean() + "ms");
+        double var = window.getSampleVariance();
         System.out.println("Calculation time variance: " + var + "ms^2");
         System.out.println("Calculation time standard deviation: " + Math.sqrt(var) + "ms");
     }
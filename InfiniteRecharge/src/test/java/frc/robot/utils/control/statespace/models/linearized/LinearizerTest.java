@@ -0,0 +1,78 @@
+package frc.robot.utils.control.statespace.models.linearized;
+
+import static org.junit.Assert.*;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import frc.robot.utils.control.statespace.models.ABFTriple;
+import frc.robot.utils.control.statespace.models.C2D;
+
+
+
+public class LinearizerTest {
+    private static final double TOLERANCE = 1e-7;
+
+    private static final double G_OVER_L = 9.8;
+    private static final double DAMPING = 0.3;
+
+    /** damped pendulum with a torque input: [theta, omega]' = [omega, -g/l sin theta - c omega + u^2] */
+    private static void pendulum(DMatrixRMaj x, DMatrixRMaj u, double t, DMatrixRMaj out) {
+        out.set(0, 0, x.get(1, 0));
+        out.set(1, 0, -G_OVER_L * Math.sin(x.get(0, 0)) - DAMPING * x.get(1, 0) + u.get(0, 0) * u.get(0, 0));
+    }
+
+    @Test
+    public void jacobians() {
+        Linearizer linearizer = new Linearizer(LinearizerTest::pendulum, 2, 1);
+
+        double theta = 0.7;
+        double omega = -2;
+        double torque = 1.5;
+
+        DMatrixRMaj x = new DMatrixRMaj(2, 1, true, theta, omega);
+        DMatrixRMaj u = new DMatrixRMaj(1, 1, true, torque);
+        linearizer.linearize(x, u, 0);
+
+        DMatrixRMaj A = linearizer.getA();
+        assertEquals(0, A.get(0, 0), TOLERANCE);
+        assertEquals(1, A.get(0, 1), TOLERANCE);
+        assertEquals(-G_OVER_L * Math.cos(theta), A.get(1, 0), TOLERANCE);
+        assertEquals(-DAMPING, A.get(1, 1), TOLERANCE);
+
+        DMatrixRMaj B = linearizer.getB();
+        assertEquals(0, B.get(0, 0), TOLERANCE);
+        assertEquals(2 * torque, B.get(1, 0), TOLERANCE);
+
+        // at the operating point the linearization is exact
+        DMatrixRMaj f = new DMatrixRMaj(2, 1);
+        pendulum(x, u, 0, f);
+        DMatrixRMaj F = linearizer.getF();
+        for (int i = 0; i < 2; i++) {
+            double linear = A.get(i, 0) * theta + A.get(i, 1) * omega + B.get(i, 0) * torque + F.get(i, 0);
+            assertEquals(f.get(i, 0), linear, TOLERANCE);
+        }
+
+        // and the operating point wasn't touched
+        assertEquals(theta, x.get(0, 0), 0);
+        assertEquals(torque, u.get(0, 0), 0);
+    }
+
+    @Test
+    public void nonlinearModel() {
+        double dt = 0.02;
+        NonlinearModel model = new NonlinearModel(LinearizerTest::pendulum, 2, 1, dt);
+
+        // hanging straight down with no input it's linear, so it has to match the hand written system
+        ABFTriple discrete = model.getDiscreteSystem(new SimpleMatrix(2, 1), 0, 0);
+
+        SimpleMatrix Ac = new SimpleMatrix(2, 2, true, new double[] {0, 1, -G_OVER_L, -DAMPING});
+        SimpleMatrix Bc = new SimpleMatrix(2, 1);
+        ABFTriple expected = C2D.c2d(Ac, Bc, new SimpleMatrix(2, 1), dt);
+
+        assertTrue(expected.getA().isIdentical(discrete.getA(), TOLERANCE));
+        assertTrue(expected.getB().isIdentical(discrete.getB(), TOLERANCE));
+        assertTrue(expected.getF().isIdentical(discrete.getF(), TOLERANCE));
+    }
+}
@@ -0,0 +1,110 @@
+package frc.robot.utils.data;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DoubleRingBufferTest {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testOrder() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(3);
+
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getMean(), 0);
+
+        buffer.add(1);
+        buffer.add(2);
+
+        assertEquals(2, buffer.size());
+        assertFalse(buffer.isFilled());
+        assertEquals(1, buffer.get(0), 0);
+        assertEquals(2, buffer.get(1), 0);
+
+        buffer.add(3);
+        buffer.add(4);
+
+        // 1 got pushed out
+        assertTrue(buffer.isFilled());
+        assertEquals(2, buffer.get(0), 0);
+        assertEquals(4, buffer.get(2), 0);
+        assertEquals(4, buffer.getNewest(), 0);
+    }
+
+    @Test
+    public void testStatistics() {
+        // compare against brute force over a window that's wrapped around a bunch of times
+        int length = 17;
+        DoubleRingBuffer buffer = new DoubleRingBuffer(length);
+        Random random = new Random(5);
+        double[] window = new double[length];
+
+        for (int n = 0; n < 500; n++) {
+            // big offset so a naive sum of squares would lose precision
+            buffer.add(1e6 + random.nextGaussian());
+
+            int size = buffer.toArray(window);
+            double[] sorted = Arrays.copyOf(window, size);
+            Arrays.sort(sorted);
+
+            double mean = 0;
+            for (double x : sorted) {
+                mean += x;
+            }
+            mean /= size;
+
+            double var = 0;
+            for (double x : sorted) {
+                var += (x - mean) * (x - mean);
+            }
+            var /= size;
+
+            assertEquals(mean, buffer.getMean(), 1e-6);
+            assertEquals(var, buffer.getVariance(), 1e-6);
+            assertEquals(sorted[0], buffer.getMin(), 0);
+            assertEquals(sorted[size - 1], buffer.getMax(), 0);
+
+            double rank = 0.25 * (size - 1);
+            int lo = (int) rank;
+            double p25 = lo + 1 < size ? sorted[lo] + (sorted[lo + 1] - sorted[lo]) * (rank - lo) : sorted[lo];
+            assertEquals(p25, buffer.getPercentile(25), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(5);
+
+        for (double x : new double[] {5, 1, 4, 2, 3}) {
+            buffer.add(x);
+        }
+
+        assertEquals(1, buffer.getPercentile(0), TOLERANCE);
+        assertEquals(3, buffer.getMedian(), TOLERANCE);
+        assertEquals(5, buffer.getPercentile(100), TOLERANCE);
+        // halfway between 4 and 5
+        assertEquals(4.5, buffer.getPercentile(87.5), TOLERANCE);
+
+        // percentiles don't mess up the order
+        assertEquals(5, buffer.get(0), 0);
+        assertEquals(3, buffer.get(4), 0);
+    }
+
+    @Test
+    public void testSampleVariance() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(4);
+
+        buffer.add(2);
+        assertEquals(0, buffer.getSampleVariance(), 0);
+
+        buffer.add(4);
+        buffer.add(6);
+
+        assertEquals(4, buffer.getSampleVariance(), TOLERANCE);
+        assertEquals(8.0 / 3, buffer.getVariance(), TOLERANCE);
+    }
+}
@@ -0,0 +1,64 @@
+package frc.robot.utils.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IndexDequeTest {
+    @Test
+    public void testBothEnds() {
+        IndexDeque deque = new IndexDeque(3);
+        assertTrue(deque.isEmpty());
+
+        deque.pushBack(1);
+        deque.pushBack(2);
+        deque.pushBack(3);
+
+        assertEquals(1, deque.peekFront());
+        assertEquals(3, deque.peekBack());
+
+        deque.popBack();
+        assertEquals(2, deque.peekBack());
+
+        deque.popFront();
+        assertEquals(2, deque.peekFront());
+        assertEquals(2, deque.peekBack());
+
+        deque.popFront();
+        assertTrue(deque.isEmpty());
+    }
+
+    @Test
+    public void testWrapAround() {
+        IndexDeque deque = new IndexDeque(3);
+
+        // go around the array a few times, never holding more than 3
+        for (long i = 0; i < 10; i++) {
+            deque.pushBack(i);
+
+            if (i >= 2) {
+                assertEquals(i - 2, deque.peekFront());
+                assertEquals(i, deque.peekBack());
+                deque.popFront();
+            }
+        }
+
+        assertEquals(8, deque.peekFront());
+        assertEquals(9, deque.peekBack());
+    }
+
+    @Test
+    public void testClear() {
+        IndexDeque deque = new IndexDeque(2);
+        deque.pushBack(5);
+        deque.pushBack(6);
+        deque.popFront();
+
+        deque.clear();
+        assertTrue(deque.isEmpty());
+
+        deque.pushBack(7);
+        assertEquals(7, deque.peekFront());
+        assertEquals(7, deque.peekBack());
+    }
+}
@@ -0,0 +1,94 @@
+package frc.robot.utils.data;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongRingBufferTest {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testOrder() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getNewest());
+        assertEquals(0, buffer.getMean(), 0);
+        assertEquals(0, buffer.getMin());
+        assertEquals(0, buffer.getMax());
+
+        buffer.add(Long.MAX_VALUE / 4);
+        buffer.add(1);
+        buffer.add(3);
+        assertTrue(buffer.isFilled());
+
+        buffer.add(2);
+
+        assertEquals(3, buffer.size());
+        assertEquals(1, buffer.get(0));
+        assertEquals(3, buffer.get(1));
+        assertEquals(2, buffer.get(2));
+        assertEquals(2, buffer.getNewest());
+    }
+
+    @Test
+    public void testStatistics() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+
+        // the huge one leaving the window doesn't leave anything behind in the sum
+        buffer.add(Long.MAX_VALUE / 4);
+        buffer.add(1);
+        buffer.add(3);
+        buffer.add(2);
+
+        assertEquals(6, buffer.getSum());
+        assertEquals(2, buffer.getMean(), TOLERANCE);
+        assertEquals(1, buffer.getMin());
+        assertEquals(3, buffer.getMax());
+    }
+
+    @Test
+    public void testMinMaxSliding() {
+        LongRingBuffer buffer = new LongRingBuffer(7);
+        long[] all = new long[500];
+        Random random = new Random(3);
+
+        for (int n = 0; n < all.length; n++) {
+            all[n] = random.nextInt(100) - 50;
+            buffer.add(all[n]);
+
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long sum = 0;
+            for (int k = Math.max(0, n - 6); k <= n; k++) {
+                min = Math.min(min, all[k]);
+                max = Math.max(max, all[k]);
+                sum += all[k];
+            }
+
+            assertEquals(min, buffer.getMin());
+            assertEquals(max, buffer.getMax());
+            assertEquals(sum, buffer.getSum());
+        }
+    }
+
+    @Test
+    public void testReset() {
+        LongRingBuffer buffer = new LongRingBuffer(2);
+        buffer.add(5);
+        buffer.add(7);
+
+        buffer.reset();
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getSum());
+        assertEquals(0, buffer.getMax());
+
+        buffer.add(-1);
+        assertEquals(1, buffer.size());
+        assertEquals(-1, buffer.get(0));
+        assertEquals(-1, buffer.getMin());
+        assertEquals(-1, buffer.getMax());
+    }
+}
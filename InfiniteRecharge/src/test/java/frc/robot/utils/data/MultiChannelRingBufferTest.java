@@ -0,0 +1,79 @@
+package frc.robot.utils.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MultiChannelRingBufferTest {
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testChannels() {
+        MultiChannelRingBuffer buffer = new MultiChannelRingBuffer(2, 2);
+
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.isFilled());
+
+        buffer.add(1, 10);
+        buffer.add(2, 20);
+        assertTrue(buffer.isFilled());
+
+        buffer.add(3, 30);
+
+        assertEquals(2, buffer.getChannels());
+        assertEquals(2, buffer.size());
+        assertEquals(2, buffer.get(0, 0), 0);
+        assertEquals(3, buffer.get(0, 1), 0);
+        assertEquals(20, buffer.get(1, 0), 0);
+        assertEquals(30, buffer.get(1, 1), 0);
+
+        // each channel has its own statistics
+        assertEquals(2.5, buffer.getChannel(0).getMean(), TOLERANCE);
+        assertEquals(25, buffer.getChannel(1).getMean(), TOLERANCE);
+        assertEquals(30, buffer.getChannel(1).getMax(), 0);
+    }
+
+    @Test
+    public void testMissingChannels() {
+        MultiChannelRingBuffer buffer = new MultiChannelRingBuffer(6, 3);
+
+        // the ones that aren't given are 0, so every channel stays the same size
+        buffer.add(1, 2);
+        buffer.add(new double[] {1, 2, 3, 4, 5, 6});
+
+        for (int channel = 0; channel < 6; channel++) {
+            assertEquals(2, buffer.getChannel(channel).size());
+        }
+
+        assertEquals(2, buffer.get(1, 0), 0);
+        assertEquals(0, buffer.get(2, 0), 0);
+        assertEquals(0, buffer.get(5, 0), 0);
+        assertEquals(6, buffer.get(5, 1), 0);
+    }
+
+    @Test
+    public void testFewerChannels() {
+        // extra values are ignored
+        MultiChannelRingBuffer buffer = new MultiChannelRingBuffer(1, 3);
+        buffer.add(1, 2, 3, 4);
+
+        assertEquals(1, buffer.size());
+        assertEquals(1, buffer.get(0, 0), 0);
+    }
+
+    @Test
+    public void testReset() {
+        MultiChannelRingBuffer buffer = new MultiChannelRingBuffer(3, 3);
+        buffer.add(1, 2, 3);
+        buffer.add(4, 5, 6);
+
+        buffer.reset();
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getChannel(2).size());
+
+        buffer.add(7, 8, 9);
+        assertEquals(1, buffer.size());
+        assertEquals(9, buffer.get(2, 0), 0);
+        assertEquals(9, buffer.getChannel(2).getMean(), TOLERANCE);
+    }
+}
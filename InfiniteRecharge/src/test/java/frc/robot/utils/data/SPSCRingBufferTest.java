@@ -0,0 +1,127 @@
+package frc.robot.utils.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SPSCRingBufferTest {
+
+    @Test
+    public void testOrder() {
+        SPSCRingBuffer buffer = new SPSCRingBuffer(4, 2);
+        double[] out = new double[3];
+
+        assertTrue(buffer.isEmpty());
+        assertFalse(buffer.poll(out));
+        assertEquals(Double.POSITIVE_INFINITY, buffer.peekTimestamp(), 0);
+
+        buffer.offer(1, 10, 11);
+        buffer.offer(2, 20, 21);
+
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.peekTimestamp(), 0);
+
+        assertTrue(buffer.poll(out));
+        assertArrayEquals(new double[] {1, 10, 11}, out, 0);
+
+        assertTrue(buffer.poll(out));
+        assertArrayEquals(new double[] {2, 20, 21}, out, 0);
+
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testFull() {
+        // rounds up to 4
+        SPSCRingBuffer buffer = new SPSCRingBuffer(3, 1);
+        double[] out = new double[2];
+
+        assertEquals(4, buffer.getCapacity());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i, i));
+        }
+
+        assertFalse(buffer.offer(4, 4));
+        assertEquals(1, buffer.getDropped());
+
+        // wraps around after reading
+        buffer.poll(out);
+        assertTrue(buffer.offer(5, 5));
+
+        for (int expected : new int[] {1, 2, 3, 5}) {
+            assertTrue(buffer.poll(out));
+            assertEquals(expected, out[1], 0);
+        }
+    }
+
+    @Test
+    public void testThreads() throws InterruptedException {
+        SPSCRingBuffer buffer = new SPSCRingBuffer(64, 2);
+        int count = 100000;
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!buffer.offer(i, i, -i)) {
+                    Thread.yield();
+                }
+            }
+        });
+
+        producer.start();
+
+        double[] out = new double[3];
+        int next = 0;
+
+        while (next < count) {
+            if (buffer.poll(out)) {
+                // every sample shows up exactly once, in order, and not half written
+                assertEquals(next, out[0], 0);
+                assertEquals(next, out[1], 0);
+                assertEquals(-next, out[2], 0);
+                next++;
+            } else {
+                Thread.yield();
+            }
+        }
+
+        producer.join();
+    }
+
+    @Test
+    public void testDroppedFromConsumer() throws InterruptedException {
+        SPSCRingBuffer buffer = new SPSCRingBuffer(4, 1);
+        int count = 100000;
+
+        // no retrying, so plenty get dropped
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                buffer.offer(i, i);
+            }
+        });
+
+        producer.start();
+
+        double[] out = new double[2];
+        long received = 0;
+        long lastDropped = 0;
+
+        while (producer.isAlive()) {
+            if (buffer.poll(out)) {
+                received++;
+            }
+
+            // read while the producer's still counting
+            long dropped = buffer.getDropped();
+            assertTrue(dropped >= lastDropped);
+            lastDropped = dropped;
+        }
+
+        producer.join();
+        while (buffer.poll(out)) {
+            received++;
+        }
+
+        assertEquals(count, received + buffer.getDropped());
+    }
+}
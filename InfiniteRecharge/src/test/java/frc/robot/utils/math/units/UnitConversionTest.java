@@ -0,0 +1,40 @@
+package frc.robot.utils.math.units;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UnitConversionTest {
+
+    @Test
+    public void testMatchesQuantity() {
+        Unit ticksPer100ms = (new UnitBuilder()).num(new BaseUnit(Units.REV, 2048, "tick")).denom(Units.MS100).make();
+
+        UnitConversion conversion = UnitConversion.between(Units.RPM, ticksPer100ms);
+
+        // 6000 RPM is 20480 ticks per 100ms with 2048 ticks per rev
+        assertEquals(20480, conversion.convert(6000), 1e-6);
+        assertEquals(6000, conversion.invert(20480), 1e-6);
+
+        for (double rpm = -5000; rpm <= 5000; rpm += 1234.5) {
+            double slow = new Quantity(rpm, Units.RPM).to(ticksPer100ms).getValue();
+
+            assertEquals(slow, conversion.convert(rpm), 1e-9);
+        }
+    }
+
+    @Test
+    public void testBaseUnits() {
+        UnitConversion conversion = UnitConversion.between(Units.DEG, Units.RAD);
+
+        assertEquals(Math.PI, conversion.convert(180), 1e-9);
+        assertEquals(180, conversion.inverse().convert(Math.PI), 1e-9);
+    }
+
+    @Test
+    public void testIncompatible() {
+        assertNull(UnitConversion.between(Units.FT, Units.S));
+        assertNull(UnitConversion.between(Units.FT_PER_S, Units.RAD_PER_S));
+    }
+
+}
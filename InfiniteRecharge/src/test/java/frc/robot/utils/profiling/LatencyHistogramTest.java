@@ -0,0 +1,54 @@
+package frc.robot.utils.profiling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        // 10 us bins up to 1 ms
+        LatencyHistogram histogram = new LatencyHistogram(10000, 1000000);
+
+        // 1, 2, ..., 100 us
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50500, histogram.getAverage(), 1e-9);
+
+        // 50th sample is 50 us, which lands in the [50, 60) bin
+        assertEquals(60000, histogram.getPercentile(0.5));
+        // 99th sample is 99 us, which is capped by the max
+        assertEquals(100000, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void testOverflow() {
+        LatencyHistogram histogram = new LatencyHistogram(10000, 100000);
+
+        histogram.record(5000);
+        histogram.record(250000);
+
+        assertEquals(1, histogram.getOverflowCount());
+        assertEquals(250000, histogram.getMax());
+        assertEquals(250000, histogram.getPercentile(1));
+        assertEquals(10000, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram(10000, 100000);
+
+        histogram.record(5000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+}
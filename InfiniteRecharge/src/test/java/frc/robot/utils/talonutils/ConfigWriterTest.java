@@ -0,0 +1,243 @@
+package frc.robot.utils.talonutils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.VelocityMeasPeriod;
+
+import org.junit.Test;
+
+import frc.robot.utils.control.pidf.PIDF;
+import frc.robot.utils.talonutils.MotorSettings.Setting;
+
+
+
+public class ConfigWriterTest {
+    /** remembers every call and fails the first few times it's asked to */
+    private static class FakeDevice implements ConfigWriter.Device {
+        private final List<String> calls = new ArrayList<String>();
+        private int failuresLeft = 0;
+
+        @Override
+        public int getDeviceID() {
+            return 7;
+        }
+
+        @Override
+        public ErrorCode factoryDefault(int timeout_ms) {
+            return call("factoryDefault");
+        }
+
+        @Override
+        public ErrorCode zeroSensor(int timeout_ms) {
+            return call("zeroSensor");
+        }
+
+        @Override
+        public ErrorCode write(Setting setting, int index, double value, int timeout_ms) {
+            return call(setting + "[" + index + "]=" + value);
+        }
+
+        private ErrorCode call(String what) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                return ErrorCode.CAN_MSG_STALE;
+            }
+
+            calls.add(what);
+            return ErrorCode.OK;
+        }
+    }
+
+
+
+    @Test
+    public void diff() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice device = new FakeDevice();
+
+        MotorSettings settings = new MotorSettings()
+            .factoryDefault()
+            .pidf(1, new PIDF(0.1, 0, 0.5, 0.05))
+            .voltageCompSaturation(12)
+            .zeroSensor();
+
+        writer.apply(device, settings);
+        assertEquals(8, writer.getPending());
+        writer.work();
+
+        // factory default first, then in enum order, then zeroing
+        assertEquals("factoryDefault", device.calls.get(0));
+        assertEquals("VOLTAGE_COMP_SATURATION[0]=12.0", device.calls.get(1));
+        assertEquals("KF[1]=0.05", device.calls.get(2));
+        assertEquals("zeroSensor", device.calls.get(device.calls.size() - 1));
+        assertEquals(0, writer.getPending());
+
+        // the same settings again don't write anything
+        MotorSettings gains = new MotorSettings()
+            .pidf(1, new PIDF(0.1, 0, 0.5, 0.05))
+            .voltageCompSaturation(12);
+
+        device.calls.clear();
+        writer.apply(device, gains);
+        writer.work();
+        assertEquals(0, device.calls.size());
+        assertEquals(6, writer.getSkipped());
+
+        // only what changed gets written
+        writer.apply(device, new MotorSettings().set(Setting.KP, 1, 0.2).voltageCompSaturation(12));
+        writer.work();
+        assertEquals(1, device.calls.size());
+        assertEquals("KP[1]=0.2", device.calls.get(0));
+
+        // a factory default wipes it all, so everything with it is written again
+        device.calls.clear();
+        writer.apply(device, settings);
+        writer.work();
+        assertEquals(8, device.calls.size());
+        assertEquals("factoryDefault", device.calls.get(0));
+        assertEquals("zeroSensor", device.calls.get(7));
+    }
+
+    @Test
+    public void zeroEveryTime() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice device = new FakeDevice();
+
+        MotorSettings settings = new MotorSettings().voltageCompSaturation(12).zeroSensor();
+
+        writer.apply(device, settings);
+        writer.work();
+        assertEquals(2, device.calls.size());
+
+        // the setting's already there, but the sensor still gets zeroed again
+        device.calls.clear();
+        writer.apply(device, settings);
+        writer.work();
+        assertEquals(1, device.calls.size());
+        assertEquals("zeroSensor", device.calls.get(0));
+    }
+
+    @Test
+    public void velocityMeasurement() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice device = new FakeDevice();
+
+        writer.apply(device, new MotorSettings()
+            .statusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, 5)
+            .velocityMeasurement(VelocityMeasPeriod.Period_5Ms, 4));
+        writer.work();
+
+        assertEquals(3, device.calls.size());
+        assertEquals("VELOCITY_MEASUREMENT_PERIOD[0]=" + (double) VelocityMeasPeriod.Period_5Ms.ordinal(), device.calls.get(0));
+        assertEquals("VELOCITY_MEASUREMENT_WINDOW[0]=4.0", device.calls.get(1));
+        assertEquals("STATUS_FRAME_PERIOD[" + StatusFrameEnhanced.Status_2_Feedback0.ordinal() + "]=5.0", device.calls.get(2));
+    }
+
+    @Test
+    public void retry() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice device = new FakeDevice();
+
+        device.failuresLeft = 2;
+        writer.apply(device, new MotorSettings().voltageCompSaturation(12));
+
+        // each retry waits for the next time through
+        writer.work();
+        writer.work();
+        assertEquals(1, writer.getPending());
+        writer.work();
+
+        assertEquals(1, device.calls.size());
+        assertEquals(2, writer.getRetries());
+        assertEquals(0, writer.getFailures());
+        assertEquals(0, writer.getPending());
+    }
+
+    @Test
+    public void factoryDefaultRetry() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice device = new FakeDevice();
+
+        device.failuresLeft = 1;
+        writer.apply(device, new MotorSettings()
+            .factoryDefault()
+            .voltageCompSaturation(12)
+            .forwardSoftLimit(100)
+            .zeroSensor());
+
+        // nothing else goes until the factory default does, or it'd wipe them
+        writer.work();
+        assertEquals(0, device.calls.size());
+        assertEquals(5, writer.getPending());
+
+        writer.work();
+        assertEquals("factoryDefault", device.calls.get(0));
+        assertEquals("VOLTAGE_COMP_SATURATION[0]=12.0", device.calls.get(1));
+        assertEquals("FORWARD_SOFT_LIMIT_THRESHOLD[0]=100.0", device.calls.get(2));
+        assertEquals("FORWARD_SOFT_LIMIT_ENABLE[0]=1.0", device.calls.get(3));
+        assertEquals("zeroSensor", device.calls.get(4));
+        assertEquals(0, writer.getPending());
+        assertEquals(1, writer.getRetries());
+    }
+
+    @Test
+    public void devicesIndependent() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice broken = new FakeDevice();
+        FakeDevice fine = new FakeDevice();
+
+        broken.failuresLeft = 2;
+        writer.apply(broken, new MotorSettings().voltageCompSaturation(12));
+        writer.apply(fine, new MotorSettings().voltageCompSaturation(12));
+
+        // one device retrying doesn't hold up another
+        writer.work();
+        assertEquals(0, broken.calls.size());
+        assertEquals(1, fine.calls.size());
+    }
+
+    @Test
+    public void failure() {
+        ConfigWriter writer = new ConfigWriter(10, 2);
+        FakeDevice device = new FakeDevice();
+
+        device.failuresLeft = 2;
+        MotorSettings settings = new MotorSettings().voltageCompSaturation(12);
+        writer.apply(device, settings);
+        assertTrue(writer.waitUntilDone(1));
+
+        assertEquals(0, device.calls.size());
+        assertEquals(1, writer.getFailures());
+        assertEquals(1, writer.getErrors().size());
+        assertTrue(writer.getErrors().get(0).contains("CAN_MSG_STALE"));
+
+        // it forgot about it, so applying it again tries again
+        writer.apply(device, settings);
+        writer.work();
+        assertEquals(1, device.calls.size());
+    }
+
+    @Test
+    public void superseded() {
+        ConfigWriter writer = new ConfigWriter(10, 3);
+        FakeDevice device = new FakeDevice();
+
+        device.failuresLeft = 1;
+        writer.apply(device, new MotorSettings().set(Setting.KP, 0, 1));
+        writer.work();
+
+        // changed again while the first one was waiting to be retried
+        writer.apply(device, new MotorSettings().set(Setting.KP, 0, 2));
+        writer.work();
+
+        assertEquals(1, device.calls.size());
+        assertEquals("KP[0]=2.0", device.calls.get(0));
+        assertEquals(0, writer.getPending());
+    }
+}
@@ -0,0 +1,115 @@
+package frc.robot.utils.telemetry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import frc.robot.utils.telemetry.DashboardPublisher.BooleanEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.NumberEntry;
+import frc.robot.utils.telemetry.DashboardPublisher.Rate;
+import frc.robot.utils.telemetry.DashboardPublisher.StringEntry;
+
+public class DashboardPublisherTest {
+    private DashboardPublisher publisher;
+
+
+
+    @Before
+    public void setup() {
+        // no NetworkTables, just count what would have been written
+        publisher = new DashboardPublisher(key -> null);
+    }
+
+
+
+    @Test
+    public void testRates() {
+        NumberEntry a = publisher.addNumber("a", Rate.Fast);
+        NumberEntry b = publisher.addNumber("b", Rate.Fast);
+        NumberEntry c = publisher.addNumber("c", Rate.EveryLoop);
+
+        long[] writes = new long[Rate.Fast.PERIOD];
+
+        for (int i = 0; i < Rate.Fast.PERIOD * 4; i++) {
+            a.set(i);
+            b.set(i);
+            c.set(i);
+
+            long before = publisher.getWrites();
+            publisher.flush();
+            writes[i % Rate.Fast.PERIOD] += publisher.getWrites() - before;
+        }
+
+        // c every loop, a and b every 5th loop but not on the same one
+        assertArrayEquals(new long[] {8, 8, 4, 4, 4}, writes);
+    }
+
+    @Test
+    public void testEpsilon() {
+        NumberEntry number = publisher.addNumber("number", Rate.EveryLoop, 0.1);
+
+        number.set(1);
+        publisher.flush();
+        assertEquals(1, publisher.getWrites());
+
+        number.set(1.05);
+        publisher.flush();
+        assertEquals(1, publisher.getWrites());
+        assertEquals(1, publisher.getSkipped());
+
+        // compared to what was last written, so small changes still add up
+        number.set(1.15);
+        publisher.flush();
+        assertEquals(2, publisher.getWrites());
+
+        number.set(Double.NaN);
+        publisher.flush();
+        assertEquals(3, publisher.getWrites());
+
+        publisher.flush();
+        assertEquals(3, publisher.getWrites());
+    }
+
+    @Test
+    public void testStringsAndBooleans() {
+        StringEntry string = publisher.addString("string", Rate.EveryLoop);
+        BooleanEntry bool = publisher.addBoolean("boolean", Rate.EveryLoop);
+
+        // everything goes out the first time, even the defaults
+        publisher.flush();
+        assertEquals(2, publisher.getWrites());
+
+        string.set(new String("a"));
+        publisher.flush();
+        assertEquals(3, publisher.getWrites());
+
+        // equal but not the same object
+        string.set(new String("a"));
+        bool.set(false);
+        publisher.flush();
+        assertEquals(3, publisher.getWrites());
+
+        bool.set(true);
+        publisher.flush();
+        assertEquals(4, publisher.getWrites());
+    }
+
+    @Test
+    public void testInvalidate() {
+        NumberEntry number = publisher.addNumber("number", Rate.Slow);
+        number.set(5);
+
+        for (int i = 0; i < Rate.Slow.PERIOD * 2; i++) {
+            publisher.flush();
+        }
+        assertEquals(1, publisher.getWrites());
+
+        publisher.invalidate();
+        for (int i = 0; i < Rate.Slow.PERIOD; i++) {
+            publisher.flush();
+        }
+        assertEquals(2, publisher.getWrites());
+        assertEquals(1, publisher.getEntries());
+    }
+}
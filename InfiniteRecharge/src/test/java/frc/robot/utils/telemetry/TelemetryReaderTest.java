@@ -0,0 +1,127 @@
+package frc.robot.utils.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import frc.robot.config.Config.TelemetryConfig;
+import frc.robot.utils.telemetry.TelemetryChannel.BooleanChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.DoubleChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.EnumChannel;
+
+public class TelemetryReaderTest {
+    private enum Mode { A, B }
+
+    private Path directory;
+
+
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("telemetry");
+    }
+
+    @After
+    public void cleanup() {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+
+
+    @Test
+    public void testSegment() throws IOException {
+        TelemetryConfig config = new TelemetryConfig();
+        TelemetryRecorder recorder = new TelemetryRecorder(config, directory);
+
+        DoubleChannel d = recorder.addDouble("d");
+        BooleanChannel b = recorder.addBoolean("b");
+        EnumChannel<Mode> e = recorder.addEnum("e", Mode.class);
+
+        recorder.open();
+
+        // more than a read chunk's worth
+        int records = 10000;
+        for (int i = 0; i < records; i++) {
+            d.set(i * 0.25);
+            b.set(i % 3 == 0);
+            e.set(i % 2 == 0 ? Mode.A : Mode.B);
+            recorder.commit(i * 0.02);
+
+            if (i % 100 == 0) {
+                recorder.flush();
+            }
+        }
+
+        recorder.stop();
+
+        File[] files = directory.toFile().listFiles();
+        assertEquals(1, files.length);
+
+        try (TelemetryReader reader = new TelemetryReader(files[0].toPath())) {
+            assertArrayEquals(new String[] {"d", "b", "e"}, reader.getChannelNames());
+            assertArrayEquals(new String[] {"A", "B"}, reader.getLabels(2));
+            assertNull(reader.getLabels(0));
+            assertEquals(records, reader.getRecordCount());
+            assertEquals(recorder.getSession(), reader.getSession());
+
+            double[] sample = new double[4];
+            for (int i = 0; i < records; i++) {
+                assertTrue(reader.next(sample));
+
+                assertEquals(i * 0.02, sample[0], 0);
+                assertEquals(i * 0.25, sample[1], 0);
+                assertEquals(i % 3 == 0 ? 1 : 0, sample[2], 0);
+                assertEquals(i % 2, sample[3], 0);
+            }
+
+            assertFalse(reader.next(sample));
+        }
+    }
+
+    @Test
+    public void testILData() throws IOException {
+        Path path = directory.resolve("trial0.txt");
+        Files.write(path, "0.01 1.5 2.0 3.0 4.0 12.0\n\n0.02 1.6 2.1 3.1 4.1 11.9\n".getBytes());
+
+        try (TextLogReader reader = new TextLogReader(path)) {
+            assertArrayEquals(new String[] {"theta", "omega", "current", "currentDeriv", "voltage"}, reader.getChannelNames());
+
+            double[] sample = new double[6];
+
+            assertTrue(reader.next(sample));
+            assertArrayEquals(new double[] {0.01, 1.5, 2.0, 3.0, 4.0, 12.0}, sample, 0);
+
+            // blank lines are skipped
+            assertTrue(reader.next(sample));
+            assertEquals(11.9, sample[5], 0);
+
+            assertFalse(reader.next(sample));
+        }
+    }
+
+    @Test
+    public void testCSVHeader() throws IOException {
+        Path path = directory.resolve("log.csv");
+        Files.write(path, "timestamp,x,y\n1,2,\n".getBytes());
+
+        try (TextLogReader reader = new TextLogReader(path)) {
+            assertArrayEquals(new String[] {"x", "y"}, reader.getChannelNames());
+
+            double[] sample = new double[3];
+            assertTrue(reader.next(sample));
+            assertEquals(2, sample[1], 0);
+            // missing values come out as NaN
+            assertTrue(Double.isNaN(sample[2]));
+        }
+    }
+}
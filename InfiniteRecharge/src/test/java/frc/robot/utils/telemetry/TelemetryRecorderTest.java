@@ -0,0 +1,201 @@
+package frc.robot.utils.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import frc.robot.config.Config.TelemetryConfig;
+import frc.robot.utils.telemetry.TelemetryChannel.BooleanChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.DoubleChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.EnumChannel;
+import frc.robot.utils.telemetry.TelemetryChannel.LongChannel;
+
+public class TelemetryRecorderTest {
+    private enum Mode { A, B, C }
+
+    private Path directory;
+
+
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("telemetry");
+    }
+
+    @After
+    public void cleanup() {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+    private File[] segments() {
+        File[] files = directory.toFile().listFiles();
+        Arrays.sort(files);
+        return files;
+    }
+
+
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        TelemetryConfig config = new TelemetryConfig();
+        TelemetryRecorder recorder = new TelemetryRecorder(config, directory);
+
+        DoubleChannel d = recorder.addDouble("d");
+        LongChannel l = recorder.addLong("l");
+        BooleanChannel b = recorder.addBoolean("b");
+        EnumChannel<Mode> e = recorder.addEnum("e", Mode.class);
+
+        assertEquals(8 + 8 + 8 + 1 + 4, recorder.getRecordSize());
+        assertTrue(recorder.open());
+
+        for (int i = 0; i < 3; i++) {
+            d.set(i * 0.5);
+            l.set(1000L * i);
+            b.set(i % 2 == 1);
+            e.set(Mode.values()[i]);
+            recorder.commit(i);
+        }
+
+        recorder.stop();
+
+        File[] files = segments();
+        assertEquals(1, files.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(files[0].toPath()));
+
+        assertEquals(TelemetryFormat.MAGIC, buffer.getInt());
+        assertEquals(TelemetryFormat.VERSION, buffer.getShort());
+        int headerSize = buffer.getInt();
+        assertEquals(recorder.getRecordSize(), buffer.getInt());
+        assertEquals(3, buffer.getInt());
+        assertEquals(recorder.getSession(), buffer.getLong());
+        assertEquals(0, buffer.getInt());
+        assertEquals(4, buffer.getInt());
+
+        assertEquals(TelemetryFormat.Type.Double.ordinal(), buffer.get());
+        assertEquals("d", TelemetryFormat.getString(buffer));
+        buffer.get();
+        assertEquals("l", TelemetryFormat.getString(buffer));
+        buffer.get();
+        assertEquals("b", TelemetryFormat.getString(buffer));
+        assertEquals(TelemetryFormat.Type.Enum.ordinal(), buffer.get());
+        assertEquals("e", TelemetryFormat.getString(buffer));
+        assertEquals(3, buffer.getShort());
+        assertEquals("A", TelemetryFormat.getString(buffer));
+        assertEquals("B", TelemetryFormat.getString(buffer));
+        assertEquals("C", TelemetryFormat.getString(buffer));
+
+        assertEquals(headerSize, buffer.position());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, buffer.getDouble(), 0);
+            assertEquals(i * 0.5, buffer.getDouble(), 0);
+            assertEquals(1000L * i, buffer.getLong());
+            assertEquals(i % 2, buffer.get());
+            assertEquals(i, buffer.getInt());
+        }
+    }
+
+    @Test
+    public void testLateChannel() {
+        TelemetryRecorder recorder = new TelemetryRecorder(new TelemetryConfig(), directory);
+        recorder.addDouble("early");
+
+        assertTrue(recorder.open());
+
+        // still usable, just not recorded
+        DoubleChannel late = recorder.addDouble("late");
+        late.set(1);
+
+        assertEquals(1, recorder.getChannels().size());
+        assertEquals(16, recorder.getRecordSize());
+
+        recorder.stop();
+    }
+
+    @Test
+    public void testNone() {
+        // usable, but nothing's registered and it never starts
+        DoubleChannel channel = TelemetryRecorder.NONE.addDouble("nowhere");
+        channel.set(1);
+
+        assertEquals(0, TelemetryRecorder.NONE.getChannels().size());
+        assertFalse(TelemetryRecorder.NONE.start());
+        assertFalse(TelemetryRecorder.NONE.isStarted());
+
+        TelemetryRecorder.NONE.commit(0);
+        assertEquals(0, TelemetryRecorder.NONE.getBufferedRecords());
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        TelemetryConfig config = new TelemetryConfig();
+        config.bufferRecords = 4;
+
+        TelemetryRecorder recorder = new TelemetryRecorder(config, directory);
+        recorder.addDouble("x");
+        recorder.open();
+
+        for (int i = 0; i < 6; i++) {
+            recorder.commit(i);
+        }
+
+        assertEquals(4, recorder.getBufferedRecords());
+        assertEquals(2, recorder.getDropped());
+
+        recorder.flush();
+        assertEquals(0, recorder.getBufferedRecords());
+        assertEquals(4, recorder.getRecordsWritten());
+
+        recorder.stop();
+    }
+
+    @Test
+    public void testRotationAndCap() throws InterruptedException {
+        TelemetryConfig config = new TelemetryConfig();
+        config.recordsPerSegment = 10;
+        config.bufferRecords = 100;
+
+        TelemetryRecorder recorder = new TelemetryRecorder(config, directory);
+        recorder.addDouble("x");
+
+        // 2 and a half segments worth
+        recorder.open();
+        for (int i = 0; i < 25; i++) {
+            recorder.commit(i);
+        }
+        recorder.stop();
+
+        assertEquals(3, segments().length);
+        assertEquals(2, recorder.getSegmentIndex());
+
+        long segmentSize = segments()[0].length();
+
+        // room for 2 segments, so starting a new session has to delete the 2 oldest
+        config.maxTotal_MB = 2.5 * segmentSize / 1024 / 1024;
+
+        // make sure the next session has a different start time
+        Thread.sleep(5);
+
+        TelemetryRecorder next = new TelemetryRecorder(config, directory);
+        next.addDouble("x");
+        next.open();
+        next.stop();
+
+        File[] files = segments();
+        assertEquals(2, files.length);
+        assertTrue(files[0].getName().endsWith("-00002" + TelemetryFormat.FILE_SUFFIX));
+    }
+}
@@ -0,0 +1,56 @@
+package frc.robot.tools;
+
+
+
+/**
+ * Running statistics over every value of a channel, with Welford's method so
+ * it stays accurate over the millions of samples in a full event's logs.
+ * NaNs are counted separately and otherwise ignored.
+ */
+public class ChannelStatistics {
+    private long count = 0;
+    private long nans = 0;
+
+    private double mean = 0;
+    private double m2 = 0;
+    private double sumSq = 0;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+
+
+    public void add(double x) {
+        if (Double.isNaN(x)) {
+            nans++;
+            return;
+        }
+
+        count++;
+
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+        sumSq += x * x;
+
+        min = Math.min(min, x);
+        max = Math.max(max, x);
+    }
+
+
+
+    public long getCount() { return count; }
+    public long getNaNs() { return nans; }
+    public double getMean() { return count == 0 ? Double.NaN : mean; }
+    public double getMin() { return count == 0 ? Double.NaN : min; }
+    public double getMax() { return count == 0 ? Double.NaN : max; }
+
+    public double getStandardDeviation() {
+        return count == 0 ? Double.NaN : Math.sqrt(m2 / count);
+    }
+
+    /** root mean square, for errors */
+    public double getRMS() {
+        return count == 0 ? Double.NaN : Math.sqrt(sumSq / count);
+    }
+}
@@ -0,0 +1,50 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import frc.robot.config.Config;
+import frc.robot.subsystem.navigation.RobotSystem;
+import frc.robot.subsystem.scoring.shooter.Flywheel;
+import frc.robot.utils.control.statespace.StateSpaceException;
+import frc.robot.utils.control.statespace.controllers.GainSchedule;
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+
+
+
+/**
+ * Works out the controller gains the robot uses and writes them to the gain
+ * schedule file that gets deployed with the code, so the robot doesn't have
+ * to solve any Riccati equations. Rerun it whenever a model, a weight or the
+ * config it's built from changes (the robot works out any schedule that was
+ * made from something else again, which is slow):
+ *
+ *   ./gradlew gains
+ *   ./gradlew gains --args="path/to/gains.bin"
+ */
+public class GainTool {
+    public static void main(String[] args) throws IOException, StateSpaceException {
+        Config config = new Config();
+
+        Path output = Paths.get(args.length > 0 ? args[0] : "src/main/deploy/" + config.gainScheduleFile);
+
+        // same motor constants the robot will use
+        MotorType.loadIdentified(Paths.get("src/main/deploy/" + config.motorTypeFile));
+
+        List<GainSchedule> schedules = new ArrayList<GainSchedule>();
+        schedules.add(Flywheel.synthesizeGains(config));
+        schedules.add(new RobotSystem().synthesizeGains());
+
+        for (GainSchedule schedule : schedules) {
+            System.out.println(schedule.getName() + ": " + schedule.getXCount() + "x" + schedule.getYCount() + " points, K "
+                + schedule.getRows(GainSchedule.K) + "x" + schedule.getCols(GainSchedule.K) + ", L "
+                + schedule.getRows(GainSchedule.L) + "x" + schedule.getCols(GainSchedule.L));
+        }
+
+        GainSchedule.save(output, schedules);
+        System.out.println("Wrote " + output);
+    }
+}
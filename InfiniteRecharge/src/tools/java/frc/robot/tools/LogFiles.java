@@ -0,0 +1,67 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import frc.robot.utils.telemetry.LogReader;
+import frc.robot.utils.telemetry.TelemetryFormat;
+import frc.robot.utils.telemetry.TelemetryReader;
+import frc.robot.utils.telemetry.TextLogReader;
+
+
+
+/**
+ * Finding and opening log files
+ */
+public class LogFiles {
+    /**
+     * Turn paths from the command line into a list of log files. Directories
+     * are searched (recursively) for telemetry segments and text logs, and
+     * their files come out sorted by name, which for segments is time order.
+     */
+    public static List<Path> expand(List<String> paths) throws IOException {
+        List<Path> files = new ArrayList<Path>();
+
+        for (String name : paths) {
+            Path path = Paths.get(name);
+
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    List<Path> found = walk
+                        .filter(Files::isRegularFile)
+                        .filter(LogFiles::isLog)
+                        .collect(Collectors.toList());
+
+                    Collections.sort(found);
+                    files.addAll(found);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        return files;
+    }
+
+    public static boolean isLog(Path path) {
+        String name = path.getFileName().toString();
+
+        return TelemetryFormat.isSegmentFile(name) || name.endsWith(".txt") || name.endsWith(".csv");
+    }
+
+    /** Open a log with whichever reader fits it */
+    public static LogReader open(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(TelemetryFormat.FILE_SUFFIX)) {
+            return new TelemetryReader(path);
+        }
+
+        return new TextLogReader(path);
+    }
+}
@@ -0,0 +1,97 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import frc.robot.config.Config;
+import frc.robot.utils.control.statespace.modeling.identification.MotorIdentifier;
+import frc.robot.utils.control.statespace.models.motors.MotorType;
+import frc.robot.utils.telemetry.LogReader;
+
+
+
+/**
+ * Fits a motor's constants to ILData trials and saves them in the motor file
+ * that gets deployed with the code, where MotorType.get() picks them up
+ * instead of the datasheet numbers. Copy /home/lvuser/motors/<id> off the
+ * roboRIO and run
+ *
+ *   ./gradlew sysid --args="shooter path/to/motors/5"
+ *
+ * then rerun ./gradlew gains so the precomputed gains use the new constants.
+ */
+public class MotorIdTool {
+    private static final String USAGE = String.join("\n",
+        "usage: sysid <name> [options] <trial files or directories...>",
+        "",
+        "options:",
+        "  -o <file>            motor file to update (default src/main/deploy/<Config.motorTypeFile>)",
+        "  --dry-run            print the fit without saving it"
+    );
+
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        String name = args[0];
+        if (name.matches(".*\\s.*")) {
+            System.err.println("The name can't have spaces in it");
+            System.exit(1);
+        }
+
+        Path output = Paths.get("src/main/deploy/" + new Config().motorTypeFile);
+        boolean save = true;
+        List<String> paths = new ArrayList<String>();
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "--dry-run":
+                    save = false;
+                    break;
+                default:
+                    paths.add(args[i]);
+            }
+        }
+
+        MotorIdentifier identifier = new MotorIdentifier();
+        int trials = 0;
+
+        for (Path file : LogFiles.expand(paths)) {
+            try (LogReader reader = LogFiles.open(file)) {
+                if (identifier.addTrial(reader)) {
+                    trials++;
+                } else {
+                    System.err.println("Skipping " + file + ", it doesn't have omega, current and voltage");
+                }
+            }
+        }
+
+        MotorIdentifier.MotorFit fit = identifier.fit();
+        if (fit == null) {
+            System.err.println("Not enough data in " + trials + " trial(s) to fit anything");
+            System.exit(1);
+        }
+
+        System.out.println(name + " from " + trials + " trial(s):");
+        System.out.println(fit);
+
+        if (save) {
+            Map<String, MotorType> types = MotorType.load(output);
+            types.put(name, fit.toMotorType());
+            MotorType.save(output, types);
+
+            System.out.println("Wrote " + output);
+        }
+    }
+}
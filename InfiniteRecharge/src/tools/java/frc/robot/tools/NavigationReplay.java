@@ -0,0 +1,142 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+
+import frc.robot.config.Config;
+import frc.robot.subsystem.drive.DriveConstants;
+import frc.robot.subsystem.navigation.PoseEstimator;
+import frc.robot.utils.telemetry.LogReader;
+
+
+
+/**
+ * Runs recorded drivetrain and IMU data back through PoseEstimator (without
+ * its thread) and compares what it comes up with to the pose that was recorded
+ * on the robot. Run it before and after changing the estimator to see whether
+ * the change made things better or worse on real data.
+ *
+ * The estimator is restarted from the recorded pose whenever time goes
+ * backwards, which is where one session's logs end and the next begin.
+ */
+public class NavigationReplay {
+    // channel names, can be changed with options
+    public String yaw = "NavigationSubsystem/yaw (deg)";
+    public String left = "DriveSubsystem/left distance (m)";
+    public String right = "DriveSubsystem/right distance (m)";
+    public String x = "NavigationSubsystem/x (m)";
+    public String y = "NavigationSubsystem/y (m)";
+
+    /** distance between the left and right wheels (m) */
+    public double trackWidth_m = new Config().drive.trackWidth_in * DriveConstants.METERS_PER_INCH;
+
+    /** if not null, every sample's recorded and replayed pose gets written here as CSV */
+    public PrintStream csv = null;
+
+    private final ChannelStatistics positionError = new ChannelStatistics();
+    private final ChannelStatistics headingError = new ChannelStatistics();
+    private long samples = 0;
+    private int sessions = 0;
+
+    private PoseEstimator estimator = null;
+
+
+
+    /**
+     * Replay logs
+     *
+     * @param logs logs in time order; ones missing any of the channels are skipped
+     */
+    public void run(List<Path> logs) throws IOException {
+        if (csv != null) {
+            csv.println("timestamp,recorded x,recorded y,replayed x,replayed y,position error,heading error");
+        }
+
+        double lastTime = Double.NEGATIVE_INFINITY;
+
+        for (Path log : logs) {
+            try (LogReader reader = LogFiles.open(log)) {
+                lastTime = replay(reader, lastTime);
+            }
+        }
+    }
+
+    /** @return time of the last sample */
+    private double replay(LogReader reader, double lastTime) throws IOException {
+        String[] names = reader.getChannelNames();
+
+        int yawIndex = indexOf(names, yaw);
+        int leftIndex = indexOf(names, left);
+        int rightIndex = indexOf(names, right);
+        int xIndex = indexOf(names, x);
+        int yIndex = indexOf(names, y);
+
+        if (yawIndex < 0 || leftIndex < 0 || rightIndex < 0 || xIndex < 0 || yIndex < 0) {
+            System.err.println("Skipping a log without all of the navigation channels");
+            return lastTime;
+        }
+
+        double[] sample = new double[names.length + 1];
+
+        while (reader.next(sample)) {
+            double t = sample[0];
+
+            if (estimator == null || t < lastTime) {
+                estimator = new PoseEstimator(trackWidth_m, sample[yawIndex], t);
+                estimator.resetPose(new Pose2d(sample[xIndex], sample[yIndex], Rotation2d.fromDegrees(sample[yawIndex])));
+                sessions++;
+            }
+            lastTime = t;
+
+            estimator.addImu(t, sample[yawIndex], 0, 0);
+            estimator.addEncoders(t, sample[leftIndex], sample[rightIndex]);
+            estimator.step();
+
+            Pose2d pose = estimator.getPose();
+            double dx = pose.getTranslation().getX() - sample[xIndex];
+            double dy = pose.getTranslation().getY() - sample[yIndex];
+            double error = Math.hypot(dx, dy);
+            double heading = Math.IEEEremainder(pose.getRotation().getDegrees() - sample[yawIndex], 360);
+
+            positionError.add(error);
+            headingError.add(heading);
+            samples++;
+
+            if (csv != null) {
+                csv.println(t + "," + sample[xIndex] + "," + sample[yIndex] + ","
+                    + pose.getTranslation().getX() + "," + pose.getTranslation().getY() + ","
+                    + error + "," + heading);
+            }
+        }
+
+        return lastTime;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                // +1 since sample[0] is the timestamp
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+
+
+    public void printSummary(PrintStream out) {
+        out.println("Replayed " + samples + " samples in " + sessions + " session(s)");
+        out.printf("Position error (m):    rms %.4f  max %.4f%n", positionError.getRMS(), positionError.getMax());
+        out.printf("Heading error (deg):   rms %.4f  max %.4f%n", headingError.getRMS(),
+            Math.max(Math.abs(headingError.getMin()), Math.abs(headingError.getMax())));
+    }
+
+    public ChannelStatistics getPositionError() { return positionError; }
+    public ChannelStatistics getHeadingError() { return headingError; }
+}
@@ -0,0 +1,249 @@
+package frc.robot.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import frc.robot.utils.telemetry.LogReader;
+
+
+
+/**
+ * Command line tool for looking at logs off the robot: telemetry segments
+ * from TelemetryRecorder and text logs like ILData's trial*.txt files. Copy
+ * /home/lvuser/telemetry (or /home/lvuser/motors) off the roboRIO and run
+ *
+ *   ./gradlew telemetry --args="summary path/to/telemetry"
+ *   ./gradlew telemetry --args="csv -c NavigationSubsystem/x (m),NavigationSubsystem/y (m) -o pose.csv path/to/telemetry"
+ *   ./gradlew telemetry --args="replay --csv replay.csv path/to/telemetry"
+ *
+ * Logs are read one sample at a time, so it doesn't matter how big they are.
+ */
+public class TelemetryTool {
+    private static final String USAGE = String.join("\n",
+        "usage: telemetry <command> [options] <files or directories...>",
+        "",
+        "commands:",
+        "  csv       write every sample as CSV (a new header starts wherever the channels change)",
+        "  summary   count, mean, standard deviation, min and max of every channel",
+        "  replay    run the pose estimator on the recorded drive/IMU data and compare it to the recorded pose",
+        "",
+        "options:",
+        "  -o <file>             write to a file instead of stdout",
+        "  -c <name,name,...>    only these channels (csv and summary)",
+        "  --csv <file>          replay: also write each sample's recorded and replayed pose",
+        "  --yaw, --left, --right, --x, --y <name>",
+        "                        replay: channel names to use if they aren't the defaults"
+    );
+
+
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        String command = args[0];
+
+        String output = null;
+        Set<String> channels = null;
+        NavigationReplay replay = new NavigationReplay();
+        List<String> paths = new ArrayList<String>();
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+
+            if (arg.equals("-o") && hasValue) {
+                output = args[++i];
+            } else if (arg.equals("-c") && hasValue) {
+                channels = new HashSet<String>(Arrays.asList(args[++i].split(",")));
+            } else if (arg.equals("--csv") && hasValue) {
+                replay.csv = new PrintStream(new BufferedOutputStream(new FileOutputStream(args[++i])));
+            } else if (arg.equals("--yaw") && hasValue) {
+                replay.yaw = args[++i];
+            } else if (arg.equals("--left") && hasValue) {
+                replay.left = args[++i];
+            } else if (arg.equals("--right") && hasValue) {
+                replay.right = args[++i];
+            } else if (arg.equals("--x") && hasValue) {
+                replay.x = args[++i];
+            } else if (arg.equals("--y") && hasValue) {
+                replay.y = args[++i];
+            } else {
+                paths.add(arg);
+            }
+        }
+
+        List<Path> files = LogFiles.expand(paths);
+        if (files.isEmpty()) {
+            System.err.println("No logs found");
+            System.exit(1);
+        }
+
+        PrintStream out = output == null
+            ? new PrintStream(new BufferedOutputStream(System.out), false)
+            : new PrintStream(new BufferedOutputStream(new FileOutputStream(output)), false);
+
+        switch (command) {
+            case "csv":
+                csv(files, channels, out);
+                break;
+            case "summary":
+                summary(files, channels, out);
+                break;
+            case "replay":
+                replay.run(files);
+                replay.printSummary(out);
+                if (replay.csv != null) {
+                    replay.csv.close();
+                }
+                break;
+            default:
+                System.err.println("Unknown command " + command + "\n\n" + USAGE);
+                System.exit(1);
+        }
+
+        out.close();
+    }
+
+
+
+    public static void csv(List<Path> files, Set<String> only, PrintStream out) throws IOException {
+        String header = null;
+
+        for (Path file : files) {
+            try (LogReader reader = LogFiles.open(file)) {
+                String[] names = reader.getChannelNames();
+                int[] columns = select(names, only);
+
+                StringBuilder line = new StringBuilder("timestamp");
+                for (int c : columns) {
+                    line.append(',').append(quote(names[c]));
+                }
+
+                // only repeat the header if the channels changed
+                if (!line.toString().equals(header)) {
+                    header = line.toString();
+                    out.println(header);
+                }
+
+                double[] sample = new double[names.length + 1];
+                while (reader.next(sample)) {
+                    line.setLength(0);
+                    line.append(sample[0]);
+
+                    for (int c : columns) {
+                        line.append(',').append(format(sample[c + 1], reader.getLabels(c)));
+                    }
+
+                    out.println(line);
+                }
+            }
+        }
+    }
+
+    public static void summary(List<Path> files, Set<String> only, PrintStream out) throws IOException {
+        Map<String, ChannelStatistics> statistics = new LinkedHashMap<String, ChannelStatistics>();
+        long samples = 0;
+        double duration = 0;
+
+        for (Path file : files) {
+            try (LogReader reader = LogFiles.open(file)) {
+                String[] names = reader.getChannelNames();
+                int[] columns = select(names, only);
+
+                ChannelStatistics[] stats = new ChannelStatistics[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    stats[i] = statistics.computeIfAbsent(names[columns[i]], name -> new ChannelStatistics());
+                }
+
+                double first = Double.NaN;
+                double last = Double.NaN;
+
+                double[] sample = new double[names.length + 1];
+                while (reader.next(sample)) {
+                    if (Double.isNaN(first)) {
+                        first = sample[0];
+                    }
+                    last = sample[0];
+
+                    for (int i = 0; i < columns.length; i++) {
+                        stats[i].add(sample[columns[i] + 1]);
+                    }
+
+                    samples++;
+                }
+
+                if (!Double.isNaN(first)) {
+                    duration += last - first;
+                }
+            }
+        }
+
+        out.printf("%d file(s), %d samples, %.1f s%n%n", files.size(), samples, duration);
+
+        int width = 7;
+        for (String name : statistics.keySet()) {
+            width = Math.max(width, name.length());
+        }
+
+        String format = "%-" + width + "s %10s %14s %14s %14s %14s%n";
+        out.printf(format, "channel", "count", "mean", "std dev", "min", "max");
+
+        for (Map.Entry<String, ChannelStatistics> entry : statistics.entrySet()) {
+            ChannelStatistics stats = entry.getValue();
+
+            out.printf(format,
+                entry.getKey(),
+                stats.getCount(),
+                String.format("%.6g", stats.getMean()),
+                String.format("%.6g", stats.getStandardDeviation()),
+                String.format("%.6g", stats.getMin()),
+                String.format("%.6g", stats.getMax())
+            );
+        }
+    }
+
+
+
+    /** indices of the channels to use */
+    private static int[] select(String[] names, Set<String> only) {
+        return IntStream.range(0, names.length)
+            .filter(i -> only == null || only.contains(names[i]))
+            .toArray();
+    }
+
+    private static String format(double value, String[] labels) {
+        if (labels != null) {
+            int i = (int) value;
+            return i >= 0 && i < labels.length ? labels[i] : "";
+        }
+
+        // integers (longs, booleans, ...) without the .0
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+
+        return Double.toString(value);
+    }
+
+    private static String quote(String s) {
+        if (s.contains(",") || s.contains("\"")) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+
+        return s;
+    }
+}